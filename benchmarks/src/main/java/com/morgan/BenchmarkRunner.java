@@ -0,0 +1,36 @@
+package com.morgan;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Point d'entrée de benchmarks.jar.
+ * Accepte les options habituelles de JMH et ajoute toujours le profileur GC :
+ * le taux d'allocation (gc.alloc.rate.norm) apparaît à côté de chaque résultat.
+ * Les JVM forkées chargent jdk.incubator.vector : les modules utilisent le chemin SIMD
+ * (ajouter -jvmArgsAppend -Dsynth.vector=false pour mesurer le chemin scalaire).
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        List<String> jvmArgs = new ArrayList<>();
+        jvmArgs.add("--add-modules=jdk.incubator.vector");
+        jvmArgs.add("-XX:MaxInlineLevel=" + BlockKernels.MIN_INLINE_LEVEL);
+        if (commandLine.getJvmArgsAppend().hasValue()) {
+            jvmArgs.addAll(commandLine.getJvmArgsAppend().get());
+        }
+        new Runner(new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .jvmArgsAppend(jvmArgs.toArray(new String[0]))
+                .build()).run();
+    }
+}
@@ -0,0 +1,36 @@
+package com.morgan;
+
+/**
+ * Source de test pour les benchmarks : rejoue en boucle un bruit précalculé,
+ * pour mesurer un module sans le coût de sa source.
+ */
+public class BufferSource implements AudioModule {
+
+    private final double[] samples = new double[4096];
+    private int position = 0;
+
+    public BufferSource(long seed) {
+        long state = seed;
+        for (int i = 0; i < samples.length; i++) {
+            state ^= state << 13;
+            state ^= state >>> 7;
+            state ^= state << 17;
+            samples[i] = (state >>> 11) * 0x1.0p-53 * 2.0 - 1.0;
+        }
+    }
+
+    @Override
+    public double tick() {
+        double sample = samples[position];
+        position = (position + 1) & (samples.length - 1);
+        return sample;
+    }
+
+    @Override
+    public void processBlock(double[] buffer, int offset, int length) {
+        for (int i = 0; i < length; i++) {
+            buffer[offset + i] = samples[position];
+            position = (position + 1) & (samples.length - 1);
+        }
+    }
+}
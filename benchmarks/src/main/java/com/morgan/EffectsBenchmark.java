@@ -0,0 +1,70 @@
+package com.morgan;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Effets du rack de sortie sur un bloc stéréo entrelacé (bruit précalculé recopié
+ * à chaque bloc) : lignes à retard sur le tas ou hors tas (ByteBuffer direct),
+ * et coût d'un effet contourné.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EffectsBenchmark {
+
+    private static final int CHANNELS = 2;
+
+    @Param({"delay", "chorus", "reverb"})
+    public String effectName;
+
+    @Param({"false", "true"})
+    public boolean offHeap;
+
+    private Effect effect;
+    private Effect bypassed;
+    private final double[] input = new double[AudioEngine.BLOCK_SIZE * CHANNELS];
+    private final double[] block = new double[AudioEngine.BLOCK_SIZE * CHANNELS];
+
+    @Setup
+    public void setup() {
+        effect = create();
+        bypassed = create();
+        bypassed.setBypassed(true);
+        new BufferSource(7).processBlock(input, 0, input.length);
+    }
+
+    private Effect create() {
+        switch (effectName) {
+            case "delay":
+                Delay delay = new Delay(44100.0, CHANNELS, offHeap);
+                delay.setTempo(120.0);
+                return delay;
+            case "chorus":
+                return new Chorus(44100.0, CHANNELS, offHeap);
+            default:
+                return new Reverb(44100.0, CHANNELS, offHeap);
+        }
+    }
+
+    /** Résultat en trames par seconde. */
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] active() {
+        System.arraycopy(input, 0, block, 0, block.length);
+        effect.process(block, 0, AudioEngine.BLOCK_SIZE, CHANNELS);
+        return block;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] bypass() {
+        System.arraycopy(input, 0, block, 0, block.length);
+        bypassed.process(block, 0, AudioEngine.BLOCK_SIZE, CHANNELS);
+        return block;
+    }
+}
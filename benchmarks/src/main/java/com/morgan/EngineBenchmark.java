@@ -0,0 +1,65 @@
+package com.morgan;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Le patch complet (AudioEngine.renderBlock) avec N voix tenues.
+ * samplesPerSecond : échantillons de sortie par seconde.
+ * nsPerVoice : temps par bloc, et (compteur voiceSamples) temps par échantillon et par voix.
+ */
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+
+    @Param({"1", "8", "16", "64"})
+    public int voices;
+
+    private AudioEngine engine;
+    private final double[] block = new double[AudioEngine.BLOCK_SIZE];
+
+    /** Compteur secondaire : normalise le résultat par échantillon et par voix. */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class VoiceCounters {
+        public long voiceSamples;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            voiceSamples = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        engine = new AudioEngine(VoicePool.MAX_VOICES);
+        // Attaque instantanée : toutes les voix restent en sustain pendant la mesure
+        engine.vcaEnv.setAttack(0.0);
+        engine.vcaEnv.setDecay(0.0);
+        for (int v = 0; v < voices; v++) {
+            engine.noteOn(36 + v, 100);
+        }
+        engine.renderBlock(block, block.length);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] samplesPerSecond() {
+        engine.renderBlock(block, block.length);
+        return block;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public double[] nsPerVoice(VoiceCounters counters) {
+        engine.renderBlock(block, block.length);
+        counters.voiceSamples += (long) block.length * voices;
+        return block;
+    }
+}
@@ -0,0 +1,66 @@
+package com.morgan;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** EnvelopeGenerator.processBlock() maintenu dans chacun de ses états. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EnvelopeBenchmark {
+
+    @Param({"IDLE", "ATTACK", "DECAY", "SUSTAIN", "RELEASE"})
+    public String state;
+
+    // Temps très longs : l'enveloppe reste dans l'état mesuré pendant tout le benchmark
+    private static final double VERY_LONG = 1.0e6;
+
+    private EnvelopeGenerator envelope;
+    private final double[] block = new double[AudioEngine.BLOCK_SIZE];
+
+    @Setup
+    public void setup() {
+        envelope = new EnvelopeGenerator(44100.0);
+        envelope.setSustain(0.5);
+        switch (state) {
+            case "ATTACK":
+                envelope.setAttack(VERY_LONG);
+                envelope.noteOn(100);
+                break;
+            case "DECAY":
+                envelope.setAttack(0.0);
+                envelope.setDecay(VERY_LONG);
+                envelope.noteOn(100);
+                envelope.processBlock(block, 0, block.length);
+                break;
+            case "SUSTAIN":
+                envelope.setAttack(0.0);
+                envelope.setDecay(0.0);
+                envelope.noteOn(100);
+                // Laisse le glissement vers le sustain se terminer
+                for (int b = 0; b < 100; b++) envelope.processBlock(block, 0, block.length);
+                break;
+            case "RELEASE":
+                envelope.setAttack(0.0);
+                envelope.setRelease(VERY_LONG);
+                envelope.noteOn(100);
+                envelope.processBlock(block, 0, block.length);
+                envelope.noteOff();
+                break;
+            default:
+                break;
+        }
+    }
+
+    /** Résultat en échantillons par seconde. */
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] processBlock() {
+        envelope.processBlock(block, 0, block.length);
+        return block;
+    }
+}
@@ -0,0 +1,52 @@
+package com.morgan;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Filter.processBlock() avec un cutoff fixe, puis balayé à chaque bloc (recalcul des coefficients),
+ * pour le filtre classique et les modes ZDF.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({"CLASSIC", "SVF_LOWPASS", "SVF_NOTCH", "LADDER"})
+    public String mode;
+
+    private Filter filter;
+    private int sweepStep = 0;
+    private final double[] block = new double[AudioEngine.BLOCK_SIZE];
+
+    @Setup
+    public void setup() {
+        filter = new Filter(44100.0);
+        filter.setInput(new BufferSource(42));
+        filter.setCutoff(2000.0);
+        filter.setResonance(0.5);
+        filter.setMode(Filter.Mode.valueOf(mode));
+    }
+
+    /** Résultat en échantillons par seconde. */
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] staticCutoff() {
+        filter.processBlock(block, 0, block.length);
+        return block;
+    }
+
+    /** Résultat en échantillons par seconde. */
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] sweptCutoff() {
+        sweepStep = (sweepStep + 1) & 63;
+        filter.setCutoff(200.0 + 8000.0 * sweepStep / 63.0);
+        filter.processBlock(block, 0, block.length);
+        return block;
+    }
+}
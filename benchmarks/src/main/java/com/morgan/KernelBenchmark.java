@@ -0,0 +1,100 @@
+package com.morgan;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BlockKernels : chemin scalaire contre chemin vectoriel (jdk.incubator.vector),
+ * sur les étages sans état (VCA, crossfade du Mixer, somme des voix, gain, conversion PCM).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class KernelBenchmark {
+
+    private static final int VOICES = 16;
+
+    @Param({"scalar", "vector"})
+    public String kernels;
+
+    private BlockKernels implementation;
+    private final double[] block = new double[AudioEngine.BLOCK_SIZE];
+    private final double[] other = new double[AudioEngine.BLOCK_SIZE];
+    // Gains en puissances de deux et leurs inverses : le bloc revient exactement à sa valeur
+    // (sans ça, les multiplications répétées finissent en nombres dénormalisés)
+    private final double[] control = new double[AudioEngine.BLOCK_SIZE];
+    private final double[] inverse = new double[AudioEngine.BLOCK_SIZE];
+    private final double[][] voiceBlocks = new double[VOICES][AudioEngine.BLOCK_SIZE];
+    private final byte[] pcm16 = new byte[AudioEngine.BLOCK_SIZE * 2];
+    private final byte[] float32 = new byte[AudioEngine.BLOCK_SIZE * 4];
+
+    @Setup
+    public void setup() {
+        implementation = "vector".equals(kernels) ? BlockKernels.vector() : BlockKernels.scalar();
+        if (implementation == null) {
+            throw new IllegalStateException("jdk.incubator.vector indisponible dans cette JVM");
+        }
+        new BufferSource(5).processBlock(block, 0, block.length);
+        new BufferSource(6).processBlock(other, 0, other.length);
+        for (int i = 0; i < control.length; i++) {
+            control[i] = Math.scalb(1.0, (i * 7) % 5 - 2);
+            inverse[i] = 1.0 / control[i];
+        }
+        for (int v = 0; v < VOICES; v++) {
+            new BufferSource(10 + v).processBlock(voiceBlocks[v], 0, AudioEngine.BLOCK_SIZE);
+        }
+    }
+
+    /** Résultats en échantillons par seconde (deux passes par invocation quand le bloc doit revenir à l'identique). */
+    @Benchmark
+    @OperationsPerInvocation(2 * AudioEngine.BLOCK_SIZE)
+    public double[] vcaMultiply() {
+        implementation.multiply(block, 0, control, 0, block.length);
+        implementation.multiply(block, 0, inverse, 0, block.length);
+        return block;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] mixerCrossfade() {
+        implementation.crossfade(block, 0, other, 0, block.length, 0.7071, 0.7071);
+        return block;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2 * AudioEngine.BLOCK_SIZE)
+    public double[] masterGain() {
+        implementation.scale(block, 0, block.length, 0.5);
+        implementation.scale(block, 0, block.length, 2.0);
+        return block;
+    }
+
+    /** Somme de 16 voix (résultat par échantillon de sortie). */
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] voiceSum() {
+        java.util.Arrays.fill(block, 0.0);
+        for (double[] voice : voiceBlocks) {
+            implementation.accumulate(block, 0, voice, 0, block.length);
+        }
+        return block;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public byte[] convertPcm16() {
+        implementation.convert(SampleFormat.PCM_16, other, other.length, pcm16, 0);
+        return pcm16;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public byte[] convertFloat32() {
+        implementation.convert(SampleFormat.FLOAT_32, other, other.length, float32, 0);
+        return float32;
+    }
+}
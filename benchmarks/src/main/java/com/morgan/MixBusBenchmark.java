@@ -0,0 +1,60 @@
+package com.morgan;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MixBus.process() : N tranches sur des sources précalculées, panoramiquées,
+ * une sur deux envoyée vers un bus auxiliaire. Coefficients fixes (cas courant)
+ * ou pan modifié à chaque bloc (recalcul + rampe).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MixBusBenchmark {
+
+    @Param({"1", "8", "32"})
+    public int strips;
+
+    @Param({"2", "8"})
+    public int channels;
+
+    private MixBus bus;
+    private MixBus.Strip first;
+    private double[] out;
+    private int block = 0;
+
+    @Setup
+    public void setup() {
+        bus = new MixBus();
+        bus.setChannels(channels);
+        for (int s = 0; s < strips; s++) {
+            MixBus.Strip strip = bus.addStrip("s" + s, new BufferSource(s + 1));
+            strip.setPan(-1.0 + 2.0 * s / Math.max(1, strips - 1));
+            strip.setGain(0.8);
+            if ((s & 1) == 0) strip.setSend(0, 0.25);
+            if (s == 0) first = strip;
+        }
+        out = new double[AudioEngine.BLOCK_SIZE * channels];
+    }
+
+    /** Résultat en trames par seconde. */
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] steady() {
+        bus.process(out, 0, AudioEngine.BLOCK_SIZE);
+        return out;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] panAutomation() {
+        first.setPan(((block++ & 63) - 32) / 32.0);
+        bus.process(out, 0, AudioEngine.BLOCK_SIZE);
+        return out;
+    }
+}
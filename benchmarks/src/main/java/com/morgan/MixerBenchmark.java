@@ -0,0 +1,34 @@
+package com.morgan;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Mixer.processBlock() sur deux sources précalculées. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MixerBenchmark {
+
+    private Mixer mixer;
+    private final double[] block = new double[AudioEngine.BLOCK_SIZE];
+
+    @Setup
+    public void setup() {
+        mixer = new Mixer();
+        mixer.setInputA(new BufferSource(1));
+        mixer.setInputB(new BufferSource(2));
+        mixer.setBlend(0.3);
+    }
+
+    /** Résultat en échantillons par seconde. */
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] processBlock() {
+        mixer.processBlock(block, 0, block.length);
+        return block;
+    }
+}
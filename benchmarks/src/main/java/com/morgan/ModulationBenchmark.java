@@ -0,0 +1,56 @@
+package com.morgan;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de la matrice de modulation par nombre de routes : évaluation seule
+ * (une fois par bloc), puis une voix complète modulée.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModulationBenchmark {
+
+    @Param({"0", "8", "32"})
+    public int routes;
+
+    private ModulationMatrix matrix;
+    private Voice voice;
+    private final double[] block = new double[AudioEngine.BLOCK_SIZE];
+
+    @Setup
+    public void setup() {
+        matrix = new ModulationMatrix(44100.0);
+        for (int slot = 0; slot < routes; slot++) {
+            matrix.setRoute(slot,
+                    ModulationMatrix.SOURCES[slot % ModulationMatrix.SOURCES.length],
+                    ModulationMatrix.DESTINATIONS[slot % ModulationMatrix.DESTINATIONS.length],
+                    0.1);
+        }
+
+        voice = new Voice(44100.0);
+        voice.applyPatch(new Oscillator(44100.0), new Oscillator(44100.0), new Mixer(44100.0),
+                new Filter(44100.0), new EnvelopeGenerator(44100.0), matrix);
+        voice.start(60, 100, 0);
+    }
+
+    /** Évaluation des routes d'une voix : résultat en blocs par seconde. */
+    @Benchmark
+    public void evaluate() {
+        voice.modulate(matrix.routing(), block.length, 0.5, 0.5);
+    }
+
+    /** Voix entière modulée : résultat en échantillons par seconde. */
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] voice() {
+        voice.modulate(matrix.routing(), block.length, 0.5, 0.5);
+        voice.processBlock(block, 0, block.length);
+        return block;
+    }
+}
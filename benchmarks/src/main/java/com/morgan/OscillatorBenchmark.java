@@ -0,0 +1,40 @@
+package com.morgan;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** Oscillator.processBlock() pour chaque forme d'onde, en mode table d'ondes et en mode calculé. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OscillatorBenchmark {
+
+    @Param({"SINE", "SQUARE", "SAWTOOTH", "TRIANGLE", "NOISE"})
+    public Oscillator.Waveform waveform;
+
+    @Param({"true", "false"})
+    public boolean wavetable;
+
+    private Oscillator oscillator;
+    private final double[] block = new double[AudioEngine.BLOCK_SIZE];
+
+    @Setup
+    public void setup() {
+        oscillator = new Oscillator(44100.0);
+        oscillator.setWaveform(waveform);
+        oscillator.wavetable = wavetable;
+        oscillator.setBaseFrequency(440.0);
+    }
+
+    /** Résultat en échantillons par seconde. */
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] processBlock() {
+        oscillator.processBlock(block, 0, block.length);
+        return block;
+    }
+}
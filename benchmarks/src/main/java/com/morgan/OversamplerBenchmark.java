@@ -0,0 +1,56 @@
+package com.morgan;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût du suréchantillonnage par facteur : Filter seul dans un Oversampler,
+ * puis une voix complète (le cas "filtre suréchantillonné dans chaque voix").
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OversamplerBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int factor;
+
+    private Oversampler oversampledFilter;
+    private Voice voice;
+    private final double[] block = new double[AudioEngine.BLOCK_SIZE];
+
+    @Setup
+    public void setup() {
+        Filter filter = new Filter(44100.0);
+        filter.setCutoff(2000.0);
+        filter.setResonance(0.7);
+        oversampledFilter = new Oversampler(44100.0, factor);
+        oversampledFilter.setInput(new BufferSource(42));
+        filter.setInput(oversampledFilter.getFeed());
+        oversampledFilter.wrap(filter);
+
+        voice = new Voice(44100.0);
+        voice.setFilterOversampling(factor);
+        voice.start(60, 100, 0);
+    }
+
+    /** Résultat en échantillons (au taux de base) par seconde. */
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] filter() {
+        oversampledFilter.processBlock(block, 0, block.length);
+        return block;
+    }
+
+    /** Voix entière (oscillateurs, mixer, filtre, VCA) : résultat en échantillons par seconde. */
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] voice() {
+        voice.processBlock(block, 0, block.length);
+        return block;
+    }
+}
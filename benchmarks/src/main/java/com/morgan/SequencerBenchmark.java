@@ -0,0 +1,55 @@
+package com.morgan;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût du séquenceur par bloc selon le nombre de pistes et l'avance de rendu :
+ * un bloc (rendu à chaque pas) ou une mesure (rendu par paquets, presque tous les blocs
+ * ne font que déverser les tampons). Résultat en blocs par seconde.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SequencerBenchmark {
+
+    @Param({"1", "100", "500"})
+    public int tracks;
+
+    @Param({"128", "88200"}) // Un bloc, une mesure à 120 BPM
+    public int lookahead;
+
+    private StepSequencer sequencer;
+    private final EventScheduler scheduler = new EventScheduler(StepSequencer.LOOKAHEAD_CAPACITY);
+    private long blockStart = 0;
+
+    @Setup
+    public void setup() {
+        sequencer = new StepSequencer(new AudioEngine());
+        for (int t = 1; t < tracks; t++) {
+            Pattern pattern = new Pattern(16);
+            for (int step = 0; step < 16; step++) {
+                pattern.setStep(step, step % 7, (step + t) % 3 != 0, 90, 0.5, 1.0, 1);
+            }
+            SequencerTrack track = new SequencerTrack(pattern);
+            track.channel = t % 16;
+            sequencer.addTrack(track);
+        }
+        sequencer.setLookahead(lookahead);
+        sequencer.start();
+    }
+
+    @Benchmark
+    public int block() {
+        long blockEnd = blockStart + AudioEngine.BLOCK_SIZE;
+        sequencer.scheduleBlock(blockStart, blockEnd, scheduler);
+        blockStart = blockEnd;
+        int pending = scheduler.getPendingCount();
+        scheduler.clear(); // Le moteur aurait appliqué ces notes pendant le rendu du bloc
+        return pending;
+    }
+}
@@ -0,0 +1,33 @@
+package com.morgan;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** VCA.processBlock() : audio et contrôle venant de sources précalculées. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VcaBenchmark {
+
+    private VCA vca;
+    private final double[] block = new double[AudioEngine.BLOCK_SIZE];
+
+    @Setup
+    public void setup() {
+        vca = new VCA();
+        vca.setAudioInput(new BufferSource(3));
+        vca.setControlInput(new BufferSource(4));
+    }
+
+    /** Résultat en échantillons par seconde. */
+    @Benchmark
+    @OperationsPerInvocation(AudioEngine.BLOCK_SIZE)
+    public double[] processBlock() {
+        vca.processBlock(block, 0, block.length);
+        return block;
+    }
+}
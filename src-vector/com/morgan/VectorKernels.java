@@ -0,0 +1,111 @@
+package com.morgan;
+
+import java.nio.ByteOrder;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implémentation SIMD des BlockKernels (jdk.incubator.vector).
+ * Ne jamais référencer directement : chargée par réflexion via BlockKernels.get(),
+ * pour que le synthé tourne aussi sans --add-modules jdk.incubator.vector.
+ *
+ * Le calcul reste en double (les modules travaillent en double) ; seule la
+ * conversion de sortie FLOAT_32 passe par des lanes float.
+ */
+final class VectorKernels implements BlockKernels {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    // Même nombre de lanes que DOUBLES, pour la conversion en float 32 bits
+    private static final VectorSpecies<Float> FLOATS = floatSpecies();
+
+    @Override
+    public void multiply(double[] dst, int dstOffset, double[] src, int srcOffset, int length) {
+        int i = 0;
+        for (int upper = DOUBLES.loopBound(length); i < upper; i += DOUBLES.length()) {
+            DoubleVector a = DoubleVector.fromArray(DOUBLES, dst, dstOffset + i);
+            DoubleVector b = DoubleVector.fromArray(DOUBLES, src, srcOffset + i);
+            a.mul(b).intoArray(dst, dstOffset + i);
+        }
+        for (; i < length; i++) {
+            dst[dstOffset + i] *= src[srcOffset + i];
+        }
+    }
+
+    @Override
+    public void scale(double[] buffer, int offset, int length, double gain) {
+        int i = 0;
+        for (int upper = DOUBLES.loopBound(length); i < upper; i += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, buffer, offset + i).mul(gain).intoArray(buffer, offset + i);
+        }
+        for (; i < length; i++) {
+            buffer[offset + i] *= gain;
+        }
+    }
+
+    @Override
+    public void crossfade(double[] dst, int dstOffset, double[] src, int srcOffset, int length,
+                          double gainA, double gainB) {
+        int i = 0;
+        for (int upper = DOUBLES.loopBound(length); i < upper; i += DOUBLES.length()) {
+            DoubleVector a = DoubleVector.fromArray(DOUBLES, dst, dstOffset + i);
+            DoubleVector b = DoubleVector.fromArray(DOUBLES, src, srcOffset + i);
+            a.mul(gainA).add(b.mul(gainB)).intoArray(dst, dstOffset + i);
+        }
+        for (; i < length; i++) {
+            dst[dstOffset + i] = (dst[dstOffset + i] * gainA) + (src[srcOffset + i] * gainB);
+        }
+    }
+
+    @Override
+    public void accumulate(double[] dst, int dstOffset, double[] src, int srcOffset, int length) {
+        int i = 0;
+        for (int upper = DOUBLES.loopBound(length); i < upper; i += DOUBLES.length()) {
+            DoubleVector a = DoubleVector.fromArray(DOUBLES, dst, dstOffset + i);
+            DoubleVector b = DoubleVector.fromArray(DOUBLES, src, srcOffset + i);
+            a.add(b).intoArray(dst, dstOffset + i);
+        }
+        for (; i < length; i++) {
+            dst[dstOffset + i] += src[srcOffset + i];
+        }
+    }
+
+    /**
+     * FLOAT_32 : clamp + conversion double → float + écriture little-endian en SIMD.
+     * PCM 16/24 bits restent scalaires : les conversions double → entier de l'API
+     * ne sont pas compilées en instructions vectorielles sur JDK 17 (plus lent que la boucle simple).
+     */
+    @Override
+    public void convert(SampleFormat format, double[] src, int count, byte[] dst, int dstOffset) {
+        int done = (format == SampleFormat.FLOAT_32 && FLOATS != null) ? convertFloat32(src, count, dst, dstOffset) : 0;
+        format.convertScalar(src, done, count - done, dst, dstOffset + done * format.bytesPerSample());
+    }
+
+    private static int convertFloat32(double[] src, int count, byte[] dst, int dstOffset) {
+        int i = 0;
+        int j = dstOffset;
+        for (int upper = DOUBLES.loopBound(count); i < upper; i += DOUBLES.length(), j += 4 * DOUBLES.length()) {
+            DoubleVector v = DoubleVector.fromArray(DOUBLES, src, i).max(-1.0).min(1.0);
+            FloatVector f = (FloatVector) v.convertShape(VectorOperators.D2F, FLOATS, 0);
+            f.intoByteArray(dst, j, ByteOrder.LITTLE_ENDIAN);
+        }
+        return i;
+    }
+
+    // Autant de floats que de doubles par vecteur, ou null si cette forme n'existe pas
+    private static VectorSpecies<Float> floatSpecies() {
+        try {
+            return VectorSpecies.of(float.class, VectorShape.forBitSize(DOUBLES.length() * 32));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "vector (" + DOUBLES.length() + " x double)";
+    }
+}
@@ -0,0 +1,214 @@
+package com.morgan;
+
+import java.lang.management.CompilationMXBean;
+import java.lang.management.ManagementFactory;
+
+/**
+ * Diagnostic "zéro allocation" du chemin de rendu.
+ * Joue un scénario chargé sur le thread courant (notes, vol de voix, séquenceur multipiste aléatoire
+ * avec ratchets, probabilités et chaînes de patterns, arrêts et relances,
+ * changements de paramètres en rampe, toutes les formes d'onde, tous les modes de filtre
+ * et facteurs de suréchantillonnage, 32 routes de modulation, conversions de sortie,
+ * remplacement du graphe de patch, changements de preset en continu depuis un autre thread,
+ * sortie stéréo avec écartement des voix, panoramique en rampe et bus auxiliaire à effet,
+ * rack d'effets activé et contourné tour à tour), puis mesure avec ThreadMXBean les octets alloués
+ * par ce thread sur des milliers de blocs. Code de sortie 1 si le compte n'est pas nul.
+ *
+ * Usage : java -cp synth-modulaire.jar com.morgan.AllocationGuard [blocs]
+ */
+public class AllocationGuard {
+
+    private static final int WARMUP_BLOCKS = 20000; // Laisse le JIT compiler tout le chemin
+    private static final int MAX_WARMUP_ROUNDS = 40;
+    private static final int DEFAULT_BLOCKS = 10000;
+    private static final int[] CONTROLS = {
+            ParameterIds.FILTER_CUTOFF, ParameterIds.FILTER_RESONANCE, ParameterIds.MASTER_VOLUME,
+            ParameterIds.MIXER_BLEND, ParameterIds.ENVELOPE_ATTACK, ParameterIds.ENVELOPE_HOLD,
+            ParameterIds.ENVELOPE_DECAY, ParameterIds.ENVELOPE_SUSTAIN, ParameterIds.ENVELOPE_RELEASE,
+            ParameterIds.ENVELOPE_VELOCITY, ParameterIds.OSC1_PITCH, ParameterIds.OSC2_PITCH,
+            ParameterIds.AFTERTOUCH, ParameterIds.MOD_WHEEL, ParameterIds.LFO1_RATE, ParameterIds.LFO2_RATE,
+            ParameterIds.MODENV_ATTACK, ParameterIds.MODENV_DECAY, ParameterIds.VOICE_PAN_SPREAD,
+            ParameterIds.MAIN_PAN, ParameterIds.DELAY_FEEDBACK, ParameterIds.DELAY_MIX, ParameterIds.CHORUS_RATE,
+            ParameterIds.CHORUS_DEPTH, ParameterIds.REVERB_SIZE, ParameterIds.REVERB_MIX
+    };
+    private static final int MODULATION_ROUTES = 32;
+    private static final int CHANNELS = 2;
+    private static final Oscillator.Waveform[] WAVEFORMS = Oscillator.Waveform.values();
+    private static final SampleFormat[] FORMATS = SampleFormat.values();
+    private static final Filter.Mode[] FILTER_MODES = Filter.Mode.values();
+    private static final Lfo.Shape[] LFO_SHAPES = Lfo.Shape.values();
+
+    private final AudioEngine engine = new AudioEngine();
+    private final StepSequencer sequencer = new StepSequencer(engine);
+    private final ControlQueue queue = engine.createControlQueue();
+    private final double[] block = new double[AudioEngine.BLOCK_SIZE * CHANNELS];
+    private final byte[] bytes = new byte[AudioEngine.BLOCK_SIZE * CHANNELS * 4];
+    private int filterNode;
+    private final XorShiftRandom random = new XorShiftRandom(1234L);
+
+    public static void main(String[] args) throws InterruptedException {
+        int blocks = (args.length > 0) ? Integer.parseInt(args[0]) : DEFAULT_BLOCKS;
+        AllocationGuard guard = new AllocationGuard();
+        guard.setUp();
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            System.err.println("Mesure des allocations par thread non supportée par cette JVM");
+            System.exit(2);
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        // Échauffement, prolongé tant que le JIT compile encore : une désoptimisation pendant la mesure
+        // repasse un instant par du code moins optimisé, qui alloue ce que C2 avait supprimé
+        CompilationMXBean jit = ManagementFactory.getCompilationMXBean();
+        guard.run(WARMUP_BLOCKS);
+        for (int round = 0; round < MAX_WARMUP_ROUNDS; round++) {
+            long compiling = jit.getTotalCompilationTime();
+            guard.run(WARMUP_BLOCKS / 4);
+            if (jit.getTotalCompilationTime() == compiling) break;
+        }
+
+        // Coût propre de la mesure (soustrait du résultat)
+        long probe = threads.getCurrentThreadAllocatedBytes();
+        long overhead = threads.getCurrentThreadAllocatedBytes() - probe;
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        guard.run(blocks);
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before - overhead;
+
+        System.out.println("Opérations de bloc : " + BlockKernels.get().name());
+        System.out.println(blocks + " blocs de " + AudioEngine.BLOCK_SIZE + " échantillons : "
+                + allocated + " octets alloués sur le thread audio");
+        if (allocated > 0) {
+            System.out.println("ÉCHEC : le chemin de rendu alloue");
+            System.exit(1);
+        }
+        System.out.println("OK : aucune allocation");
+    }
+
+    private void setUp() throws InterruptedException {
+        engine.setSequencer(sequencer);
+        engine.setOutputChannels(CHANNELS);
+        MixBus.Aux aux = engine.bus.getAux(0);
+        aux.setEffect(new Reverb(engine.SAMPLE_RATE, 1, true)); // Lignes hors tas
+        aux.getReturn().setPan(-0.5);
+        engine.mainStrip.setSend(0, 0.3);
+        sequencer.bpm = 480.0;
+        sequencer.randomNotes = true;
+        sequencer.randomRhythm = true;
+        addTracks();
+        sequencer.start();
+
+        // Le graphe est modifié et recompilé par un thread de contrôle (qui, lui, a le droit d'allouer) ;
+        // le thread audio ne fait qu'installer le nouveau plan.
+        Thread control = new Thread(() -> {
+            filterNode = engine.patch.addModule(new Filter(engine.SAMPLE_RATE));
+            engine.patch.connect(engine.voicesNode, filterNode, 0);
+            engine.patch.setOutput(filterNode);
+            engine.patch.compile();
+
+            // Toutes les sources vers toutes les destinations, profondeurs modestes
+            for (int slot = 0; slot < MODULATION_ROUTES; slot++) {
+                engine.modulation.setRoute(slot,
+                        ModulationMatrix.SOURCES[slot % ModulationMatrix.SOURCES.length],
+                        ModulationMatrix.DESTINATIONS[slot % ModulationMatrix.DESTINATIONS.length],
+                        ((slot & 1) == 0) ? 0.2 : -0.1);
+            }
+        });
+        control.start();
+        control.join();
+
+        // Deux presets échangés en boucle par un thread de contrôle : seul leur application
+        // (début de bloc, thread audio) entre dans la mesure. Le graphe alterne aussi entre
+        // voix + filtre (sortie mono panoramiquée) et voix seules (rendu multicanal des voix).
+        Preset first = Preset.capture(engine, "A");
+        Preset second = Preset.capture(engine, "B");
+        second.parameters[ParameterIds.FILTER_MODE] = Filter.Mode.LADDER.ordinal();
+        second.parameters[ParameterIds.OSC1_WAVEFORM] = Oscillator.Waveform.SQUARE.ordinal();
+        second.bpm = 300.0;
+        for (int slot = 0; slot < MODULATION_ROUTES; slot += 2) {
+            second.routeSources[slot] = -1;
+        }
+        Thread presets = new Thread(() -> {
+            try {
+                for (long i = 0; ; i++) {
+                    engine.loadPreset(((i & 1) == 0) ? first : second);
+                    if (i % 16 == 0) {
+                        engine.patch.setOutput(((i / 16) & 1) == 0 ? filterNode : engine.voicesNode);
+                        engine.patch.compile();
+                    }
+                    Thread.sleep(2);
+                }
+            } catch (InterruptedException e) {
+                // Fin du diagnostic
+            }
+        }, "presets");
+        presets.setDaemon(true);
+        presets.start();
+    }
+
+    // Pistes supplémentaires : longueurs impaires, ratchets, probabilités, chaîne de patterns, autres canaux
+    private void addTracks() {
+        for (int t = 1; t <= 8; t++) {
+            Pattern a = new Pattern(5 + t);
+            Pattern b = new Pattern(32);
+            b.stepsPerBeat = 3;
+            for (int step = 0; step < b.capacity(); step++) {
+                if (step < a.capacity()) {
+                    a.setStep(step, step - 3, (step % 3) != 1, 20 + 10 * step, 0.25 + 0.1 * (step % 7), 0.5, 1 + step % 4);
+                }
+                b.setStep(step, -step, true, 100, 1.0, (step % 2 == 0) ? 1.0 : 0.3, Pattern.MAX_RATCHETS - step % 8);
+            }
+            SequencerTrack track = new SequencerTrack(a, b);
+            track.channel = t;
+            track.randomNotes = (t % 3) == 0;
+            sequencer.addTrack(track);
+        }
+    }
+
+    // Un bloc = quelques commandes comme en jeu réel, puis rendu + conversion de sortie.
+    // Cycle de 256 blocs : notes tenues (vol de la plus ancienne), relâchement général,
+    // puis notes courtes (vol des voix en release) : toutes les branches sont chaudes dès l'échauffement,
+    // aucune désoptimisation du JIT ne vient fausser la mesure. Le bloc est une méthode à part :
+    // compilée pendant l'échauffement, sans dépendre d'une compilation OSR de la boucle pendant la mesure.
+    private void run(int blocks) {
+        for (int b = 0; b < blocks; b++) {
+            playBlock(b);
+        }
+    }
+
+    private void playBlock(int b) {
+        int cycle = b & 255;
+        queue.noteOn(36 + random.nextInt(48), 1 + random.nextInt(127));
+        if (cycle == 128) {
+            for (int note = 36; note < 84; note++) queue.noteOff(note);
+        } else if (cycle > 128) {
+            queue.noteOff(36 + random.nextInt(48));
+        }
+        queue.control(CONTROLS[b % CONTROLS.length], random.nextInt(128));
+        if (cycle == 200) {
+            sequencer.stop();
+        } else if (cycle == 210) {
+            sequencer.start();
+        }
+        if (b % 64 == 0) {
+            queue.parameter(ParameterIds.OSC1_WAVEFORM, (b / 64) % WAVEFORMS.length);
+            queue.parameter(ParameterIds.OSC2_WAVETABLE, (b / 128) % 2);
+            queue.parameter(ParameterIds.OSC1_INTERPOLATION, (b / 256) % 2);
+            queue.parameter(ParameterIds.OSC2_OCTAVE, (b / 64) % 5 - 2);
+            queue.parameter(ParameterIds.FILTER_MODE, (b / 64) % FILTER_MODES.length);
+            queue.parameter(ParameterIds.FILTER_OVERSAMPLING, (b / 128) % Oversampler.FACTORS.length);
+            queue.parameter(ParameterIds.LFO1_SHAPE, (b / 64) % LFO_SHAPES.length);
+            queue.parameter(ParameterIds.LFO2_SHAPE, (b / 128) % LFO_SHAPES.length);
+            engine.mainStrip.setSend(0, (b / 64) % 3 * 0.2);
+            queue.parameter(ParameterIds.CHORUS_ENABLED, (b / 64) % 2);
+            queue.parameter(ParameterIds.DELAY_ENABLED, (b / 128) % 2);
+            queue.parameter(ParameterIds.DELAY_DIVISION, (b / 64) % Delay.DIVISIONS.length);
+            queue.parameter(ParameterIds.REVERB_ENABLED, ((b / 64) % 4 != 0) ? 1 : 0);
+        }
+
+        engine.renderBlock(block, AudioEngine.BLOCK_SIZE);
+        FORMATS[b % FORMATS.length].convert(block, block.length, bytes, 0);
+    }
+}
@@ -1,180 +1,608 @@
 package com.morgan;
 
-import javax.sound.sampled.*;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class AudioEngine implements Runnable {
 
     public final float SAMPLE_RATE = 44100.0f;
-    private SourceDataLine line;
-
-    // --- MODULES PUBLICS (pour GUI et mapping) ---
+    // Taille de bloc par défaut (en échantillons) : 128 échantillons = 256 bytes en 16 bits mono
+    // (la période réelle de la sortie est réglable via OutputConfig)
+    public static final int BLOCK_SIZE = 128;
+
+    // values() alloue une copie à chaque appel : copies uniques pour le thread audio
+    private static final Oscillator.Waveform[] WAVEFORMS = Oscillator.Waveform.values();
+    private static final Oscillator.Interpolation[] INTERPOLATIONS = Oscillator.Interpolation.values();
+    private static final Filter.Mode[] FILTER_MODES = Filter.Mode.values();
+    private static final Lfo.Shape[] LFO_SHAPES = Lfo.Shape.values();
+    // Opérations de bloc (SIMD si jdk.incubator.vector est chargé)
+    private static final BlockKernels KERNELS = BlockKernels.get();
+
+    // Nombre de voix par défaut (configurable entre 8 et 64)
+    public static final int DEFAULT_VOICE_COUNT = 16;
+
+    // --- PATCH COURANT (modules "modèles" pour GUI et mapping) ---
+    // Ces modules ne sont pas rendus directement : chaque voix recopie leurs réglages.
     public Oscillator osc1;
     public Oscillator osc2;
     public Mixer mixer;
     public Filter filter;
     public EnvelopeGenerator vcaEnv;
-    private VCA vca; // VCA reste interne
+    public volatile int filterOversampling = 1; // Suréchantillonnage du filtre des voix (1, 2, 4, 8)
+    public final ModulationMatrix modulation;    // Routes, LFO et enveloppe de modulation (recopiés par les voix)
+
+    // --- PARAMÈTRES (identifiants stables) + TABLE DES CC MIDI [canal][cc] ---
+    public final ParameterRegistry parameters = new ParameterRegistry();
+    public final ControlMap controlMap = new ControlMap();
+    // Preset préparé par un thread de contrôle, appliqué par le thread audio au début du bloc suivant
+    private final AtomicReference<Preset> pendingPreset = new AtomicReference<>();
+    private volatile long appliedPresets = 0; // Presets appliqués par le thread audio (la GUI s'y resynchronise)
+
+    // --- POLYPHONIE ---
+    public final VoicePool voices;
+
+    // --- GRAPHE DE SORTIE (modules ajoutés à chaud après les voix) ---
+    public final PatchGraph patch = new PatchGraph();
+    public final int voicesNode;
+
+    // --- BUS DE MIXAGE (tranche "main" = graphe de sortie ; mono, stéréo ou N canaux) ---
+    public final MixBus bus = new MixBus();
+    public final MixBus.Strip mainStrip;
+
+    // --- RACK D'EFFETS (sortie du bus, avant le volume master ; contournés par défaut) ---
+    public static final int EFFECT_CHANNELS = 2;  // Effets stéréo : au-delà, les canaux passent secs
+    public final EffectsRack effects = new EffectsRack();
+    public final Chorus chorus;
+    public final Delay delay;
+    public final Reverb reverb;
 
-    private AudioModule masterOutput;
     public volatile double masterVolume = 0.8;
+    private final SmoothedValue masterGain = new SmoothedValue(0.8, SmoothedValue.Ramp.LINEAR, SAMPLE_RATE);
+
+    // --- FILES DE COMMANDES (une par thread de contrôle, vidées à chaque bloc) ---
+    private volatile ControlQueue[] controlQueues = new ControlQueue[0];
 
-    // --- ÉTAT MONOPHONIQUE : Seul currentNote est nécessaire pour la priorité ---
-    private int currentNote = 60; // Note MIDI actuellement jouée
+    // --- HORLOGE ÉCHANTILLON + ÉVÉNEMENTS DATÉS ---
+    private final EventScheduler scheduler = new EventScheduler();
+    private long samplePosition = 0;                 // Échantillons rendus depuis le démarrage
+    private volatile long publishedBlockStart = 0;   // Début du dernier bloc rendu (lu par les autres threads)
+    private volatile long publishedBlockNanos = System.nanoTime();
+    private volatile StepSequencer sequencer;
+
+    // --- SORTIE AUDIO (période, nombre de périodes, format) + télémétrie ---
+    private volatile OutputConfig outputConfig = new OutputConfig();
+    private volatile AudioSink sink = null;                  // null = ligne Java Sound
+    private volatile long stopPosition = Long.MAX_VALUE;     // Fin du rendu (en échantillons)
+    private final OutputStats outputStats = new OutputStats();
+    private final RenderMetrics renderMetrics = new RenderMetrics();
 
 
     // ============================================================
     //  CONSTRUCTEUR : INITIALISATION + PATCHING
     // ============================================================
     public AudioEngine() {
+        this(DEFAULT_VOICE_COUNT);
+    }
 
-        // 1. Initialisation des modules
+    public AudioEngine(int voiceCount) {
+
+        // 1. Initialisation du patch
         osc1   = new Oscillator(SAMPLE_RATE);
         osc2   = new Oscillator(SAMPLE_RATE);
-        mixer  = new Mixer();
+        mixer  = new Mixer(SAMPLE_RATE);
         filter = new Filter(SAMPLE_RATE);
         vcaEnv = new EnvelopeGenerator(SAMPLE_RATE);
-        vca    = new VCA();
-
-        // 2. PATCHING AUDIO (ordre : osc → mixer → filter → VCA → master)
-        mixer.setInputA(osc1);
-        mixer.setInputB(osc2);
-
-        filter.setInput(mixer);
+        modulation = new ModulationMatrix(SAMPLE_RATE);
 
-        vca.setAudioInput(filter);
-        vca.setControlInput(vcaEnv);
-
-        masterOutput = vca;
-
-        // 3. Paramètres par défaut
+        // 2. Paramètres par défaut
         osc1.setWaveform(Oscillator.Waveform.SAWTOOTH);
         osc2.setWaveform(Oscillator.Waveform.SINE);
         osc2.octave = -1;
+        osc2.updateFrequency();
 
         mixer.setBlend(0.5);
 
-        vcaEnv.attackTime = 0.02;
-        vcaEnv.releaseTime = 0.2;
+        vcaEnv.setAttack(0.02);
+        vcaEnv.setDecay(0.3);
+        vcaEnv.setSustain(0.7);
+        vcaEnv.setRelease(0.2);
+        vcaEnv.setVelocitySensitivity(0.5);
+
+        // 3. Voix préallouées, clonées depuis le patch (chaîne osc → mixer → filter → VCA)
+        voices = new VoicePool(voiceCount, SAMPLE_RATE, osc1, osc2, mixer, filter, vcaEnv, modulation);
+
+        // 4. Graphe de sortie : les voix en sont le premier nœud (et la sortie par défaut)
+        patch.setMetrics(renderMetrics);
+        voicesNode = patch.addModule(voices);
+        patch.setOutput(voicesNode);
+        patch.compile();
+
+        // 5. Bus de sortie : le graphe en est la première tranche (aux et autres tranches au besoin)
+        mainStrip = bus.addStrip("main", patch);
+
+        // 6. Rack d'effets : chorus → délai → réverbération, tous contournés au départ
+        chorus = new Chorus(SAMPLE_RATE, EFFECT_CHANNELS);
+        delay = new Delay(SAMPLE_RATE, EFFECT_CHANNELS);
+        reverb = new Reverb(SAMPLE_RATE, EFFECT_CHANNELS);
+        for (Effect effect : new Effect[] {chorus, delay, reverb}) {
+            effect.setBypassed(true);
+            effects.add(effect);
+        }
+
+        // 7. Registre des paramètres et mappings CC par défaut (tous canaux)
+        registerParameters();
+        controlMap.assignAllChannels(74, parameters.get(ParameterIds.FILTER_CUTOFF));
+        controlMap.assignAllChannels(71, parameters.get(ParameterIds.FILTER_RESONANCE));
+        controlMap.assignAllChannels(7, parameters.get(ParameterIds.MASTER_VOLUME));
+        // CC1 reste libre : la molette non assignée alimente la matrice de modulation (MidiReceiver)
+    }
+
+
+    /**
+     * Durée des rampes de lissage (pitch, blend, cutoff, résonance, volume master).
+     * 0 = changements instantanés. À appeler avant le démarrage du thread audio.
+     */
+    public void setSmoothingTime(double seconds) {
+        osc1.setSmoothingTime(seconds);
+        osc2.setSmoothingTime(seconds);
+        mixer.setSmoothingTime(seconds);
+        filter.setSmoothingTime(seconds);
+        voices.setSmoothingTime(seconds);
+        masterGain.setRampTime(seconds, SAMPLE_RATE);
+    }
+
+    /**
+     * Suréchantillonnage du filtre de chaque voix (1 = désactivé, 2, 4 ou 8).
+     * À appeler avant le démarrage du thread audio ; ensuite via le paramètre "filter.oversampling".
+     */
+    public void setFilterOversampling(int factor) {
+        voices.setFilterOversampling(factor);
+        filterOversampling = factor;
+    }
+
+    /**
+     * Mode de rendu parallèle (optionnel) : les voix sont réparties sur
+     * 'workerThreads' threads de rendu en plus du thread audio. 0 = désactivé.
+     */
+    public void setParallelRendering(int workerThreads) {
+        voices.setParallelism(workerThreads);
+    }
+
+    /**
+     * Nombre de canaux rendus par renderBlock() (1 = mono, 2 = stéréo, jusqu'à MixBus.MAX_CHANNELS).
+     * À appeler avant le démarrage du thread audio ; run() prend celui de l'OutputConfig.
+     */
+    public void setOutputChannels(int channels) {
+        bus.setChannels(channels);
+    }
+
+    public int getOutputChannels() {
+        return bus.getChannels();
     }
 
 
     // ============================================================
-    //  THREAD AUDIO
+    //  FILES DE COMMANDES (GUI, MIDI, SÉQUENCEUR → THREAD AUDIO)
     // ============================================================
-    @Override
-    public void run() {
-        try {
-            AudioFormat format = new AudioFormat(SAMPLE_RATE, 16, 1, true, false);
-            line = AudioSystem.getSourceDataLine(format);
-            // Buffer de 1024 bytes (compromis stable)
-            line.open(format, 1024);
-            line.start();
-
-            byte[] buffer = new byte[256];
-
-            while (true) {
-                for (int i = 0; i < buffer.length; i += 2) {
-
-                    // sortie finale
-                    double sample = masterOutput.tick() * masterVolume;
-
-                    short pcm = (short) (sample * Short.MAX_VALUE);
-                    buffer[i]     = (byte) (pcm & 0xFF);
-                    buffer[i + 1] = (byte) ((pcm >> 8) & 0xFF);
-                }
-                line.write(buffer, 0, buffer.length);
-            }
+    /**
+     * Crée une file de commandes pour un thread de contrôle.
+     * Chaque thread producteur doit avoir sa propre file (un seul producteur par file).
+     * Le verrou ne concerne que les threads de contrôle : le thread audio
+     * se contente de lire le tableau volatile.
+     */
+    public synchronized ControlQueue createControlQueue() {
+        ControlQueue queue = new ControlQueue();
+        ControlQueue[] previous = controlQueues;
+        ControlQueue[] updated = new ControlQueue[previous.length + 1];
+        System.arraycopy(previous, 0, updated, 0, previous.length);
+        updated[previous.length] = queue;
+        controlQueues = updated;
+        return queue;
+    }
 
-        } catch (LineUnavailableException e) {
-            throw new RuntimeException("Erreur ligne audio", e);
+    /** Appelé par l'EventScheduler sur le thread audio, à la date de l'événement. */
+    void applyCommand(int type, int data1, int data2, double value) {
+        switch (type) {
+            case ControlQueue.NOTE_ON:
+                voices.noteOn((int) value, data1, data2);
+                break;
+            case ControlQueue.NOTE_OFF:
+                voices.noteOff((int) value, data1);
+                break;
+            case ControlQueue.CONTROL:
+                handleMappedControl(data1, data2);
+                break;
+            case ControlQueue.PARAMETER:
+                setParameter(data1, value);
+                break;
+            default:
+                break;
         }
     }
 
 
     // ============================================================
-    //  NOTE ON / NOTE OFF (LOGIQUE MONO CORRIGÉE)
+    //  RENDU D'UN BLOC (thread audio uniquement)
     // ============================================================
-    public void noteOn(int note, int velocity) {
+    /**
+     * Rend 'frames' trames (volume master inclus) dans out[0 .. frames * getOutputChannels()[,
+     * canaux entrelacés. Le bloc est découpé aux dates des événements programmés : chaque note
+     * ou CC s'applique à l'échantillon exact.
+     */
+    public void renderBlock(double[] out, int frames) {
+        final long blockStart = samplePosition;
+        final long blockEnd = blockStart + frames;
+        final long renderStart = System.nanoTime();
+        publishedBlockNanos = renderStart;
+        publishedBlockStart = blockStart;
+
+        // 0. Changement de preset : appliqué d'un bloc, avant les commandes en attente
+        Preset preset = pendingPreset.getAndSet(null);
+        if (preset != null) {
+            applyPreset(preset);
+        }
+
+        // 1. Les commandes des threads de contrôle rejoignent l'ordonnanceur
+        for (ControlQueue queue : controlQueues) {
+            queue.drainTo(scheduler);
+        }
 
-        // --- NOUVEAU : Toujours prendre la note la plus récente (Priorité Dernière Note) ---
-        currentNote = note;
+        // 2. Le séquenceur programme les pas qui tombent dans ce bloc (horloge échantillon)
+        StepSequencer seq = sequencer;
+        if (seq != null) {
+            seq.scheduleBlock(blockStart, blockEnd, scheduler);
+        }
 
-        double freq = midiToFrequency(currentNote);
-        osc1.setBaseFrequency(freq);
-        osc2.setBaseFrequency(freq);
+        // 3. Rendu par segments entre deux événements
+        int position = 0;
+        while (position < frames) {
+            scheduler.dispatchUntil(blockStart + position, this);
+            long next = scheduler.nextTime();
+            int segmentEnd = (next < blockEnd) ? (int) (next - blockStart) : frames;
+            bus.process(out, position, segmentEnd - position);
+            position = segmentEnd;
+        }
+        samplePosition = blockEnd;
+
+        // Effets de sortie (le délai suit le tempo du séquenceur)
+        final int channels = bus.getChannels();
+        effects.process(out, frames, channels, (seq != null) ? seq.tempo() : EffectsRack.DEFAULT_TEMPO);
+
+        // Volume master lissé : pas de clic quand le potard bouge
+        masterGain.setTarget(masterVolume);
+        if (masterGain.isSmoothing()) {
+            for (int i = 0, o = 0; i < frames; i++) {
+                final double gain = masterGain.next();
+                for (int c = 0; c < channels; c++) out[o++] *= gain;
+            }
+        } else {
+            KERNELS.scale(out, 0, frames * channels, masterGain.getCurrent());
+        }
 
-        // --- NOUVEAU : Toujours déclencher l'attaque (Permet le re-trigger de la même note) ---
-        vcaEnv.noteOn();
+        // 4. Charge DSP : temps de calcul rapporté à la durée du bloc
+        renderMetrics.blockRendered(System.nanoTime() - renderStart,
+                (long) (frames * 1.0e9 / SAMPLE_RATE), voices.getActiveVoiceCount());
     }
 
-    public void noteOff(int note) {
 
-        // Le Release n'est déclenché QUE si la note relâchée est la note actuellement jouée.
-        // Si l'utilisateur est en legato, la note relâchée (ex: C4) est différente
-        // de la currentNote (ex: D4), et le release est ignoré.
-        if (note == currentNote) {
-            vcaEnv.noteOff();
+    /** Nombre d'échantillons rendus depuis le démarrage du moteur. */
+    public long getSamplePosition() {
+        return publishedBlockStart;
+    }
+
+    /**
+     * Estimation, depuis n'importe quel thread, de la position de rendu courante
+     * (en échantillons) : début du dernier bloc + temps écoulé depuis.
+     * Sert à dater les événements MIDI.
+     */
+    public long estimateSamplePosition() {
+        long blockStart = publishedBlockStart;
+        long elapsed = System.nanoTime() - publishedBlockNanos;
+        return blockStart + (long) (elapsed * (SAMPLE_RATE / 1.0e9));
+    }
+
+    /** Réglages de la sortie audio, à choisir avant de démarrer le thread audio. */
+    public void setOutputConfig(OutputConfig config) {
+        this.outputConfig = config;
+    }
+
+    public OutputConfig getOutputConfig() {
+        return outputConfig;
+    }
+
+    /** Sortie des périodes rendues (et horloge du moteur), à choisir avant de démarrer le thread audio. */
+    public void setSink(AudioSink sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Arrête le thread audio une fois 'samplePosition' échantillons rendus (au bloc près) ;
+     * la sortie est alors fermée. Depuis n'importe quel thread.
+     */
+    public void stopAt(long samplePosition) {
+        stopPosition = samplePosition;
+    }
+
+    /** Arrête le thread audio à la fin de la période en cours. */
+    public void stop() {
+        stopAt(0);
+    }
+
+    /** Underruns, marge du buffer et gigue, lisibles depuis n'importe quel thread. */
+    public OutputStats getOutputStats() {
+        return outputStats;
+    }
+
+    /** Charge DSP, pire cas, histogramme, voix actives et profilage par module. */
+    public RenderMetrics getRenderMetrics() {
+        return renderMetrics;
+    }
+
+    /** Branche le séquenceur sur l'horloge échantillon du moteur. */
+    public void setSequencer(StepSequencer sequencer) {
+        this.sequencer = sequencer;
+    }
+
+    public StepSequencer getSequencer() {
+        return sequencer;
+    }
+
+    /**
+     * Graine de tous les générateurs aléatoires du moteur (bruit des oscillateurs, LFO
+     * échantillonneurs-bloqueurs, séquenceur) : même graine, même rendu.
+     * Avant le rendu, et après setSequencer().
+     */
+    public void setRandomSeed(long seed) {
+        osc1.setNoiseSeed(seed);
+        osc2.setNoiseSeed(seed + 1);
+        modulation.lfo1.setRandomSeed(seed + 2);
+        modulation.lfo2.setRandomSeed(seed + 3);
+        voices.setRandomSeed(seed + 16);
+        StepSequencer seq = sequencer;
+        if (seq != null) {
+            seq.setRandomSeed(seed + 4);
         }
     }
 
-    private double midiToFrequency(int note) {
-        return 440.0 * Math.pow(2.0, (note - 69.0) / 12.0);
+
+    // ============================================================
+    //  PRESETS
+    // ============================================================
+    /**
+     * Charge un preset pendant le jeu. Thread de contrôle : tout ce qui alloue (plan de modulation
+     * compilé, table MIDI Learn) est préparé ici ; le thread audio applique le reste au début
+     * du bloc suivant, en une fois (les paramètres lissés glissent vers leurs nouvelles valeurs).
+     * Un preset chargé avant que le précédent ne soit appliqué le remplace.
+     */
+    public void loadPreset(Preset preset) {
+        preset.preparedRouting = modulation.prepareRoutes(preset.routeSources, preset.routeDestinations, preset.routeDepths);
+        controlMap.load(preset.controlMappings, parameters);
+        pendingPreset.set(preset);
+    }
+
+    // Thread audio, frontière de bloc : sans allocation
+    private void applyPreset(Preset preset) {
+        final double[] values = preset.parameters;
+        for (int id = 0; id < parameters.size(); id++) {
+            Parameter parameter = parameters.get(id);
+            if (parameter != null && !Double.isNaN(values[id])) {
+                parameter.set(values[id]);
+            }
+        }
+        modulation.install(preset.preparedRouting);
+        StepSequencer seq = sequencer;
+        if (seq != null && preset.hasSequencer) {
+            seq.applyPreset(preset);
+        }
+        appliedPresets++; // Seul le thread audio écrit
+    }
+
+    /** Nombre de presets appliqués depuis le démarrage ; change quand un preset chargé prend effet. */
+    public long getAppliedPresetCount() {
+        return appliedPresets;
     }
 
 
     // ============================================================
-    //  HANDLE MAPPED CONTROL (GUI + MIDI)
+    //  THREAD AUDIO
     // ============================================================
-    public void handleMappedControl(String paramName, int value) {
+    @Override
+    public void run() {
+        OutputConfig config = outputConfig;
+        final int frames = config.periodFrames;
+        final int channels = config.channels;
+        final SampleFormat sampleFormat = config.sampleFormat;
+        setOutputChannels(channels);
+
+        AudioSink output = (sink != null) ? sink : new JavaSoundSink();
+        // Sortie fermée dans tous les cas (exception comprise) : flux libéré, en-tête WAV complété
+        try (output) {
+            output.open(SAMPLE_RATE, config);
+            outputStats.begin(output.getBufferBytes(), channels * sampleFormat.bytesPerSample(), frames, SAMPLE_RATE);
+
+            double[] block = new double[frames * channels];
+
+            // La sortie bloque au rythme de son horloge : elle cadence le rendu
+            for (long rendered = 0; rendered < stopPosition; rendered += frames) {
+                renderBlock(block, frames);
+                outputStats.beforeWrite(output.available());
+                output.write(block, frames);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            throw new RuntimeException("Erreur de sortie audio (" + output + ", " + config + ")", e);
+        }
+    }
+
 
-        double normalizedValue = value / 127.0;
+    // ============================================================
+    //  NOTE ON / NOTE OFF (POLYPHONIQUE)
+    // ============================================================
+    // Thread audio uniquement : les autres threads passent par leur ControlQueue.
+    public void noteOn(int note, int velocity) {
+        // Le VoicePool choisit une voix libre (ou en vole une) : accords possibles
+        voices.noteOn(note, velocity);
+    }
 
-        switch (paramName) {
+    public void noteOff(int note) {
+        // Toutes les voix qui tiennent cette note passent en release
+        voices.noteOff(note);
+    }
 
-            // --- FILTRE ---
-            case "filter.cutoff":
-                // Utilisation du setter pour déclencher le recalcul des coefficients
-                filter.setCutoff(50.0 + (19950.0 * normalizedValue));
-                break;
+    /** Variantes par canal MIDI (0-15) : les notes de canaux différents ne se coupent pas. */
+    public void noteOn(int channel, int note, int velocity) {
+        voices.noteOn(channel, note, velocity);
+    }
 
-            case "filter.resonance":
-                filter.setResonance(normalizedValue);
-                break;
+    public void noteOff(int channel, int note) {
+        voices.noteOff(channel, note);
+    }
 
-            // --- MASTER ---
-            case "masterVolume":
-                masterVolume = normalizedValue;
-                break;
 
-            // --- MIXER ---
-            case "mixer.blend":
-                mixer.setBlend(normalizedValue);
-                break;
+    // ============================================================
+    //  PARAMÈTRES (GUI + MIDI + presets) : dispatch par identifiant
+    // ============================================================
+    // Thread audio uniquement : les autres threads passent par ControlQueue.control().
+    public void handleMappedControl(int parameterId, int value) {
+        Parameter parameter = parameters.get(parameterId);
+        if (parameter != null) {
+            parameter.setFromMidi(value);
+        }
+    }
 
-            // --- ENVELOPPE ---
-            case "envelope.attack":
-                vcaEnv.attackTime = normalizedValue * 2.0;
-                vcaEnv.updateIncrements();
-                break;
+    // Thread audio uniquement : les autres threads passent par ControlQueue.parameter().
+    public void setParameter(int parameterId, double value) {
+        Parameter parameter = parameters.get(parameterId);
+        if (parameter != null) {
+            parameter.set(value);
+        }
+    }
 
-            case "envelope.release":
-                vcaEnv.releaseTime = normalizedValue * 2.0;
-                vcaEnv.updateIncrements();
-                break;
+    // Chaque paramètre : identifiant stable, nom (GUI, MIDI Learn), plage et courbe MIDI, accesseurs.
+    // Les setters sont appelés par le thread audio ; les getters lisent les réglages du patch.
+    private void registerParameters() {
+        final ParameterRegistry r = parameters;
+        final Parameter.Curve LIN = Parameter.Curve.LINEAR;
+        final Parameter.Curve EXP = Parameter.Curve.EXPONENTIAL;
+        final Parameter.Curve STEP = Parameter.Curve.STEPPED;
+
+        // --- FILTRE ---
+        r.register(ParameterIds.FILTER_CUTOFF, "filter.cutoff", 50.0, 20000.0, LIN,
+                filter::setCutoff, () -> filter.cutoffFrequency);
+        r.register(ParameterIds.FILTER_RESONANCE, "filter.resonance", 0.0, 1.0, LIN,
+                filter::setResonance, () -> filter.resonance);
+        r.register(ParameterIds.FILTER_MODE, "filter.mode", 0, FILTER_MODES.length - 1, STEP,
+                v -> filter.setMode(FILTER_MODES[(int) v]), () -> filter.mode.ordinal());
+        r.register(ParameterIds.FILTER_OVERSAMPLING, "filter.oversampling", 0, Oversampler.FACTORS.length - 1, STEP,
+                v -> setFilterOversampling(Oversampler.FACTORS[(int) v]), () -> oversamplingIndex(filterOversampling));
+
+        // --- MASTER / MIXER ---
+        r.register(ParameterIds.MASTER_VOLUME, "masterVolume", 0.0, 1.0, LIN,
+                v -> masterVolume = v, () -> masterVolume);
+        r.register(ParameterIds.MIXER_BLEND, "mixer.blend", 0.0, 1.0, LIN,
+                mixer::setBlend, () -> mixer.blend);
+
+        // --- SORTIE MULTICANAL (panoramique de la tranche principale, écartement des voix) ---
+        r.register(ParameterIds.MAIN_PAN, "main.pan", -1.0, 1.0, LIN,
+                mainStrip::setPan, mainStrip::getPan);
+        r.register(ParameterIds.VOICE_PAN_SPREAD, "voices.panSpread", 0.0, 1.0, LIN,
+                voices::setPanSpread, voices::getPanSpread);
+
+        // --- EFFETS (activation, réglage principal et dosage de chacun) ---
+        registerEffectSwitch(ParameterIds.DELAY_ENABLED, "delay.enabled", delay);
+        r.register(ParameterIds.DELAY_DIVISION, "delay.division", 0, Delay.DIVISIONS.length - 1, STEP,
+                v -> delay.setDivision((int) v), () -> delay.division);
+        r.register(ParameterIds.DELAY_FEEDBACK, "delay.feedback", 0.0, 0.95, LIN,
+                delay::setFeedback, () -> delay.feedback);
+        r.register(ParameterIds.DELAY_MIX, "delay.mix", 0.0, 1.0, LIN,
+                delay::setMix, () -> delay.mix);
+        registerEffectSwitch(ParameterIds.CHORUS_ENABLED, "chorus.enabled", chorus);
+        r.register(ParameterIds.CHORUS_RATE, "chorus.rate", 0.05, 10.0, EXP,
+                chorus::setRate, () -> chorus.rate);
+        r.register(ParameterIds.CHORUS_DEPTH, "chorus.depth", 0.0, 1.0, LIN,
+                chorus::setDepth, () -> chorus.depth);
+        r.register(ParameterIds.CHORUS_MIX, "chorus.mix", 0.0, 1.0, LIN,
+                chorus::setMix, () -> chorus.mix);
+        registerEffectSwitch(ParameterIds.REVERB_ENABLED, "reverb.enabled", reverb);
+        r.register(ParameterIds.REVERB_SIZE, "reverb.size", 0.0, 1.0, LIN,
+                reverb::setRoomSize, () -> reverb.roomSize);
+        r.register(ParameterIds.REVERB_DAMPING, "reverb.damping", 0.0, 1.0, LIN,
+                reverb::setDamping, () -> reverb.damping);
+        r.register(ParameterIds.REVERB_MIX, "reverb.mix", 0.0, 1.0, LIN,
+                reverb::setMix, () -> reverb.mix);
+
+        // --- ENVELOPPE (temps de 0 à 2 s) ---
+        r.register(ParameterIds.ENVELOPE_ATTACK, "envelope.attack", 0.0, 2.0, LIN,
+                vcaEnv::setAttack, () -> vcaEnv.attackTime);
+        r.register(ParameterIds.ENVELOPE_HOLD, "envelope.hold", 0.0, 2.0, LIN,
+                vcaEnv::setHold, () -> vcaEnv.holdTime);
+        r.register(ParameterIds.ENVELOPE_DECAY, "envelope.decay", 0.0, 2.0, LIN,
+                vcaEnv::setDecay, () -> vcaEnv.decayTime);
+        r.register(ParameterIds.ENVELOPE_SUSTAIN, "envelope.sustain", 0.0, 1.0, LIN,
+                vcaEnv::setSustain, () -> vcaEnv.sustainLevel);
+        r.register(ParameterIds.ENVELOPE_RELEASE, "envelope.release", 0.0, 2.0, LIN,
+                vcaEnv::setRelease, () -> vcaEnv.releaseTime);
+        r.register(ParameterIds.ENVELOPE_VELOCITY, "envelope.velocity", 0.0, 1.0, LIN,
+                vcaEnv::setVelocitySensitivity, () -> vcaEnv.velocitySensitivity);
+
+        // --- OSCILLATEURS ---
+        registerOscillator(ParameterIds.OSC1_PITCH, ParameterIds.OSC1_OCTAVE, ParameterIds.OSC1_WAVEFORM,
+                ParameterIds.OSC1_WAVETABLE, ParameterIds.OSC1_INTERPOLATION, "osc1", osc1);
+        registerOscillator(ParameterIds.OSC2_PITCH, ParameterIds.OSC2_OCTAVE, ParameterIds.OSC2_WAVEFORM,
+                ParameterIds.OSC2_WAVETABLE, ParameterIds.OSC2_INTERPOLATION, "osc2", osc2);
+
+        // --- MODULATION (vitesse des LFO : 0.05 Hz à 20 Hz, courbe exponentielle) ---
+        r.register(ParameterIds.AFTERTOUCH, "aftertouch", 0.0, 1.0, LIN,
+                voices::setAftertouch, voices::getAftertouch);
+        r.register(ParameterIds.MOD_WHEEL, "mod.wheel", 0.0, 1.0, LIN,
+                voices::setModWheel, voices::getModWheel);
+        r.register(ParameterIds.LFO1_RATE, "lfo1.rate", 0.05, 20.0, EXP,
+                modulation.lfo1::setRate, () -> modulation.lfo1.rate);
+        r.register(ParameterIds.LFO2_RATE, "lfo2.rate", 0.05, 20.0, EXP,
+                modulation.lfo2::setRate, () -> modulation.lfo2.rate);
+        r.register(ParameterIds.LFO1_SHAPE, "lfo1.shape", 0, LFO_SHAPES.length - 1, STEP,
+                v -> modulation.lfo1.setShape(LFO_SHAPES[(int) v]), () -> modulation.lfo1.shape.ordinal());
+        r.register(ParameterIds.LFO2_SHAPE, "lfo2.shape", 0, LFO_SHAPES.length - 1, STEP,
+                v -> modulation.lfo2.setShape(LFO_SHAPES[(int) v]), () -> modulation.lfo2.shape.ordinal());
+        EnvelopeGenerator modEnv = modulation.modEnv;
+        r.register(ParameterIds.MODENV_ATTACK, "modenv.attack", 0.0, 2.0, LIN,
+                modEnv::setAttack, () -> modEnv.attackTime);
+        r.register(ParameterIds.MODENV_DECAY, "modenv.decay", 0.0, 2.0, LIN,
+                modEnv::setDecay, () -> modEnv.decayTime);
+        r.register(ParameterIds.MODENV_SUSTAIN, "modenv.sustain", 0.0, 1.0, LIN,
+                modEnv::setSustain, () -> modEnv.sustainLevel);
+        r.register(ParameterIds.MODENV_RELEASE, "modenv.release", 0.0, 2.0, LIN,
+                modEnv::setRelease, () -> modEnv.releaseTime);
+    }
 
-            // --- OSCILLATEURS ---
-            case "osc1.pitch":
-                osc1.pitchCents = (int)((normalizedValue * 200.0) - 100.0);
-                osc1.updateFrequency();
-                break;
+    private void registerOscillator(int pitchId, int octaveId, int waveformId, int wavetableId, int interpolationId,
+                                    String prefix, Oscillator osc) {
+        final ParameterRegistry r = parameters;
+        // Pitch fin en cents (-100 à 100), valeur entière comme le slider de la GUI
+        r.register(pitchId, prefix + ".pitch", -100.0, 100.0, Parameter.Curve.LINEAR, v -> {
+            osc.pitchCents = (int) v;
+            osc.updateFrequency();
+        }, () -> osc.pitchCents);
+        r.register(octaveId, prefix + ".octave", -2, 2, Parameter.Curve.STEPPED, v -> {
+            osc.octave = (int) v;
+            osc.updateFrequency();
+        }, () -> osc.octave);
+        r.register(waveformId, prefix + ".waveform", 0, WAVEFORMS.length - 1, Parameter.Curve.STEPPED,
+                v -> osc.setWaveform(WAVEFORMS[(int) v]), () -> osc.waveform.ordinal());
+        r.register(wavetableId, prefix + ".wavetable", 0, 1, Parameter.Curve.STEPPED,
+                v -> osc.wavetable = v != 0.0, () -> osc.wavetable ? 1.0 : 0.0);
+        r.register(interpolationId, prefix + ".interpolation", 0, INTERPOLATIONS.length - 1, Parameter.Curve.STEPPED,
+                v -> osc.interpolation = INTERPOLATIONS[(int) v], () -> osc.interpolation.ordinal());
+    }
 
-            case "osc2.pitch":
-                osc2.pitchCents = (int)((normalizedValue * 200.0) - 100.0);
-                osc2.updateFrequency();
-                break;
+    private void registerEffectSwitch(int id, String name, Effect effect) {
+        parameters.register(id, name, 0, 1, Parameter.Curve.STEPPED,
+                v -> effect.setBypassed(v == 0.0), () -> effect.isBypassed() ? 0.0 : 1.0);
+    }
 
-            default:
-                break;
+    private static int oversamplingIndex(int factor) {
+        for (int i = 0; i < Oversampler.FACTORS.length; i++) {
+            if (Oversampler.FACTORS[i] == factor) return i;
         }
+        return 0;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,116 @@
+package com.morgan;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Écriture de blocs audio dans un fichier WAV ou PCM brut, via un FileChannel NIO
+ * et un buffer direct. L'en-tête WAV est écrit avec des tailles provisoires
+ * puis corrigé à la fermeture.
+ */
+public class AudioFileWriter implements Closeable {
+
+    private static final int HEADER_SIZE = 44;
+    private static final int BUFFER_SIZE = 1 << 16; // 64 Ko entre deux écritures disque
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    private final SampleFormat format;
+    private final int channels;
+    private final float sampleRate;
+    private final boolean wav;
+
+    private byte[] conversion = new byte[0]; // Bloc converti avant copie dans le buffer
+    private long dataBytes = 0;
+
+    /** Le format WAV est choisi si le nom du fichier se termine par ".wav", sinon PCM brut. */
+    public AudioFileWriter(Path path, float sampleRate, int channels, SampleFormat format) throws IOException {
+        this.format = format;
+        this.channels = channels;
+        this.sampleRate = sampleRate;
+        this.wav = path.getFileName().toString().toLowerCase().endsWith(".wav");
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        if (wav) {
+            writeHeader();
+        }
+    }
+
+    /** Écrit samples[0 .. count[ (échantillons entrelacés s'il y a plusieurs canaux). */
+    public void write(double[] samples, int count) throws IOException {
+        int bytes = count * format.bytesPerSample();
+        if (conversion.length < bytes) {
+            conversion = new byte[bytes];
+        }
+        format.convert(samples, count, conversion, 0);
+
+        int position = 0;
+        while (position < bytes) {
+            if (!buffer.hasRemaining()) {
+                flush();
+            }
+            int chunk = Math.min(buffer.remaining(), bytes - position);
+            buffer.put(conversion, position, chunk);
+            position += chunk;
+        }
+        dataBytes += bytes;
+    }
+
+    public long getDataBytes() {
+        return dataBytes;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+            if (wav) {
+                writeHeader(); // Tailles définitives
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void writeHeader() throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        int blockAlign = channels * format.bytesPerSample();
+        long riffSize = Math.min(0xFFFFFFFFL, 36 + dataBytes);
+
+        header.put(new byte[] {'R', 'I', 'F', 'F'});
+        header.putInt((int) riffSize);
+        header.put(new byte[] {'W', 'A', 'V', 'E'});
+        header.put(new byte[] {'f', 'm', 't', ' '});
+        header.putInt(16);
+        header.putShort((short) (format == SampleFormat.FLOAT_32 ? 3 : 1)); // 3 = IEEE float, 1 = PCM
+        header.putShort((short) channels);
+        header.putInt((int) sampleRate);
+        header.putInt((int) sampleRate * blockAlign);
+        header.putShort((short) blockAlign);
+        header.putShort((short) (format.bytesPerSample() * 8));
+        header.put(new byte[] {'d', 'a', 't', 'a'});
+        header.putInt((int) Math.min(0xFFFFFFFFL, dataBytes));
+        header.flip();
+
+        long position = 0;
+        while (header.hasRemaining()) {
+            position += channel.write(header, position);
+        }
+        if (channel.position() < HEADER_SIZE) {
+            channel.position(HEADER_SIZE);
+        }
+    }
+}
@@ -4,7 +4,47 @@ package com.morgan;
  * L'interface "câble" universelle.
  * Tout module audio (oscillateur, filtre, VCA) l'implémente.
  * La méthode tick() retourne un seul échantillon audio (-1.0 à 1.0).
+ * La méthode processBlock() remplit un bloc entier d'échantillons d'un coup.
  */
 public interface AudioModule {
     double tick(); // Calcule et retourne le prochain échantillon
+
+    /**
+     * Remplit buffer[offset .. offset + length[ avec les prochains échantillons.
+     * Le buffer appartient à l'appelant. Par défaut, on retombe sur tick()
+     * pour que les anciens modules fonctionnent sans modification.
+     */
+    default void processBlock(double[] buffer, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            buffer[i] = tick();
+        }
+    }
+
+    // --- Entrées génériques (utilisées par le PatchGraph pour câbler les modules) ---
+
+    /** Nombre d'entrées audio du module (0 pour une source). */
+    default int getInputCount() {
+        return 0;
+    }
+
+    /** Branche 'source' sur l'entrée 'port' (null = débranché). */
+    default void setInput(int port, AudioModule source) {
+        throw new IllegalArgumentException(getClass().getSimpleName() + " n'a pas d'entrée " + port);
+    }
+
+    /**
+     * Nouveau taux d'échantillonnage (sous-graphe suréchantillonné par un Oversampler).
+     * Sans effet par défaut : seuls les modules dont le réglage dépend du taux le surchargent.
+     */
+    default void setSampleRate(double sampleRate) {
+    }
+
+    /**
+     * Retourne un buffer de travail d'au moins 'length' échantillons.
+     * N'alloue que lorsque le bloc demandé grandit (jamais en régime établi).
+     */
+    static double[] ensureCapacity(double[] buffer, int length) {
+        return (buffer != null && buffer.length >= length) ? buffer : new double[length];
+    }
 }
\ No newline at end of file
@@ -0,0 +1,81 @@
+package com.morgan;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Destination des périodes rendues par le thread audio (AudioEngine.run()).
+ * write() ne rend la main que lorsque la sortie a accepté la période : c'est la sortie
+ * qui cadence le moteur (horloge de la carte son, contre-pression d'un flux,
+ * ou horloge murale via PacedSink).
+ * open(), write() et close() sont appelés par le thread audio uniquement.
+ */
+public interface AudioSink extends Closeable {
+
+    /** Prépare la sortie pour des périodes de config.periodFrames trames entrelacées. */
+    void open(float sampleRate, OutputConfig config) throws IOException;
+
+    /** Écrit block[0 .. frames * canaux[ ; bloque au rythme de la sortie. */
+    void write(double[] block, int frames) throws IOException;
+
+    /** Taille du buffer de la sortie en octets (0 s'il n'y en a pas). */
+    default int getBufferBytes() {
+        return 0;
+    }
+
+    /** Octets inscriptibles sans bloquer, ou -1 si la sortie n'a pas de buffer mesurable. */
+    default int available() {
+        return -1;
+    }
+
+    @Override
+    default void close() throws IOException {
+    }
+
+    /**
+     * Sortie décrite par une chaîne (propriété -Dsynth.sink) :
+     * <ul>
+     *   <li>{@code javasound} : ligne Java Sound (par défaut)</li>
+     *   <li>{@code null} : rien n'est écrit</li>
+     *   <li>{@code file:chemin} : fichier WAV (extension .wav) ou PCM brut</li>
+     *   <li>{@code socket:hôte:port} : flux PCM brut vers une connexion TCP</li>
+     *   <li>{@code pipe:chemin} : flux PCM brut vers un fichier ou un tube nommé ({@code pipe:-} = sortie standard)</li>
+     * </ul>
+     * realTime : cadence la sortie sur l'horloge murale (PacedSink) ; sans objet pour javasound,
+     * cadencée par la carte son. null = défaut de la sortie (temps réel pour null, au plus vite sinon).
+     */
+    static AudioSink fromSpec(String spec, Boolean realTime) {
+        int colon = spec.indexOf(':');
+        String kind = (colon < 0) ? spec : spec.substring(0, colon);
+        String target = (colon < 0) ? "" : spec.substring(colon + 1);
+        AudioSink sink;
+        boolean pacedByDefault = false;
+        switch (kind) {
+            case "javasound":
+                return new JavaSoundSink();
+            case "null":
+                sink = new NullSink();
+                pacedByDefault = true;
+                break;
+            case "file":
+                sink = new FileSink(Path.of(target));
+                break;
+            case "socket": {
+                int port = target.lastIndexOf(':');
+                if (port < 0) {
+                    throw new IllegalArgumentException("Sortie socket sans port : " + spec);
+                }
+                sink = StreamSink.socket(target.substring(0, port), Integer.parseInt(target.substring(port + 1)));
+                break;
+            }
+            case "pipe":
+                sink = target.equals("-") ? StreamSink.standardOutput() : StreamSink.pipe(Path.of(target));
+                break;
+            default:
+                throw new IllegalArgumentException("Sortie audio inconnue : " + spec);
+        }
+        boolean paced = (realTime != null) ? realTime : pacedByDefault;
+        return paced ? new PacedSink(sink) : sink;
+    }
+}
@@ -0,0 +1,131 @@
+package com.morgan;
+
+import com.sun.management.HotSpotDiagnosticMXBean;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Opérations "sans état" appliquées à des blocs entiers (VCA, Mixer, somme des voix,
+ * gain master, conversion PCM). Deux implémentations : scalaire (toujours disponible)
+ * et vectorielle (jdk.incubator.vector, SIMD). Le choix est fait une fois au démarrage.
+ *
+ * Les deux donnent des résultats identiques au bit près pour les opérations en double
+ * (mêmes multiplications/additions IEEE, pas de FMA).
+ */
+public interface BlockKernels {
+
+    /** dst[dstOffset + i] *= src[srcOffset + i] (VCA). */
+    void multiply(double[] dst, int dstOffset, double[] src, int srcOffset, int length);
+
+    /** buffer[offset + i] *= gain (gain master, mixer sans entrée B). */
+    void scale(double[] buffer, int offset, int length, double gain);
+
+    /** dst[dstOffset + i] = dst[dstOffset + i] * gainA + src[srcOffset + i] * gainB (crossfade du Mixer). */
+    void crossfade(double[] dst, int dstOffset, double[] src, int srcOffset, int length, double gainA, double gainB);
+
+    /** dst[dstOffset + i] += src[srcOffset + i] (somme des voix). */
+    void accumulate(double[] dst, int dstOffset, double[] src, int srcOffset, int length);
+
+    /** Conversion d'un bloc vers le format de sortie (voir SampleFormat.convert). */
+    void convert(SampleFormat format, double[] src, int count, byte[] dst, int dstOffset);
+
+    /** Nom de l'implémentation (affiché au démarrage et par les benchmarks). */
+    String name();
+
+    // ============================================================
+    //  SÉLECTION AU DÉMARRAGE
+    // ============================================================
+
+    /** Implémentation retenue pour ce processus. */
+    static BlockKernels get() {
+        return Selection.INSTANCE;
+    }
+
+    /** Implémentation scalaire (référence). */
+    static BlockKernels scalar() {
+        return ScalarKernels.INSTANCE;
+    }
+
+    /**
+     * Implémentation vectorielle, ou null si le module jdk.incubator.vector n'est pas
+     * chargé (lancer la JVM avec --add-modules jdk.incubator.vector).
+     * Elle n'est retenue par get() que si MaxInlineLevel >= MIN_INLINE_LEVEL.
+     */
+    static BlockKernels vector() {
+        return Selection.VECTOR;
+    }
+
+    /**
+     * Profondeur d'inlining minimale pour que le chemin vectoriel n'alloue pas.
+     * Les intrinsèques de l'API Vector se trouvent ~15 appels sous la boucle audio :
+     * au-delà de -XX:MaxInlineLevel (15 par défaut sur JDK 17), le JIT retombe sur
+     * l'implémentation Java qui crée un objet par vecteur (pauses GC sur le thread audio).
+     */
+    int MIN_INLINE_LEVEL = 24;
+
+    final class Selection {
+        static final BlockKernels VECTOR = loadVector();
+        // -Dsynth.vector=false force le chemin scalaire
+        static final BlockKernels INSTANCE =
+                (VECTOR != null && !"false".equals(System.getProperty("synth.vector")) && inlineLevelAllowsVector())
+                        ? VECTOR : ScalarKernels.INSTANCE;
+
+        private Selection() {
+        }
+
+        // Lancer avec -XX:MaxInlineLevel=24 (ou plus) pour activer le chemin vectoriel
+        private static boolean inlineLevelAllowsVector() {
+            try {
+                HotSpotDiagnosticMXBean hotspot = ManagementFactory.getPlatformMXBean(HotSpotDiagnosticMXBean.class);
+                return Integer.parseInt(hotspot.getVMOption("MaxInlineLevel").getValue()) >= MIN_INLINE_LEVEL;
+            } catch (RuntimeException e) {
+                return false; // JVM non HotSpot : on ne sait pas, on reste prudent
+            }
+        }
+
+        // Chargement réflexif : la classe vectorielle ne doit jamais être liée si le module est absent
+        private static BlockKernels loadVector() {
+            if (!ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+                return null;
+            }
+            try {
+                BlockKernels kernels = (BlockKernels) Class.forName("com.morgan.VectorKernels")
+                        .getDeclaredConstructor().newInstance();
+                return selfTest(kernels) ? kernels : null;
+            } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+                return null;
+            }
+        }
+
+        // Vérifie que l'implémentation tourne et donne le même résultat que le scalaire
+        private static boolean selfTest(BlockKernels kernels) {
+            int length = 67; // Pas un multiple de la largeur des vecteurs : teste aussi la fin de boucle
+            double[] a = new double[length];
+            double[] b = new double[length];
+            for (int i = 0; i < length; i++) {
+                a[i] = Math.sin(i * 0.37) * 1.3;
+                b[i] = Math.cos(i * 0.11);
+            }
+            double[] expected = a.clone();
+            double[] actual = a.clone();
+            BlockKernels reference = ScalarKernels.INSTANCE;
+            reference.crossfade(expected, 0, b, 0, length, 0.7, 0.3);
+            kernels.crossfade(actual, 0, b, 0, length, 0.7, 0.3);
+            reference.multiply(expected, 0, b, 0, length);
+            kernels.multiply(actual, 0, b, 0, length);
+            if (!java.util.Arrays.equals(expected, actual)) {
+                return false;
+            }
+            for (SampleFormat format : SampleFormat.values()) {
+                byte[] expectedBytes = new byte[length * format.bytesPerSample()];
+                byte[] actualBytes = new byte[expectedBytes.length];
+                reference.convert(format, a, length, expectedBytes, 0);
+                kernels.convert(format, a, length, actualBytes, 0);
+                if (!java.util.Arrays.equals(expectedBytes, actualBytes)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
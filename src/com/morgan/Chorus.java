@@ -0,0 +1,89 @@
+package com.morgan;
+
+/**
+ * Chorus / flanger : une courte ligne à retard par canal, modulée par un LFO triangle
+ * (déphasé d'un quart de période d'un canal à l'autre, pour l'effet d'espace).
+ * Retard de base long et sans réinjection : chorus. Retard de quelques millisecondes
+ * avec réinjection : flanger (voir flanger()).
+ */
+public class Chorus extends Effect {
+
+    public static final double MAX_DELAY_SECONDS = 0.05;
+
+    // --- Paramètres Publics ---
+    public volatile double rate = 0.8;          // Hz
+    public volatile double depth = 0.5;         // 0 à 1 : part du retard de base balayée
+    public volatile double baseDelay = 0.012;   // Secondes
+    public volatile double feedback = 0.0;      // -0.95 à 0.95
+
+    // --- Thread audio ---
+    private final DelayLine[] lines;
+    private double phase = 0.0;
+
+    public Chorus(double sampleRate, int channels) {
+        this(sampleRate, channels, DelayLine.OFF_HEAP_DEFAULT);
+    }
+
+    public Chorus(double sampleRate, int channels, boolean offHeap) {
+        super(sampleRate, channels);
+        lines = new DelayLine[channels];
+        for (int c = 0; c < channels; c++) {
+            lines[c] = new DelayLine((int) Math.ceil(MAX_DELAY_SECONDS * sampleRate) + 2, offHeap);
+        }
+        mix = 0.5;
+    }
+
+    /** Réglages de flanger : retard de 2 ms, balayage lent, forte réinjection. */
+    public static Chorus flanger(double sampleRate, int channels) {
+        Chorus flanger = new Chorus(sampleRate, channels);
+        flanger.baseDelay = 0.002;
+        flanger.depth = 0.9;
+        flanger.rate = 0.2;
+        flanger.feedback = 0.6;
+        return flanger;
+    }
+
+    public void setRate(double hz) {
+        rate = Math.max(0.01, Math.min(20.0, hz));
+    }
+
+    public void setDepth(double amount) {
+        depth = Math.max(0.0, Math.min(1.0, amount));
+    }
+
+    public void setBaseDelay(double seconds) {
+        baseDelay = Math.max(0.0005, Math.min(MAX_DELAY_SECONDS / 2, seconds));
+    }
+
+    public void setFeedback(double amount) {
+        feedback = Math.max(-0.95, Math.min(0.95, amount));
+    }
+
+    @Override
+    public void reset() {
+        for (DelayLine line : lines) line.clear();
+        phase = 0.0;
+    }
+
+    @Override
+    protected void render(double[] in, int offset, int frames, int stride, double[] wet, int active) {
+        final double base = baseDelay * sampleRate;
+        final double sweep = base * depth;        // Le retard reste entre base - sweep et base + sweep
+        final double increment = rate / sampleRate;
+        final double fb = feedback;
+
+        for (int i = 0, o = offset, j = 0; i < frames; i++, o += stride, j += channels) {
+            phase += increment;
+            if (phase >= 1.0) phase -= 1.0;
+            for (int c = 0; c < active; c++) {
+                double p = phase + 0.25 * c;
+                p -= (int) p;
+                double lfo = 1.0 - 4.0 * Math.abs(p - 0.5);  // Triangle -1..1
+                double delay = Math.max(1.0, base + sweep * lfo);
+                double delayed = lines[c].readLinear(delay);
+                wet[j + c] = delayed;
+                lines[c].write(in[o + c] + delayed * fb);
+            }
+        }
+    }
+}
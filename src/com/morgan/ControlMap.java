@@ -0,0 +1,70 @@
+package com.morgan;
+
+/**
+ * Table de dispatch des CC MIDI : [canal][numéro de CC] -> paramètre.
+ * Lecture sans verrou (une lecture volatile puis deux index de tableau) par le thread MIDI ;
+ * les assignations (MIDI Learn, presets) remplacent la ligne du canal concerné
+ * et publient une nouvelle table (copie sur écriture, comme le PatchGraph).
+ */
+public final class ControlMap {
+
+    public static final int CHANNELS = 16;
+    public static final int CONTROLLERS = 128;
+
+    private volatile Parameter[][] table = new Parameter[CHANNELS][CONTROLLERS];
+
+    /** Paramètre assigné à ce CC sur ce canal, ou null. */
+    public Parameter lookup(int channel, int controller) {
+        return table[channel & 0x0F][controller & 0x7F];
+    }
+
+    /** Assigne un CC d'un canal à un paramètre (null pour le libérer). */
+    public synchronized void assign(int channel, int controller, Parameter parameter) {
+        Parameter[][] updated = table.clone();
+        Parameter[] row = updated[channel & 0x0F].clone();
+        row[controller & 0x7F] = parameter;
+        updated[channel & 0x0F] = row;
+        table = updated;
+    }
+
+    /** Assigne un CC sur les 16 canaux (mappings par défaut). */
+    public synchronized void assignAllChannels(int controller, Parameter parameter) {
+        Parameter[][] updated = new Parameter[CHANNELS][];
+        for (int channel = 0; channel < CHANNELS; channel++) {
+            updated[channel] = table[channel].clone();
+            updated[channel][controller & 0x7F] = parameter;
+        }
+        table = updated;
+    }
+
+    public synchronized void clear() {
+        table = new Parameter[CHANNELS][CONTROLLERS];
+    }
+
+    /**
+     * Copie à plat de la table : identifiant du paramètre de chaque [canal * 128 + cc],
+     * -1 si le CC n'est pas assigné (presets).
+     */
+    public int[] export() {
+        Parameter[][] current = table;
+        int[] mappings = new int[CHANNELS * CONTROLLERS];
+        for (int channel = 0; channel < CHANNELS; channel++) {
+            for (int controller = 0; controller < CONTROLLERS; controller++) {
+                Parameter parameter = current[channel][controller];
+                mappings[channel * CONTROLLERS + controller] = (parameter != null) ? parameter.id : -1;
+            }
+        }
+        return mappings;
+    }
+
+    /** Remplace toute la table par une copie à plat (voir export) ; les identifiants inconnus sont ignorés. */
+    public synchronized void load(int[] mappings, ParameterRegistry registry) {
+        Parameter[][] updated = new Parameter[CHANNELS][CONTROLLERS];
+        for (int channel = 0; channel < CHANNELS; channel++) {
+            for (int controller = 0; controller < CONTROLLERS; controller++) {
+                updated[channel][controller] = registry.get(mappings[channel * CONTROLLERS + controller]);
+            }
+        }
+        table = updated;
+    }
+}
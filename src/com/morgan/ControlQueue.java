@@ -0,0 +1,133 @@
+package com.morgan;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File de commandes sans verrou, un seul producteur / un seul consommateur.
+ * Chaque thread de contrôle (GUI, MIDI) possède sa propre file ;
+ * le thread audio les vide au début de chaque bloc dans l'EventScheduler.
+ * Une commande sans date (IMMEDIATE) est appliquée en début de bloc ;
+ * une commande datée (en échantillons, voir AudioEngine.estimateSamplePosition())
+ * est appliquée à l'échantillon près.
+ * Les commandes sont stockées dans des tableaux préalloués : ni verrou ni allocation
+ * côté thread audio.
+ */
+public class ControlQueue {
+
+    // --- Types de commandes ---
+    public static final int NOTE_ON   = 1; // data1 = note, data2 = vélocité, value = canal MIDI (0-15)
+    public static final int NOTE_OFF  = 2; // data1 = note, value = canal MIDI
+    public static final int CONTROL   = 3; // data1 = identifiant du paramètre (ParameterIds), data2 = valeur MIDI (0-127)
+    public static final int PARAMETER = 4; // data1 = identifiant du paramètre, value = valeur dans l'unité du paramètre
+
+    public static final int DEFAULT_CAPACITY = 1024;
+    // Date "dès que possible" : appliquée au début du prochain bloc
+    public static final long IMMEDIATE = 0L;
+
+    private final int mask;
+    private final long[] times;
+    private final int[] types;
+    private final int[] data1;
+    private final int[] data2;
+    private final double[] values;
+
+    // head : prochaine case écrite (producteur), tail : prochaine case lue (consommateur)
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+
+    // Commandes perdues parce que la file était pleine (le thread audio ne suit plus)
+    private volatile long droppedCommands = 0;
+
+    public ControlQueue() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public ControlQueue(int capacity) {
+        // Capacité arrondie à la puissance de deux supérieure (index par masque)
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        mask = size - 1;
+        times = new long[size];
+        types = new int[size];
+        data1 = new int[size];
+        data2 = new int[size];
+        values = new double[size];
+    }
+
+    // ============================================================
+    //  CÔTÉ PRODUCTEUR (un seul thread de contrôle)
+    // ============================================================
+    public boolean noteOn(int note, int velocity) {
+        return noteOn(IMMEDIATE, note, velocity);
+    }
+
+    public boolean noteOn(long time, int note, int velocity) {
+        return offer(time, NOTE_ON, note, velocity, 0.0);
+    }
+
+    public boolean noteOn(long time, int channel, int note, int velocity) {
+        return offer(time, NOTE_ON, note, velocity, channel);
+    }
+
+    public boolean noteOff(int note) {
+        return noteOff(IMMEDIATE, note);
+    }
+
+    public boolean noteOff(long time, int note) {
+        return offer(time, NOTE_OFF, note, 0, 0.0);
+    }
+
+    public boolean noteOff(long time, int channel, int note) {
+        return offer(time, NOTE_OFF, note, 0, channel);
+    }
+
+    public boolean control(int parameterId, int midiValue) {
+        return control(IMMEDIATE, parameterId, midiValue);
+    }
+
+    public boolean control(long time, int parameterId, int midiValue) {
+        return offer(time, CONTROL, parameterId, midiValue, 0.0);
+    }
+
+    public boolean parameter(int parameterId, double value) {
+        return parameter(IMMEDIATE, parameterId, value);
+    }
+
+    public boolean parameter(long time, int parameterId, double value) {
+        return offer(time, PARAMETER, parameterId, 0, value);
+    }
+
+    private boolean offer(long time, int type, int d1, int d2, double value) {
+        long h = head.get();
+        if (h - tail.get() > mask) {
+            droppedCommands++;
+            return false; // File pleine : on ne bloque jamais
+        }
+        int slot = (int) h & mask;
+        times[slot] = time;
+        types[slot] = type;
+        data1[slot] = d1;
+        data2[slot] = d2;
+        values[slot] = value;
+        head.lazySet(h + 1); // Publication de la case (écriture "release")
+        return true;
+    }
+
+    public long getDroppedCommands() {
+        return droppedCommands;
+    }
+
+    // ============================================================
+    //  CÔTÉ CONSOMMATEUR (thread audio uniquement)
+    // ============================================================
+    /** Transfère toutes les commandes en attente dans l'ordonnanceur du moteur. */
+    public void drainTo(EventScheduler scheduler) {
+        long t = tail.get();
+        final long h = head.get();
+        while (t < h) {
+            int slot = (int) t & mask;
+            scheduler.schedule(times[slot], types[slot], data1[slot], data2[slot], values[slot]);
+            t++;
+        }
+        tail.lazySet(t);
+    }
+}
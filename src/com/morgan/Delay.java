@@ -0,0 +1,114 @@
+package com.morgan;
+
+import java.util.Arrays;
+
+/**
+ * Délai à réinjection, synchronisable sur le tempo du séquenceur (division de la noire)
+ * ou réglé en secondes. La réinjection passe par un passe-bas (répétitions de plus en plus
+ * sourdes) et, en stéréo, peut alterner les côtés (ping-pong : l'entrée, sommée en mono,
+ * part à gauche, chaque répétition change de côté).
+ * Les changements de temps glissent sur un bloc (lecture interpolée) : pas de clic.
+ */
+public class Delay extends Effect {
+
+    public static final double MAX_SECONDS = 2.0;
+    // Durées en noires : 1/16, 1/8, 1/8 pointée, 1/4, 1/4 pointée, 1/2, ronde
+    public static final double[] DIVISIONS = {0.25, 0.5, 0.75, 1.0, 1.5, 2.0, 4.0};
+    public static final String[] DIVISION_NAMES = {"1/16", "1/8", "1/8.", "1/4", "1/4.", "1/2", "1/1"};
+
+    // --- Paramètres Publics ---
+    public volatile boolean tempoSync = true;
+    public volatile int division = 2;            // Index dans DIVISIONS
+    public volatile double timeSeconds = 0.375;  // Hors synchronisation
+    public volatile double feedback = 0.4;       // 0 à 0.95
+    public volatile double damping = 0.3;        // Passe-bas de la réinjection, 0 = aucun
+    public volatile boolean pingPong = true;
+
+    // --- Thread audio ---
+    private volatile double tempo = EffectsRack.DEFAULT_TEMPO;
+    private final DelayLine[] lines;
+    private final double[] feedbackState;
+    private final double[] taps;
+    private double currentDelay = -1.0;          // En échantillons (-1 = pas encore fixé)
+
+    public Delay(double sampleRate, int channels) {
+        this(sampleRate, channels, DelayLine.OFF_HEAP_DEFAULT);
+    }
+
+    public Delay(double sampleRate, int channels, boolean offHeap) {
+        super(sampleRate, channels);
+        lines = new DelayLine[channels];
+        for (int c = 0; c < channels; c++) {
+            lines[c] = new DelayLine((int) Math.ceil(MAX_SECONDS * sampleRate) + 2, offHeap);
+        }
+        feedbackState = new double[channels];
+        taps = new double[channels];
+    }
+
+    public void setDivision(int index) {
+        division = Math.max(0, Math.min(DIVISIONS.length - 1, index));
+    }
+
+    public void setTimeSeconds(double seconds) {
+        timeSeconds = Math.max(0.001, Math.min(MAX_SECONDS, seconds));
+    }
+
+    public void setFeedback(double amount) {
+        feedback = Math.max(0.0, Math.min(0.95, amount));
+    }
+
+    public void setDamping(double amount) {
+        damping = Math.max(0.0, Math.min(1.0, amount));
+    }
+
+    @Override
+    public void setTempo(double bpm) {
+        if (bpm > 0.0) tempo = bpm;
+    }
+
+    /** Temps de délai courant en secondes (synchronisé ou non). */
+    public double getDelaySeconds() {
+        double seconds = tempoSync ? 60.0 / tempo * DIVISIONS[Math.max(0, Math.min(DIVISIONS.length - 1, division))]
+                : timeSeconds;
+        return Math.min(MAX_SECONDS, seconds);
+    }
+
+    @Override
+    public void reset() {
+        for (DelayLine line : lines) line.clear();
+        Arrays.fill(feedbackState, 0.0);
+        currentDelay = -1.0;
+    }
+
+    @Override
+    protected void render(double[] in, int offset, int frames, int stride, double[] wet, int active) {
+        final double target = Math.max(1.0, Math.min(lines[0].getMaxDelay() - 2, getDelaySeconds() * sampleRate));
+        if (currentDelay < 0.0) currentDelay = target;
+        final double step = (target - currentDelay) / frames;
+        final double fb = feedback;
+        final double smoothing = 1.0 - damping;
+        final boolean cross = pingPong && active == 2;
+        double delay = currentDelay;
+
+        for (int i = 0, o = offset, j = 0; i < frames; i++, o += stride, j += channels) {
+            delay += step;
+            for (int c = 0; c < active; c++) {
+                taps[c] = lines[c].readLinear(delay);
+                wet[j + c] = taps[c];
+            }
+            if (cross) {
+                // Ping-pong : chaque côté réinjecte la répétition de l'autre
+                feedbackState[0] += (taps[1] - feedbackState[0]) * smoothing;
+                feedbackState[1] += (taps[0] - feedbackState[1]) * smoothing;
+                lines[0].write((in[o] + in[o + 1]) * 0.5 + feedbackState[0] * fb);
+                lines[1].write(feedbackState[1] * fb);
+            } else {
+                for (int c = 0; c < active; c++) {
+                    feedbackState[c] += (taps[c] - feedbackState[c]) * smoothing;
+                    lines[c].write(in[o + c] + feedbackState[c] * fb);
+                }
+            }
+        }
+        currentDelay = target;
+    }
+}
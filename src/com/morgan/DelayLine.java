@@ -0,0 +1,84 @@
+package com.morgan;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.util.Arrays;
+
+/**
+ * Ligne à retard circulaire, allouée une fois pour toutes : capacité arrondie à une puissance
+ * de deux, l'index de lecture est un simple masque (pas de modulo ni de test de bouclage).
+ * Le stockage peut être hors du tas Java (ByteBuffer.allocateDirect) : les longues lignes
+ * des effets ne pèsent alors plus sur le GC. Par défaut : -Dsynth.offHeapDelays=true|false.
+ */
+public final class DelayLine {
+
+    public static final boolean OFF_HEAP_DEFAULT = Boolean.getBoolean("synth.offHeapDelays");
+
+    private final int mask;
+    private final double[] heap;        // Stockage sur le tas (null si hors tas)
+    private final DoubleBuffer direct;  // Stockage hors tas (null sinon)
+    private int position = 0;           // Prochaine case écrite
+
+    public DelayLine(int minLength) {
+        this(minLength, OFF_HEAP_DEFAULT);
+    }
+
+    /** Ligne d'au moins 'minLength' échantillons de retard. */
+    public DelayLine(int minLength, boolean offHeap) {
+        if (minLength < 1 || minLength > (1 << 28)) {
+            throw new IllegalArgumentException("Longueur de ligne à retard invalide : " + minLength);
+        }
+        int capacity = Integer.highestOneBit(minLength) << 1; // > minLength : read(minLength) reste valide
+        mask = capacity - 1;
+        if (offHeap) {
+            heap = null;
+            direct = ByteBuffer.allocateDirect(capacity * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+        } else {
+            heap = new double[capacity];
+            direct = null;
+        }
+    }
+
+    /** Retard maximal lisible (en échantillons). */
+    public int getMaxDelay() {
+        return mask;
+    }
+
+    public boolean isOffHeap() {
+        return direct != null;
+    }
+
+    public void write(double sample) {
+        if (heap != null) {
+            heap[position] = sample;
+        } else {
+            direct.put(position, sample);
+        }
+        position = (position + 1) & mask;
+    }
+
+    /** Échantillon écrit il y a 'delay' écritures (1 = le dernier, jusqu'à getMaxDelay()). */
+    public double read(int delay) {
+        int index = (position - delay) & mask;
+        return (heap != null) ? heap[index] : direct.get(index);
+    }
+
+    /** Retard fractionnaire (interpolation linéaire), de 1 à getMaxDelay() - 1. */
+    public double readLinear(double delay) {
+        int whole = (int) delay;
+        double fraction = delay - whole;
+        double a = read(whole);
+        return a + (read(whole + 1) - a) * fraction;
+    }
+
+    /** Remet la ligne au silence. */
+    public void clear() {
+        if (heap != null) {
+            Arrays.fill(heap, 0.0);
+        } else {
+            for (int i = 0; i <= mask; i++) direct.put(i, 0.0);
+        }
+        position = 0;
+    }
+}
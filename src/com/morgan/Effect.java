@@ -0,0 +1,149 @@
+package com.morgan;
+
+/**
+ * Base des effets temporels (délai, chorus, réverbération).
+ * Un effet traite un buffer entrelacé sur place : process() dans le rack de sortie
+ * (EffectsRack), ou comme module mono à une entrée (effet d'un bus auxiliaire du MixBus).
+ * La sous-classe calcule le signal traité ("wet") ; le dosage sec / traité est fait ici,
+ * en rampe sur le bloc quand 'mix' bouge.
+ *
+ * Un effet contourné (bypass) ne calcule rien. Le passage se fait sans clic : à la mise
+ * en bypass, un dernier bloc est traité avec le dosage ramené à 0 (retour en rampe au sec) ;
+ * à la réactivation, les lignes sont vidées (pas d'ancien contenu rejoué) et, sur le premier
+ * bloc, le dosage remonte de 0 à 'mix' et l'entrée des lignes est elle aussi amenée en rampe
+ * (sinon le signal retardé démarrerait d'un coup une fois le retard écoulé).
+ * Réglages publics (volatile) écrits par le thread audio (paramètres) ou la GUI ;
+ * l'état de traitement appartient au thread audio.
+ */
+public abstract class Effect implements AudioModule {
+
+    protected final double sampleRate;
+    protected final int channels;        // Canaux traités (au-delà : signal sec inchangé)
+
+    public volatile double mix = 0.3;     // 0 = sec, 1 = traité seulement
+    private volatile boolean bypassed = false;
+
+    // --- Thread audio ---
+    private double appliedMix = Double.NaN;
+    private boolean wasBypassed = true;   // Vide les lignes au premier bloc traité
+    private double[] wet = new double[AudioEngine.BLOCK_SIZE * MixBus.MAX_CHANNELS];
+    private double[] fadedInput = new double[AudioEngine.BLOCK_SIZE * MixBus.MAX_CHANNELS];
+    private AudioModule input;
+    private final double[] tickBuffer = new double[1];
+
+    protected Effect(double sampleRate, int channels) {
+        if (channels < 1 || channels > MixBus.MAX_CHANNELS) {
+            throw new IllegalArgumentException("Nombre de canaux invalide : " + channels);
+        }
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+    }
+
+    public void setMix(double mix) {
+        this.mix = Math.max(0.0, Math.min(1.0, mix));
+    }
+
+    public void setBypassed(boolean bypassed) {
+        this.bypassed = bypassed;
+    }
+
+    public boolean isBypassed() {
+        return bypassed;
+    }
+
+    /** Tempo courant (BPM), transmis par le rack à chaque bloc ; sans effet par défaut. */
+    public void setTempo(double bpm) {
+    }
+
+    // ============================================================
+    //  TRAITEMENT (thread audio, sans allocation)
+    // ============================================================
+    /**
+     * Traite sur place 'frames' trames de buffer (entrelacé, 'stride' canaux) à partir de offset.
+     * Les canaux au-delà de ceux de l'effet passent sans traitement.
+     */
+    public final void process(double[] buffer, int offset, int frames, int stride) {
+        final boolean off = bypassed;
+        if (off && wasBypassed) {
+            return;
+        }
+        final int active = Math.min(channels, stride);
+        double[] source = buffer;
+        int sourceOffset = offset;
+        if (wasBypassed) {
+            reset();
+            wasBypassed = false;
+            appliedMix = 0.0; // Fondu d'entrée depuis le signal sec
+            source = fadeIn(buffer, offset, frames, stride, active);
+            sourceOffset = 0;
+        }
+        wet = AudioModule.ensureCapacity(wet, frames * channels);
+        final double[] w = wet;
+        render(source, sourceOffset, frames, stride, w, active);
+
+        // Dosage sec / traité, rampe d'un bloc vers le nouveau réglage (0 pour le dernier bloc avant bypass)
+        final double target = off ? 0.0 : mix;
+        final double step = (target - appliedMix) / frames;
+        double m = appliedMix;
+        for (int i = 0, o = offset, j = 0; i < frames; i++, o += stride, j += channels) {
+            m += step;
+            for (int c = 0; c < active; c++) {
+                double dry = buffer[o + c];
+                buffer[o + c] = dry + (w[j + c] - dry) * m;
+            }
+        }
+        appliedMix = target;
+        wasBypassed = off;
+    }
+
+    /** Copie de l'entrée en rampe de 0 à 1 sur le bloc (premier bloc après réactivation). */
+    private double[] fadeIn(double[] buffer, int offset, int frames, int stride, int active) {
+        fadedInput = AudioModule.ensureCapacity(fadedInput, frames * stride);
+        final double[] faded = fadedInput;
+        for (int i = 0, o = offset, j = 0; i < frames; i++, o += stride, j += stride) {
+            double gain = (i + 1) / (double) frames;
+            for (int c = 0; c < active; c++) faded[j + c] = buffer[o + c] * gain;
+        }
+        return faded;
+    }
+
+    /**
+     * Calcule le signal traité : lit in[offset + i * stride + c] et écrit wet[i * channels + c],
+     * pour les 'active' premiers canaux.
+     */
+    protected abstract void render(double[] in, int offset, int frames, int stride, double[] wet, int active);
+
+    /** Remet l'effet au silence (lignes à retard, filtres, phase). */
+    public abstract void reset();
+
+    // ============================================================
+    //  MODULE MONO (effet d'un bus auxiliaire)
+    // ============================================================
+    @Override
+    public double tick() {
+        processBlock(tickBuffer, 0, 1);
+        return tickBuffer[0];
+    }
+
+    @Override
+    public void processBlock(double[] buffer, int offset, int length) {
+        AudioModule source = input;
+        if (source != null) {
+            source.processBlock(buffer, offset, length);
+        } else {
+            for (int i = offset; i < offset + length; i++) buffer[i] = 0.0;
+        }
+        process(buffer, offset, length, 1);
+    }
+
+    @Override
+    public int getInputCount() {
+        return 1;
+    }
+
+    @Override
+    public void setInput(int port, AudioModule source) {
+        if (port != 0) AudioModule.super.setInput(port, source);
+        this.input = source;
+    }
+}
@@ -0,0 +1,50 @@
+package com.morgan;
+
+import java.util.Arrays;
+
+/**
+ * Rack d'effets en sortie du bus de mixage, avant le volume master : les effets sont
+ * appliqués dans l'ordre, sur place, au buffer entrelacé du bloc.
+ * Liste publiée par copie sur écriture (le thread audio lit le tableau volatile sans verrou) ;
+ * un effet contourné n'est pas appelé (une lecture de champ par bloc, aucun calcul).
+ */
+public class EffectsRack {
+
+    public static final double DEFAULT_TEMPO = 120.0; // Sans séquenceur branché
+
+    private volatile Effect[] effects = new Effect[0];
+
+    /** Ajoute un effet en fin de chaîne. */
+    public synchronized void add(Effect effect) {
+        Effect[] previous = effects;
+        Effect[] updated = Arrays.copyOf(previous, previous.length + 1);
+        updated[previous.length] = effect;
+        effects = updated;
+    }
+
+    public synchronized boolean remove(Effect effect) {
+        Effect[] previous = effects;
+        for (int i = 0; i < previous.length; i++) {
+            if (previous[i] == effect) {
+                Effect[] updated = new Effect[previous.length - 1];
+                System.arraycopy(previous, 0, updated, 0, i);
+                System.arraycopy(previous, i + 1, updated, i, previous.length - i - 1);
+                effects = updated;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Effect[] getEffects() {
+        return effects.clone();
+    }
+
+    /** Traite out[0 .. frames * channels[ (thread audio, sans allocation). */
+    void process(double[] out, int frames, int channels, double tempo) {
+        for (Effect effect : effects) {
+            effect.setTempo(tempo);
+            effect.process(out, 0, frames, channels);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.morgan;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Implémentation JMX des mesures du moteur (voir EngineMonitorMXBean).
+ */
+public class EngineMonitor implements EngineMonitorMXBean {
+
+    public static final String OBJECT_NAME = "com.morgan:type=AudioEngine";
+
+    private final AudioEngine engine;
+    private final RenderMetrics metrics;
+
+    public EngineMonitor(AudioEngine engine) {
+        this.engine = engine;
+        this.metrics = engine.getRenderMetrics();
+    }
+
+    /** Enregistre le moniteur auprès du serveur MBean de la plateforme. */
+    public static EngineMonitor register(AudioEngine engine) {
+        EngineMonitor monitor = new EngineMonitor(engine);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(monitor, new ObjectName(OBJECT_NAME));
+        } catch (JMException e) {
+            throw new IllegalStateException("Enregistrement JMX impossible (" + OBJECT_NAME + ")", e);
+        }
+        return monitor;
+    }
+
+    @Override public double getDspLoadPercent() { return metrics.getLoadPercent(); }
+    @Override public double getAverageDspLoadPercent() { return metrics.getAverageLoadPercent(); }
+    @Override public double getPeakDspLoadPercent() { return metrics.getPeakLoadPercent(); }
+    @Override public double getMaxRenderMicros() { return metrics.getMaxRenderMicros(); }
+    @Override public long getDeadlineMisses() { return metrics.getDeadlineMisses(); }
+    @Override public long[] getLoadHistogram() { return metrics.getLoadHistogram(); }
+    @Override public int getActiveVoices() { return metrics.getActiveVoices(); }
+    @Override public int getMaxActiveVoices() { return metrics.getMaxActiveVoices(); }
+    @Override public long getUnderruns() { return engine.getOutputStats().getUnderruns(); }
+    @Override public double getMaxJitterMillis() { return engine.getOutputStats().getMaxJitterMillis(); }
+    @Override public boolean isProfiling() { return metrics.isProfiling(); }
+    @Override public void setProfiling(boolean profiling) { metrics.setProfiling(profiling); }
+    @Override public void resetPeaks() { metrics.reset(); }
+
+    @Override
+    public Map<String, Double> getModuleLoads() {
+        return moduleLoads(engine);
+    }
+
+    /** Charge par nœud du graphe de patch (lecture depuis un thread de contrôle). */
+    static Map<String, Double> moduleLoads(AudioEngine engine) {
+        Map<String, Double> loads = new LinkedHashMap<>();
+        RenderMetrics metrics = engine.getRenderMetrics();
+        if (!metrics.isProfiling()) return loads;
+        synchronized (engine.patch) { // Le graphe ne change pas pendant le parcours
+            int count = Math.min(engine.patch.getNodeCount(), RenderMetrics.MAX_PROFILED_NODES);
+            for (int node = 0; node < count; node++) {
+                if (!engine.patch.hasModule(node)) continue; // Case libérée
+                String name = node + ":" + engine.patch.getModule(node).getClass().getSimpleName();
+                loads.put(name, metrics.getModuleLoadPercent(node));
+            }
+        }
+        return loads;
+    }
+}
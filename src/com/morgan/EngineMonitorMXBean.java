@@ -0,0 +1,39 @@
+package com.morgan;
+
+import java.util.Map;
+
+/**
+ * Vue JMX du moteur audio (jconsole, VisualVM...) : nom d'objet "com.morgan:type=AudioEngine".
+ * Toutes les lectures passent par les compteurs sans verrou de RenderMetrics et OutputStats.
+ */
+public interface EngineMonitorMXBean {
+
+    double getDspLoadPercent();
+
+    double getAverageDspLoadPercent();
+
+    double getPeakDspLoadPercent();
+
+    double getMaxRenderMicros();
+
+    long getDeadlineMisses();
+
+    long[] getLoadHistogram();
+
+    int getActiveVoices();
+
+    int getMaxActiveVoices();
+
+    long getUnderruns();
+
+    double getMaxJitterMillis();
+
+    boolean isProfiling();
+
+    void setProfiling(boolean profiling);
+
+    /** Charge par nœud du PatchGraph ("id:Classe" → %), vide si le profilage est inactif. */
+    Map<String, Double> getModuleLoads();
+
+    void resetPeaks();
+}
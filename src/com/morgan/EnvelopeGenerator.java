@@ -1,75 +1,305 @@
 package com.morgan;
 
+import java.util.Arrays;
+
+/**
+ * Enveloppe AHDSR (Attack, Hold, Decay, Sustain, Release) à segments exponentiels.
+ * Chaque segment est une récurrence à une multiplication par échantillon :
+ * v = base + v * coef, qui vise une cible légèrement au-delà du niveau de fin
+ * (le segment se termine donc en un temps fini, sans queue interminable).
+ * Hold = 0 donne une ADSR classique. La vélocité règle le niveau crête.
+ * Les réglages sont écrits par les threads de contrôle ; les coefficients
+ * sont recalculés par le thread audio au début du bloc suivant.
+ */
 public class EnvelopeGenerator implements AudioModule {
 
-    // 1. Simplification des états
-    private enum State { IDLE, ATTACK, SUSTAIN, RELEASE }
+    private enum State { IDLE, ATTACK, HOLD, DECAY, SUSTAIN, RELEASE }
     private State currentState = State.IDLE;
 
-    // 2. Garder seulement Attack et Release
-    public double attackTime = 0.01;
-    public double releaseTime = 0.3;
-    // (Decay et Sustain sont supprimés)
+    // Dépassement de cible : attaque presque linéaire (convexe), decay/release bien exponentiels
+    private static final double ATTACK_TARGET_RATIO = 0.3;
+    private static final double DECAY_TARGET_RATIO = 0.0001;
+    // Glissement vers un nouveau niveau de sustain (pas de saut si on bouge le réglage)
+    private static final double SUSTAIN_GLIDE_TIME = 0.005;
+
+    // --- Réglages (secondes, niveau 0..1) ---
+    public volatile double attackTime = 0.01;
+    public volatile double holdTime = 0.0;
+    public volatile double decayTime = 0.3;
+    public volatile double sustainLevel = 1.0;
+    public volatile double releaseTime = 0.3;
+    // 0 = vélocité ignorée, 1 = niveau crête proportionnel au carré de la vélocité
+    public volatile double velocitySensitivity = 0.0;
+    private volatile boolean settingsDirty = true;
 
     private final double SAMPLE_RATE;
     private double currentValue = 0.0;
+    private double peak = 1.0;        // Niveau crête de la note en cours (vélocité)
+    private int holdRemaining = 0;
 
-    private double attackIncrement;
-    private double releaseIncrement;
+    // --- Coefficients (thread audio) ---
+    private double attackCoef, decayCoef, releaseCoef, sustainCoef;
+    private double attackTarget, decayTarget, releaseTarget, sustainTarget;
+    private double attackBase, decayBase, releaseBase, sustainBase;
+    private int holdSamples;
 
     public EnvelopeGenerator(double sampleRate) {
         this.SAMPLE_RATE = sampleRate;
-        updateIncrements();
+        updateCoefficients();
+    }
+
+    public void setAttack(double seconds) {
+        this.attackTime = Math.max(0.0, seconds);
+        this.settingsDirty = true;
+    }
+
+    public void setHold(double seconds) {
+        this.holdTime = Math.max(0.0, seconds);
+        this.settingsDirty = true;
+    }
+
+    public void setDecay(double seconds) {
+        this.decayTime = Math.max(0.0, seconds);
+        this.settingsDirty = true;
+    }
+
+    public void setSustain(double level) {
+        this.sustainLevel = Math.max(0.0, Math.min(1.0, level));
+        this.settingsDirty = true;
+    }
+
+    public void setRelease(double seconds) {
+        this.releaseTime = Math.max(0.0, seconds);
+        this.settingsDirty = true;
+    }
+
+    public void setVelocitySensitivity(double amount) {
+        this.velocitySensitivity = Math.max(0.0, Math.min(1.0, amount));
+        this.settingsDirty = true;
     }
 
-    // 3. Simplification de updateIncrements
-    public void updateIncrements() {
-        // Monte jusqu'à 1.0
-        attackIncrement = (attackTime > 0) ? (1.0 / (attackTime * SAMPLE_RATE)) : 1.0;
-        // Descend depuis 1.0 (et non plus depuis sustainLevel)
-        releaseIncrement = (releaseTime > 0) ? (1.0 / (releaseTime * SAMPLE_RATE)) : 1.0;
+    /** Recopie les réglages d'un autre générateur (utilisé par les voix de polyphonie). */
+    public void copySettingsFrom(EnvelopeGenerator other) {
+        if (attackTime != other.attackTime || holdTime != other.holdTime || decayTime != other.decayTime
+                || sustainLevel != other.sustainLevel || releaseTime != other.releaseTime
+                || velocitySensitivity != other.velocitySensitivity) {
+            this.attackTime = other.attackTime;
+            this.holdTime = other.holdTime;
+            this.decayTime = other.decayTime;
+            this.sustainLevel = other.sustainLevel;
+            this.releaseTime = other.releaseTime;
+            this.velocitySensitivity = other.velocitySensitivity;
+            this.settingsDirty = true;
+        }
+    }
+
+    // Coefficients des récurrences pour le niveau crête courant (thread audio)
+    private void updateCoefficients() {
+        settingsDirty = false;
+        attackCoef = segmentCoef(attackTime, ATTACK_TARGET_RATIO);
+        decayCoef = segmentCoef(decayTime, DECAY_TARGET_RATIO);
+        releaseCoef = segmentCoef(releaseTime, DECAY_TARGET_RATIO);
+        sustainCoef = Math.exp(-1.0 / (SUSTAIN_GLIDE_TIME * SAMPLE_RATE));
+        holdSamples = (int) Math.round(holdTime * SAMPLE_RATE);
+        updateTargets();
+    }
+
+    // Les cibles suivent le niveau crête : recalculées à chaque note (une poignée d'opérations)
+    private void updateTargets() {
+        attackTarget = peak * (1.0 + ATTACK_TARGET_RATIO);
+        sustainTarget = peak * sustainLevel;
+        decayTarget = sustainTarget - peak * DECAY_TARGET_RATIO;
+        releaseTarget = -peak * DECAY_TARGET_RATIO;
+        attackBase = attackTarget * (1.0 - attackCoef);
+        decayBase = decayTarget * (1.0 - decayCoef);
+        releaseBase = releaseTarget * (1.0 - releaseCoef);
+        sustainBase = sustainTarget * (1.0 - sustainCoef);
+    }
+
+    // Facteur par échantillon pour aller de 0 à 1 (ou de 1 à 0) en 'seconds' avec ce dépassement
+    private double segmentCoef(double seconds, double targetRatio) {
+        if (seconds <= 0.0) return 0.0; // Saut immédiat : v = base = cible
+        return Math.exp(-Math.log((1.0 + targetRatio) / targetRatio) / (seconds * SAMPLE_RATE));
     }
 
-    // --- Triggers (inchangés) ---
-    public void noteOn() {
-        currentState = State.ATTACK;
+    // --- Triggers ---
+
+    /** Nouvelle note : l'attaque repart de la valeur actuelle (pas de clic en cas de vol de voix). */
+    public void noteOn(int velocity) {
+        double v = Math.max(0, Math.min(127, velocity)) / 127.0;
+        peak = 1.0 - velocitySensitivity * (1.0 - v * v);
+        if (settingsDirty) {
+            updateCoefficients();
+        } else {
+            updateTargets();
+        }
+        // Redéclenchement plus doux que le niveau actuel : on redescend directement vers le sustain
+        currentState = (currentValue < peak) ? State.ATTACK : State.DECAY;
     }
 
     public void noteOff() {
-        currentState = State.RELEASE;
+        if (currentState != State.IDLE) {
+            currentState = State.RELEASE;
+        }
+    }
+
+    public boolean isIdle() {
+        return currentState == State.IDLE;
+    }
+
+    public double getCurrentValue() {
+        return currentValue;
     }
-    // ---------------------------------
 
-    // 4. Simplification de la logique tick()
     @Override
     public double tick() {
+        if (settingsDirty) {
+            updateCoefficients();
+        }
+        double v = currentValue;
         switch (currentState) {
             case IDLE:
-                currentValue = 0.0;
+                v = 0.0;
                 break;
 
             case ATTACK:
-                currentValue += attackIncrement;
-                if (currentValue >= 1.0) {
-                    currentValue = 1.0;
-                    currentState = State.SUSTAIN; // Passe en mode "Hold"
+                v = attackBase + v * attackCoef;
+                if (v >= peak) {
+                    v = peak;
+                    enterHold();
                 }
                 break;
 
-            // (Case DECAY supprimée)
+            case HOLD:
+                if (--holdRemaining <= 0) {
+                    currentState = State.DECAY;
+                }
+                break;
+
+            case DECAY:
+                v = decayBase + v * decayCoef;
+                if (v <= sustainTarget) {
+                    currentState = State.SUSTAIN;
+                }
+                break;
 
             case SUSTAIN:
-                currentValue = 1.0; // Reste à 100% tant que la touche est tenue
+                v = sustainBase + v * sustainCoef;
                 break;
 
             case RELEASE:
-                currentValue -= releaseIncrement; // Descend depuis la valeur actuelle
-                if (currentValue <= 0.0) {
-                    currentValue = 0.0;
+                v = releaseBase + v * releaseCoef;
+                if (v <= 0.0) {
+                    v = 0.0;
                     currentState = State.IDLE;
                 }
                 break;
         }
-        return currentValue;
+        currentValue = v;
+        return v;
+    }
+
+    // Rendu par bloc : chaque segment calcule d'avance combien d'échantillons il reste
+    // avant sa transition et remplit cette portion sans aucun test ni switch par échantillon.
+    @Override
+    public void processBlock(double[] buffer, int offset, int length) {
+        if (settingsDirty) {
+            updateCoefficients();
+        }
+        final int end = offset + length;
+        int i = offset;
+
+        while (i < end) {
+            switch (currentState) {
+                case IDLE:
+                    currentValue = 0.0;
+                    Arrays.fill(buffer, i, end, 0.0);
+                    i = end;
+                    break;
+
+                case ATTACK:
+                    i = runSegment(buffer, i, end, attackBase, attackCoef, attackTarget, peak);
+                    if (i < end) {
+                        // Échantillon de transition : seul test de la portion
+                        double v = attackBase + currentValue * attackCoef;
+                        if (v >= peak) {
+                            v = peak;
+                            enterHold();
+                        }
+                        currentValue = buffer[i++] = v;
+                    }
+                    break;
+
+                case HOLD: {
+                    int n = Math.min(end - i, holdRemaining);
+                    Arrays.fill(buffer, i, i + n, currentValue);
+                    i += n;
+                    holdRemaining -= n;
+                    if (holdRemaining <= 0) currentState = State.DECAY;
+                    break;
+                }
+
+                case DECAY:
+                    i = runSegment(buffer, i, end, decayBase, decayCoef, decayTarget, sustainTarget);
+                    if (i < end) {
+                        double v = decayBase + currentValue * decayCoef;
+                        if (v <= sustainTarget) {
+                            currentState = State.SUSTAIN; // Le glissement du sustain rattrape le léger dépassement
+                        }
+                        currentValue = buffer[i++] = v;
+                    }
+                    break;
+
+                case SUSTAIN:
+                    if (Math.abs(currentValue - sustainTarget) < 1e-9) {
+                        currentValue = sustainTarget;
+                        Arrays.fill(buffer, i, end, currentValue);
+                    } else {
+                        double v = currentValue;
+                        for (; i < end; i++) {
+                            v = sustainBase + v * sustainCoef;
+                            buffer[i] = v;
+                        }
+                        currentValue = v;
+                    }
+                    i = end;
+                    break;
+
+                case RELEASE:
+                    i = runSegment(buffer, i, end, releaseBase, releaseCoef, releaseTarget, 0.0);
+                    if (i < end) {
+                        double v = releaseBase + currentValue * releaseCoef;
+                        if (v <= 0.0) {
+                            v = 0.0;
+                            currentState = State.IDLE;
+                        }
+                        currentValue = buffer[i++] = v;
+                    }
+                    break;
+            }
+        }
+    }
+
+    private void enterHold() {
+        holdRemaining = holdSamples;
+        currentState = (holdSamples > 0) ? State.HOLD : State.DECAY;
+    }
+
+    /**
+     * Applique la récurrence sur les échantillons qui ne peuvent pas franchir 'limit'
+     * (v_n = cible + (v_0 - cible) * coef^n, résolu en n) et retourne le nouvel indice.
+     * Toujours au moins un échantillon de moins que la transition : le franchissement
+     * lui-même est testé par l'appelant.
+     */
+    private int runSegment(double[] buffer, int i, int end, double base, double coef, double target, double limit) {
+        double v = currentValue;
+        double steps = Math.log((limit - target) / (v - target)) / Math.log(coef);
+        int run = (steps > 1.0) ? (int) Math.min(end - i, steps - 1.0) : 0;
+        for (int k = 0; k < run; k++) {
+            v = base + v * coef;
+            buffer[i + k] = v;
+        }
+        currentValue = v;
+        return i + run;
     }
-}
\ No newline at end of file
+}
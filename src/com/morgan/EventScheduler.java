@@ -0,0 +1,130 @@
+package com.morgan;
+
+/**
+ * Ordonnanceur d'événements horodatés en échantillons (thread audio uniquement).
+ * Les événements (notes, CC, paramètres) sont gardés triés par date dans des tableaux
+ * préalloués ; le rendu d'un bloc est découpé aux dates exactes des événements,
+ * ce qui les applique à l'échantillon près.
+ * À date égale, l'ordre d'arrivée est conservé (un note-off puis un note-on restent dans l'ordre).
+ */
+public class EventScheduler {
+
+    public static final int DEFAULT_CAPACITY = 4096;
+
+    private final long[] times;
+    private final int[] types;
+    private final int[] data1;
+    private final int[] data2;
+    private final double[] values;
+
+    private int head = 0; // Premier événement en attente
+    private int size = 0; // Fin des événements en attente
+
+    // Événements perdus parce que l'ordonnanceur était plein
+    private long droppedEvents = 0;
+
+    public EventScheduler() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    public EventScheduler(int capacity) {
+        times = new long[capacity];
+        types = new int[capacity];
+        data1 = new int[capacity];
+        data2 = new int[capacity];
+        values = new double[capacity];
+    }
+
+    /** Programme un événement à la date 'time' (en échantillons depuis le démarrage du moteur). */
+    public boolean schedule(long time, int type, int d1, int d2, double value) {
+        if (size == times.length) {
+            if (head == 0) {
+                droppedEvents++;
+                return false;
+            }
+            compact();
+        }
+
+        // Insertion triée depuis la fin : les événements arrivent presque toujours dans l'ordre
+        int i = size;
+        while (i > head && times[i - 1] > time) {
+            times[i] = times[i - 1];
+            types[i] = types[i - 1];
+            data1[i] = data1[i - 1];
+            data2[i] = data2[i - 1];
+            values[i] = values[i - 1];
+            i--;
+        }
+        times[i] = time;
+        types[i] = type;
+        data1[i] = d1;
+        data2[i] = d2;
+        values[i] = value;
+        size++;
+        return true;
+    }
+
+    /** Date du prochain événement, ou Long.MAX_VALUE s'il n'y en a pas. */
+    public long nextTime() {
+        return (head < size) ? times[head] : Long.MAX_VALUE;
+    }
+
+    /** Applique au moteur tous les événements dont la date est <= 'time'. */
+    public void dispatchUntil(long time, AudioEngine engine) {
+        while (head < size && times[head] <= time) {
+            engine.applyCommand(types[head], data1[head], data2[head], values[head]);
+            head++;
+        }
+        if (head == size) {
+            head = 0;
+            size = 0;
+        }
+    }
+
+    /**
+     * Déplace le prochain événement vers un autre ordonnanceur (tampon d'avance du séquenceur
+     * → ordonnanceur du moteur). Rien à faire s'il n'y en a pas.
+     */
+    public void transferNext(EventScheduler target) {
+        if (head == size) return;
+        target.schedule(times[head], types[head], data1[head], data2[head], values[head]);
+        head++;
+        if (head == size) {
+            head = 0;
+            size = 0;
+        }
+    }
+
+    /** Déplace tous les événements en attente vers 'target', ramenés à la date 'time'. */
+    public void flushTo(long time, EventScheduler target) {
+        for (int i = head; i < size; i++) {
+            target.schedule(time, types[i], data1[i], data2[i], values[i]);
+        }
+        clear();
+    }
+
+    /** Oublie tous les événements en attente. */
+    public void clear() {
+        head = 0;
+        size = 0;
+    }
+
+    public int getPendingCount() {
+        return size - head;
+    }
+
+    public long getDroppedEvents() {
+        return droppedEvents;
+    }
+
+    private void compact() {
+        int count = size - head;
+        System.arraycopy(times, head, times, 0, count);
+        System.arraycopy(types, head, types, 0, count);
+        System.arraycopy(data1, head, data1, 0, count);
+        System.arraycopy(data2, head, data2, 0, count);
+        System.arraycopy(values, head, values, 0, count);
+        head = 0;
+        size = count;
+    }
+}
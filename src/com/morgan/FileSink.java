@@ -0,0 +1,42 @@
+package com.morgan;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Sortie dans un fichier WAV ou PCM brut (AudioFileWriter). Sans PacedSink,
+ * le moteur tourne aussi vite que le disque le permet.
+ */
+public class FileSink implements AudioSink {
+
+    private final Path path;
+    private AudioFileWriter writer;
+    private int channels;
+
+    public FileSink(Path path) {
+        this.path = path;
+    }
+
+    @Override
+    public void open(float sampleRate, OutputConfig config) throws IOException {
+        channels = config.channels;
+        writer = new AudioFileWriter(path, sampleRate, channels, config.sampleFormat);
+    }
+
+    @Override
+    public void write(double[] block, int frames) throws IOException {
+        writer.write(block, frames * channels);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (writer != null) {
+            writer.close(); // Tailles définitives de l'en-tête WAV
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "fichier " + path;
+    }
+}
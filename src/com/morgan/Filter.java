@@ -1,33 +1,71 @@
 package com.morgan;
 
+import java.util.Arrays;
+
 /**
  * Filtre Passe-Bas à deux pôles (Low-Pass Filter) avec résonance.
+ * Modes "zero-delay feedback" en plus du filtre classique : SVF (passe-bas,
+ * passe-haut, passe-bande, coupe-bande) et ladder 4 pôles, stables jusqu'à Nyquist.
  */
 public class Filter implements AudioModule {
 
+    public enum Mode { CLASSIC, SVF_LOWPASS, SVF_HIGHPASS, SVF_BANDPASS, SVF_NOTCH, LADDER }
+
+    private static final double OCTAVE_LOG = Math.log(2.0);
+
     private AudioModule input;
 
     // --- Contrôles publics (rendus VOLATILE pour la lecture thread-safe) ---
     public volatile double cutoffFrequency = 10000.0;
     public volatile double resonance = 0.0;
+    public volatile Mode mode = Mode.CLASSIC;
+
+    // Mode réellement utilisé par le thread audio (les mémoires sont remises à zéro au changement)
+    private Mode activeMode = Mode.CLASSIC;
+    private final StateVariableFilter svf = new StateVariableFilter();
+    private final LadderFilter ladder = new LadderFilter();
 
     // NOUVEAU: Coefficients pré-calculés
     private double currentAlpha = 0.0;
     private double currentFeedback = 0.0;
     private volatile boolean coeffsDirty = true;
 
+    // Valeurs lissées : cutoff en rampe exponentielle (perçue linéaire), résonance en rampe linéaire
+    private final SmoothedValue smoothedCutoff;
+    private final SmoothedValue smoothedResonance;
+
+    // Modulation (matrice de modulation) : cutoff en octaves, résonance en décalage.
+    // Hors lissage : interpolée sur le bloc au taux de contrôle.
+    private double cutoffModulation = 0.0;
+    private double resonanceModulation = 0.0;
+    private double appliedCutoffModulation = 0.0;
+    private double appliedResonanceModulation = 0.0;
+    private double cutoffRatio = 1.0;
+
     // Variables d'état interne
     private double delay1 = 0.0;
     private double delay2 = 0.0;
-    private final double SAMPLE_RATE;
+    private double sampleRate;
+    private double smoothingTime = SmoothedValue.DEFAULT_RAMP_TIME;
 
     public Filter(double sampleRate) {
-        this.SAMPLE_RATE = sampleRate;
+        this.sampleRate = sampleRate;
+        this.smoothedCutoff = new SmoothedValue(cutoffFrequency, SmoothedValue.Ramp.EXPONENTIAL, sampleRate);
+        this.smoothedResonance = new SmoothedValue(resonance, SmoothedValue.Ramp.LINEAR, sampleRate);
         updateCoefficients();
     }
 
     public void setInput(AudioModule input) { this.input = input; }
 
+    @Override
+    public int getInputCount() { return 1; }
+
+    @Override
+    public void setInput(int port, AudioModule input) {
+        if (port != 0) AudioModule.super.setInput(port, input);
+        this.input = input;
+    }
+
     public void setCutoff(double newCutoff) {
         this.cutoffFrequency = newCutoff;
         this.coeffsDirty = true;
@@ -38,17 +76,97 @@ public class Filter implements AudioModule {
         this.coeffsDirty = true;
     }
 
-    /** Calcule les coefficients une seule fois lorsque nécessaire. */
+    public void setMode(Mode newMode) {
+        this.mode = newMode;
+        this.coeffsDirty = true;
+    }
+
+    /** Durée des rampes de cutoff/résonance (0 = changements instantanés). */
+    public void setSmoothingTime(double seconds) {
+        this.smoothingTime = seconds;
+        smoothedCutoff.setRampTime(seconds, sampleRate);
+        smoothedResonance.setRampTime(seconds, sampleRate);
+    }
+
+    /** Modulation du cutoff (octaves) et de la résonance (matrice de modulation, thread audio). */
+    public void setModulation(double cutoffOctaves, double resonanceOffset) {
+        this.cutoffModulation = cutoffOctaves;
+        this.resonanceModulation = resonanceOffset;
+    }
+
+    private boolean isModulating() {
+        return cutoffModulation != appliedCutoffModulation || resonanceModulation != appliedResonanceModulation;
+    }
+
+    // Modulation appliquée à la fraction 'done / length' du bloc (valeur exacte en fin de bloc)
+    private void applyModulation(double cutStart, double resStart, int done, int length) {
+        if (done == length) {
+            appliedCutoffModulation = cutoffModulation;
+            appliedResonanceModulation = resonanceModulation;
+        } else {
+            double t = (double) done / length;
+            appliedCutoffModulation = cutStart + (cutoffModulation - cutStart) * t;
+            appliedResonanceModulation = resStart + (resonanceModulation - resStart) * t;
+        }
+        cutoffRatio = Math.exp(appliedCutoffModulation * OCTAVE_LOG);
+    }
+
+    /** Le cutoff est exprimé en Hz : coefficients et durées de rampe suivent le nouveau taux. */
+    @Override
+    public void setSampleRate(double newSampleRate) {
+        this.sampleRate = newSampleRate;
+        setSmoothingTime(smoothingTime);
+        computeCoefficients(smoothedCutoff.getCurrent(), smoothedResonance.getCurrent());
+    }
+
+    /** Termine les rampes en cours (nouvelle note : la voix part directement des bons réglages). */
+    public void jumpToTargets() {
+        if (coeffsDirty) {
+            updateCoefficients();
+        }
+        smoothedCutoff.jumpToTarget();
+        smoothedResonance.jumpToTarget();
+        computeCoefficients(smoothedCutoff.getCurrent(), smoothedResonance.getCurrent());
+    }
+
+    /** Recopie cutoff et résonance d'un autre filtre (utilisé par les voix de polyphonie). */
+    public void copySettingsFrom(Filter other) {
+        if (cutoffFrequency != other.cutoffFrequency) setCutoff(other.cutoffFrequency);
+        if (resonance != other.resonance) setResonance(other.resonance);
+        if (mode != other.mode) setMode(other.mode);
+    }
+
+    /** Prend en compte les nouvelles consignes : démarre les rampes (ou saute si lissage désactivé). */
     private void updateCoefficients() {
+        this.coeffsDirty = false;
+        if (mode != activeMode) {
+            // Nouveau mode : on repart de mémoires vides (les états ne sont pas compatibles)
+            activeMode = mode;
+            delay1 = delay2 = 0.0;
+            svf.reset();
+            ladder.reset();
+            computeCoefficients(smoothedCutoff.getCurrent(), smoothedResonance.getCurrent());
+        }
+        smoothedCutoff.setTarget(cutoffFrequency);
+        smoothedResonance.setTarget(resonance);
+        if (!smoothedCutoff.isSmoothing() && !smoothedResonance.isSmoothing()) {
+            computeCoefficients(smoothedCutoff.getCurrent(), smoothedResonance.getCurrent());
+        }
+    }
+
+    /** Calcule les coefficients pour un couple cutoff/résonance donné (modulation appliquée ici). */
+    private void computeCoefficients(double smoothedCutoffValue, double smoothedResonanceValue) {
+        double cutoff = smoothedCutoffValue * cutoffRatio;
+        double res = smoothedResonanceValue + appliedResonanceModulation;
         // Facteur de gain interne (Nous permet d'atteindre l'auto-oscillation)
         final double MAX_Q_BOOST = 4.0; // Augmente l'effet de résonance par 4
 
         // 1. Calculer g (Normalized frequency)
-        double g = cutoffFrequency / SAMPLE_RATE;
+        double g = cutoff / sampleRate;
         g = Math.min(0.49, g);
 
         // 2. Clamper la résonance (input 0.0 à 1.0)
-        double Q_input = Math.max(0.0, Math.min(1.0, resonance));
+        double Q_input = Math.max(0.0, Math.min(1.0, res));
 
         // 3. APPLICATION DU GAIN INTERNE (Le correctif)
         double Q_applied = Q_input * MAX_Q_BOOST;
@@ -58,7 +176,25 @@ public class Filter implements AudioModule {
         // Calcul du terme de feedback: utilise le gain appliqué Q_applied
         this.currentFeedback = 2.0 * Q_applied * g;
 
-        this.coeffsDirty = false;
+        // Cœur ZDF du mode actif (pré-déformation par table : pas de Math.tan())
+        if (activeMode == Mode.LADDER) {
+            ladder.setParameters(cutoff / sampleRate, res);
+        } else if (activeMode != Mode.CLASSIC) {
+            svf.setParameters(cutoff / sampleRate, res);
+        }
+    }
+
+    private static StateVariableFilter.Output svfOutput(Mode mode) {
+        switch (mode) {
+            case SVF_HIGHPASS: return StateVariableFilter.Output.HIGHPASS;
+            case SVF_BANDPASS: return StateVariableFilter.Output.BANDPASS;
+            case SVF_NOTCH:    return StateVariableFilter.Output.NOTCH;
+            default:           return StateVariableFilter.Output.LOWPASS;
+        }
+    }
+
+    private boolean isSmoothing() {
+        return smoothedCutoff.isSmoothing() || smoothedResonance.isSmoothing();
     }
 
 
@@ -69,6 +205,18 @@ public class Filter implements AudioModule {
         if (coeffsDirty) {
             updateCoefficients();
         }
+        if (isModulating()) {
+            applyModulation(0.0, 0.0, 1, 1);
+            computeCoefficients(smoothedCutoff.getCurrent(), smoothedResonance.getCurrent());
+        }
+        if (isSmoothing()) {
+            computeCoefficients(smoothedCutoff.next(), smoothedResonance.next());
+        }
+
+        if (activeMode != Mode.CLASSIC) {
+            double x = input.tick();
+            return (activeMode == Mode.LADDER) ? ladder.tick(x) : svf.tick(x, svfOutput(activeMode));
+        }
 
         // 1. Lire et Clamper l'entrée (Safety Clamp)
         double inputSample = Math.max(-1.0, Math.min(1.0, input.tick()));
@@ -88,4 +236,120 @@ public class Filter implements AudioModule {
         // 3. Clamper la sortie finale (Anti-Clipping)
         return Math.max(-1.0, Math.min(1.0, delay2));
     }
-}
\ No newline at end of file
+
+    // --- Rendu par bloc : l'entrée est tirée en une fois puis filtrée sur place ---
+    @Override
+    public void processBlock(double[] buffer, int offset, int length) {
+        final int end = offset + length;
+        if (input == null) {
+            Arrays.fill(buffer, offset, end, 0.0);
+            return;
+        }
+
+        if (coeffsDirty) {
+            updateCoefficients();
+        }
+
+        input.processBlock(buffer, offset, length);
+
+        if (activeMode != Mode.CLASSIC) {
+            processZdf(buffer, offset, length);
+            return;
+        }
+
+        if (isSmoothing() || isModulating()) {
+            processSmoothing(buffer, offset, length);
+            return;
+        }
+
+        // Réglages statiques : coefficients constants, aucun coût de lissage
+        final double alpha = currentAlpha;
+        final double feedback = currentFeedback;
+        double d1 = delay1;
+        double d2 = delay2;
+
+        for (int i = offset; i < end; i++) {
+            double inputSample = clamp(buffer[i]);
+            double inputToFilter = inputSample - feedback * d2;
+            d1 = d1 + alpha * (inputToFilter - d1);
+            d2 = d2 + alpha * (d1 - d2);
+            buffer[i] = clamp(d2);
+        }
+
+        delay1 = d1;
+        delay2 = d2;
+    }
+
+    /**
+     * Modes ZDF : pas de clamp (le filtre est stable), coefficients recalculés
+     * tous les CONTROL_BLOCK échantillons pendant une rampe.
+     */
+    private void processZdf(double[] buffer, int offset, int length) {
+        final boolean isLadder = (activeMode == Mode.LADDER);
+        final StateVariableFilter.Output output = svfOutput(activeMode);
+
+        final boolean modulating = isModulating();
+        if (!isSmoothing() && !modulating) {
+            if (isLadder) ladder.processBlock(buffer, offset, length);
+            else svf.processBlock(buffer, offset, length, output);
+            return;
+        }
+
+        final double cutStart = appliedCutoffModulation;
+        final double resStart = appliedResonanceModulation;
+        final int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            int n = Math.min(SmoothedValue.CONTROL_BLOCK, end - i);
+            if (modulating) applyModulation(cutStart, resStart, i + n - offset, length);
+            computeCoefficients(smoothedCutoff.skip(n), smoothedResonance.skip(n));
+            if (isLadder) ladder.processBlock(buffer, i, n);
+            else svf.processBlock(buffer, i, n, output);
+            i += n;
+        }
+    }
+
+    /**
+     * Rampe ou modulation en cours : coefficients recalculés tous les CONTROL_BLOCK échantillons
+     * et interpolés linéairement entre deux points de contrôle.
+     */
+    private void processSmoothing(double[] buffer, int offset, int length) {
+        final boolean modulating = isModulating();
+        final double cutStart = appliedCutoffModulation;
+        final double resStart = appliedResonanceModulation;
+        final int end = offset + length;
+        double alpha = currentAlpha;
+        double feedback = currentFeedback;
+        double d1 = delay1;
+        double d2 = delay2;
+
+        int i = offset;
+        while (i < end) {
+            int n = Math.min(SmoothedValue.CONTROL_BLOCK, end - i);
+            if (modulating) applyModulation(cutStart, resStart, i + n - offset, length);
+            computeCoefficients(smoothedCutoff.skip(n), smoothedResonance.skip(n));
+            double alphaStep = (currentAlpha - alpha) / n;
+            double feedbackStep = (currentFeedback - feedback) / n;
+
+            for (int k = 0; k < n; k++, i++) {
+                alpha += alphaStep;
+                feedback += feedbackStep;
+                double inputToFilter = clamp(buffer[i]) - feedback * d2;
+                d1 = d1 + alpha * (inputToFilter - d1);
+                d2 = d2 + alpha * (d1 - d2);
+                buffer[i] = clamp(d2);
+            }
+            // Pas de dérive d'arrondi : on repart exactement des coefficients calculés
+            alpha = currentAlpha;
+            feedback = currentFeedback;
+        }
+
+        delay1 = d1;
+        delay2 = d2;
+    }
+
+    // Clamp +1/-1 (plus rapide que Math.max/Math.min dans les boucles internes)
+    private static double clamp(double sample) {
+        return (sample < -1.0) ? -1.0 : (sample > 1.0 ? 1.0 : sample);
+    }
+}
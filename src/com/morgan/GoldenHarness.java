@@ -0,0 +1,569 @@
+package com.morgan;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Non-régression du rendu ("golden output") : des scénarios fixes (chaque forme d'onde,
+ * balayages de chaque mode de filtre, enveloppes redéclenchées, vol de voix, séquenceur,
+ * modulation, sortie stéréo avec effets) sont rendus hors temps réel avec une graine fixe
+ * (AudioEngine.setRandomSeed) puis comparés aux rendus de référence du dossier golden/.
+ *
+ * Deux vérifications par scénario :
+ * - échantillon par échantillon : écart absolu maximal sous la tolérance (--tolerance) ;
+ * - spectrale : énergie par bande (24 bandes logarithmiques, spectre de Hann moyenné),
+ *   écart maximal en dB sous --spectral-db. Elle reste parlante quand une optimisation
+ *   décale légèrement la phase (suréchantillonnage, nouveau filtre) avec une tolérance relâchée.
+ * Un moteur indépendant par scénario : les scénarios sont rendus en parallèle.
+ *
+ * Usage : java -cp synth-modulaire.jar com.morgan.GoldenHarness [--update] [--dir=golden]
+ *         [--tolerance=1e-4] [--spectral-db=0.5] [--threads=N] [--dump] [filtre...]
+ * --update régénère les références (après un changement de son voulu) ; --dump écrit le rendu
+ * d'un scénario en échec à côté de sa référence (nom.actual.wav) ; les filtres retiennent
+ * les scénarios dont le nom contient l'un d'eux. Code de sortie 1 si un scénario échoue.
+ */
+public class GoldenHarness {
+
+    public static final long SEED = 0x5EED_2024L;
+    public static final int MAGIC = 0x4D535947; // "MSYG"
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".msyg";
+
+    public static final double DEFAULT_TOLERANCE = 1e-4;      // ≈ -80 dBFS
+    public static final double DEFAULT_SPECTRAL_DB = 0.5;
+
+    private static final int FFT_SIZE = 2048;
+    private static final int BANDS = 24;
+    private static final double LOWEST_BAND_HZ = 40.0;
+    private static final double HIGHEST_BAND_HZ = 18000.0;
+    private static final double FLOOR_DB = -90.0;             // Bandes à plus de 90 dB sous la plus forte : ignorées
+
+    /** Événements d'un scénario, avant chaque bloc (thread du rendu, qui tient lieu de thread audio). */
+    public interface Script {
+        void beforeBlock(AudioEngine engine, StepSequencer sequencer, long frame);
+    }
+
+    /** Un scénario : durée, canaux, préparation du patch et événements. */
+    public static class Scenario {
+        public final String name;
+        public final double seconds;
+        public final int channels;
+        public final OfflineRenderer.PatchSetup setup;
+        public final Script script;
+
+        public Scenario(String name, double seconds, int channels, OfflineRenderer.PatchSetup setup, Script script) {
+            this.name = name;
+            this.seconds = seconds;
+            this.channels = channels;
+            this.setup = setup;
+            this.script = script;
+        }
+    }
+
+    public enum Status { OK, FAILED, MISSING, UPDATED }
+
+    /** Verdict d'un scénario. */
+    public static class Result {
+        public final String name;
+        public final Status status;
+        public final double maxError;
+        public final double spectralDeviationDb;
+        public final String detail;
+        public final double wallMillis;
+
+        Result(String name, Status status, double maxError, double spectralDeviationDb, String detail, double wallMillis) {
+            this.name = name;
+            this.status = status;
+            this.maxError = maxError;
+            this.spectralDeviationDb = spectralDeviationDb;
+            this.detail = detail;
+            this.wallMillis = wallMillis;
+        }
+
+        @Override
+        public String toString() {
+            String measures = (status == Status.OK || status == Status.FAILED)
+                    ? String.format("  écart max %.3g (%.1f dB)  écart spectral %.2f dB",
+                    maxError, 20.0 * Math.log10(Math.max(maxError, 1e-30)), spectralDeviationDb)
+                    : "";
+            return String.format("%-8s %-34s%s%s  (%.0f ms)", status, name, measures,
+                    (detail != null) ? "  " + detail : "", wallMillis);
+        }
+    }
+
+    private final Path directory;
+    private final double tolerance;
+    private final double spectralToleranceDb;
+    private final boolean update;
+    private final boolean dump;
+
+    public GoldenHarness(Path directory, double tolerance, double spectralToleranceDb, boolean update, boolean dump) {
+        this.directory = directory;
+        this.tolerance = tolerance;
+        this.spectralToleranceDb = spectralToleranceDb;
+        this.update = update;
+        this.dump = dump;
+    }
+
+    // ============================================================
+    //  SCÉNARIOS
+    // ============================================================
+    /** Suite complète. Toute modification d'un scénario demande un --update. */
+    public static List<Scenario> scenarios() {
+        List<Scenario> list = new ArrayList<>();
+
+        // Chaque forme d'onde seule (oscillateur 1, filtre ouvert), note tenue puis relâchée
+        for (Oscillator.Waveform waveform : Oscillator.Waveform.values()) {
+            list.add(new Scenario("osc." + waveform.name().toLowerCase(), 0.5, 1,
+                    (engine, sequencer) -> {
+                        openFilter(engine);
+                        engine.setParameter(ParameterIds.MIXER_BLEND, 0.0);
+                        engine.setParameter(ParameterIds.OSC1_WAVEFORM, waveform.ordinal());
+                    },
+                    notes(new double[][] {{0.0, 45, 100, 0.35}})));
+        }
+        list.add(new Scenario("osc.wavetable-cubic", 0.5, 1,
+                (engine, sequencer) -> {
+                    openFilter(engine);
+                    engine.setParameter(ParameterIds.OSC1_WAVETABLE, 1);
+                    engine.setParameter(ParameterIds.OSC1_INTERPOLATION, Oscillator.Interpolation.CUBIC.ordinal());
+                    engine.setParameter(ParameterIds.OSC2_WAVETABLE, 1);
+                },
+                notes(new double[][] {{0.0, 57, 110, 0.2}, {0.2, 81, 90, 0.4}})));
+
+        // Haut de la tessiture : l'incrément de phase dépasse la longueur de la table
+        // (octave +2, note 127, +12 demi-tons de modulation), interpolations linéaire et cubique
+        list.add(new Scenario("osc.wavetable-top-range", 0.5, 1,
+                (engine, sequencer) -> {
+                    openFilter(engine);
+                    engine.setParameter(ParameterIds.OSC1_WAVETABLE, 1);
+                    engine.setParameter(ParameterIds.OSC1_OCTAVE, 2);
+                    engine.setParameter(ParameterIds.OSC2_WAVETABLE, 1);
+                    engine.setParameter(ParameterIds.OSC2_WAVEFORM, Oscillator.Waveform.SAWTOOTH.ordinal());
+                    engine.setParameter(ParameterIds.OSC2_INTERPOLATION, Oscillator.Interpolation.CUBIC.ordinal());
+                    engine.setParameter(ParameterIds.OSC2_OCTAVE, 2);
+                    engine.setParameter(ParameterIds.MOD_WHEEL, 1.0);
+                    engine.modulation.setRoute(0, ModulationMatrix.Source.MOD_WHEEL, ModulationMatrix.Destination.PITCH, 1.0);
+                },
+                notes(new double[][] {{0.0, 127, 100, 0.2}, {0.2, 115, 100, 0.4}})));
+
+        // Balayage exponentiel de la coupure, pour chaque mode de filtre
+        for (Filter.Mode mode : Filter.Mode.values()) {
+            list.add(filterSweep("filter." + mode.name().toLowerCase() + ".sweep", mode, 0));
+        }
+        list.add(filterSweep("filter.ladder.oversampling-4x", Filter.Mode.LADDER, 2));
+
+        // Enveloppe courte redéclenchée (legato et après relâchement), vélocités variées
+        list.add(new Scenario("envelope.retrigger", 1.0, 1,
+                (engine, sequencer) -> {
+                    engine.setParameter(ParameterIds.ENVELOPE_ATTACK, 0.005);
+                    engine.setParameter(ParameterIds.ENVELOPE_HOLD, 0.01);
+                    engine.setParameter(ParameterIds.ENVELOPE_DECAY, 0.05);
+                    engine.setParameter(ParameterIds.ENVELOPE_SUSTAIN, 0.4);
+                    engine.setParameter(ParameterIds.ENVELOPE_RELEASE, 0.08);
+                    engine.setParameter(ParameterIds.ENVELOPE_VELOCITY, 0.8);
+                },
+                notes(new double[][] {
+                        {0.00, 60, 127, 0.06}, {0.10, 60, 40, 0.16}, {0.15, 60, 90, 0.30},
+                        {0.32, 60, 127, 0.33}, {0.34, 60, 70, 0.60}, {0.70, 67, 100, 0.85}})));
+
+        // Plus de notes que de voix : vol des plus anciennes
+        double[][] chord = new double[AudioEngine.DEFAULT_VOICE_COUNT + 4][];
+        for (int i = 0; i < chord.length; i++) {
+            chord[i] = new double[] {i * 0.02, 40 + (i * 7) % 36, 60 + (i * 13) % 60, 0.7 + i * 0.01};
+        }
+        list.add(new Scenario("voices.steal", 1.0, 1, null, notes(chord)));
+
+        // Séquenceur : pattern par défaut, puis notes et rythmes aléatoires (graine fixe)
+        list.add(new Scenario("sequencer.pattern", 1.0, 1,
+                (engine, sequencer) -> {
+                    sequencer.bpm = 180.0;
+                    sequencer.start();
+                }, null));
+        list.add(new Scenario("sequencer.random", 1.0, 1,
+                (engine, sequencer) -> {
+                    sequencer.bpm = 240.0;
+                    sequencer.currentScale = ScaleType.DORIAN;
+                    sequencer.randomNotes = true;
+                    sequencer.randomRhythm = true;
+                    sequencer.start();
+                }, null));
+
+        // Matrice de modulation : échantillonneur-bloqueur sur la coupure, vibrato, enveloppe de modulation
+        list.add(new Scenario("modulation.lfo-env", 1.0, 1,
+                (engine, sequencer) -> {
+                    engine.setParameter(ParameterIds.LFO1_SHAPE, Lfo.Shape.SAMPLE_AND_HOLD.ordinal());
+                    engine.setParameter(ParameterIds.LFO1_RATE, 12.0);
+                    engine.setParameter(ParameterIds.LFO2_RATE, 5.0);
+                    engine.setParameter(ParameterIds.MODENV_ATTACK, 0.1);
+                    engine.setParameter(ParameterIds.MODENV_DECAY, 0.3);
+                    engine.modulation.setRoute(0, ModulationMatrix.Source.LFO1, ModulationMatrix.Destination.FILTER_CUTOFF, 0.4);
+                    engine.modulation.setRoute(1, ModulationMatrix.Source.LFO2, ModulationMatrix.Destination.PITCH, 0.02);
+                    engine.modulation.setRoute(2, ModulationMatrix.Source.MOD_ENV, ModulationMatrix.Destination.MIXER_BLEND, 0.8);
+                    engine.modulation.setRoute(3, ModulationMatrix.Source.VELOCITY, ModulationMatrix.Destination.FILTER_RESONANCE, 0.5);
+                },
+                notes(new double[][] {{0.0, 48, 120, 0.8}, {0.4, 55, 60, 0.9}})));
+
+        // Sortie stéréo : écartement des voix, chorus, délai synchronisé, réverbération
+        list.add(new Scenario("stereo.effects", 1.0, 2,
+                (engine, sequencer) -> {
+                    engine.setParameter(ParameterIds.VOICE_PAN_SPREAD, 1.0);
+                    engine.setParameter(ParameterIds.CHORUS_ENABLED, 1);
+                    engine.setParameter(ParameterIds.DELAY_ENABLED, 1);
+                    engine.setParameter(ParameterIds.DELAY_DIVISION, 1);
+                    engine.setParameter(ParameterIds.REVERB_ENABLED, 1);
+                    sequencer.bpm = 200.0;
+                    sequencer.start();
+                }, null));
+        return list;
+    }
+
+    private static void openFilter(AudioEngine engine) {
+        engine.setParameter(ParameterIds.FILTER_CUTOFF, 20000.0);
+        engine.setParameter(ParameterIds.FILTER_RESONANCE, 0.0);
+    }
+
+    private static Scenario filterSweep(String name, Filter.Mode mode, int oversamplingIndex) {
+        final double seconds = 0.5;
+        return new Scenario(name, seconds, 1,
+                (engine, sequencer) -> {
+                    engine.setParameter(ParameterIds.FILTER_MODE, mode.ordinal());
+                    engine.setParameter(ParameterIds.FILTER_OVERSAMPLING, oversamplingIndex);
+                    engine.setParameter(ParameterIds.FILTER_RESONANCE, 0.6);
+                },
+                (engine, sequencer, frame) -> {
+                    if (frame == 0) {
+                        engine.noteOn(41, 110);
+                        engine.noteOn(48, 90);
+                    }
+                    double position = frame / (seconds * engine.SAMPLE_RATE);
+                    engine.setParameter(ParameterIds.FILTER_CUTOFF, 80.0 * Math.pow(12000.0 / 80.0, position));
+                });
+    }
+
+    /** Notes {début (s), note, vélocité, fin (s)}, jouées au bloc près. */
+    private static Script notes(double[][] events) {
+        return (engine, sequencer, frame) -> {
+            long end = frame + AudioEngine.BLOCK_SIZE;
+            for (double[] event : events) {
+                long on = Math.round(event[0] * engine.SAMPLE_RATE);
+                long off = Math.round(event[3] * engine.SAMPLE_RATE);
+                if (on >= frame && on < end) engine.noteOn((int) event[1], (int) event[2]);
+                if (off >= frame && off < end) engine.noteOff((int) event[1]);
+            }
+        };
+    }
+
+    // ============================================================
+    //  RENDU
+    // ============================================================
+    /** Rend un scénario (entrelacé, scenario.channels canaux) sur le thread appelant. */
+    public static double[] render(Scenario scenario) {
+        AudioEngine engine = new AudioEngine();
+        StepSequencer sequencer = new StepSequencer(engine);
+        engine.setSequencer(sequencer);
+        engine.setOutputChannels(scenario.channels);
+        if (scenario.setup != null) {
+            scenario.setup.configure(engine, sequencer);
+        }
+        engine.setRandomSeed(SEED);
+
+        final int channels = scenario.channels;
+        final long totalFrames = Math.round(scenario.seconds * engine.SAMPLE_RATE);
+        final double[] output = new double[(int) totalFrames * channels];
+        final double[] block = new double[AudioEngine.BLOCK_SIZE * channels];
+        for (long frame = 0; frame < totalFrames; frame += AudioEngine.BLOCK_SIZE) {
+            int frames = (int) Math.min(AudioEngine.BLOCK_SIZE, totalFrames - frame);
+            if (scenario.script != null) {
+                scenario.script.beforeBlock(engine, sequencer, frame);
+            }
+            engine.renderBlock(block, frames);
+            System.arraycopy(block, 0, output, (int) frame * channels, frames * channels);
+        }
+        return output;
+    }
+
+    /** Rend, puis compare à la référence (ou la réécrit avec --update). */
+    public Result run(Scenario scenario) throws IOException {
+        long start = System.nanoTime();
+        double[] actual = render(scenario);
+        Path file = directory.resolve(scenario.name + EXTENSION);
+
+        if (update) {
+            writeReference(file, actual, scenario.channels);
+            return new Result(scenario.name, Status.UPDATED, 0.0, 0.0, null, elapsedMillis(start));
+        }
+        if (!Files.exists(file)) {
+            return new Result(scenario.name, Status.MISSING, 0.0, 0.0,
+                    "référence absente (relancer avec --update)", elapsedMillis(start));
+        }
+
+        Reference reference = readReference(file);
+        if (reference.channels != scenario.channels || reference.samples.length != actual.length) {
+            return fail(scenario, actual, 0.0, 0.0, "longueur ou canaux différents de la référence", start);
+        }
+        double maxError = 0.0;
+        int worst = 0;
+        for (int i = 0; i < actual.length; i++) {
+            double error = Math.abs(actual[i] - reference.samples[i]);
+            if (error > maxError || Double.isNaN(error)) {
+                maxError = error;
+                worst = i;
+            }
+        }
+        double spectral = 0.0;
+        for (int c = 0; c < scenario.channels; c++) {
+            spectral = Math.max(spectral, spectralDeviation(reference.samples, actual, c, scenario.channels));
+        }
+
+        if (!(maxError <= tolerance)) {
+            return fail(scenario, actual, maxError, spectral,
+                    "pire écart à la trame " + worst / scenario.channels, start);
+        }
+        if (!(spectral <= spectralToleranceDb)) {
+            return fail(scenario, actual, maxError, spectral, "spectre différent", start);
+        }
+        return new Result(scenario.name, Status.OK, maxError, spectral, null, elapsedMillis(start));
+    }
+
+    private Result fail(Scenario scenario, double[] actual, double maxError, double spectral, String detail, long start)
+            throws IOException {
+        if (dump) {
+            Path file = directory.resolve(scenario.name + ".actual.wav");
+            try (AudioFileWriter writer = new AudioFileWriter(file, 44100.0f, scenario.channels, SampleFormat.FLOAT_32)) {
+                writer.write(actual, actual.length);
+            }
+            detail += ", rendu écrit dans " + file;
+        }
+        return new Result(scenario.name, Status.FAILED, maxError, spectral, detail, elapsedMillis(start));
+    }
+
+    private static double elapsedMillis(long start) {
+        return (System.nanoTime() - start) / 1.0e6;
+    }
+
+    /** Rend et vérifie les scénarios en parallèle ; résultats dans l'ordre des scénarios. */
+    public List<Result> runAll(List<Scenario> scenarios, int threads) throws IOException {
+        if (update) {
+            Files.createDirectories(directory);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Scenario scenario : scenarios) {
+                futures.add(executor.submit(() -> run(scenario)));
+            }
+
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) throw (IOException) cause;
+                    throw new RuntimeException("Erreur pendant un scénario de non-régression", cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Vérification interrompue", e);
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    // ============================================================
+    //  RÉFÉRENCES (gzip : en-tête puis échantillons float32 petit-boutistes)
+    // ============================================================
+    private static class Reference {
+        final int channels;
+        final float[] samples;
+
+        Reference(int channels, float[] samples) {
+            this.channels = channels;
+            this.samples = samples;
+        }
+    }
+
+    static void writeReference(Path file, double[] samples, int channels) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(16 + samples.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(channels).putInt(samples.length);
+        for (double sample : samples) {
+            buffer.putFloat((float) sample);
+        }
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+            out.write(buffer.array());
+        }
+    }
+
+    static Reference readReference(Path file) throws IOException {
+        byte[] bytes;
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            bytes = in.readAllBytes();
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        if (bytes.length < 16 || buffer.getInt() != MAGIC) {
+            throw new IOException("Ce n'est pas une référence de rendu (signature invalide) : " + file);
+        }
+        int version = buffer.getInt();
+        if (version > VERSION) {
+            throw new IOException("Version de référence non prise en charge : " + version + " (" + file + ")");
+        }
+        int channels = buffer.getInt();
+        int count = buffer.getInt();
+        if (channels < 1 || count < 0 || buffer.remaining() != count * Float.BYTES) {
+            throw new IOException("Référence tronquée : " + file);
+        }
+        float[] samples = new float[count];
+        buffer.asFloatBuffer().get(samples);
+        return new Reference(channels, samples);
+    }
+
+    // ============================================================
+    //  VÉRIFICATION SPECTRALE
+    // ============================================================
+    /** Plus grand écart (dB) entre les énergies par bande du canal 'channel' des deux rendus. */
+    static double spectralDeviation(float[] reference, double[] actual, int channel, int channels) {
+        double[] expected = bandEnergies(reference, null, channel, channels);
+        double[] measured = bandEnergies(null, actual, channel, channels);
+        double loudest = Double.NEGATIVE_INFINITY;
+        for (double energy : expected) loudest = Math.max(loudest, toDb(energy));
+        double deviation = 0.0;
+        for (int b = 0; b < BANDS; b++) {
+            double expectedDb = toDb(expected[b]);
+            double measuredDb = toDb(measured[b]);
+            if (Math.max(expectedDb, measuredDb) < loudest + FLOOR_DB) continue;
+            deviation = Math.max(deviation, Math.abs(expectedDb - measuredDb));
+        }
+        return deviation;
+    }
+
+    private static double toDb(double energy) {
+        return 10.0 * Math.log10(energy + 1e-30);
+    }
+
+    // Spectre de puissance moyenné (fenêtres de Hann, recouvrement de moitié), regroupé en bandes logarithmiques
+    private static double[] bandEnergies(float[] floats, double[] doubles, int channel, int channels) {
+        int frames = ((floats != null) ? floats.length : doubles.length) / channels;
+        double[] bands = new double[BANDS];
+        double[] re = new double[FFT_SIZE];
+        double[] im = new double[FFT_SIZE];
+        double binHz = 44100.0 / FFT_SIZE;
+        double ratio = Math.log(HIGHEST_BAND_HZ / LOWEST_BAND_HZ);
+
+        for (int start = 0; start + FFT_SIZE <= Math.max(frames, FFT_SIZE); start += FFT_SIZE / 2) {
+            for (int i = 0; i < FFT_SIZE; i++) {
+                int frame = start + i;
+                double sample = (frame >= frames) ? 0.0
+                        : (floats != null) ? floats[frame * channels + channel] : doubles[frame * channels + channel];
+                re[i] = sample * (0.5 - 0.5 * Math.cos(2.0 * Math.PI * i / FFT_SIZE));
+                im[i] = 0.0;
+            }
+            fft(re, im);
+            for (int k = 1; k < FFT_SIZE / 2; k++) {
+                double hz = k * binHz;
+                if (hz < LOWEST_BAND_HZ || hz >= HIGHEST_BAND_HZ) continue;
+                int band = (int) (BANDS * Math.log(hz / LOWEST_BAND_HZ) / ratio);
+                bands[band] += re[k] * re[k] + im[k] * im[k];
+            }
+        }
+        return bands;
+    }
+
+    // FFT radix-2 sur place (taille puissance de deux)
+    private static void fft(double[] re, double[] im) {
+        int n = re.length;
+        for (int i = 1, j = 0; i < n; i++) {
+            int bit = n >> 1;
+            for (; (j & bit) != 0; bit >>= 1) j ^= bit;
+            j ^= bit;
+            if (i < j) {
+                double t = re[i]; re[i] = re[j]; re[j] = t;
+                t = im[i]; im[i] = im[j]; im[j] = t;
+            }
+        }
+        for (int length = 2; length <= n; length <<= 1) {
+            double angle = -2.0 * Math.PI / length;
+            double wRe = Math.cos(angle);
+            double wIm = Math.sin(angle);
+            for (int i = 0; i < n; i += length) {
+                double uRe = 1.0;
+                double uIm = 0.0;
+                for (int k = 0; k < length / 2; k++) {
+                    int a = i + k;
+                    int b = a + length / 2;
+                    double vRe = re[b] * uRe - im[b] * uIm;
+                    double vIm = re[b] * uIm + im[b] * uRe;
+                    re[b] = re[a] - vRe;
+                    im[b] = im[a] - vIm;
+                    re[a] += vRe;
+                    im[a] += vIm;
+                    double next = uRe * wRe - uIm * wIm;
+                    uIm = uRe * wIm + uIm * wRe;
+                    uRe = next;
+                }
+            }
+        }
+    }
+
+    // ============================================================
+    //  LIGNE DE COMMANDE
+    // ============================================================
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get("golden");
+        double tolerance = DEFAULT_TOLERANCE;
+        double spectralDb = DEFAULT_SPECTRAL_DB;
+        int threads = Runtime.getRuntime().availableProcessors();
+        boolean update = false;
+        boolean dump = false;
+        List<String> filters = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--update")) update = true;
+            else if (arg.equals("--dump")) dump = true;
+            else if (arg.startsWith("--dir=")) directory = Paths.get(arg.substring(6));
+            else if (arg.startsWith("--tolerance=")) tolerance = Double.parseDouble(arg.substring(12));
+            else if (arg.startsWith("--spectral-db=")) spectralDb = Double.parseDouble(arg.substring(14));
+            else if (arg.startsWith("--threads=")) threads = Integer.parseInt(arg.substring(10));
+            else if (arg.startsWith("--")) {
+                System.out.println("Option inconnue : " + arg);
+                System.exit(2);
+            } else filters.add(arg);
+        }
+
+        List<Scenario> selected = new ArrayList<>();
+        for (Scenario scenario : scenarios()) {
+            if (filters.isEmpty() || filters.stream().anyMatch(scenario.name::contains)) {
+                selected.add(scenario);
+            }
+        }
+
+        GoldenHarness harness = new GoldenHarness(directory, tolerance, spectralDb, update, dump);
+        long start = System.nanoTime();
+        List<Result> results = harness.runAll(selected, threads);
+        int failures = 0;
+        for (Result result : results) {
+            System.out.println(result);
+            if (result.status == Status.FAILED || result.status == Status.MISSING) failures++;
+        }
+        System.out.println(String.format("%d scénario(s), %d échec(s), %.2f s (%d threads, dossier %s)",
+                results.size(), failures, (System.nanoTime() - start) / 1.0e9, threads, directory.toAbsolutePath()));
+        if (failures > 0) {
+            System.exit(1);
+        }
+    }
+}
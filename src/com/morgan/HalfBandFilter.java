@@ -0,0 +1,156 @@
+package com.morgan;
+
+import java.util.Arrays;
+
+/**
+ * Filtre demi-bande RIF à phase linéaire, en forme polyphase, pour changer la
+ * fréquence d'échantillonnage d'un facteur 2 (montée ou descente).
+ * Un coefficient sur deux est nul (sauf le central = 0.5) : seule la branche des
+ * coefficients impairs est calculée, l'autre branche n'est qu'un retard.
+ * Le calcul se fait par bloc, coefficient par coefficient : la boucle interne
+ * (sur les échantillons) est vectorisée par le JIT.
+ * Une instance ne sert qu'à un sens (upsample OU downsample) : elle garde son historique.
+ */
+public final class HalfBandFilter {
+
+    // Kaiser beta ~ 8 : environ 80 dB d'atténuation en bande coupée
+    private static final double KAISER_BETA = 8.0;
+
+    private final int taps;          // Coefficients non nuls d'un côté du centre
+    private final double[] coeffs;   // h[centre + 2j + 1], j = 0..taps-1
+    private final int historyLength; // 2 * taps - 1 échantillons gardés d'un bloc à l'autre
+
+    // [historique | bloc courant] de la branche RIF et de la branche retard (descente)
+    private double[] branch;
+    private double[] delay;
+    private double[] acc;
+
+    /** 'taps' coefficients par côté : longueur totale du filtre = 4 * taps - 1. */
+    public HalfBandFilter(int taps) {
+        if (taps < 1) throw new IllegalArgumentException("taps doit être >= 1 : " + taps);
+        this.taps = taps;
+        this.coeffs = design(taps);
+        this.historyLength = 2 * taps - 1;
+        this.branch = new double[historyLength];
+        this.delay = new double[historyLength];
+    }
+
+    /** Retard de groupe, en échantillons du taux le plus bas. */
+    public double getLatency() {
+        return historyLength / 2.0;
+    }
+
+    public void reset() {
+        Arrays.fill(branch, 0.0);
+        Arrays.fill(delay, 0.0);
+    }
+
+    /** Monte 'count' échantillons de src vers 2 * count échantillons dans dst. */
+    public void upsample(double[] src, int srcOffset, int count, double[] dst, int dstOffset) {
+        ensureCapacity(count);
+        final double[] e = branch;
+        System.arraycopy(src, srcOffset, e, historyLength, count);
+
+        convolve(e, count);
+
+        // Phase paire : branche RIF (gain x2 pour compenser les zéros insérés)
+        // Phase impaire : seul le coefficient central (0.5 x 2) reste, un simple retard
+        final double[] a = acc;
+        final int t = taps;
+        int out = dstOffset;
+        for (int n = 0; n < count; n++) {
+            dst[out++] = 2.0 * a[n];
+            dst[out++] = e[n + t];
+        }
+        keepHistory(e, count);
+    }
+
+    /** Descend 2 * count échantillons de src vers count échantillons dans dst. */
+    public void downsample(double[] src, int srcOffset, int count, double[] dst, int dstOffset) {
+        ensureCapacity(count);
+        final double[] e = branch;
+        final double[] d = delay;
+        final int h = historyLength;
+        // Séparation polyphase : échantillons impairs -> branche RIF, pairs -> branche retard
+        for (int n = 0, in = srcOffset; n < count; n++, in += 2) {
+            d[h + n] = src[in];
+            e[h + n] = src[in + 1];
+        }
+
+        convolve(e, count);
+
+        final double[] a = acc;
+        final int t = taps;
+        for (int n = 0; n < count; n++) {
+            dst[dstOffset + n] = a[n] + 0.5 * d[n + t];
+        }
+        keepHistory(e, count);
+        keepHistory(d, count);
+    }
+
+    // acc[n] = somme des c[j] * (e[n + t + j] + e[n + t - 1 - j]) : coefficients symétriques
+    private void convolve(double[] e, int count) {
+        final double[] a = acc;
+        final double[] c = coeffs;
+        final int t = taps;
+        for (int n = 0; n < count; n++) {
+            a[n] = 0.0;
+        }
+        for (int j = 0; j < t; j++) {
+            final double cj = c[j];
+            final int newer = t + j;
+            final int older = t - 1 - j;
+            for (int n = 0; n < count; n++) {
+                a[n] += cj * (e[n + newer] + e[n + older]);
+            }
+        }
+    }
+
+    // Les derniers échantillons du bloc deviennent l'historique du suivant
+    private void keepHistory(double[] buffer, int count) {
+        System.arraycopy(buffer, count, buffer, 0, historyLength);
+    }
+
+    // N'alloue que lorsque le bloc grandit (jamais en régime établi)
+    private void ensureCapacity(int count) {
+        int needed = historyLength + count;
+        if (branch.length < needed) {
+            branch = Arrays.copyOf(branch, needed);
+            delay = Arrays.copyOf(delay, needed);
+        }
+        acc = AudioModule.ensureCapacity(acc, count);
+    }
+
+    // Sinus cardinal fenêtré (Kaiser), normalisé pour un gain unité en continu
+    private static double[] design(int taps) {
+        double[] c = new double[taps];
+        double halfLength = 2.0 * taps;
+        double sum = 0.0;
+        for (int j = 0; j < taps; j++) {
+            int d = 2 * j + 1;
+            double sinc = ((j & 1) == 0 ? 2.0 : -2.0) / (Math.PI * d); // sin(pi d / 2) / (pi d / 2)
+            double ratio = d / halfLength;
+            double window = besselI0(KAISER_BETA * Math.sqrt(1.0 - ratio * ratio)) / besselI0(KAISER_BETA);
+            c[j] = 0.5 * sinc * window;
+            sum += c[j];
+        }
+        // 0.5 (centre) + 2 * somme = 1
+        double scale = 0.25 / sum;
+        for (int j = 0; j < taps; j++) {
+            c[j] *= scale;
+        }
+        return c;
+    }
+
+    private static double besselI0(double x) {
+        double sum = 1.0;
+        double term = 1.0;
+        double halfX = x / 2.0;
+        for (int k = 1; k < 50; k++) {
+            term *= (halfX / k) * (halfX / k);
+            sum += term;
+            if (term < 1e-12 * sum) break;
+        }
+        return sum;
+    }
+}
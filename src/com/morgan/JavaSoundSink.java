@@ -0,0 +1,67 @@
+package com.morgan;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import java.io.IOException;
+
+/**
+ * Sortie sur la carte son (SourceDataLine Java Sound). Le buffer de la ligne fait
+ * config.periodCount périodes ; write() bloque tant qu'il est plein : l'horloge
+ * du moteur est celle de la carte.
+ */
+public class JavaSoundSink implements AudioSink {
+
+    private SourceDataLine line;
+    private SampleFormat sampleFormat;
+    private int channels;
+    private byte[] buffer;
+
+    @Override
+    public void open(float sampleRate, OutputConfig config) throws IOException {
+        sampleFormat = config.sampleFormat;
+        channels = config.channels;
+        AudioFormat format = sampleFormat.toAudioFormat(sampleRate, config.channels);
+        try {
+            line = AudioSystem.getSourceDataLine(format);
+            // Buffer de la ligne = periodCount périodes (latence réglable)
+            line.open(format, config.periodFrames * config.periodCount * format.getFrameSize());
+        } catch (LineUnavailableException e) {
+            throw new IOException("Ligne audio indisponible (" + config + ")", e);
+        }
+        line.start();
+        buffer = new byte[config.periodFrames * format.getFrameSize()];
+    }
+
+    @Override
+    public void write(double[] block, int frames) {
+        int samples = frames * channels;
+        // Conversion du bloc entier en une passe
+        sampleFormat.convert(block, samples, buffer, 0);
+        line.write(buffer, 0, samples * sampleFormat.bytesPerSample());
+    }
+
+    @Override
+    public int getBufferBytes() {
+        return line.getBufferSize();
+    }
+
+    @Override
+    public int available() {
+        return line.available();
+    }
+
+    @Override
+    public void close() {
+        if (line != null) {
+            line.drain();
+            line.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "Java Sound";
+    }
+}
@@ -0,0 +1,86 @@
+package com.morgan;
+
+/**
+ * Filtre "ladder" 4 pôles (24 dB/oct) en zero-delay feedback : quatre passe-bas
+ * TPT en cascade, la boucle de résonance est résolue exactement à chaque échantillon
+ * (pas de retard d'un échantillon dans le feedback). Stable jusqu'à Nyquist.
+ * Version linéaire (pas de saturation dans la boucle). Cœur DSP utilisé par Filter (mode LADDER).
+ */
+public class LadderFilter {
+
+    // Feedback maximal (4.0 = seuil d'auto-oscillation)
+    private static final double MAX_FEEDBACK = 3.9;
+
+    // --- Coefficients ---
+    private double G;          // Gain d'un étage : g / (1 + g)
+    private double feedback;   // k
+    private double G2, G3, G4;
+    private double loopGain;   // 1 / (1 + k G^4)
+
+    // --- État des quatre étages ---
+    private double s1, s2, s3, s4;
+
+    public LadderFilter() {
+        setParameters(0.1, 0.0);
+    }
+
+    /** normalizedCutoff = fc / fs, resonance de 0.0 à 1.0 (bon marché : appelable à chaque échantillon). */
+    public void setParameters(double normalizedCutoff, double resonance) {
+        double res = (resonance < 0.0) ? 0.0 : (resonance > 1.0 ? 1.0 : resonance);
+        double g = TanTable.prewarp(normalizedCutoff);
+        G = g / (1.0 + g);
+        G2 = G * G;
+        G3 = G2 * G;
+        G4 = G3 * G;
+        feedback = MAX_FEEDBACK * res;
+        loopGain = 1.0 / (1.0 + feedback * G4);
+    }
+
+    public void reset() {
+        s1 = s2 = s3 = s4 = 0.0;
+    }
+
+    public double tick(double input) {
+        final double oneMinusG = 1.0 - G;
+        // Réponse "libre" de la cascade (contribution des mémoires)
+        double sigma = G3 * oneMinusG * s1 + G2 * oneMinusG * s2 + G * oneMinusG * s3 + oneMinusG * s4;
+        // Sortie résolue de la boucle, puis entrée de la cascade
+        double y4 = (G4 * input + sigma) * loopGain;
+        double u = input - feedback * y4;
+
+        double v = (u - s1) * G;  double y1 = v + s1;  s1 = y1 + v;
+        v = (y1 - s2) * G;        double y2 = v + s2;  s2 = y2 + v;
+        v = (y2 - s3) * G;        double y3 = v + s3;  s3 = y3 + v;
+        v = (y3 - s4) * G;        double y = v + s4;   s4 = y + v;
+
+        // Compensation de la perte de gain dans la bande passante quand la résonance monte
+        return y * (1.0 + feedback);
+    }
+
+    /** Filtre buffer[offset .. offset + length[ sur place. */
+    public void processBlock(double[] buffer, int offset, int length) {
+        final int end = offset + length;
+        final double g = G, g2 = G2, g3 = G3, g4 = G4, k = feedback, loop = loopGain;
+        final double oneMinusG = 1.0 - g;
+        final double makeup = 1.0 + k;
+        double m1 = s1, m2 = s2, m3 = s3, m4 = s4;
+
+        for (int i = offset; i < end; i++) {
+            double x = buffer[i];
+            double sigma = oneMinusG * (g3 * m1 + g2 * m2 + g * m3 + m4);
+            double u = x - k * ((g4 * x + sigma) * loop);
+
+            double v = (u - m1) * g;   double y1 = v + m1;  m1 = y1 + v;
+            v = (y1 - m2) * g;         double y2 = v + m2;  m2 = y2 + v;
+            v = (y2 - m3) * g;         double y3 = v + m3;  m3 = y3 + v;
+            v = (y3 - m4) * g;         double y = v + m4;   m4 = y + v;
+
+            buffer[i] = y * makeup;
+        }
+
+        s1 = m1;
+        s2 = m2;
+        s3 = m3;
+        s4 = m4;
+    }
+}
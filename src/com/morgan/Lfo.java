@@ -0,0 +1,108 @@
+package com.morgan;
+
+/**
+ * LFO (Low Frequency Oscillator) : source de modulation bipolaire (-1 à 1).
+ * Dans les voix, il est avancé au taux de contrôle par la matrice de modulation (advance()) ;
+ * comme AudioModule, il peut aussi être branché dans le PatchGraph (un échantillon par tick).
+ */
+public class Lfo implements AudioModule {
+
+    public enum Shape { SINE, TRIANGLE, SAWTOOTH, SQUARE, SAMPLE_AND_HOLD }
+
+    private static final double TWO_PI = 2.0 * Math.PI;
+
+    // --- Réglages ---
+    public volatile Shape shape = Shape.SINE;
+    public volatile double rate = 5.0;          // Hz
+    public volatile boolean retrigger = true;   // Phase remise à zéro à chaque note
+
+    private double sampleRate;
+    private double phase = 0.0;                 // 0 à 1
+    private double held = 0.0;                  // Valeur de l'échantillonneur-bloqueur
+    private final XorShiftRandom random = new XorShiftRandom();
+
+    public Lfo(double sampleRate) {
+        this.sampleRate = sampleRate;
+        this.held = random.nextDouble() * 2.0 - 1.0;
+    }
+
+    public void setShape(Shape shape) {
+        this.shape = shape;
+    }
+
+    public void setRate(double hertz) {
+        this.rate = Math.max(0.0, hertz);
+    }
+
+    /** Recopie les réglages d'un autre LFO (utilisé par les voix de polyphonie). */
+    public void copySettingsFrom(Lfo other) {
+        this.shape = other.shape;
+        this.rate = other.rate;
+        this.retrigger = other.retrigger;
+    }
+
+    /** Graine de l'échantillonneur-bloqueur (rendus reproductibles). */
+    public void setRandomSeed(long seed) {
+        random.setSeed(seed);
+        held = random.nextDouble() * 2.0 - 1.0;
+    }
+
+    /** Nouvelle note : repart du début du cycle si retrigger est actif. */
+    public void noteOn() {
+        if (retrigger) {
+            phase = 0.0;
+        }
+    }
+
+    @Override
+    public void setSampleRate(double newSampleRate) {
+        this.sampleRate = newSampleRate;
+    }
+
+    /** Valeur courante, sans avancer. */
+    public double value() {
+        switch (shape) {
+            case SINE:
+                return Math.sin(TWO_PI * phase);
+            case TRIANGLE:
+                return (phase < 0.5) ? 4.0 * phase - 1.0 : 3.0 - 4.0 * phase;
+            case SAWTOOTH:
+                return 2.0 * phase - 1.0;
+            case SQUARE:
+                return (phase < 0.5) ? 1.0 : -1.0;
+            case SAMPLE_AND_HOLD:
+                return held;
+            default:
+                return 0.0;
+        }
+    }
+
+    /**
+     * Avance de 'samples' échantillons d'un coup (taux de contrôle), vitesse multipliée
+     * par rateFactor (modulation de la vitesse), et retourne la nouvelle valeur.
+     */
+    public double advance(int samples, double rateFactor) {
+        phase += rate * rateFactor * samples / sampleRate;
+        if (phase >= 1.0) {
+            phase -= Math.floor(phase);
+            held = random.nextDouble() * 2.0 - 1.0; // Nouveau palier à chaque cycle
+        }
+        return value();
+    }
+
+    @Override
+    public double tick() {
+        double v = value();
+        advance(1, 1.0);
+        return v;
+    }
+
+    @Override
+    public void processBlock(double[] buffer, int offset, int length) {
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            buffer[i] = value();
+            advance(1, 1.0);
+        }
+    }
+}
@@ -4,44 +4,61 @@ import javax.sound.midi.*;
 
 public class MidiReceiver implements Receiver {
 
+    private static final int MOD_WHEEL_CC = 1;
+
     private AudioEngine engine;
+    // File de commandes propre au thread MIDI (le thread audio la vide à chaque bloc)
+    private final ControlQueue queue;
+
+    // --- Datation des événements (horloge échantillon du moteur) ---
+    // Latence fixe d'une période : chaque événement tombe dans le bloc suivant, au bon échantillon.
+    // Au-delà de deux périodes d'écart, l'horloge MIDI est recalée sur l'horloge audio.
+    private long anchorMicros = -1;   // timeStamp MIDI de référence (µs)
+    private long anchorSample = 0;    // Date échantillon correspondante
 
     public MidiReceiver(AudioEngine engine) {
         this.engine = engine;
+        this.queue = engine.createControlQueue();
     }
 
     @Override
     public void send(MidiMessage message, long timeStamp) {
         if (message instanceof ShortMessage) {
             ShortMessage sm = (ShortMessage) message;
+            long time = toSampleTime(timeStamp);
 
-            // --- CORRECTION CRITIQUE : SYNCHRONISER LE BLOC CC POUR ÉVITER LES PLANTAGES ---
-            // Le bloc synchronized assure que la logique de mapping n'est pas interrompue par un autre CC
-            // (La gestion des notes reste en dehors, car elle ne cause pas de conflit d'état ici)
-            synchronized (engine) {
-                if (sm.getCommand() >= ShortMessage.CONTROL_CHANGE && sm.getCommand() <= (ShortMessage.CONTROL_CHANGE | 0x0F)) {
-                    int ccNumber = sm.getData1();
-                    int ccValue = sm.getData2();
-
-                    // 1. Vérification du mode "Mapping Learn"
-                    if (SynthMain.MAPPING_STATE.awaitingParameter != null) {
-
-                        String paramToAssign = SynthMain.MAPPING_STATE.awaitingParameter;
+            // --- BLOC CC : plus de synchronized, le moteur n'est plus modifié depuis ce thread ---
+            // Les changements passent par la ControlQueue et sont appliqués par le thread audio.
+            if (sm.getCommand() == ShortMessage.CONTROL_CHANGE) {
+                int channel = sm.getChannel();
+                int ccNumber = sm.getData1();
+                int ccValue = sm.getData2();
 
-                        SynthMain.MAPPING_STATE.assignmentMap.put(ccNumber, paramToAssign);
-                        SynthMain.MAPPING_STATE.awaitingParameter = null;
+                // 1. Mode "Mapping Learn" : le CC reçu (sur son canal) est assigné au paramètre choisi dans la GUI
+                String awaiting = SynthMain.MAPPING_STATE.awaitingParameter;
+                Parameter toAssign = (awaiting != null) ? engine.parameters.get(awaiting) : null;
+                if (toAssign != null) {
+                    engine.controlMap.assign(channel, ccNumber, toAssign);
+                    SynthMain.MAPPING_STATE.awaitingParameter = null;
 
-                        System.out.println("MIDI LEARN: CC#" + ccNumber + " assigné à " + paramToAssign);
-                        return; // Sortir après l'assignation
-                    }
+                    System.out.println("MIDI LEARN: CC#" + ccNumber + " (canal " + (channel + 1) + ") assigné à " + toAssign.name);
+                    return; // Sortir après l'assignation
+                }
 
-                    // 2. Mode Normal : Appliquer le mapping trouvé
-                    String paramName = SynthMain.MAPPING_STATE.assignmentMap.get(ccNumber);
-                    if (paramName != null) {
-                        engine.handleMappedControl(paramName, ccValue);
-                    }
+                // 2. Mode Normal : table [canal][cc], une lecture de tableau sans verrou
+                Parameter parameter = engine.controlMap.lookup(channel, ccNumber);
+                if (parameter != null) {
+                    queue.control(time, parameter.id, ccValue);
+                } else if (ccNumber == MOD_WHEEL_CC) {
+                    // Molette non assignée : source de la matrice de modulation
+                    queue.control(time, ParameterIds.MOD_WHEEL, ccValue);
                 }
-            } // --- FIN DU BLOC SYNCHRONIZED ---
+            }
+
+            // --- AFTERTOUCH (pression de canal) : source de la matrice de modulation ---
+            if (sm.getCommand() == ShortMessage.CHANNEL_PRESSURE) {
+                queue.control(time, ParameterIds.AFTERTOUCH, sm.getData1());
+            }
 
             // --- GESTION DES NOTES (Reste inchangé) ---
 
@@ -49,17 +66,38 @@ public class MidiReceiver implements Receiver {
             if (sm.getCommand() == ShortMessage.NOTE_ON && sm.getData2() > 0) {
                 int note = sm.getData1();
                 int velocity = sm.getData2();
-                engine.noteOn(note, velocity);
+                queue.noteOn(time, sm.getChannel(), note, velocity);
             }
             // Note OFF (via status 128 ou Note ON avec velocity 0)
             else if (sm.getCommand() == ShortMessage.NOTE_OFF ||
                     (sm.getCommand() == ShortMessage.NOTE_ON && sm.getData2() == 0)) {
                 int note = sm.getData1();
-                engine.noteOff(note);
+                queue.noteOff(time, sm.getChannel(), note);
             }
         }
     }
 
+    /**
+     * Convertit le timeStamp MIDI (µs, ou -1 si le périphérique n'en fournit pas)
+     * en date échantillon du moteur.
+     */
+    private long toSampleTime(long timeStamp) {
+        long period = engine.getOutputConfig().periodFrames;
+        long expected = engine.estimateSamplePosition() + period;
+        if (timeStamp < 0) {
+            return expected; // Pas d'horodatage : date d'arrivée + latence fixe
+        }
+
+        long time = anchorSample + Math.round((timeStamp - anchorMicros) * (engine.SAMPLE_RATE / 1.0e6));
+        if (anchorMicros < 0 || Math.abs(time - expected) > 2 * period) {
+            // Premier événement, ou les deux horloges ont trop divergé : nouvel ancrage
+            anchorMicros = timeStamp;
+            anchorSample = expected;
+            time = expected;
+        }
+        return time;
+    }
+
     @Override
     public void close() {}
 }
\ No newline at end of file
@@ -0,0 +1,467 @@
+package com.morgan;
+
+import java.util.Arrays;
+
+/**
+ * Bus de mixage en sortie du moteur : N tranches (une source chacune, gain, panoramique,
+ * mute, envois auxiliaires), MAX_AUX bus auxiliaires (somme mono des envois, effet optionnel,
+ * retour panoramiqué comme une tranche) et une sortie entrelacée de 1 à MAX_CHANNELS canaux.
+ *
+ * Chaque tranche garde ses coefficients (un gain par canal de sortie, un niveau par envoi) :
+ * ils ne sont recalculés que lorsqu'un réglage change (numéro de version), puis rejoints
+ * en rampe sur le segment suivant, sans clic. En régime établi, la somme n'est qu'une
+ * multiplication-addition par échantillon et par canal, écrite dans l'ordre du buffer entrelacé.
+ * En mono, gain 1 : la sortie est celle de la source, au bit près.
+ *
+ * Réglages depuis n'importe quel thread ; tranches publiées par copie sur écriture
+ * (le thread audio lit le tableau volatile sans verrou).
+ */
+public class MixBus {
+
+    public static final int MAX_CHANNELS = 8;
+    public static final int MAX_AUX = 4;
+
+    private static final BlockKernels KERNELS = BlockKernels.get();
+
+    /**
+     * Source qui sait rendre elle-même plusieurs canaux (le VoicePool panoramique chaque voix).
+     * Sinon la tranche appelle processBlock() et panoramique le signal mono.
+     */
+    public interface MultichannelSource extends AudioModule {
+        /** Rendu multicanal pour ce segment ? (thread audio, appelé juste avant renderChannels) */
+        boolean rendersChannels(int channels);
+
+        /** Écrit 'frames' trames de 'channels' canaux entrelacés dans buffer[0 .. frames * channels[. */
+        void renderChannels(double[] buffer, int frames, int channels);
+    }
+
+    private volatile int channels = 1;
+    private volatile Strip[] strips = new Strip[0];
+    private final Aux[] auxes = new Aux[MAX_AUX];
+
+    // --- Buffers de travail (thread audio ; taille d'un bloc d'avance, ne grandissent qu'au-delà) ---
+    private double[] sourceBuffer = new double[AudioEngine.BLOCK_SIZE];
+    private double[] downmixBuffer = new double[AudioEngine.BLOCK_SIZE];
+
+    public MixBus() {
+        for (int a = 0; a < MAX_AUX; a++) {
+            auxes[a] = new Aux(a);
+        }
+    }
+
+    /** Nombre de canaux de sortie (1 = mono, 2 = stéréo...). À appeler avant le démarrage du thread audio. */
+    public void setChannels(int count) {
+        if (count < 1 || count > MAX_CHANNELS) {
+            throw new IllegalArgumentException("Nombre de canaux invalide : " + count + " (1 à " + MAX_CHANNELS + ")");
+        }
+        sourceBuffer = new double[AudioEngine.BLOCK_SIZE * count];
+        channels = count;
+    }
+
+    public int getChannels() {
+        return channels;
+    }
+
+    // ============================================================
+    //  TRANCHES (threads de contrôle)
+    // ============================================================
+    /** Ajoute une tranche (gain 1, centrée, sans envoi) et la retourne pour la régler. */
+    public synchronized Strip addStrip(String name, AudioModule source) {
+        Strip strip = new Strip(name, false);
+        strip.setSource(source);
+        Strip[] previous = strips;
+        Strip[] updated = Arrays.copyOf(previous, previous.length + 1);
+        updated[previous.length] = strip;
+        strips = updated;
+        return strip;
+    }
+
+    public synchronized boolean removeStrip(Strip strip) {
+        Strip[] previous = strips;
+        for (int i = 0; i < previous.length; i++) {
+            if (previous[i] == strip) {
+                Strip[] updated = new Strip[previous.length - 1];
+                System.arraycopy(previous, 0, updated, 0, i);
+                System.arraycopy(previous, i + 1, updated, i, previous.length - i - 1);
+                strips = updated;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public Strip[] getStrips() {
+        return strips.clone();
+    }
+
+    /** Bus auxiliaire 'index' (0 .. MAX_AUX - 1). */
+    public Aux getAux(int index) {
+        checkAux(index);
+        return auxes[index];
+    }
+
+    private static void checkAux(int index) {
+        if (index < 0 || index >= MAX_AUX) {
+            throw new IllegalArgumentException("Bus auxiliaire inexistant : " + index);
+        }
+    }
+
+    // ============================================================
+    //  GAINS (calculés seulement quand un réglage change)
+    // ============================================================
+    /**
+     * Panoramique à puissance constante d'une source mono : pan -1 = premier canal, +1 = dernier,
+     * réparti entre les deux canaux voisins au-delà de la stéréo. En mono, seul le gain compte.
+     */
+    public static void panGains(double pan, int channels, double gain, double[] out) {
+        if (channels == 1) {
+            out[0] = gain;
+            return;
+        }
+        double position = (Math.max(-1.0, Math.min(1.0, pan)) + 1.0) * 0.5 * (channels - 1);
+        int left = Math.min(channels - 2, (int) position);
+        double fraction = position - left;
+        Arrays.fill(out, 0, channels, 0.0);
+        out[left] = gain * Math.cos(fraction * Math.PI * 0.5);
+        out[left + 1] = gain * Math.sin(fraction * Math.PI * 0.5);
+    }
+
+    // Balance d'une source déjà multicanal : le centre ne change rien, un côté s'atténue
+    static void balanceGains(double pan, int channels, double gain, double[] out) {
+        Arrays.fill(out, 0, channels, gain);
+        if (channels == 2) {
+            if (pan > 0.0) {
+                out[0] *= 1.0 - Math.min(1.0, pan);
+            } else {
+                out[1] *= 1.0 + Math.max(-1.0, pan);
+            }
+        }
+    }
+
+    // ============================================================
+    //  RENDU (thread audio uniquement, sans allocation)
+    // ============================================================
+    /**
+     * Rend 'frames' trames dans out[frameOffset * channels ..[, entrelacées :
+     * toutes les tranches, puis les retours des bus auxiliaires.
+     */
+    public void process(double[] out, int frameOffset, int frames) {
+        final int ch = channels;
+        final int base = frameOffset * ch;
+        Arrays.fill(out, base, base + frames * ch, 0.0);
+        sourceBuffer = AudioModule.ensureCapacity(sourceBuffer, frames * ch);
+        for (Aux aux : auxes) {
+            aux.begin(frames);
+        }
+
+        for (Strip strip : strips) {
+            mixStrip(strip, out, base, frames, ch);
+        }
+        for (Aux aux : auxes) {
+            // Un retour sans effet ni envoi est muet : rien à rendre
+            if (aux.effect != null || aux.fed) {
+                mixStrip(aux.returnStrip, out, base, frames, ch);
+            }
+        }
+    }
+
+    private void mixStrip(Strip strip, double[] out, int base, int frames, int ch) {
+        AudioModule source = strip.source;
+        if (source == null) return;
+        final double[] src = sourceBuffer;
+
+        // La source avance toujours (enveloppes, séquences), même muette
+        MultichannelSource multichannel = (ch > 1 && source instanceof MultichannelSource
+                && ((MultichannelSource) source).rendersChannels(ch)) ? (MultichannelSource) source : null;
+        strip.update(ch, multichannel != null);
+        if (multichannel != null) {
+            multichannel.renderChannels(src, frames, ch);
+            mixChannels(strip, src, out, base, frames, ch);
+        } else {
+            source.processBlock(src, 0, frames);
+            mixMono(strip, src, out, base, frames, ch);
+        }
+        strip.endSegment(ch);
+    }
+
+    private void mixMono(Strip strip, double[] src, double[] out, int base, int frames, int ch) {
+        final double[] c = strip.coefficients;
+        if (!strip.ramping) {
+            if (ch == 1) {
+                final double g = c[0];
+                if (g != 0.0) {
+                    for (int i = 0; i < frames; i++) out[base + i] += src[i] * g;
+                }
+            } else if (ch == 2) {
+                final double left = c[0];
+                final double right = c[1];
+                for (int i = 0, o = base; i < frames; i++, o += 2) {
+                    final double x = src[i];
+                    out[o] += x * left;
+                    out[o + 1] += x * right;
+                }
+            } else {
+                for (int i = 0, o = base; i < frames; i++, o += ch) {
+                    final double x = src[i];
+                    for (int k = 0; k < ch; k++) out[o + k] += x * c[k];
+                }
+            }
+        } else {
+            for (int k = 0; k < ch; k++) {
+                ramp(src, 0, 1, out, base + k, ch, frames, c[k], strip.targets[k]);
+            }
+        }
+        sendToAuxes(strip, src, frames, ch);
+    }
+
+    private void mixChannels(Strip strip, double[] src, double[] out, int base, int frames, int ch) {
+        final double[] c = strip.coefficients;
+        if (!strip.ramping) {
+            boolean unity = true;
+            for (int k = 0; k < ch; k++) unity &= (c[k] == 1.0);
+            if (unity) {
+                KERNELS.accumulate(out, base, src, 0, frames * ch);
+            } else {
+                for (int i = 0, o = base; i < frames; i++, o += ch) {
+                    for (int k = 0; k < ch; k++) out[o + k] += src[i * ch + k] * c[k];
+                }
+            }
+        } else {
+            for (int k = 0; k < ch; k++) {
+                ramp(src, k, ch, out, base + k, ch, frames, c[k], strip.targets[k]);
+            }
+        }
+
+        // Envois : moyenne des canaux, calculée seulement si un envoi est ouvert
+        if (!strip.sends(ch)) return;
+        downmixBuffer = AudioModule.ensureCapacity(downmixBuffer, frames);
+        final double[] mono = downmixBuffer;
+        final double scale = 1.0 / ch;
+        for (int i = 0, j = 0; i < frames; i++, j += ch) {
+            double sum = 0.0;
+            for (int k = 0; k < ch; k++) sum += src[j + k];
+            mono[i] = sum * scale;
+        }
+        sendToAuxes(strip, mono, frames, ch);
+    }
+
+    private void sendToAuxes(Strip strip, double[] mono, int frames, int ch) {
+        final double[] c = strip.coefficients;
+        final double[] t = strip.ramping ? strip.targets : c;
+        for (int a = 0; a < MAX_AUX; a++) {
+            final double from = c[ch + a];
+            final double to = t[ch + a];
+            if (from == 0.0 && to == 0.0) continue;
+            Aux aux = auxes[a];
+            ramp(mono, 0, 1, aux.sum, 0, 1, frames, from, to);
+            aux.fed = true;
+        }
+    }
+
+    // dst[dstOffset + i * dstStride] += src[srcOffset + i * srcStride] * gain, gain allant de 'from' à 'to'
+    private static void ramp(double[] src, int srcOffset, int srcStride, double[] dst, int dstOffset, int dstStride,
+                             int frames, double from, double to) {
+        if (from == 0.0 && to == 0.0) return;
+        final double step = (to - from) / frames;
+        double gain = from;
+        for (int i = 0; i < frames; i++) {
+            gain += step;
+            dst[dstOffset + i * dstStride] += src[srcOffset + i * srcStride] * gain;
+        }
+    }
+
+    // ============================================================
+    //  TRANCHE
+    // ============================================================
+    /** Une entrée du bus : source, gain, panoramique, mute et niveaux d'envoi (post-fader). */
+    public final class Strip {
+
+        public final String name;
+        private final boolean isReturn;           // Retour d'un bus auxiliaire : pas d'envoi (pas de boucle)
+
+        // --- Réglages (n'importe quel thread ; toute écriture change 'version') ---
+        private volatile AudioModule source;
+        private volatile double gain = 1.0;
+        private volatile double pan = 0.0;
+        private volatile boolean muted = false;
+        private final double[] sendLevels = new double[MAX_AUX];
+        private volatile int version = 0;
+
+        // --- Coefficients (thread audio) : [canaux de sortie..., envois...] ---
+        private final double[] coefficients = new double[MAX_CHANNELS + MAX_AUX];
+        private final double[] targets = new double[MAX_CHANNELS + MAX_AUX];
+        private int appliedVersion = -1;
+        private int appliedChannels = 0;
+        private boolean appliedMultichannel = false;
+        private boolean ramping = false;
+
+        private Strip(String name, boolean isReturn) {
+            this.name = name;
+            this.isReturn = isReturn;
+        }
+
+        public void setSource(AudioModule source) {
+            this.source = source;
+        }
+
+        public AudioModule getSource() {
+            return source;
+        }
+
+        public void setGain(double gain) {
+            this.gain = Math.max(0.0, gain);
+            version++;
+        }
+
+        public double getGain() {
+            return gain;
+        }
+
+        /** Panoramique, -1 (gauche / premier canal) à +1 (droite / dernier canal). */
+        public void setPan(double pan) {
+            this.pan = Math.max(-1.0, Math.min(1.0, pan));
+            version++;
+        }
+
+        public double getPan() {
+            return pan;
+        }
+
+        public void setMuted(boolean muted) {
+            this.muted = muted;
+            version++;
+        }
+
+        public boolean isMuted() {
+            return muted;
+        }
+
+        /** Niveau d'envoi vers le bus auxiliaire 'aux' (après le gain de la tranche). */
+        public void setSend(int aux, double level) {
+            checkAux(aux);
+            if (isReturn) throw new IllegalStateException("Un retour auxiliaire n'a pas d'envoi");
+            sendLevels[aux] = Math.max(0.0, level);
+            version++; // L'écriture volatile publie le niveau
+        }
+
+        public double getSend(int aux) {
+            checkAux(aux);
+            return sendLevels[aux];
+        }
+
+        // Début de segment : nouvelles cibles si un réglage (ou le mode de la source) a changé
+        private void update(int ch, boolean multichannel) {
+            ramping = false;
+            int v = version;
+            if (v == appliedVersion && ch == appliedChannels && multichannel == appliedMultichannel) return;
+            // Changement de disposition : saut direct (la rampe n'aurait pas de sens)
+            boolean jump = ch != appliedChannels || multichannel != appliedMultichannel;
+            appliedVersion = v;
+            appliedChannels = ch;
+            appliedMultichannel = multichannel;
+
+            double g = muted ? 0.0 : gain;
+            if (multichannel) {
+                balanceGains(pan, ch, g, targets);
+            } else {
+                panGains(pan, ch, g, targets);
+            }
+            for (int a = 0; a < MAX_AUX; a++) {
+                targets[ch + a] = isReturn ? 0.0 : g * sendLevels[a];
+            }
+
+            int count = ch + MAX_AUX;
+            if (jump) {
+                System.arraycopy(targets, 0, coefficients, 0, count);
+                return;
+            }
+            for (int k = 0; k < count; k++) {
+                if (targets[k] != coefficients[k]) {
+                    ramping = true;
+                    break;
+                }
+            }
+        }
+
+        private void endSegment(int ch) {
+            if (ramping) {
+                System.arraycopy(targets, 0, coefficients, 0, ch + MAX_AUX);
+                ramping = false;
+            }
+        }
+
+        private boolean sends(int ch) {
+            for (int a = 0; a < MAX_AUX; a++) {
+                if (coefficients[ch + a] != 0.0 || (ramping && targets[ch + a] != 0.0)) return true;
+            }
+            return false;
+        }
+    }
+
+    // ============================================================
+    //  BUS AUXILIAIRE
+    // ============================================================
+    /**
+     * Somme mono des envois, passée dans un effet optionnel (réverbération, délai...)
+     * puis renvoyée dans le bus par sa tranche de retour (gain, panoramique, mute).
+     */
+    public final class Aux {
+
+        public final int index;
+        private final Strip returnStrip;
+        private volatile AudioModule effect;
+
+        // --- Thread audio ---
+        private double[] sum = new double[AudioEngine.BLOCK_SIZE];
+        private int position = 0;
+        private boolean fed = false;
+
+        // Entrée de l'effet : relit la somme des envois du segment
+        private final AudioModule feed = new AudioModule() {
+            @Override
+            public double tick() {
+                return sum[position++];
+            }
+
+            @Override
+            public void processBlock(double[] buffer, int offset, int length) {
+                System.arraycopy(sum, position, buffer, offset, length);
+                position += length;
+            }
+        };
+
+        private Aux(int index) {
+            this.index = index;
+            this.returnStrip = new Strip("aux" + (index + 1), true);
+            returnStrip.setSource(feed);
+        }
+
+        /** Effet du bus (son entrée 0 reçoit la somme des envois), ou null pour un simple sous-groupe. */
+        public void setEffect(AudioModule effect) {
+            if (effect != null) {
+                if (effect.getInputCount() < 1) {
+                    throw new IllegalArgumentException(effect.getClass().getSimpleName() + " n'a pas d'entrée audio");
+                }
+                effect.setInput(0, feed);
+            }
+            this.effect = effect;
+            returnStrip.setSource((effect != null) ? effect : feed);
+        }
+
+        public AudioModule getEffect() {
+            return effect;
+        }
+
+        /** Tranche de retour (gain, panoramique, mute du bus). */
+        public Strip getReturn() {
+            return returnStrip;
+        }
+
+        private void begin(int frames) {
+            sum = AudioModule.ensureCapacity(sum, frames);
+            Arrays.fill(sum, 0, frames, 0.0);
+            position = 0;
+            fed = false;
+        }
+    }
+}
@@ -1,14 +1,41 @@
 package com.morgan;
 
+import java.util.Arrays;
+
 /**
  * Un module Mixer qui prend deux entrées AudioModule et les mélange.
  */
 public class Mixer implements AudioModule {
 
+    private static final BlockKernels KERNELS = BlockKernels.get();
+
     private AudioModule inputA;
     private AudioModule inputB;
     public double blend = 0.5; // 0.0 = 100% A, 1.0 = 100% B
 
+    private double[] scratchB; // Buffer de travail pour l'entrée B (rendu par bloc)
+
+    // Blend lissé et gains "equal power" en cache : cos/sin recalculés seulement quand blend bouge
+    private double sampleRate;
+    private double smoothingTime = SmoothedValue.DEFAULT_RAMP_TIME;
+    private final SmoothedValue smoothedBlend;
+    private double gainA;
+    private double gainB;
+
+    // Modulation du blend (matrice de modulation) : hors lissage, interpolée sur le bloc
+    private double blendModulation = 0.0;
+    private double appliedBlendModulation = 0.0;
+
+    public Mixer() {
+        this(44100.0);
+    }
+
+    public Mixer(double sampleRate) {
+        this.sampleRate = sampleRate;
+        this.smoothedBlend = new SmoothedValue(blend, SmoothedValue.Ramp.LINEAR, sampleRate);
+        updateGains(blend);
+    }
+
     public void setInputA(AudioModule input) {
         this.inputA = input;
     }
@@ -17,19 +44,146 @@ public class Mixer implements AudioModule {
         this.inputB = input;
     }
 
+    // Entrée 0 = A, entrée 1 = B
+    @Override
+    public int getInputCount() {
+        return 2;
+    }
+
+    @Override
+    public void setInput(int port, AudioModule input) {
+        switch (port) {
+            case 0: setInputA(input); break;
+            case 1: setInputB(input); break;
+            default: AudioModule.super.setInput(port, input);
+        }
+    }
+
     public void setBlend(double blend) {
         this.blend = Math.max(0.0, Math.min(1.0, blend)); // Clamper la valeur entre 0 et 1
     }
 
+    /** Recopie le blend d'un autre mixer (utilisé par les voix de polyphonie). */
+    public void copySettingsFrom(Mixer other) {
+        this.blend = other.blend;
+    }
+
+    /** Durée des rampes de blend (0 = changements instantanés). */
+    public void setSmoothingTime(double seconds) {
+        this.smoothingTime = seconds;
+        smoothedBlend.setRampTime(seconds, sampleRate);
+    }
+
+    @Override
+    public void setSampleRate(double newSampleRate) {
+        this.sampleRate = newSampleRate;
+        setSmoothingTime(smoothingTime);
+    }
+
+    /** Termine la rampe en cours (nouvelle note). */
+    public void jumpToTargets() {
+        smoothedBlend.setTarget(blend);
+        smoothedBlend.jumpToTarget();
+        updateGains(smoothedBlend.getCurrent());
+    }
+
+    /** Décalage du blend (matrice de modulation, thread audio). */
+    public void setBlendModulation(double offset) {
+        this.blendModulation = offset;
+    }
+
+    // Formule "Equal Power" pour un crossfade plus naturel (modulation comprise)
+    private void updateGains(double blendValue) {
+        double value = blendValue + appliedBlendModulation;
+        value = (value < 0.0) ? 0.0 : (value > 1.0 ? 1.0 : value);
+        gainA = Math.cos(value * 0.5 * Math.PI);
+        gainB = Math.sin(value * 0.5 * Math.PI);
+    }
+
+    /** Démarre une rampe si blend a changé depuis le dernier bloc ; vrai si une rampe est en cours. */
+    private boolean followBlend() {
+        double target = blend;
+        if (target != smoothedBlend.getTarget()) {
+            smoothedBlend.setTarget(target);
+            if (!smoothedBlend.isSmoothing()) {
+                updateGains(target); // Lissage désactivé : saut direct
+            }
+        }
+        return smoothedBlend.isSmoothing();
+    }
+
     @Override
     public double tick() {
         double sampleA = (inputA != null) ? inputA.tick() : 0.0;
         double sampleB = (inputB != null) ? inputB.tick() : 0.0;
 
-        // Formule "Equal Power" pour un crossfade plus naturel
-        double blendA = Math.cos(blend * 0.5 * Math.PI);
-        double blendB = Math.sin(blend * 0.5 * Math.PI);
+        if (blendModulation != appliedBlendModulation) {
+            appliedBlendModulation = blendModulation;
+            updateGains(smoothedBlend.getCurrent());
+        }
+        if (followBlend()) {
+            updateGains(smoothedBlend.next());
+        }
+
+        return (sampleA * gainA) + (sampleB * gainB);
+    }
+
+    // --- Rendu par bloc : A dans le buffer de sortie, B dans un buffer de travail ---
+    @Override
+    public void processBlock(double[] buffer, int offset, int length) {
+        final int end = offset + length;
+        if (inputA != null) {
+            inputA.processBlock(buffer, offset, length);
+        } else {
+            Arrays.fill(buffer, offset, end, 0.0);
+        }
+
+        final double[] b;
+        if (inputB != null) {
+            scratchB = AudioModule.ensureCapacity(scratchB, length);
+            inputB.processBlock(scratchB, 0, length);
+            b = scratchB;
+        } else {
+            b = null;
+        }
+
+        if (followBlend() || blendModulation != appliedBlendModulation) {
+            processSmoothing(buffer, offset, length, b);
+            return;
+        }
+
+        // Blend statique : gains en cache, aucun calcul trigonométrique
+        if (b == null) {
+            KERNELS.scale(buffer, offset, length, gainA);
+        } else {
+            KERNELS.crossfade(buffer, offset, b, 0, length, gainA, gainB);
+        }
+    }
 
-        return (sampleA * blendA) + (sampleB * blendB);
+    // Rampe ou modulation en cours : gains évalués tous les CONTROL_BLOCK échantillons, interpolés entre deux
+    private void processSmoothing(double[] buffer, int offset, int length, double[] b) {
+        final boolean modulating = blendModulation != appliedBlendModulation;
+        final double modStart = appliedBlendModulation;
+        final double modEnd = blendModulation;
+        double blendA = gainA;
+        double blendB = gainB;
+        int i = 0;
+        while (i < length) {
+            int n = Math.min(SmoothedValue.CONTROL_BLOCK, length - i);
+            if (modulating) {
+                appliedBlendModulation = (i + n == length) ? modEnd : modStart + (modEnd - modStart) * (i + n) / length;
+            }
+            updateGains(smoothedBlend.skip(n));
+            double stepA = (gainA - blendA) / n;
+            double stepB = (gainB - blendB) / n;
+            for (int k = 0; k < n; k++, i++) {
+                blendA += stepA;
+                blendB += stepB;
+                double sampleB = (b != null) ? b[i] : 0.0;
+                buffer[offset + i] = (buffer[offset + i] * blendA) + (sampleB * blendB);
+            }
+            blendA = gainA;
+            blendB = gainB;
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,199 @@
+package com.morgan;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Matrice de modulation du patch : sources (LFO, enveloppe de modulation, vélocité,
+ * aftertouch...) routées avec une profondeur vers les paramètres des modules de chaque voix.
+ *
+ * Les routes sont éditées par les threads de contrôle (GUI) dans des emplacements fixes,
+ * puis compilées en tableaux plats (index de source, index de destination, profondeur)
+ * publiés d'un bloc : le thread audio lit le dernier plan sans verrou ni allocation
+ * et chaque voix l'évalue une fois par bloc.
+ * Les LFO et l'enveloppe de modulation sont des modules "modèles" : chaque voix recopie leurs réglages.
+ */
+public class ModulationMatrix {
+
+    public static final int MAX_ROUTES = 64;
+
+    /** Sources : LFO bipolaires (-1..1), les autres unipolaires (0..1) sauf KEY (-1..1 autour du Do 60). */
+    public enum Source { LFO1, LFO2, MOD_ENV, VELOCITY, AFTERTOUCH, MOD_WHEEL, KEY }
+
+    /** Destinations, avec l'amplitude d'une profondeur de 1.0. */
+    public enum Destination {
+        PITCH(12.0),            // Demi-tons, les deux oscillateurs
+        OSC1_PITCH(12.0),
+        OSC2_PITCH(12.0),
+        MIXER_BLEND(1.0),
+        FILTER_CUTOFF(5.0),     // Octaves
+        FILTER_RESONANCE(1.0),
+        AMPLITUDE(1.0),         // Gain de la voix : 1 + modulation (borné à 0)
+        LFO1_RATE(4.0),         // Octaves
+        LFO2_RATE(4.0);
+
+        public final double range;
+
+        Destination(double range) {
+            this.range = range;
+        }
+    }
+
+    public static final Source[] SOURCES = Source.values();
+    public static final Destination[] DESTINATIONS = Destination.values();
+
+    /** Plan compilé : immuable, remplacé d'un bloc. */
+    static final class Routing {
+        final long version;         // Ordre de compilation : un plan plus récent a un numéro plus grand
+        final int count;
+        final int[] sources;
+        final int[] destinations;
+        final double[] depths;      // Profondeur x amplitude de la destination
+        final int sourceMask;       // Bit (1 << ordinal) de chaque source utilisée
+
+        Routing(long version, int count, int[] sources, int[] destinations, double[] depths) {
+            this.version = version;
+            this.count = count;
+            this.sources = sources;
+            this.destinations = destinations;
+            this.depths = depths;
+            int mask = 0;
+            for (int r = 0; r < count; r++) {
+                mask |= 1 << sources[r];
+            }
+            this.sourceMask = mask;
+        }
+
+    }
+
+    // --- Modules modèles (réglages recopiés par les voix) ---
+    public final Lfo lfo1;
+    public final Lfo lfo2;
+    public final EnvelopeGenerator modEnv;
+
+    // --- Emplacements édités par les threads de contrôle (sous verrou) ---
+    private final Source[] slotSources = new Source[MAX_ROUTES];
+    private final Destination[] slotDestinations = new Destination[MAX_ROUTES];
+    private final double[] slotDepths = new double[MAX_ROUTES];
+    private long compiled = 0; // Plans compilés (sous verrou)
+
+    private final AtomicReference<Routing> routing =
+            new AtomicReference<>(new Routing(0, 0, new int[0], new int[0], new double[0]));
+
+    public ModulationMatrix(double sampleRate) {
+        lfo1 = new Lfo(sampleRate);
+        lfo2 = new Lfo(sampleRate);
+        lfo2.setRate(0.5);
+        modEnv = new EnvelopeGenerator(sampleRate);
+        modEnv.setSustain(0.0);
+    }
+
+    /** Place une route dans l'emplacement 'slot' (profondeur de -1 à 1) et recompile. */
+    public synchronized void setRoute(int slot, Source source, Destination destination, double depth) {
+        checkSlot(slot);
+        slotSources[slot] = source;
+        slotDestinations[slot] = destination;
+        slotDepths[slot] = Math.max(-1.0, Math.min(1.0, depth));
+        compile();
+    }
+
+    public synchronized void clearRoute(int slot) {
+        checkSlot(slot);
+        slotSources[slot] = null;
+        slotDestinations[slot] = null;
+        slotDepths[slot] = 0.0;
+        compile();
+    }
+
+    public synchronized void clearAll() {
+        for (int slot = 0; slot < MAX_ROUTES; slot++) {
+            slotSources[slot] = null;
+            slotDestinations[slot] = null;
+            slotDepths[slot] = 0.0;
+        }
+        compile();
+    }
+
+    public synchronized Source getSource(int slot) {
+        checkSlot(slot);
+        return slotSources[slot];
+    }
+
+    public synchronized Destination getDestination(int slot) {
+        checkSlot(slot);
+        return slotDestinations[slot];
+    }
+
+    public synchronized double getDepth(int slot) {
+        checkSlot(slot);
+        return slotDepths[slot];
+    }
+
+    /**
+     * Remplace toutes les routes (chargement d'un preset : index de source et de destination,
+     * -1 = emplacement vide) et retourne le plan compilé SANS le publier :
+     * le thread audio l'installe au début d'un bloc (install), en même temps que le reste du preset.
+     */
+    public synchronized Routing prepareRoutes(int[] sources, int[] destinations, double[] depths) {
+        for (int slot = 0; slot < MAX_ROUTES; slot++) {
+            boolean valid = slot < sources.length
+                    && sources[slot] >= 0 && sources[slot] < SOURCES.length
+                    && destinations[slot] >= 0 && destinations[slot] < DESTINATIONS.length;
+            slotSources[slot] = valid ? SOURCES[sources[slot]] : null;
+            slotDestinations[slot] = valid ? DESTINATIONS[destinations[slot]] : null;
+            slotDepths[slot] = valid ? Math.max(-1.0, Math.min(1.0, depths[slot])) : 0.0;
+        }
+        return build();
+    }
+
+    /**
+     * Publie un plan préparé par prepareRoutes (thread audio, sans allocation ni verrou).
+     * Si une route a été éditée entre la préparation et l'installation, le plan publié
+     * par cette édition est plus récent (il part des emplacements du preset) : il reste en place.
+     */
+    void install(Routing prepared) {
+        Routing current = routing.get();
+        while (current.version < prepared.version && !routing.compareAndSet(current, prepared)) {
+            current = routing.get();
+        }
+    }
+
+    /** Nombre de routes actives dans le plan courant. */
+    public int getRouteCount() {
+        return routing.get().count;
+    }
+
+    /** Plan courant (thread audio : une lecture volatile par bloc). */
+    Routing routing() {
+        return routing.get();
+    }
+
+    private void compile() {
+        routing.set(build());
+    }
+
+    // Les emplacements vides ou de profondeur nulle ne coûtent rien au thread audio
+    private Routing build() {
+        int count = 0;
+        for (int slot = 0; slot < MAX_ROUTES; slot++) {
+            if (slotSources[slot] != null && slotDestinations[slot] != null && slotDepths[slot] != 0.0) count++;
+        }
+        int[] sources = new int[count];
+        int[] destinations = new int[count];
+        double[] depths = new double[count];
+        int r = 0;
+        for (int slot = 0; slot < MAX_ROUTES; slot++) {
+            if (slotSources[slot] == null || slotDestinations[slot] == null || slotDepths[slot] == 0.0) continue;
+            sources[r] = slotSources[slot].ordinal();
+            destinations[r] = slotDestinations[slot].ordinal();
+            depths[r] = slotDepths[slot] * slotDestinations[slot].range;
+            r++;
+        }
+        return new Routing(++compiled, count, sources, destinations, depths);
+    }
+
+    private static void checkSlot(int slot) {
+        if (slot < 0 || slot >= MAX_ROUTES) {
+            throw new IllegalArgumentException("Emplacement de modulation invalide : " + slot);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package com.morgan;
+
+/**
+ * Sortie muette : les périodes sont rendues puis oubliées. Cadencée par PacedSink
+ * (serveur sans carte son piloté en MIDI), ou au plus vite pour mesurer le débit du moteur.
+ */
+public class NullSink implements AudioSink {
+
+    @Override
+    public void open(float sampleRate, OutputConfig config) {
+    }
+
+    @Override
+    public void write(double[] block, int frames) {
+    }
+
+    @Override
+    public String toString() {
+        return "aucune";
+    }
+}
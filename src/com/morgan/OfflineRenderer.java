@@ -0,0 +1,164 @@
+package com.morgan;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Rendu hors temps réel ("bounce") vers un fichier WAV ou PCM brut.
+ * Le même graphe de modules et le même StepSequencer sont pilotés par l'horloge
+ * échantillon du moteur (horloge virtuelle) : aucune ligne audio, aucune attente,
+ * le rendu va aussi vite que le CPU le permet.
+ * Plusieurs rendus peuvent tourner en parallèle, un moteur par job.
+ */
+public class OfflineRenderer {
+
+    /** Prépare le patch et le pattern d'un job avant le rendu (thread du job). */
+    public interface PatchSetup {
+        void configure(AudioEngine engine, StepSequencer sequencer);
+    }
+
+    /** Un rendu : durée, fichier de sortie et préparation du patch. */
+    public static class Job {
+        public final String name;
+        public final double seconds;
+        public final Path output;
+        public final PatchSetup setup;
+        public SampleFormat sampleFormat = SampleFormat.PCM_16;
+        public int blockSize = AudioEngine.BLOCK_SIZE;
+        public int channels = 1;   // Canaux du fichier (voir MixBus)
+
+        public Job(String name, double seconds, Path output, PatchSetup setup) {
+            this.name = name;
+            this.seconds = seconds;
+            this.output = output;
+            this.setup = setup;
+        }
+    }
+
+    /** Résultat d'un rendu, avec le facteur temps réel atteint. */
+    public static class Result {
+        public final String name;
+        public final long frames;
+        public final double audioSeconds;
+        public final double wallSeconds;
+
+        Result(String name, long frames, double audioSeconds, double wallSeconds) {
+            this.name = name;
+            this.frames = frames;
+            this.audioSeconds = audioSeconds;
+            this.wallSeconds = wallSeconds;
+        }
+
+        /** Secondes d'audio rendues par seconde de calcul (x1 = temps réel). */
+        public double getRealtimeFactor() {
+            return (wallSeconds > 0) ? audioSeconds / wallSeconds : Double.POSITIVE_INFINITY;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s : %.2f s d'audio en %.3f s (x%.1f temps réel)",
+                    name, audioSeconds, wallSeconds, getRealtimeFactor());
+        }
+    }
+
+    /** Rend un job sur le thread appelant. */
+    public static Result render(Job job) throws IOException {
+        AudioEngine engine = new AudioEngine();
+        StepSequencer sequencer = new StepSequencer(engine);
+        engine.setSequencer(sequencer);
+        if (job.setup != null) {
+            job.setup.configure(engine, sequencer);
+        }
+        return render(job, engine);
+    }
+
+    /** Rend un job avec un moteur déjà préparé (non démarré en temps réel). */
+    public static Result render(Job job, AudioEngine engine) throws IOException {
+        final long totalFrames = Math.round(job.seconds * engine.SAMPLE_RATE);
+        engine.setOutputChannels(job.channels);
+        final double[] block = new double[job.blockSize * job.channels];
+
+        long start = System.nanoTime();
+        try (AudioFileWriter writer = new AudioFileWriter(job.output, engine.SAMPLE_RATE, job.channels, job.sampleFormat)) {
+            long rendered = 0;
+            while (rendered < totalFrames) {
+                int frames = (int) Math.min(job.blockSize, totalFrames - rendered);
+                engine.renderBlock(block, frames);
+                writer.write(block, frames * job.channels);
+                rendered += frames;
+            }
+        }
+        double wallSeconds = (System.nanoTime() - start) / 1.0e9;
+
+        return new Result(job.name, totalFrames, totalFrames / (double) engine.SAMPLE_RATE, wallSeconds);
+    }
+
+    /** Rend plusieurs jobs en parallèle (un moteur indépendant par job). */
+    public static List<Result> renderAll(List<Job> jobs, int threads) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, threads));
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Job job : jobs) {
+                futures.add(executor.submit(() -> render(job)));
+            }
+
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof IOException) throw (IOException) cause;
+                    throw new RuntimeException("Erreur de rendu hors temps réel", cause);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("Rendu interrompu", e);
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Usage : OfflineRenderer <secondes> <fichier.wav|fichier.raw>...
+     * Chaque fichier reçoit le pattern par défaut du séquenceur, dans une gamme différente.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage : OfflineRenderer <secondes> <fichier.wav|fichier.raw>...");
+            return;
+        }
+
+        double seconds = Double.parseDouble(args[0]);
+        ScaleType[] scales = ScaleType.values();
+        List<Job> jobs = new ArrayList<>();
+        for (int i = 1; i < args.length; i++) {
+            ScaleType scale = scales[(i - 1) % scales.length];
+            jobs.add(new Job(args[i] + " (" + scale + ")", seconds, Paths.get(args[i]), (engine, sequencer) -> {
+                sequencer.currentScale = scale;
+                sequencer.start();
+            }));
+        }
+
+        long start = System.nanoTime();
+        List<Result> results = renderAll(jobs, Runtime.getRuntime().availableProcessors());
+        double wallSeconds = (System.nanoTime() - start) / 1.0e9;
+
+        double audioSeconds = 0.0;
+        for (Result result : results) {
+            System.out.println(result);
+            audioSeconds += result.audioSeconds;
+        }
+        System.out.println(String.format("Total : %.2f s d'audio en %.3f s (x%.1f temps réel)",
+                audioSeconds, wallSeconds, audioSeconds / wallSeconds));
+    }
+}
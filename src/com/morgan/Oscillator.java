@@ -1,10 +1,11 @@
 package com.morgan;
 
-import java.util.Random;
+import java.util.Arrays;
 
 public class Oscillator implements AudioModule {
 
     public enum Waveform { SINE, SQUARE, SAWTOOTH, TRIANGLE, NOISE }
+    public enum Interpolation { LINEAR, CUBIC }
 
     // --- FACTEURS DE GAIN POUR ÉGALISATION RMS ---
     // Ces facteurs multiplient l'onde pour lui donner la même puissance effective
@@ -12,25 +13,68 @@ public class Oscillator implements AudioModule {
     private static final double SAW_TRI_GAIN = 1.7320508; // sqrt(3) = 1 / (1/sqrt(3))
     // Square et Noise utilisent un gain de 1.0 (non appliqué)
 
+    private static final double TWO_PI = 2.0 * Math.PI;
+    private static final double SEMITONE_LOG = Math.log(2.0) / 12.0;
+    // Conversion phase (radians) -> position dans une table d'onde
+    private static final double TABLE_SCALE = WavetableBank.TABLE_SIZE / TWO_PI;
+
     private final double SAMPLE_RATE;
     public Waveform waveform = Waveform.SINE;
     private double baseFrequency = 440.0;
     public int octave = 0;
     public int pitchCents = 0;
 
-    private double currentFrequency;
+    // --- Mode table d'ondes à bande limitée (sinon : formes d'onde calculées, "naïves") ---
+    public boolean wavetable = true;
+    public Interpolation interpolation = Interpolation.LINEAR;
+
+    private double currentFrequency;   // Fréquence jouée (lissée, modulation comprise)
+    // Fréquence lissée (rampe exponentielle) : les changements de pitch/octave ne claquent pas
+    private final SmoothedValue frequency;
     private double phase = 0.0;
-    private Random random = new Random();
+
+    // Modulation de hauteur (demi-tons) venant de la matrice de modulation : hors lissage,
+    // interpolée sur le bloc au taux de contrôle
+    private double pitchModulation = 0.0;
+    private double appliedPitchModulation = 0.0;
+    private double pitchRatio = 1.0;
+    private final XorShiftRandom random = new XorShiftRandom(); // Bruit : PRNG sans allocation
 
     public Oscillator(double sampleRate) {
         this.SAMPLE_RATE = sampleRate;
+        this.frequency = new SmoothedValue(baseFrequency, SmoothedValue.Ramp.EXPONENTIAL, sampleRate);
         updateFrequency();
+        frequency.jumpToTarget();
+        currentFrequency = frequency.getCurrent() * pitchRatio;
     }
 
-    // --- Méthodes de contrôle (inchangées) ---
+    // --- Méthodes de contrôle ---
+    /** Nouvelle note : la fréquence saute directement (pas de portamento). */
     public void setBaseFrequency(double baseFrequency) {
         this.baseFrequency = baseFrequency;
         updateFrequency();
+        frequency.jumpToTarget();
+        currentFrequency = frequency.getCurrent() * pitchRatio;
+    }
+
+    /** Graine du bruit (rendus reproductibles). */
+    public void setNoiseSeed(long seed) {
+        random.setSeed(seed);
+    }
+
+    /** Durée des rampes de fréquence (0 = changements instantanés). */
+    public void setSmoothingTime(double seconds) {
+        frequency.setRampTime(seconds, SAMPLE_RATE);
+    }
+
+    /** Décalage de hauteur en demi-tons (matrice de modulation, thread audio). */
+    public void setPitchModulation(double semitones) {
+        this.pitchModulation = semitones;
+    }
+
+    private void applyPitchModulation(double semitones) {
+        appliedPitchModulation = semitones;
+        pitchRatio = Math.exp(semitones * SEMITONE_LOG);
     }
 
     public void setWaveform(Waveform waveform) {
@@ -38,14 +82,40 @@ public class Oscillator implements AudioModule {
     }
 
     public void updateFrequency() {
-        this.currentFrequency = baseFrequency *
+        frequency.setTarget(baseFrequency *
                 Math.pow(2.0, octave) *
-                Math.pow(2.0, (double)pitchCents / 1200.0);
+                Math.pow(2.0, (double)pitchCents / 1200.0));
+        if (!frequency.isSmoothing()) {
+            currentFrequency = frequency.getCurrent() * pitchRatio; // Lissage désactivé : saut direct
+        }
+    }
+
+    /** Recopie les réglages d'un autre oscillateur (utilisé par les voix de polyphonie). */
+    public void copySettingsFrom(Oscillator other) {
+        this.waveform = other.waveform;
+        this.wavetable = other.wavetable;
+        this.interpolation = other.interpolation;
+        if (octave != other.octave || pitchCents != other.pitchCents) {
+            this.octave = other.octave;
+            this.pitchCents = other.pitchCents;
+            updateFrequency();
+        }
     }
     // ----------------------------
 
     @Override
     public double tick() {
+        if (pitchModulation != appliedPitchModulation) {
+            applyPitchModulation(pitchModulation);
+            currentFrequency = frequency.getCurrent() * pitchRatio;
+        }
+        if (frequency.isSmoothing()) {
+            currentFrequency = frequency.next() * pitchRatio;
+        }
+        if (wavetable && waveform != Waveform.NOISE) {
+            return tickWavetable();
+        }
+
         double sample;
 
         switch (waveform) {
@@ -72,12 +142,164 @@ public class Oscillator implements AudioModule {
 
         // Avancer la phase (sauf pour le bruit)
         if (waveform != Waveform.NOISE) {
-            double phaseIncrement = (2.0 * Math.PI * currentFrequency) / SAMPLE_RATE;
+            double phaseIncrement = (TWO_PI * currentFrequency) / SAMPLE_RATE;
             phase += phaseIncrement;
-            phase %= (2.0 * Math.PI);
+            phase %= TWO_PI;
         }
 
         // S'assurer que le signal ne dépasse pas +1/-1 après le gain
         return Math.max(-1.0, Math.min(1.0, sample));
     }
+
+    // --- Rendu par bloc : le switch est fait une seule fois, la boucle interne reste simple ---
+    @Override
+    public void processBlock(double[] buffer, int offset, int length) {
+        final boolean modulating = pitchModulation != appliedPitchModulation;
+        if (!frequency.isSmoothing() && !modulating) {
+            renderSegment(buffer, offset, length);
+            return;
+        }
+        // Rampe ou modulation en cours : fréquence réévaluée au taux de contrôle (la phase reste continue)
+        final double modStart = appliedPitchModulation;
+        final double modEnd = pitchModulation;
+        int done = 0;
+        while (done < length) {
+            int n = Math.min(SmoothedValue.CONTROL_BLOCK, length - done);
+            if (modulating) {
+                applyPitchModulation((done + n == length) ? modEnd : modStart + (modEnd - modStart) * (done + n) / length);
+            }
+            currentFrequency = frequency.skip(n) * pitchRatio;
+            renderSegment(buffer, offset + done, n);
+            done += n;
+        }
+    }
+
+    private void renderSegment(double[] buffer, int offset, int length) {
+        if (wavetable && waveform != Waveform.NOISE) {
+            processBlockWavetable(buffer, offset, length);
+            return;
+        }
+
+        final int end = offset + length;
+        final double phaseIncrement = (TWO_PI * currentFrequency) / SAMPLE_RATE;
+        double p = phase;
+
+        switch (waveform) {
+            case SINE:
+                for (int i = offset; i < end; i++) {
+                    buffer[i] = clamp(Math.sin(p) * SINE_GAIN);
+                    p += phaseIncrement;
+                    if (p >= TWO_PI) p %= TWO_PI;
+                }
+                break;
+            case SQUARE:
+                for (int i = offset; i < end; i++) {
+                    buffer[i] = (p < Math.PI) ? 1.0 : -1.0;
+                    p += phaseIncrement;
+                    if (p >= TWO_PI) p %= TWO_PI;
+                }
+                break;
+            case SAWTOOTH:
+                for (int i = offset; i < end; i++) {
+                    buffer[i] = clamp(((p / Math.PI) - 1.0) * SAW_TRI_GAIN);
+                    p += phaseIncrement;
+                    if (p >= TWO_PI) p %= TWO_PI;
+                }
+                break;
+            case TRIANGLE:
+                for (int i = offset; i < end; i++) {
+                    double tri = (2.0 / Math.PI) * Math.asin(Math.sin(p));
+                    buffer[i] = clamp(tri * SAW_TRI_GAIN);
+                    p += phaseIncrement;
+                    if (p >= TWO_PI) p %= TWO_PI;
+                }
+                break;
+            case NOISE:
+                for (int i = offset; i < end; i++) {
+                    buffer[i] = random.nextDouble() * 2.0 - 1.0;
+                }
+                break;
+            default:
+                Arrays.fill(buffer, offset, end, 0.0);
+        }
+        phase = p;
+    }
+
+    // ============================================================
+    //  MODE TABLE D'ONDES (bande limitée, tables partagées)
+    // ============================================================
+    private double tickWavetable() {
+        double[] table = WavetableBank.table(waveform, currentFrequency, SAMPLE_RATE);
+        double pos = phase * TABLE_SCALE;
+        int index = (int) pos;
+        double frac = pos - index;
+
+        double sample = (interpolation == Interpolation.CUBIC)
+                ? cubic(table, index, frac)
+                : table[index + 1] + frac * (table[index + 2] - table[index + 1]);
+
+        phase += (TWO_PI * currentFrequency) / SAMPLE_RATE;
+        phase %= TWO_PI;
+
+        return clamp(sample * gainFor(waveform));
+    }
+
+    private void processBlockWavetable(double[] buffer, int offset, int length) {
+        // Niveau de mip-map choisi une fois par bloc selon la fréquence jouée
+        final double[] table = WavetableBank.table(waveform, currentFrequency, SAMPLE_RATE);
+        final double gain = gainFor(waveform);
+        final double size = WavetableBank.TABLE_SIZE;
+        // Ramené sous la longueur de la table : au-delà de SAMPLE_RATE (octave +2, modulation de
+        // hauteur), un seul "pos -= size" par échantillon ne suffirait plus à rester dans la table
+        final double increment = (currentFrequency / SAMPLE_RATE * size) % size;
+        final int end = offset + length;
+        double pos = phase * TABLE_SCALE;
+
+        if (interpolation == Interpolation.CUBIC) {
+            for (int i = offset; i < end; i++) {
+                int index = (int) pos;
+                double sample = cubic(table, index, pos - index) * gain;
+                buffer[i] = clamp(sample);
+                pos += increment;
+                if (pos >= size) pos -= size;
+            }
+        } else {
+            for (int i = offset; i < end; i++) {
+                int index = (int) pos;
+                double a = table[index + 1];
+                double sample = (a + (pos - index) * (table[index + 2] - a)) * gain;
+                buffer[i] = clamp(sample);
+                pos += increment;
+                if (pos >= size) pos -= size;
+            }
+        }
+
+        phase = pos / TABLE_SCALE;
+    }
+
+    // Interpolation cubique (Hermite 4 points) : table[index + 1] = onde(index)
+    private static double cubic(double[] table, int index, double frac) {
+        double y0 = table[index];
+        double y1 = table[index + 1];
+        double y2 = table[index + 2];
+        double y3 = table[index + 3];
+        double c1 = 0.5 * (y2 - y0);
+        double c2 = y0 - 2.5 * y1 + 2.0 * y2 - 0.5 * y3;
+        double c3 = 0.5 * (y3 - y0) + 1.5 * (y1 - y2);
+        return ((c3 * frac + c2) * frac + c1) * frac + y1;
+    }
+
+    // Clamp +1/-1 (plus rapide que Math.max/Math.min dans les boucles internes)
+    private static double clamp(double sample) {
+        return (sample < -1.0) ? -1.0 : (sample > 1.0 ? 1.0 : sample);
+    }
+
+    private static double gainFor(Waveform waveform) {
+        switch (waveform) {
+            case SINE:     return SINE_GAIN;
+            case SAWTOOTH:
+            case TRIANGLE: return SAW_TRI_GAIN;
+            default:       return 1.0;
+        }
+    }
 }
\ No newline at end of file
@@ -0,0 +1,44 @@
+package com.morgan;
+
+/**
+ * Réglages de la sortie audio : taille d'une période (frames rendues et écrites
+ * à chaque tour du thread audio), nombre de périodes dans le buffer de la ligne,
+ * nombre de canaux (voir MixBus) et format des échantillons. Latence ≈ periodFrames * periodCount / sampleRate.
+ */
+public class OutputConfig {
+
+    public static final int DEFAULT_PERIOD_FRAMES = AudioEngine.BLOCK_SIZE;
+    public static final int DEFAULT_PERIOD_COUNT = 4; // 4 x 128 frames 16 bits = l'ancien buffer de 1024 bytes (mono)
+    public static final int DEFAULT_CHANNELS = 2;
+
+    public final int periodFrames;
+    public final int periodCount;
+    public final int channels;
+    public final SampleFormat sampleFormat;
+
+    public OutputConfig() {
+        this(DEFAULT_PERIOD_FRAMES, DEFAULT_PERIOD_COUNT, SampleFormat.PCM_16);
+    }
+
+    public OutputConfig(int periodFrames, int periodCount, SampleFormat sampleFormat) {
+        this(periodFrames, periodCount, DEFAULT_CHANNELS, sampleFormat);
+    }
+
+    public OutputConfig(int periodFrames, int periodCount, int channels, SampleFormat sampleFormat) {
+        if (periodFrames <= 0 || periodCount < 2) {
+            throw new IllegalArgumentException("Période invalide : " + periodFrames + " frames x " + periodCount);
+        }
+        if (channels < 1 || channels > MixBus.MAX_CHANNELS) {
+            throw new IllegalArgumentException("Nombre de canaux invalide : " + channels);
+        }
+        this.periodFrames = periodFrames;
+        this.periodCount = periodCount;
+        this.channels = channels;
+        this.sampleFormat = sampleFormat;
+    }
+
+    @Override
+    public String toString() {
+        return periodFrames + " frames x " + periodCount + " périodes, " + channels + " canaux, " + sampleFormat;
+    }
+}
@@ -0,0 +1,89 @@
+package com.morgan;
+
+/**
+ * Télémétrie de la sortie audio : underruns (xruns), marge du buffer de la ligne
+ * et gigue des tours du thread audio.
+ * Un seul écrivain (le thread audio) ; les champs sont volatils et lisibles
+ * depuis n'importe quel thread sans verrou.
+ */
+public class OutputStats {
+
+    // --- Compteurs publiés ---
+    private volatile long periods = 0;              // Périodes écrites
+    private volatile long underruns = 0;            // Buffer de la ligne trouvé vide avant une écriture
+    private volatile int bufferFrames = 0;          // Taille du buffer de la ligne (frames)
+    private volatile int queuedFrames = 0;          // Frames en attente dans la ligne avant la dernière écriture
+    private volatile int minQueuedFrames = Integer.MAX_VALUE; // Plus faible marge observée
+    private volatile long lastJitterNanos = 0;      // |intervalle - période| au dernier tour
+    private volatile long maxJitterNanos = 0;
+    private volatile long totalJitterNanos = 0;
+
+    // --- État interne du thread audio ---
+    private int frameBytes = 1;
+    private int periodCount = 0;
+    private long periodNanos = 0;
+    private long lastPeriodStart = 0;
+
+    /** Appelé par le thread audio à l'ouverture de la sortie (lineBufferBytes = 0 : pas de buffer). */
+    void begin(int lineBufferBytes, int frameBytes, int periodFrames, float sampleRate) {
+        this.frameBytes = frameBytes;
+        this.periodCount = lineBufferBytes / (periodFrames * frameBytes);
+        this.periodNanos = (long) (periodFrames * 1.0e9 / sampleRate);
+        this.bufferFrames = lineBufferBytes / frameBytes;
+        this.lastPeriodStart = 0;
+    }
+
+    /**
+     * Appelé par le thread audio juste avant chaque écriture dans la sortie.
+     * availableBytes < 0 : sortie sans buffer mesurable, seule la gigue est suivie.
+     */
+    void beforeWrite(int availableBytes) {
+        long now = System.nanoTime();
+        long count = periods;
+
+        // Gigue : écart entre l'intervalle mesuré et la durée théorique d'une période
+        if (lastPeriodStart != 0) {
+            long jitter = Math.abs((now - lastPeriodStart) - periodNanos);
+            lastJitterNanos = jitter;
+            totalJitterNanos += jitter;
+            if (jitter > maxJitterNanos) maxJitterNanos = jitter;
+        }
+        lastPeriodStart = now;
+        if (availableBytes < 0) {
+            periods = count + 1;
+            return;
+        }
+
+        // Marge : ce qui reste à jouer dans la ligne avant la famine
+        int queued = bufferFrames - availableBytes / frameBytes;
+        queuedFrames = queued;
+        if (count >= periodCount) { // On ignore le remplissage initial
+            if (queued < minQueuedFrames) minQueuedFrames = queued;
+            if (queued <= 0) underruns++;
+        }
+        periods = count + 1;
+    }
+
+    // ============================================================
+    //  LECTURE (n'importe quel thread)
+    // ============================================================
+    public long getPeriods() { return periods; }
+    public long getUnderruns() { return underruns; }
+    public int getBufferFrames() { return bufferFrames; }
+    public int getQueuedFrames() { return queuedFrames; }
+    public int getMinQueuedFrames() { return (minQueuedFrames == Integer.MAX_VALUE) ? queuedFrames : minQueuedFrames; }
+    public double getLastJitterMillis() { return lastJitterNanos / 1.0e6; }
+    public double getMaxJitterMillis() { return maxJitterNanos / 1.0e6; }
+
+    public double getAverageJitterMillis() {
+        long count = periods;
+        return (count > 1) ? totalJitterNanos / 1.0e6 / (count - 1) : 0.0;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("périodes=%d underruns=%d marge=%d/%d frames (min %d) gigue moy=%.3f ms max=%.3f ms",
+                getPeriods(), getUnderruns(), getQueuedFrames(), getBufferFrames(), getMinQueuedFrames(),
+                getAverageJitterMillis(), getMaxJitterMillis());
+    }
+}
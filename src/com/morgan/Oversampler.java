@@ -0,0 +1,226 @@
+package com.morgan;
+
+import java.util.Arrays;
+
+/**
+ * Suréchantillonnage d'un sous-graphe de modules non linéaires (clamps, saturation...).
+ * L'entrée est montée à 2x/4x/8x par une cascade de filtres demi-bande, le sous-graphe
+ * tourne à ce taux, puis la sortie est filtrée et redescendue au taux de base :
+ * les harmoniques créées au-dessus de Nyquist ne se replient plus dans l'audible.
+ *
+ * Câblage : le module d'entrée du sous-graphe lit getFeed() au lieu de la source d'origine,
+ * et wrap() désigne la sortie du sous-graphe et les modules à prévenir du changement de taux.
+ * Facteur 1 = contournement : le sous-graphe tourne directement au taux de base, sans coût.
+ */
+public class Oversampler implements AudioModule {
+
+    public static final int[] FACTORS = { 1, 2, 4, 8 };
+
+    // Coefficients par côté de chaque étage : le premier est le plus raide,
+    // les suivants ont une bande de transition beaucoup plus large (signal déjà limité)
+    private static final int[] STAGE_TAPS = { 12, 6, 4 };
+
+    private final double baseSampleRate;
+    private AudioModule input;
+    private AudioModule output;
+    private AudioModule[] rateDependent = new AudioModule[0];
+    private final Feed feed = new Feed();
+
+    private final HalfBandFilter[] upStages = new HalfBandFilter[STAGE_TAPS.length];
+    private final HalfBandFilter[] downStages = new HalfBandFilter[STAGE_TAPS.length];
+    private int factor = 1;
+    private int stageCount = 0;
+
+    // Buffers de travail (un par taux intermédiaire), agrandis seulement si le bloc grandit
+    private double[] baseBuffer;
+    private double[] work;
+    private double[] stageA;
+    private double[] stageB;
+    private final double[] tickBuffer = new double[1];
+
+    public Oversampler(double baseSampleRate, int factor) {
+        this.baseSampleRate = baseSampleRate;
+        for (int s = 0; s < STAGE_TAPS.length; s++) {
+            upStages[s] = new HalfBandFilter(STAGE_TAPS[s]);
+            downStages[s] = new HalfBandFilter(STAGE_TAPS[s]);
+        }
+        setFactor(factor);
+    }
+
+    /** Source au taux de base (ce qui entrerait normalement dans le sous-graphe). */
+    public void setInput(AudioModule input) { this.input = input; }
+
+    @Override
+    public int getInputCount() { return 1; }
+
+    @Override
+    public void setInput(int port, AudioModule input) {
+        if (port != 0) AudioModule.super.setInput(port, input);
+        this.input = input;
+    }
+
+    /** Entrée du sous-graphe : l'entrée de l'Oversampler, au taux suréchantillonné. */
+    public AudioModule getFeed() {
+        return feed;
+    }
+
+    /**
+     * output = module de sortie du sous-graphe ; members = modules dont le réglage dépend
+     * du taux (ils reçoivent setSampleRate(), output inclus).
+     */
+    public void wrap(AudioModule output, AudioModule... members) {
+        this.output = output;
+        AudioModule[] all = new AudioModule[members.length + 1];
+        all[0] = output;
+        System.arraycopy(members, 0, all, 1, members.length);
+        this.rateDependent = all;
+        notifySampleRate();
+    }
+
+    /**
+     * 1, 2, 4 ou 8. Remet les filtres demi-bande à zéro : à appeler entre deux blocs,
+     * depuis le thread audio (ControlQueue / setParameter).
+     */
+    public void setFactor(int newFactor) {
+        int stages = Integer.numberOfTrailingZeros(newFactor);
+        if (Integer.bitCount(newFactor) != 1 || stages > STAGE_TAPS.length) {
+            throw new IllegalArgumentException("Facteur de suréchantillonnage invalide : " + newFactor);
+        }
+        if (newFactor == factor && stages == stageCount) return;
+        this.factor = newFactor;
+        this.stageCount = stages;
+        for (int s = 0; s < STAGE_TAPS.length; s++) {
+            upStages[s].reset();
+            downStages[s].reset();
+        }
+        feed.reset();
+        notifySampleRate();
+    }
+
+    public int getFactor() {
+        return factor;
+    }
+
+    /** Retard ajouté par la montée + descente, en échantillons du taux de base. */
+    public double getLatency() {
+        double latency = 0.0;
+        double scale = 1.0;
+        for (int s = 0; s < stageCount; s++) {
+            // Étage s : taux bas = base * 2^s ; un aller-retour = 2 x le retard du filtre
+            latency += 2.0 * upStages[s].getLatency() / scale;
+            scale *= 2.0;
+        }
+        return latency;
+    }
+
+    private void notifySampleRate() {
+        for (AudioModule module : rateDependent) {
+            module.setSampleRate(baseSampleRate * factor);
+        }
+    }
+
+    @Override
+    public double tick() {
+        processBlock(tickBuffer, 0, 1);
+        return tickBuffer[0];
+    }
+
+    @Override
+    public void processBlock(double[] buffer, int offset, int length) {
+        if (output == null) {
+            Arrays.fill(buffer, offset, offset + length, 0.0);
+            return;
+        }
+        if (factor == 1) {
+            output.processBlock(buffer, offset, length);
+            return;
+        }
+
+        final int oversampled = length * factor;
+        work = AudioModule.ensureCapacity(work, oversampled);
+        ensureStageBuffers(length);
+        output.processBlock(work, 0, oversampled);
+
+        // Descente : 8x -> 4x -> 2x -> 1x (dernier étage écrit directement dans la sortie)
+        double[] src = work;
+        int count = oversampled;
+        for (int s = stageCount - 1; s >= 0; s--) {
+            count >>= 1;
+            if (s == 0) {
+                downStages[0].downsample(src, 0, count, buffer, offset);
+            } else {
+                double[] dst = (src == stageA) ? stageB : stageA;
+                downStages[s].downsample(src, 0, count, dst, 0);
+                src = dst;
+            }
+        }
+    }
+
+    /** Montée : 'count' échantillons au taux de base vers dst (count * factor échantillons). */
+    private void upsampleInto(double[] base, int count, double[] dst, int dstOffset) {
+        double[] src = base;
+        for (int s = 0; s < stageCount; s++) {
+            if (s == stageCount - 1) {
+                upStages[s].upsample(src, 0, count, dst, dstOffset);
+            } else {
+                double[] next = (src == stageA) ? stageB : stageA;
+                upStages[s].upsample(src, 0, count, next, 0);
+                src = next;
+            }
+            count <<= 1;
+        }
+    }
+
+    private void ensureStageBuffers(int baseLength) {
+        baseBuffer = AudioModule.ensureCapacity(baseBuffer, baseLength);
+        // Les étages intermédiaires vont jusqu'à factor / 2 fois le bloc de base
+        int intermediate = baseLength * Math.max(1, factor / 2);
+        stageA = AudioModule.ensureCapacity(stageA, intermediate);
+        stageB = AudioModule.ensureCapacity(stageB, intermediate);
+    }
+
+    /** Source du sous-graphe : tire l'entrée au taux de base puis la suréchantillonne. */
+    private final class Feed implements AudioModule {
+        private final double[] one = new double[1];
+        private final double[] tickSamples = new double[1 << STAGE_TAPS.length];
+        private int tickPos = 0;
+        private int tickCount = 0;
+
+        void reset() {
+            tickPos = 0;
+            tickCount = 0;
+        }
+
+        @Override
+        public double tick() {
+            if (factor == 1) {
+                return (input != null) ? input.tick() : 0.0;
+            }
+            if (tickPos == tickCount) {
+                one[0] = (input != null) ? input.tick() : 0.0;
+                ensureStageBuffers(1);
+                upsampleInto(one, 1, tickSamples, 0);
+                tickPos = 0;
+                tickCount = factor;
+            }
+            return tickSamples[tickPos++];
+        }
+
+        @Override
+        public void processBlock(double[] buffer, int offset, int length) {
+            if (factor == 1) {
+                if (input != null) input.processBlock(buffer, offset, length);
+                else Arrays.fill(buffer, offset, offset + length, 0.0);
+                return;
+            }
+            // Le sous-graphe demande toujours des multiples du facteur (un bloc de base entier)
+            final int baseLength = length / factor;
+            if (input != null) {
+                input.processBlock(baseBuffer, 0, baseLength);
+            } else {
+                Arrays.fill(baseBuffer, 0, baseLength, 0.0);
+            }
+            upsampleInto(baseBuffer, baseLength, buffer, offset);
+        }
+    }
+}
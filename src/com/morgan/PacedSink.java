@@ -0,0 +1,64 @@
+package com.morgan;
+
+import java.io.IOException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Cadence une sortie sans horloge propre (null, fichier, flux) sur l'horloge murale :
+ * après chaque période, attend que le temps écoulé rattrape les trames écrites.
+ * Le moteur garde periodCount périodes d'avance, comme avec le buffer d'une ligne.
+ * Après un retard de plus d'une seconde (machine suspendue, pause du GC...),
+ * l'horloge repart de l'instant présent au lieu de rendre le retard en accéléré.
+ */
+public class PacedSink implements AudioSink {
+
+    private static final long MAX_LAG_NANOS = 1_000_000_000L;
+
+    private final AudioSink sink;
+    private double nanosPerFrame;
+    private long leadNanos;
+    private long startNanos = 0;
+    private long frames = 0;
+
+    public PacedSink(AudioSink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void open(float sampleRate, OutputConfig config) throws IOException {
+        nanosPerFrame = 1.0e9 / sampleRate;
+        leadNanos = (long) (config.periodFrames * (config.periodCount - 1) * nanosPerFrame);
+        startNanos = 0;
+        frames = 0;
+        sink.open(sampleRate, config);
+    }
+
+    @Override
+    public void write(double[] block, int frames) throws IOException {
+        sink.write(block, frames);
+        long now = System.nanoTime();
+        if (startNanos == 0) {
+            startNanos = now;
+        }
+        this.frames += frames;
+        long deadline = startNanos + (long) (this.frames * nanosPerFrame) - leadNanos;
+        if (now - deadline > MAX_LAG_NANOS) {
+            startNanos = now + leadNanos - (long) (this.frames * nanosPerFrame); // Recalage
+            return;
+        }
+        long wait;
+        while ((wait = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        sink.close();
+    }
+
+    @Override
+    public String toString() {
+        return sink + " (temps réel)";
+    }
+}
@@ -0,0 +1,194 @@
+package com.morgan;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Rendu multi-cœur des voix (mode optionnel).
+ * Un pool fixe de threads de rendu se partage les voix à chaque bloc :
+ * chaque thread prend la prochaine voix libre via un compteur atomique (aucun verrou),
+ * et chaque voix est rendue dans son propre buffer.
+ * La somme est faite ensuite par le thread audio, dans l'ordre des voix :
+ * le résultat est identique, bit pour bit, au rendu mono-thread.
+ */
+public class ParallelVoiceRenderer {
+
+    // En dessous de cette taille de bloc, le découpage ne vaut pas le coût de la synchronisation
+    public static final int MIN_PARALLEL_FRAMES = 32;
+    // Nombre d'attentes actives avant qu'un worker ne se mette en veille (park)
+    private static final int SPIN_LIMIT = 20000;
+    private static final BlockKernels KERNELS = BlockKernels.get();
+
+    private final VoicePool pool;
+    private final Voice[] voices;
+    private final Thread[] workers;
+
+    // --- Passage de relais sans verrou entre le thread audio et les workers ---
+    private final AtomicInteger nextVoice = new AtomicInteger();
+    private final AtomicInteger pendingWorkers = new AtomicInteger();
+    private volatile long generation = 0;
+    private volatile boolean running = true;
+
+    // Cycle de vie : créé, adopté par le thread audio, ou retiré sans avoir servi
+    private static final int NEW = 0;
+    private static final int ADOPTED = 1;
+    private static final int RETIRED = 2;
+    private final AtomicInteger state = new AtomicInteger(NEW);
+    private int blockLength;
+
+    // --- Un buffer par voix, sommés dans l'ordre (déterminisme) ---
+    private double[][] voiceBuffers;
+    private final boolean[] rendered;
+
+    public ParallelVoiceRenderer(VoicePool pool, Voice[] voices, int workerCount) {
+        this.pool = pool;
+        this.voices = voices;
+        this.rendered = new boolean[voices.length];
+        this.voiceBuffers = new double[voices.length][AudioEngine.BLOCK_SIZE];
+
+        workers = new Thread[Math.max(1, workerCount)];
+        for (int w = 0; w < workers.length; w++) {
+            workers[w] = new Thread(this::workerLoop, "synth-render-" + w);
+            workers[w].setDaemon(true);
+            workers[w].setPriority(Thread.MAX_PRIORITY);
+            workers[w].start();
+        }
+    }
+
+    public int getWorkerCount() {
+        return workers.length;
+    }
+
+    /**
+     * Additionne toutes les voix actives dans buffer[offset .. offset + length[.
+     * Retombe sur un rendu mono-thread quand le bloc est trop petit
+     * ou qu'il y a moins de deux voix actives.
+     */
+    public void render(double[] buffer, int offset, int length, int activeVoices) {
+        if (!renderVoices(length, activeVoices)) {
+            pool.renderSerial(buffer, offset, length);
+            return;
+        }
+
+        // 4. Somme dans l'ordre des voix
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) buffer[i] = 0.0;
+        for (int v = 0; v < voices.length; v++) {
+            if (!rendered[v]) continue;
+            KERNELS.accumulate(buffer, offset, voiceBuffers[v], 0, length);
+        }
+    }
+
+    /**
+     * Rend chaque voix active dans son propre buffer (voir isRendered / getVoiceBuffer),
+     * sans les additionner. Retourne false, sans rien rendre, quand le bloc ne vaut pas
+     * un rendu parallèle.
+     */
+    boolean renderVoices(int length, int activeVoices) {
+        if (length < MIN_PARALLEL_FRAMES || activeVoices < 2) {
+            return false;
+        }
+
+        if (voiceBuffers[0].length < length) {
+            for (int v = 0; v < voiceBuffers.length; v++) {
+                voiceBuffers[v] = new double[length];
+            }
+        }
+
+        // 1. Publication du travail (l'écriture volatile de generation publie le reste)
+        blockLength = length;
+        nextVoice.set(0);
+        pendingWorkers.set(workers.length);
+        generation++;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+
+        // 2. Le thread audio travaille aussi
+        renderShare(length);
+
+        // 3. Barrière : attente active (le bloc ne dure que quelques millisecondes),
+        //    puis on cède le cœur si un worker a été retardé par l'ordonnanceur
+        int spins = 0;
+        while (pendingWorkers.get() != 0) {
+            if (spins++ < SPIN_LIMIT) {
+                Thread.onSpinWait();
+            } else {
+                Thread.yield();
+            }
+        }
+        return true;
+    }
+
+    /** La voix 'v' a-t-elle été rendue par le dernier renderVoices() ? */
+    boolean isRendered(int v) {
+        return rendered[v];
+    }
+
+    double[] getVoiceBuffer(int v) {
+        return voiceBuffers[v];
+    }
+
+    /** Thread audio : prend le renderer en main ; false s'il a été retiré entre-temps. */
+    boolean adopt() {
+        return state.get() == ADOPTED || state.compareAndSet(NEW, ADOPTED);
+    }
+
+    /**
+     * Hors thread audio : arrête le renderer s'il n'a jamais été adopté. Sinon c'est au thread
+     * audio de l'arrêter (shutdown() entre deux blocs), un worker ne devant jamais sortir
+     * pendant qu'une génération est publiée.
+     */
+    boolean retireIfUnused() {
+        if (state.compareAndSet(NEW, RETIRED)) {
+            shutdown();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Arrête les threads de rendu. Depuis le thread audio entre deux rendus,
+     * ou pour un renderer qui n'a jamais rendu de bloc.
+     */
+    public void shutdown() {
+        running = false;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+        }
+    }
+
+    // Chaque thread prend la voix suivante jusqu'à épuisement
+    private void renderShare(int length) {
+        int v;
+        while ((v = nextVoice.getAndIncrement()) < voices.length) {
+            Voice voice = voices[v];
+            if (voice.isIdle()) {
+                rendered[v] = false;
+                continue;
+            }
+            pool.renderVoice(voice, voiceBuffers[v], length);
+            rendered[v] = true;
+        }
+    }
+
+    private void workerLoop() {
+        long seenGeneration = 0;
+        int spins = 0;
+
+        while (running) {
+            long g = generation;
+            if (g != seenGeneration) {
+                seenGeneration = g;
+                renderShare(blockLength);
+                pendingWorkers.decrementAndGet();
+                spins = 0;
+            } else if (spins < SPIN_LIMIT) {
+                spins++;
+                Thread.onSpinWait();
+            } else {
+                LockSupport.park(this);
+            }
+        }
+    }
+}
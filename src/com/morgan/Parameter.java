@@ -0,0 +1,105 @@
+package com.morgan;
+
+/**
+ * Poignée d'un paramètre du moteur : identifiant entier stable (voir ParameterIds),
+ * nom, plage, courbe de conversion MIDI et accesseurs typés.
+ * Les poignées sont créées une fois pour toutes à la construction du moteur ;
+ * les appliquer (set, setFromMidi) n'alloue rien.
+ * set() est réservé au thread audio (les autres threads passent par leur ControlQueue) ;
+ * get() peut être appelé de n'importe quel thread (lecture des réglages du patch).
+ */
+public final class Parameter {
+
+    /** Écrit la valeur (dans l'unité du paramètre) dans le patch. */
+    @FunctionalInterface
+    public interface Setter {
+        void set(double value);
+    }
+
+    /** Lit la valeur courante (dans l'unité du paramètre). */
+    @FunctionalInterface
+    public interface Getter {
+        double get();
+    }
+
+    /** Conversion d'une valeur MIDI 0-127 vers la plage du paramètre. */
+    public enum Curve {
+        LINEAR,        // min + (max - min) * n
+        EXPONENTIAL,   // min * (max / min)^n (min > 0)
+        STEPPED        // Valeurs entières min..max, réparties sur les 128 pas MIDI
+    }
+
+    public final int id;
+    public final String name;
+    public final double min;
+    public final double max;
+    public final Curve curve;
+
+    private final Setter setter;
+    private final Getter getter;
+
+    public Parameter(int id, String name, double min, double max, Curve curve, Setter setter, Getter getter) {
+        if (max < min) throw new IllegalArgumentException("Plage invalide pour " + name + " : " + min + ".." + max);
+        if (curve == Curve.EXPONENTIAL && min <= 0.0) {
+            throw new IllegalArgumentException("Courbe exponentielle avec min <= 0 pour " + name);
+        }
+        this.id = id;
+        this.name = name;
+        this.min = min;
+        this.max = max;
+        this.curve = curve;
+        this.setter = setter;
+        this.getter = getter;
+    }
+
+    /** Applique une valeur (bornée à la plage). Thread audio uniquement. */
+    public void set(double value) {
+        setter.set((value < min) ? min : (value > max) ? max : value);
+    }
+
+    /** Applique une valeur MIDI 0-127 (CC, slider de la GUI). Thread audio uniquement. */
+    public void setFromMidi(int midiValue) {
+        setter.set(fromMidi(midiValue));
+    }
+
+    public double get() {
+        return getter.get();
+    }
+
+    public double fromMidi(int midiValue) {
+        double n = ((midiValue < 0) ? 0 : (midiValue > 127) ? 127 : midiValue) / 127.0;
+        switch (curve) {
+            case EXPONENTIAL:
+                return min * Math.pow(max / min, n);
+            case STEPPED:
+                return Math.min(max, Math.floor(min + (max - min + 1.0) * n));
+            case LINEAR:
+            default:
+                return min + (max - min) * n;
+        }
+    }
+
+    /** Valeur MIDI la plus proche d'une valeur du paramètre (position des contrôles de la GUI). */
+    public int toMidi(double value) {
+        double v = Math.max(min, Math.min(max, value));
+        double n;
+        switch (curve) {
+            case EXPONENTIAL:
+                n = Math.log(v / min) / Math.log(max / min);
+                break;
+            case STEPPED:
+                n = (v - min + 0.5) / (max - min + 1.0);
+                break;
+            case LINEAR:
+            default:
+                n = (max > min) ? (v - min) / (max - min) : 0.0;
+                break;
+        }
+        return (int) Math.max(0, Math.min(127, Math.round(n * 127.0)));
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,71 @@
+package com.morgan;
+
+/**
+ * Identifiants stables des paramètres du moteur (index dans le ParameterRegistry).
+ * Ils sont enregistrés dans les presets et les mappings MIDI : ne jamais renuméroter,
+ * seulement ajouter à la fin.
+ */
+public final class ParameterIds {
+
+    private ParameterIds() {}
+
+    // --- Filtre ---
+    public static final int FILTER_CUTOFF = 0;
+    public static final int FILTER_RESONANCE = 1;
+    public static final int FILTER_MODE = 2;
+    public static final int FILTER_OVERSAMPLING = 3;     // Index dans Oversampler.FACTORS
+
+    // --- Master / mixer ---
+    public static final int MASTER_VOLUME = 4;
+    public static final int MIXER_BLEND = 5;
+
+    // --- Enveloppe du VCA ---
+    public static final int ENVELOPE_ATTACK = 6;
+    public static final int ENVELOPE_HOLD = 7;
+    public static final int ENVELOPE_DECAY = 8;
+    public static final int ENVELOPE_SUSTAIN = 9;
+    public static final int ENVELOPE_RELEASE = 10;
+    public static final int ENVELOPE_VELOCITY = 11;
+
+    // --- Oscillateurs ---
+    public static final int OSC1_PITCH = 12;
+    public static final int OSC2_PITCH = 13;
+    public static final int OSC1_OCTAVE = 14;
+    public static final int OSC2_OCTAVE = 15;
+    public static final int OSC1_WAVEFORM = 16;
+    public static final int OSC2_WAVEFORM = 17;
+    public static final int OSC1_WAVETABLE = 18;
+    public static final int OSC2_WAVETABLE = 19;
+    public static final int OSC1_INTERPOLATION = 20;
+    public static final int OSC2_INTERPOLATION = 21;
+
+    // --- Modulation ---
+    public static final int AFTERTOUCH = 22;
+    public static final int MOD_WHEEL = 23;
+    public static final int LFO1_RATE = 24;
+    public static final int LFO2_RATE = 25;
+    public static final int LFO1_SHAPE = 26;
+    public static final int LFO2_SHAPE = 27;
+    public static final int MODENV_ATTACK = 28;
+    public static final int MODENV_DECAY = 29;
+    public static final int MODENV_SUSTAIN = 30;
+    public static final int MODENV_RELEASE = 31;
+
+    // --- Sortie multicanal ---
+    public static final int VOICE_PAN_SPREAD = 32;
+    public static final int MAIN_PAN = 33;
+
+    // --- Rack d'effets ---
+    public static final int DELAY_ENABLED = 34;
+    public static final int DELAY_DIVISION = 35;         // Index dans Delay.DIVISIONS
+    public static final int DELAY_FEEDBACK = 36;
+    public static final int DELAY_MIX = 37;
+    public static final int CHORUS_ENABLED = 38;
+    public static final int CHORUS_RATE = 39;
+    public static final int CHORUS_DEPTH = 40;
+    public static final int CHORUS_MIX = 41;
+    public static final int REVERB_ENABLED = 42;
+    public static final int REVERB_SIZE = 43;
+    public static final int REVERB_DAMPING = 44;
+    public static final int REVERB_MIX = 45;
+}
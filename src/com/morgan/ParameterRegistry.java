@@ -0,0 +1,55 @@
+package com.morgan;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Registre des paramètres du moteur : un tableau indexé par identifiant stable.
+ * Le thread audio résout une commande par une simple lecture de tableau (plus de switch
+ * sur des chaînes) ; la recherche par nom ne sert qu'aux threads de contrôle
+ * (GUI, MIDI Learn, presets). Rempli à la construction du moteur, puis en lecture seule.
+ */
+public final class ParameterRegistry {
+
+    public static final int MAX_PARAMETERS = 256;
+
+    private final Parameter[] byId = new Parameter[MAX_PARAMETERS];
+    private final Map<String, Parameter> byName = new HashMap<>();
+    private int size = 0; // Plus grand identifiant enregistré + 1
+
+    /** Enregistre un paramètre ; l'identifiant et le nom doivent être uniques. */
+    public Parameter register(int id, String name, double min, double max, Parameter.Curve curve,
+                              Parameter.Setter setter, Parameter.Getter getter) {
+        if (id < 0 || id >= MAX_PARAMETERS) {
+            throw new IllegalArgumentException("Identifiant de paramètre invalide : " + id);
+        }
+        if (byId[id] != null || byName.containsKey(name)) {
+            throw new IllegalArgumentException("Paramètre déjà enregistré : " + id + " / " + name);
+        }
+        Parameter parameter = new Parameter(id, name, min, max, curve, setter, getter);
+        byId[id] = parameter;
+        byName.put(name, parameter);
+        size = Math.max(size, id + 1);
+        return parameter;
+    }
+
+    /** Paramètre d'identifiant 'id', ou null (identifiant inconnu). Sans verrou ni allocation. */
+    public Parameter get(int id) {
+        return (id >= 0 && id < size) ? byId[id] : null;
+    }
+
+    /** Paramètre de ce nom, ou null. Threads de contrôle. */
+    public Parameter get(String name) {
+        return byName.get(name);
+    }
+
+    /** Borne (exclue) des identifiants : parcourir 0..size() et ignorer les trous. */
+    public int size() {
+        return size;
+    }
+
+    public Map<String, Parameter> byName() {
+        return Collections.unmodifiableMap(byName);
+    }
+}
@@ -0,0 +1,328 @@
+package com.morgan;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Graphe de patch dynamique : modules et câbles ajoutés ou retirés à chaud.
+ * compile() trie le graphe topologiquement et produit un plan d'exécution à plat :
+ * chaque module est rendu exactement une fois par bloc dans son propre buffer,
+ * et chaque câble devient une "prise" qui relit ce buffer. Un module qui alimente
+ * deux destinations n'avance donc son état qu'une seule fois.
+ * Le nouveau plan est publié atomiquement (champ volatile) et installé par le
+ * thread audio au bloc suivant : l'audio ne s'arrête jamais.
+ * Un graphe réduit à un seul module multicanal (les voix seules) le laisse rendre
+ * ses canaux directement dans le bus de mixage.
+ */
+public class PatchGraph implements MixBus.MultichannelSource {
+
+    // --- Description éditée par les threads de contrôle (protégée par le verrou du graphe) ---
+    private final List<AudioModule> modules = new ArrayList<>();   // null = case libérée
+    private final List<int[]> cables = new ArrayList<>();          // {source, destination, port}
+    private int outputNode = -1;
+
+    // --- Plan publié / plan installé (thread audio) ---
+    private volatile ExecutionPlan plan = ExecutionPlan.EMPTY;
+    private ExecutionPlan installedPlan = null;
+    private double[] tickBuffer = new double[1];
+    private RenderMetrics metrics; // Temps par nœud quand le profilage est actif (null = jamais)
+
+    // ============================================================
+    //  ÉDITION (threads de contrôle)
+    // ============================================================
+    /** Ajoute un module et retourne son identifiant de nœud. */
+    public synchronized int addModule(AudioModule module) {
+        int free = modules.indexOf(null);
+        if (free >= 0) {
+            modules.set(free, module);
+            return free;
+        }
+        modules.add(module);
+        return modules.size() - 1;
+    }
+
+    /** Retire un module et tous les câbles qui le touchent. */
+    public synchronized void removeModule(int node) {
+        checkNode(node);
+        modules.set(node, null);
+        cables.removeIf(cable -> cable[0] == node || cable[1] == node);
+        if (outputNode == node) outputNode = -1;
+    }
+
+    /** Câble la sortie de 'source' sur l'entrée 'port' de 'destination' (remplace le câble existant). */
+    public synchronized void connect(int source, int destination, int port) {
+        checkNode(source);
+        checkNode(destination);
+        if (port < 0 || port >= modules.get(destination).getInputCount()) {
+            throw new IllegalArgumentException("Entrée " + port + " inexistante sur le nœud " + destination);
+        }
+        disconnect(destination, port);
+        cables.add(new int[] {source, destination, port});
+    }
+
+    public synchronized void disconnect(int destination, int port) {
+        cables.removeIf(cable -> cable[1] == destination && cable[2] == port);
+    }
+
+    /** Choisit le nœud dont le buffer sort du graphe. */
+    public synchronized void setOutput(int node) {
+        checkNode(node);
+        outputNode = node;
+    }
+
+    /** Nombre de cases du graphe (identifiants 0 .. n-1, certaines peuvent être libres). */
+    public synchronized int getNodeCount() {
+        return modules.size();
+    }
+
+    public synchronized boolean hasModule(int node) {
+        return node >= 0 && node < modules.size() && modules.get(node) != null;
+    }
+
+    public synchronized AudioModule getModule(int node) {
+        checkNode(node);
+        return modules.get(node);
+    }
+
+    /** Branche les mesures du moteur (à faire avant le démarrage du thread audio). */
+    public void setMetrics(RenderMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * Compile le graphe en plan d'exécution trié et le publie.
+     * Le thread audio l'installe au début du bloc suivant.
+     * @throws IllegalStateException si le graphe contient une boucle
+     */
+    public synchronized void compile() {
+        plan = buildPlan();
+    }
+
+    private void checkNode(int node) {
+        if (node < 0 || node >= modules.size() || modules.get(node) == null) {
+            throw new IllegalArgumentException("Nœud inconnu : " + node);
+        }
+    }
+
+    // Tri topologique (Kahn) des nœuds qui mènent à la sortie
+    private ExecutionPlan buildPlan() {
+        if (outputNode < 0) return ExecutionPlan.EMPTY;
+
+        int count = modules.size();
+
+        // 1. Nœuds utiles : ceux dont la sortie atteint le nœud de sortie
+        boolean[] used = new boolean[count];
+        ArrayDeque<Integer> pending = new ArrayDeque<>();
+        used[outputNode] = true;
+        pending.add(outputNode);
+        while (!pending.isEmpty()) {
+            int node = pending.poll();
+            for (int[] cable : cables) {
+                if (cable[1] == node && !used[cable[0]]) {
+                    used[cable[0]] = true;
+                    pending.add(cable[0]);
+                }
+            }
+        }
+
+        // 2. Degré entrant (nombre de câbles distincts venant de nœuds utiles)
+        int[] inDegree = new int[count];
+        for (int[] cable : cables) {
+            if (used[cable[0]] && used[cable[1]]) inDegree[cable[1]]++;
+        }
+        for (int node = 0; node < count; node++) {
+            if (used[node] && inDegree[node] == 0) pending.add(node);
+        }
+
+        // 3. Ordre d'exécution
+        int[] order = new int[count];
+        int ordered = 0;
+        while (!pending.isEmpty()) {
+            int node = pending.poll();
+            order[ordered++] = node;
+            for (int[] cable : cables) {
+                if (cable[0] == node && used[cable[1]] && --inDegree[cable[1]] == 0) {
+                    pending.add(cable[1]);
+                }
+            }
+        }
+        int usedCount = 0;
+        for (boolean u : used) if (u) usedCount++;
+        if (ordered != usedCount) {
+            throw new IllegalStateException("Le patch contient une boucle : compilation impossible");
+        }
+
+        // 4. Plan à plat : un buffer par nœud, une prise par câble
+        int[] slotOf = new int[count];
+        AudioModule[] steps = new AudioModule[ordered];
+        for (int i = 0; i < ordered; i++) {
+            steps[i] = modules.get(order[i]);
+            slotOf[order[i]] = i;
+        }
+
+        List<AudioModule> wireTargets = new ArrayList<>();
+        List<Integer> wirePorts = new ArrayList<>();
+        List<BufferTap> wireTaps = new ArrayList<>();
+        for (int i = 0; i < ordered; i++) {
+            AudioModule module = steps[i];
+            for (int port = 0; port < module.getInputCount(); port++) {
+                BufferTap tap = null;
+                for (int[] cable : cables) {
+                    if (cable[1] == order[i] && cable[2] == port) {
+                        tap = new BufferTap(slotOf[cable[0]]);
+                    }
+                }
+                wireTargets.add(module);
+                wirePorts.add(port);
+                wireTaps.add(tap); // null = entrée débranchée
+            }
+        }
+
+        return new ExecutionPlan(steps, Arrays.copyOf(order, ordered), slotOf[outputNode],
+                wireTargets.toArray(new AudioModule[0]),
+                wirePorts.stream().mapToInt(Integer::intValue).toArray(),
+                wireTaps.toArray(new BufferTap[0]));
+    }
+
+    // ============================================================
+    //  RENDU (thread audio)
+    // ============================================================
+    @Override
+    public double tick() {
+        processBlock(tickBuffer, 0, 1);
+        return tickBuffer[0];
+    }
+
+    @Override
+    public void processBlock(double[] buffer, int offset, int length) {
+        ExecutionPlan current = installPlan();
+        RenderMetrics profiler = metrics;
+        current.execute(buffer, offset, length, (profiler != null && profiler.isProfiling()) ? profiler : null);
+    }
+
+    @Override
+    public boolean rendersChannels(int channels) {
+        MixBus.MultichannelSource source = installPlan().multichannelSource;
+        return source != null && source.rendersChannels(channels);
+    }
+
+    // Toujours précédé de rendersChannels() : le plan installé est celui qui a répondu
+    @Override
+    public void renderChannels(double[] buffer, int frames, int channels) {
+        ExecutionPlan current = installedPlan;
+        if (current == null || current.multichannelSource == null) {
+            Arrays.fill(buffer, 0, frames * channels, 0.0);
+            return;
+        }
+        RenderMetrics profiler = metrics;
+        if (profiler != null && profiler.isProfiling()) {
+            long start = System.nanoTime();
+            current.multichannelSource.renderChannels(buffer, frames, channels);
+            profiler.moduleRendered(current.nodes[0], System.nanoTime() - start);
+        } else {
+            current.multichannelSource.renderChannels(buffer, frames, channels);
+        }
+    }
+
+    // Installe le dernier plan publié (câblage : simples affectations) et le retourne
+    private ExecutionPlan installPlan() {
+        ExecutionPlan current = plan;
+        if (current != installedPlan) {
+            current.install();
+            installedPlan = current;
+        }
+        return current;
+    }
+
+    // ============================================================
+    //  PLAN D'EXÉCUTION (immuable une fois publié, sauf ses buffers)
+    // ============================================================
+    static final class ExecutionPlan {
+
+        static final ExecutionPlan EMPTY = new ExecutionPlan(new AudioModule[0], new int[0], -1,
+                new AudioModule[0], new int[0], new BufferTap[0]);
+
+        private final AudioModule[] steps;
+        private final int[] nodes;          // Identifiant de nœud de chaque étape (profilage)
+        private final int outputSlot;
+        private final AudioModule[] wireTargets;
+        private final int[] wirePorts;
+        private final BufferTap[] wireTaps;
+        private double[][] buffers;
+        // Module unique qui sait rendre plusieurs canaux (sinon null : sortie mono)
+        final MixBus.MultichannelSource multichannelSource;
+
+        ExecutionPlan(AudioModule[] steps, int[] nodes, int outputSlot,
+                      AudioModule[] wireTargets, int[] wirePorts, BufferTap[] wireTaps) {
+            this.steps = steps;
+            this.nodes = nodes;
+            this.outputSlot = outputSlot;
+            this.wireTargets = wireTargets;
+            this.wirePorts = wirePorts;
+            this.wireTaps = wireTaps;
+            this.buffers = new double[steps.length][AudioEngine.BLOCK_SIZE];
+            this.multichannelSource = (steps.length == 1 && outputSlot == 0
+                    && steps[0] instanceof MixBus.MultichannelSource) ? (MixBus.MultichannelSource) steps[0] : null;
+            for (BufferTap tap : wireTaps) {
+                if (tap != null) tap.plan = this;
+            }
+        }
+
+        void install() {
+            for (int i = 0; i < wireTargets.length; i++) {
+                wireTargets[i].setInput(wirePorts[i], wireTaps[i]);
+            }
+        }
+
+        void execute(double[] out, int offset, int length, RenderMetrics profiler) {
+            if (outputSlot < 0) {
+                Arrays.fill(out, offset, offset + length, 0.0);
+                return;
+            }
+            if (buffers.length > 0 && buffers[0].length < length) {
+                for (int i = 0; i < buffers.length; i++) buffers[i] = new double[length];
+            }
+            for (BufferTap tap : wireTaps) {
+                if (tap != null) tap.position = 0;
+            }
+
+            // Chaque nœud est rendu une seule fois, dans l'ordre topologique
+            if (profiler == null) {
+                for (int i = 0; i < steps.length; i++) {
+                    steps[i].processBlock(buffers[i], 0, length);
+                }
+            } else {
+                for (int i = 0; i < steps.length; i++) {
+                    long start = System.nanoTime();
+                    steps[i].processBlock(buffers[i], 0, length);
+                    profiler.moduleRendered(nodes[i], System.nanoTime() - start);
+                }
+            }
+            System.arraycopy(buffers[outputSlot], 0, out, offset, length);
+        }
+    }
+
+    /** Prise de câble : relit le buffer déjà rendu du nœud source. */
+    static final class BufferTap implements AudioModule {
+        private final int slot;
+        ExecutionPlan plan;
+        int position = 0;
+
+        BufferTap(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public double tick() {
+            return plan.buffers[slot][position++];
+        }
+
+        @Override
+        public void processBlock(double[] buffer, int offset, int length) {
+            System.arraycopy(plan.buffers[slot], position, buffer, offset, length);
+            position += length;
+        }
+    }
+}
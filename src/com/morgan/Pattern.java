@@ -0,0 +1,72 @@
+package com.morgan;
+
+import java.util.Arrays;
+
+/**
+ * Pattern d'une piste du séquenceur : une longueur quelconque (jusqu'à sa capacité)
+ * et, pour chaque pas, le degré dans la gamme, le gate, la vélocité, la durée de la note,
+ * la probabilité de jouer et le nombre de répétitions (ratchets).
+ * Les tableaux sont publics, comme l'ancien pattern du séquenceur : la GUI les modifie
+ * directement et le thread audio les relit au rendu de chaque pas (avance de lecture comprise,
+ * voir StepSequencer.setLookahead()).
+ */
+public class Pattern {
+
+    public static final int MAX_RATCHETS = 8;
+
+    // 'degrees' stocke le DEGRÉ de la gamme (0, 1, 2 ... négatif = octave inférieure)
+    public final int[] degrees;
+    public final boolean[] gates;
+    public final int[] velocities;        // 1-127
+    public final double[] lengths;        // Durée de la note en fraction de pas (ou de ratchet), ]0, 1]
+    public final double[] probabilities;  // Chance de jouer le pas, 0-1 (1 = toujours, sans tirage)
+    public final int[] ratchets;          // Notes jouées dans le pas, 1-MAX_RATCHETS
+
+    // Nombre de pas joués avant de boucler (ou de passer au pattern suivant de la chaîne)
+    public volatile int length;
+    // Subdivision de la noire : 4 = double-croches, 3 = triolets de croches...
+    public volatile int stepsPerBeat = 4;
+
+    public Pattern(int capacity) {
+        this(new int[capacity], new boolean[capacity]);
+    }
+
+    // Pattern construit sur des tableaux existants (ceux de la piste principale du StepSequencer)
+    Pattern(int[] degrees, boolean[] gates) {
+        if (degrees.length == 0 || gates.length != degrees.length) {
+            throw new IllegalArgumentException("Pattern vide ou tableaux de tailles différentes");
+        }
+        int capacity = degrees.length;
+        this.degrees = degrees;
+        this.gates = gates;
+        this.velocities = new int[capacity];
+        this.lengths = new double[capacity];
+        this.probabilities = new double[capacity];
+        this.ratchets = new int[capacity];
+        this.length = capacity;
+        // Par défaut : la note tient jusqu'au pas suivant, comme l'ancien séquenceur
+        Arrays.fill(velocities, 100);
+        Arrays.fill(lengths, 1.0);
+        Arrays.fill(probabilities, 1.0);
+        Arrays.fill(ratchets, 1);
+    }
+
+    public int capacity() {
+        return degrees.length;
+    }
+
+    public void setLength(int steps) {
+        length = Math.max(1, Math.min(capacity(), steps));
+    }
+
+    /** Règle un pas complet (les valeurs sont bornées à leurs plages). */
+    public void setStep(int step, int degree, boolean gate, int velocity,
+                        double noteLength, double probability, int ratchetCount) {
+        degrees[step] = degree;
+        gates[step] = gate;
+        velocities[step] = Math.max(1, Math.min(127, velocity));
+        lengths[step] = Math.max(0.01, Math.min(1.0, noteLength));
+        probabilities[step] = Math.max(0.0, Math.min(1.0, probability));
+        ratchets[step] = Math.max(1, Math.min(MAX_RATCHETS, ratchetCount));
+    }
+}
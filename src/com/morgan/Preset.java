@@ -0,0 +1,102 @@
+package com.morgan;
+
+import java.util.Arrays;
+
+/**
+ * Instantané d'un patch : valeurs des paramètres (par identifiant stable), routes de la
+ * matrice de modulation, pattern du séquenceur et table MIDI Learn.
+ * Construit hors du thread audio (capture, décodage d'un fichier), puis passé à
+ * AudioEngine.loadPreset() qui l'applique d'un bloc. Ne plus le modifier ensuite.
+ */
+public final class Preset {
+
+    public static final int STEPS = 16;
+
+    public String name = "Init";
+
+    // --- Paramètres : valeur par identifiant (ParameterIds), NaN = absent du preset ---
+    public final double[] parameters = new double[ParameterRegistry.MAX_PARAMETERS];
+
+    // --- Matrice de modulation : un emplacement par route, source -1 = vide ---
+    public final int[] routeSources = new int[ModulationMatrix.MAX_ROUTES];
+    public final int[] routeDestinations = new int[ModulationMatrix.MAX_ROUTES];
+    public final double[] routeDepths = new double[ModulationMatrix.MAX_ROUTES];
+
+    // --- Séquenceur (absent si le preset a été capturé sans séquenceur) ---
+    public boolean hasSequencer = false;
+    public double bpm = 120.0;
+    public int numSteps = STEPS;
+    public int rootNote = 60;
+    public ScaleType scale = ScaleType.MAJOR;
+    public boolean randomNotes = false;
+    public boolean randomRhythm = false;
+    public final int[] scaleDegrees = new int[STEPS];
+    public final boolean[] gates = new boolean[STEPS];
+    // Réglages par pas du pattern principal (voir Pattern) ; valeurs par défaut si absents du fichier
+    public final int[] velocities = new int[STEPS];
+    public final double[] stepLengths = new double[STEPS];
+    public final double[] probabilities = new double[STEPS];
+    public final int[] ratchets = new int[STEPS];
+
+    // --- MIDI Learn : identifiant du paramètre de chaque [canal * 128 + cc], -1 = libre ---
+    public final int[] controlMappings = new int[ControlMap.CHANNELS * ControlMap.CONTROLLERS];
+
+    // Plan de modulation compilé par loadPreset (thread de contrôle), installé par le thread audio
+    ModulationMatrix.Routing preparedRouting;
+
+    public Preset() {
+        Arrays.fill(parameters, Double.NaN);
+        Arrays.fill(routeSources, -1);
+        Arrays.fill(routeDestinations, -1);
+        Arrays.fill(controlMappings, -1);
+        Arrays.fill(velocities, 100);
+        Arrays.fill(stepLengths, 1.0);
+        Arrays.fill(probabilities, 1.0);
+        Arrays.fill(ratchets, 1);
+    }
+
+    /** Capture l'état courant du moteur (et de son séquenceur s'il en a un). Thread de contrôle. */
+    public static Preset capture(AudioEngine engine, String name) {
+        Preset preset = new Preset();
+        preset.name = name;
+
+        ParameterRegistry registry = engine.parameters;
+        for (int id = 0; id < registry.size(); id++) {
+            Parameter parameter = registry.get(id);
+            // Les contrôleurs joués (aftertouch, molette) ne font pas partie du patch
+            if (parameter == null || id == ParameterIds.AFTERTOUCH || id == ParameterIds.MOD_WHEEL) continue;
+            preset.parameters[id] = parameter.get();
+        }
+
+        ModulationMatrix matrix = engine.modulation;
+        for (int slot = 0; slot < ModulationMatrix.MAX_ROUTES; slot++) {
+            ModulationMatrix.Source source = matrix.getSource(slot);
+            ModulationMatrix.Destination destination = matrix.getDestination(slot);
+            if (source == null || destination == null) continue;
+            preset.routeSources[slot] = source.ordinal();
+            preset.routeDestinations[slot] = destination.ordinal();
+            preset.routeDepths[slot] = matrix.getDepth(slot);
+        }
+
+        StepSequencer sequencer = engine.getSequencer();
+        if (sequencer != null) {
+            preset.hasSequencer = true;
+            preset.bpm = sequencer.bpm;
+            preset.numSteps = sequencer.numSteps;
+            preset.rootNote = sequencer.rootNote;
+            preset.scale = sequencer.currentScale;
+            preset.randomNotes = sequencer.randomNotes;
+            preset.randomRhythm = sequencer.randomRhythm;
+            System.arraycopy(sequencer.scaleDegrees, 0, preset.scaleDegrees, 0, STEPS);
+            System.arraycopy(sequencer.gates, 0, preset.gates, 0, STEPS);
+            Pattern pattern = sequencer.mainPattern;
+            System.arraycopy(pattern.velocities, 0, preset.velocities, 0, STEPS);
+            System.arraycopy(pattern.lengths, 0, preset.stepLengths, 0, STEPS);
+            System.arraycopy(pattern.probabilities, 0, preset.probabilities, 0, STEPS);
+            System.arraycopy(pattern.ratchets, 0, preset.ratchets, 0, STEPS);
+        }
+
+        System.arraycopy(engine.controlMap.export(), 0, preset.controlMappings, 0, preset.controlMappings.length);
+        return preset;
+    }
+}
@@ -0,0 +1,169 @@
+package com.morgan;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Banque de presets (.msyb) : un seul fichier, projeté en mémoire une fois pour toutes.
+ *
+ *   "MSYB" | version (u16) | réservé (u16) | n (u32)
+ *   index : n x (offset u32, longueur u32, nom u16 + UTF-8)
+ *   presets : n blocs au format PresetFormat, à la suite
+ *
+ * L'ouverture ne lit que l'index (noms et positions) : lister des milliers de presets
+ * ou en chercher un par nom ne décode rien. load() décode un seul preset, directement
+ * depuis la projection (le système ne charge que les pages touchées).
+ * Usage : java -cp synth-modulaire.jar com.morgan.PresetBank pack|list|json ...
+ */
+public final class PresetBank {
+
+    public static final int MAGIC = 0x4D535942; // "MSYB"
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".msyb";
+
+    private final MappedByteBuffer data;
+    private final int[] offsets;
+    private final int[] lengths;
+    private final String[] names;
+    private final Map<String, Integer> indexByName = new HashMap<>();
+
+    private PresetBank(MappedByteBuffer data, int[] offsets, int[] lengths, String[] names) {
+        this.data = data;
+        this.offsets = offsets;
+        this.lengths = lengths;
+        this.names = names;
+        for (int i = names.length - 1; i >= 0; i--) {
+            indexByName.put(names[i], i); // Noms en double : le premier l'emporte
+        }
+    }
+
+    /** Ouvre une banque : projection du fichier et lecture de l'index seulement. */
+    public static PresetBank open(Path file) throws IOException {
+        MappedByteBuffer data;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()); // Reste valide après close()
+        }
+        ByteBuffer in = data.duplicate();
+        try {
+            if (in.getInt() != MAGIC) throw new IOException("Ce n'est pas une banque de presets : " + file);
+            int version = Short.toUnsignedInt(in.getShort());
+            if (version > VERSION) throw new IOException("Version de banque non supportée : " + version);
+            in.getShort(); // Réservé
+            int count = in.getInt();
+            if (count < 0) throw new IOException("Banque corrompue : " + file);
+
+            int[] offsets = new int[count];
+            int[] lengths = new int[count];
+            String[] names = new String[count];
+            for (int i = 0; i < count; i++) {
+                offsets[i] = in.getInt();
+                lengths[i] = in.getInt();
+                byte[] name = new byte[Short.toUnsignedInt(in.getShort())];
+                in.get(name);
+                names[i] = new String(name, StandardCharsets.UTF_8);
+                if (offsets[i] < 0 || lengths[i] < 0 || (long) offsets[i] + lengths[i] > data.capacity()) {
+                    throw new IOException("Banque corrompue (preset " + i + ") : " + file);
+                }
+            }
+            return new PresetBank(data, offsets, lengths, names);
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Banque tronquée : " + file, e);
+        }
+    }
+
+    /** Écrit une banque (les presets sont encodés puis rangés dans l'ordre de la liste). */
+    public static void write(Path file, List<Preset> presets) throws IOException {
+        int count = presets.size();
+        byte[][] blobs = new byte[count][];
+        byte[][] names = new byte[count][];
+        long indexSize = 0;
+        for (int i = 0; i < count; i++) {
+            blobs[i] = PresetFormat.encode(presets.get(i));
+            names[i] = presets.get(i).name.getBytes(StandardCharsets.UTF_8);
+            indexSize += 10 + names[i].length;
+        }
+        long total = 12 + indexSize;
+        for (byte[] blob : blobs) total += blob.length;
+        if (total > Integer.MAX_VALUE) throw new IOException("Banque trop grande (" + total + " octets)");
+
+        ByteBuffer out = ByteBuffer.allocate((int) total);
+        out.putInt(MAGIC);
+        out.putShort((short) VERSION);
+        out.putShort((short) 0);
+        out.putInt(count);
+        int offset = (int) (12 + indexSize);
+        for (int i = 0; i < count; i++) {
+            out.putInt(offset);
+            out.putInt(blobs[i].length);
+            out.putShort((short) names[i].length);
+            out.put(names[i]);
+            offset += blobs[i].length;
+        }
+        for (byte[] blob : blobs) {
+            out.put(blob);
+        }
+        Files.write(file, out.array());
+    }
+
+    public int size() {
+        return names.length;
+    }
+
+    public String getName(int index) {
+        return names[index];
+    }
+
+    /** Index du preset de ce nom, ou -1. */
+    public int indexOf(String name) {
+        Integer index = indexByName.get(name);
+        return (index != null) ? index : -1;
+    }
+
+    /** Décode le preset 'index' (thread de contrôle ; plusieurs threads peuvent charger en parallèle). */
+    public Preset load(int index) throws IOException {
+        return PresetFormat.decode(data.slice(offsets[index], lengths[index]));
+    }
+
+    // ============================================================
+    //  OUTIL EN LIGNE DE COMMANDE
+    // ============================================================
+    public static void main(String[] args) throws IOException {
+        if (args.length >= 3 && args[0].equals("pack")) {
+            // pack banque.msyb a.msyp b.msyp ... : regroupe des presets dans une banque
+            List<Preset> presets = new ArrayList<>();
+            for (int i = 2; i < args.length; i++) {
+                presets.add(PresetFormat.read(Paths.get(args[i])));
+            }
+            write(Paths.get(args[1]), presets);
+            System.out.println(presets.size() + " presets écrits dans " + args[1]);
+        } else if (args.length == 2 && args[0].equals("list")) {
+            PresetBank bank = open(Paths.get(args[1]));
+            for (int i = 0; i < bank.size(); i++) {
+                System.out.println(i + "\t" + bank.getName(i));
+            }
+        } else if (args.length == 3 && args[0].equals("json")) {
+            // json banque.msyb index|nom : export lisible (noms des paramètres du moteur courant)
+            PresetBank bank = open(Paths.get(args[1]));
+            int index = bank.indexOf(args[2]);
+            if (index < 0) index = Integer.parseInt(args[2]);
+            System.out.print(PresetFormat.toJson(bank.load(index), new AudioEngine().parameters));
+        } else {
+            System.err.println("Usage : PresetBank pack <banque.msyb> <preset.msyp>...");
+            System.err.println("        PresetBank list <banque.msyb>");
+            System.err.println("        PresetBank json <banque.msyb> <index|nom>");
+            System.exit(2);
+        }
+    }
+}
@@ -0,0 +1,404 @@
+package com.morgan;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Format binaire des presets (.msyp), gros-boutiste :
+ *
+ *   "MSYP" | version (u16) | réservé (u16) | nom (u16 longueur + UTF-8) | sections...
+ *   section = étiquette (u8) | longueur (u32) | contenu
+ *
+ *   PARAMETERS : u16 n, n x (u16 identifiant, f64 valeur)
+ *   MODULATION : u8 n, n x (u8 emplacement, u8 source, u8 destination, f64 profondeur)
+ *   SEQUENCER  : f64 bpm, u8 pas, u8 note fondamentale, u8 gamme, u8 drapeaux (aléatoire notes/rythme),
+ *                u8 n, n x (i8 degré, u8 gate)
+ *   STEPS      : u8 n, n x (u8 vélocité, u8 ratchets, f64 durée, f64 probabilité)  (pattern principal)
+ *   MIDI_MAP   : u16 n, n x (u8 canal, u8 cc, u16 identifiant)
+ *
+ * Les sections inconnues sont sautées (grâce à leur longueur) et les identifiants inconnus
+ * ignorés : un preset écrit par une version plus récente se charge, sans ses ajouts.
+ * Sources, destinations et gammes sont enregistrées par ordinal (énumérations à compléter
+ * seulement à la fin, comme ParameterIds).
+ * Lecture par fichier projeté en mémoire (FileChannel.map) ; JSON lisible en export.
+ */
+public final class PresetFormat {
+
+    public static final int MAGIC = 0x4D535950; // "MSYP"
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".msyp";
+
+    private static final int TAG_PARAMETERS = 1;
+    private static final int TAG_MODULATION = 2;
+    private static final int TAG_SEQUENCER = 3;
+    private static final int TAG_MIDI_MAP = 4;
+    private static final int TAG_STEPS = 5;
+
+    private static final ScaleType[] SCALES = ScaleType.values();
+
+    private PresetFormat() {}
+
+    // ============================================================
+    //  ÉCRITURE
+    // ============================================================
+    public static byte[] encode(Preset preset) {
+        byte[] name = preset.name.getBytes(StandardCharsets.UTF_8);
+        if (name.length > 0xFFFF) throw new IllegalArgumentException("Nom de preset trop long");
+        ByteBuffer out = ByteBuffer.allocate(maxSize(name.length));
+        out.putInt(MAGIC);
+        out.putShort((short) VERSION);
+        out.putShort((short) 0);
+        out.putShort((short) name.length);
+        out.put(name);
+
+        // Paramètres présents
+        int start = beginSection(out, TAG_PARAMETERS);
+        int countPosition = out.position();
+        out.putShort((short) 0);
+        int count = 0;
+        for (int id = 0; id < preset.parameters.length; id++) {
+            if (Double.isNaN(preset.parameters[id])) continue;
+            out.putShort((short) id);
+            out.putDouble(preset.parameters[id]);
+            count++;
+        }
+        out.putShort(countPosition, (short) count);
+        endSection(out, start);
+
+        // Routes de modulation (emplacements occupés)
+        start = beginSection(out, TAG_MODULATION);
+        countPosition = out.position();
+        out.put((byte) 0);
+        count = 0;
+        for (int slot = 0; slot < preset.routeSources.length; slot++) {
+            if (preset.routeSources[slot] < 0 || preset.routeDestinations[slot] < 0) continue;
+            out.put((byte) slot);
+            out.put((byte) preset.routeSources[slot]);
+            out.put((byte) preset.routeDestinations[slot]);
+            out.putDouble(preset.routeDepths[slot]);
+            count++;
+        }
+        out.put(countPosition, (byte) count);
+        endSection(out, start);
+
+        if (preset.hasSequencer) {
+            start = beginSection(out, TAG_SEQUENCER);
+            out.putDouble(preset.bpm);
+            out.put((byte) preset.numSteps);
+            out.put((byte) preset.rootNote);
+            out.put((byte) preset.scale.ordinal());
+            out.put((byte) ((preset.randomNotes ? 1 : 0) | (preset.randomRhythm ? 2 : 0)));
+            out.put((byte) Preset.STEPS);
+            for (int step = 0; step < Preset.STEPS; step++) {
+                out.put((byte) preset.scaleDegrees[step]);
+                out.put((byte) (preset.gates[step] ? 1 : 0));
+            }
+            endSection(out, start);
+
+            start = beginSection(out, TAG_STEPS);
+            out.put((byte) Preset.STEPS);
+            for (int step = 0; step < Preset.STEPS; step++) {
+                out.put((byte) preset.velocities[step]);
+                out.put((byte) preset.ratchets[step]);
+                out.putDouble(preset.stepLengths[step]);
+                out.putDouble(preset.probabilities[step]);
+            }
+            endSection(out, start);
+        }
+
+        // Table MIDI Learn (CC assignés seulement)
+        start = beginSection(out, TAG_MIDI_MAP);
+        countPosition = out.position();
+        out.putShort((short) 0);
+        count = 0;
+        for (int index = 0; index < preset.controlMappings.length; index++) {
+            if (preset.controlMappings[index] < 0) continue;
+            out.put((byte) (index / ControlMap.CONTROLLERS));
+            out.put((byte) (index % ControlMap.CONTROLLERS));
+            out.putShort((short) preset.controlMappings[index]);
+            count++;
+        }
+        out.putShort(countPosition, (short) count);
+        endSection(out, start);
+
+        byte[] bytes = new byte[out.position()];
+        out.flip();
+        out.get(bytes);
+        return bytes;
+    }
+
+    public static void write(Preset preset, Path file) throws IOException {
+        Files.write(file, encode(preset));
+    }
+
+    // Borne haute de la taille encodée : tout présent
+    private static int maxSize(int nameLength) {
+        return 10 + nameLength
+                + 5 + 2 + ParameterRegistry.MAX_PARAMETERS * 10
+                + 5 + 1 + ModulationMatrix.MAX_ROUTES * 11
+                + 5 + 13 + Preset.STEPS * 2
+                + 5 + 1 + Preset.STEPS * 18
+                + 5 + 2 + ControlMap.CHANNELS * ControlMap.CONTROLLERS * 4;
+    }
+
+    private static int beginSection(ByteBuffer out, int tag) {
+        out.put((byte) tag);
+        out.putInt(0); // Longueur, complétée par endSection
+        return out.position();
+    }
+
+    private static void endSection(ByteBuffer out, int start) {
+        out.putInt(start - 4, out.position() - start);
+    }
+
+    // ============================================================
+    //  LECTURE
+    // ============================================================
+    /** Lit un preset par projection mémoire du fichier. */
+    public static Preset read(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /** Décode un preset à partir de la position courante de 'in' (qui n'est pas modifié). */
+    public static Preset decode(ByteBuffer in) throws IOException {
+        ByteBuffer buffer = in.duplicate();
+        try {
+            if (buffer.getInt() != MAGIC) throw new IOException("Ce n'est pas un preset (signature invalide)");
+            int version = Short.toUnsignedInt(buffer.getShort());
+            if (version > VERSION) throw new IOException("Version de preset non supportée : " + version);
+            buffer.getShort(); // Réservé
+
+            Preset preset = new Preset();
+            byte[] name = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(name);
+            preset.name = new String(name, StandardCharsets.UTF_8);
+
+            while (buffer.hasRemaining()) {
+                int tag = Byte.toUnsignedInt(buffer.get());
+                int length = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) throw new IOException("Section tronquée : " + tag);
+                int end = buffer.position() + length;
+                switch (tag) {
+                    case TAG_PARAMETERS:
+                        readParameters(buffer, preset);
+                        break;
+                    case TAG_MODULATION:
+                        readModulation(buffer, preset);
+                        break;
+                    case TAG_SEQUENCER:
+                        readSequencer(buffer, preset);
+                        break;
+                    case TAG_MIDI_MAP:
+                        readMidiMap(buffer, preset);
+                        break;
+                    case TAG_STEPS:
+                        readSteps(buffer, preset);
+                        break;
+                    default:
+                        break; // Section d'une version plus récente : ignorée
+                }
+                buffer.position(end);
+            }
+            return preset;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Preset corrompu", e);
+        }
+    }
+
+    private static void readParameters(ByteBuffer in, Preset preset) {
+        int count = Short.toUnsignedInt(in.getShort());
+        for (int i = 0; i < count; i++) {
+            int id = Short.toUnsignedInt(in.getShort());
+            double value = in.getDouble();
+            if (id < preset.parameters.length) preset.parameters[id] = value;
+        }
+    }
+
+    private static void readModulation(ByteBuffer in, Preset preset) {
+        int count = Byte.toUnsignedInt(in.get());
+        for (int i = 0; i < count; i++) {
+            int slot = Byte.toUnsignedInt(in.get());
+            int source = Byte.toUnsignedInt(in.get());
+            int destination = Byte.toUnsignedInt(in.get());
+            double depth = in.getDouble();
+            if (slot < ModulationMatrix.MAX_ROUTES
+                    && source < ModulationMatrix.SOURCES.length
+                    && destination < ModulationMatrix.DESTINATIONS.length) {
+                preset.routeSources[slot] = source;
+                preset.routeDestinations[slot] = destination;
+                preset.routeDepths[slot] = depth;
+            }
+        }
+    }
+
+    private static void readSequencer(ByteBuffer in, Preset preset) {
+        preset.hasSequencer = true;
+        preset.bpm = in.getDouble();
+        if (!(preset.bpm > 0.0) || Double.isInfinite(preset.bpm)) {
+            throw new IllegalArgumentException("Tempo invalide : " + preset.bpm); // → "Preset corrompu"
+        }
+        preset.numSteps = Math.max(1, Math.min(Preset.STEPS, Byte.toUnsignedInt(in.get())));
+        preset.rootNote = Byte.toUnsignedInt(in.get()) & 0x7F;
+        int scale = Byte.toUnsignedInt(in.get());
+        preset.scale = (scale < SCALES.length) ? SCALES[scale] : ScaleType.MAJOR;
+        int flags = in.get();
+        preset.randomNotes = (flags & 1) != 0;
+        preset.randomRhythm = (flags & 2) != 0;
+        int steps = Byte.toUnsignedInt(in.get());
+        for (int step = 0; step < steps; step++) {
+            int degree = in.get();
+            boolean gate = in.get() != 0;
+            if (step < Preset.STEPS) {
+                preset.scaleDegrees[step] = degree;
+                preset.gates[step] = gate;
+            }
+        }
+    }
+
+    private static void readSteps(ByteBuffer in, Preset preset) {
+        int steps = Byte.toUnsignedInt(in.get());
+        for (int step = 0; step < steps; step++) {
+            int velocity = Byte.toUnsignedInt(in.get());
+            int ratchets = Byte.toUnsignedInt(in.get());
+            double length = in.getDouble();
+            double probability = in.getDouble();
+            if (step < Preset.STEPS) {
+                preset.velocities[step] = Math.max(1, Math.min(127, velocity));
+                preset.ratchets[step] = Math.max(1, Math.min(Pattern.MAX_RATCHETS, ratchets));
+                preset.stepLengths[step] = Math.max(0.01, Math.min(1.0, length));
+                preset.probabilities[step] = Math.max(0.0, Math.min(1.0, probability));
+            }
+        }
+    }
+
+    private static void readMidiMap(ByteBuffer in, Preset preset) {
+        int count = Short.toUnsignedInt(in.getShort());
+        for (int i = 0; i < count; i++) {
+            int channel = Byte.toUnsignedInt(in.get()) & 0x0F;
+            int controller = Byte.toUnsignedInt(in.get()) & 0x7F;
+            int id = Short.toUnsignedInt(in.getShort());
+            preset.controlMappings[channel * ControlMap.CONTROLLERS + controller] = id;
+        }
+    }
+
+    // ============================================================
+    //  EXPORT JSON (lisible, paramètres par nom)
+    // ============================================================
+    public static String toJson(Preset preset, ParameterRegistry registry) {
+        StringBuilder json = new StringBuilder(4096);
+        json.append("{\n");
+        json.append("  \"format\": \"msyp\",\n");
+        json.append("  \"version\": ").append(VERSION).append(",\n");
+        json.append("  \"name\": ").append(quote(preset.name)).append(",\n");
+
+        json.append("  \"parameters\": {");
+        String separator = "\n";
+        for (int id = 0; id < preset.parameters.length; id++) {
+            if (Double.isNaN(preset.parameters[id])) continue;
+            Parameter parameter = registry.get(id);
+            String key = (parameter != null) ? parameter.name : "#" + id;
+            json.append(separator).append("    ").append(quote(key)).append(": ").append(number(preset.parameters[id]));
+            separator = ",\n";
+        }
+        json.append("\n  },\n");
+
+        json.append("  \"modulation\": [");
+        separator = "\n";
+        for (int slot = 0; slot < preset.routeSources.length; slot++) {
+            if (preset.routeSources[slot] < 0 || preset.routeDestinations[slot] < 0) continue;
+            json.append(separator).append("    { \"slot\": ").append(slot)
+                    .append(", \"source\": ").append(quote(ModulationMatrix.SOURCES[preset.routeSources[slot]].name()))
+                    .append(", \"destination\": ").append(quote(ModulationMatrix.DESTINATIONS[preset.routeDestinations[slot]].name()))
+                    .append(", \"depth\": ").append(number(preset.routeDepths[slot])).append(" }");
+            separator = ",\n";
+        }
+        json.append("\n  ],\n");
+
+        if (preset.hasSequencer) {
+            json.append("  \"sequencer\": {\n");
+            json.append("    \"bpm\": ").append(number(preset.bpm)).append(",\n");
+            json.append("    \"numSteps\": ").append(preset.numSteps).append(",\n");
+            json.append("    \"rootNote\": ").append(preset.rootNote).append(",\n");
+            json.append("    \"scale\": ").append(quote(preset.scale.name())).append(",\n");
+            json.append("    \"randomNotes\": ").append(preset.randomNotes).append(",\n");
+            json.append("    \"randomRhythm\": ").append(preset.randomRhythm).append(",\n");
+            json.append("    \"scaleDegrees\": [");
+            for (int step = 0; step < Preset.STEPS; step++) {
+                json.append(step > 0 ? ", " : "").append(preset.scaleDegrees[step]);
+            }
+            json.append("],\n    \"gates\": [");
+            for (int step = 0; step < Preset.STEPS; step++) {
+                json.append(step > 0 ? ", " : "").append(preset.gates[step]);
+            }
+            json.append("],\n    \"velocities\": [");
+            for (int step = 0; step < Preset.STEPS; step++) {
+                json.append(step > 0 ? ", " : "").append(preset.velocities[step]);
+            }
+            json.append("],\n    \"stepLengths\": [");
+            for (int step = 0; step < Preset.STEPS; step++) {
+                json.append(step > 0 ? ", " : "").append(number(preset.stepLengths[step]));
+            }
+            json.append("],\n    \"probabilities\": [");
+            for (int step = 0; step < Preset.STEPS; step++) {
+                json.append(step > 0 ? ", " : "").append(number(preset.probabilities[step]));
+            }
+            json.append("],\n    \"ratchets\": [");
+            for (int step = 0; step < Preset.STEPS; step++) {
+                json.append(step > 0 ? ", " : "").append(preset.ratchets[step]);
+            }
+            json.append("]\n  },\n");
+        }
+
+        json.append("  \"midiMap\": [");
+        separator = "\n";
+        for (int index = 0; index < preset.controlMappings.length; index++) {
+            int id = preset.controlMappings[index];
+            if (id < 0) continue;
+            Parameter parameter = registry.get(id);
+            json.append(separator).append("    { \"channel\": ").append(index / ControlMap.CONTROLLERS + 1)
+                    .append(", \"cc\": ").append(index % ControlMap.CONTROLLERS)
+                    .append(", \"parameter\": ").append(quote((parameter != null) ? parameter.name : "#" + id))
+                    .append(" }");
+            separator = ",\n";
+        }
+        json.append("\n  ]\n}\n");
+        return json.toString();
+    }
+
+    public static void writeJson(Preset preset, ParameterRegistry registry, Path file) throws IOException {
+        Files.writeString(file, toJson(preset, registry));
+    }
+
+    private static String number(double value) {
+        return Double.isFinite(value) ? Double.toString(value) : "null";
+    }
+
+    private static String quote(String text) {
+        StringBuilder quoted = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"':  quoted.append("\\\""); break;
+                case '\\': quoted.append("\\\\"); break;
+                case '\n': quoted.append("\\n"); break;
+                case '\r': quoted.append("\\r"); break;
+                case '\t': quoted.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
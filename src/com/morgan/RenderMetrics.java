@@ -0,0 +1,147 @@
+package com.morgan;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Mesures du thread audio : temps de rendu de chaque bloc comparé à sa durée
+ * (charge DSP), pire cas, histogramme de charge, voix actives et, quand le
+ * profilage est activé, temps passé dans chaque nœud du PatchGraph.
+ * Un seul écrivain (le thread audio) ; tout est préalloué et lisible depuis
+ * n'importe quel thread sans verrou (GUI, JMX).
+ */
+public class RenderMetrics {
+
+    // Histogramme de charge : tranches de 10 %, la dernière regroupe tout ce qui dépasse 100 %
+    public static final int HISTOGRAM_BUCKETS = 11;
+    // Nœuds du PatchGraph suivis par le profileur (identifiants 0 .. MAX_PROFILED_NODES-1)
+    public static final int MAX_PROFILED_NODES = 64;
+
+    // --- Compteurs publiés ---
+    private volatile long blocks = 0;
+    private volatile long deadlineMisses = 0;        // Blocs rendus moins vite que le temps réel
+    private volatile long lastRenderNanos = 0;
+    private volatile long maxRenderNanos = 0;
+    private volatile double lastLoad = 0.0;          // 1.0 = tout le temps du bloc passé à calculer
+    private volatile double maxLoad = 0.0;
+    private volatile long totalRenderNanos = 0;
+    private volatile long totalBudgetNanos = 0;
+    private volatile int activeVoices = 0;
+    private volatile int maxActiveVoices = 0;
+    private final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+
+    // --- Profilage par module (coûte deux System.nanoTime() par nœud et par bloc : désactivé par défaut) ---
+    private volatile boolean profiling = false;
+    private final AtomicLongArray moduleNanos = new AtomicLongArray(MAX_PROFILED_NODES);
+    private volatile long profiledBudgetNanos = 0;
+
+    // Demandes de remise à zéro : posées par un lecteur, exécutées par le thread audio
+    private volatile boolean resetRequested = false;
+    private volatile boolean moduleResetRequested = false;
+
+    // ============================================================
+    //  ÉCRITURE (thread audio uniquement)
+    // ============================================================
+
+    /** Appelé par le thread audio à la fin de chaque bloc. */
+    void blockRendered(long renderNanos, long budgetNanos, int voices) {
+        if (resetRequested) {
+            clear();
+        }
+        if (moduleResetRequested) {
+            clearModules();
+        }
+
+        double load = (budgetNanos > 0) ? (double) renderNanos / budgetNanos : 0.0;
+        lastRenderNanos = renderNanos;
+        lastLoad = load;
+        if (renderNanos > maxRenderNanos) maxRenderNanos = renderNanos;
+        if (load > maxLoad) maxLoad = load;
+        if (renderNanos > budgetNanos) deadlineMisses++;
+        totalRenderNanos += renderNanos;
+        totalBudgetNanos += budgetNanos;
+        if (profiling) profiledBudgetNanos += budgetNanos;
+
+        int bucket = (int) (load * 10.0);
+        if (bucket >= HISTOGRAM_BUCKETS) bucket = HISTOGRAM_BUCKETS - 1;
+        histogram.lazySet(bucket, histogram.get(bucket) + 1);
+
+        activeVoices = voices;
+        if (voices > maxActiveVoices) maxActiveVoices = voices;
+        blocks++;
+    }
+
+    /** Temps passé dans un nœud du PatchGraph (appelé seulement si le profilage est actif). */
+    void moduleRendered(int node, long nanos) {
+        if (node < MAX_PROFILED_NODES) {
+            moduleNanos.lazySet(node, moduleNanos.get(node) + nanos);
+        }
+    }
+
+    private void clear() {
+        resetRequested = false;
+        blocks = 0;
+        deadlineMisses = 0;
+        maxRenderNanos = 0;
+        maxLoad = 0.0;
+        totalRenderNanos = 0;
+        totalBudgetNanos = 0;
+        maxActiveVoices = 0;
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) histogram.lazySet(i, 0);
+        clearModules();
+    }
+
+    private void clearModules() {
+        moduleResetRequested = false;
+        profiledBudgetNanos = 0;
+        for (int i = 0; i < MAX_PROFILED_NODES; i++) moduleNanos.lazySet(i, 0);
+    }
+
+    // ============================================================
+    //  CONTRÔLE + LECTURE (n'importe quel thread)
+    // ============================================================
+
+    public boolean isProfiling() { return profiling; }
+
+    public void setProfiling(boolean enabled) {
+        if (enabled && !profiling) moduleResetRequested = true; // Les temps par module repartent de zéro
+        profiling = enabled;
+    }
+
+    /** Remet pics, totaux et histogramme à zéro (au prochain bloc). */
+    public void reset() { resetRequested = true; }
+
+    public long getBlocks() { return blocks; }
+    public long getDeadlineMisses() { return deadlineMisses; }
+    public double getLastRenderMicros() { return lastRenderNanos / 1.0e3; }
+    public double getMaxRenderMicros() { return maxRenderNanos / 1.0e3; }
+    public double getLoadPercent() { return lastLoad * 100.0; }
+    public double getPeakLoadPercent() { return maxLoad * 100.0; }
+    public int getActiveVoices() { return activeVoices; }
+    public int getMaxActiveVoices() { return maxActiveVoices; }
+
+    public double getAverageLoadPercent() {
+        long budget = totalBudgetNanos;
+        return (budget > 0) ? totalRenderNanos * 100.0 / budget : 0.0;
+    }
+
+    /** Nombre de blocs par tranche de charge de 10 % (dernière case : >= 100 %). */
+    public long[] getLoadHistogram() {
+        long[] copy = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < HISTOGRAM_BUCKETS; i++) copy[i] = histogram.get(i);
+        return copy;
+    }
+
+    /** Part du temps réel consommée par un nœud du PatchGraph depuis l'activation du profilage (%). */
+    public double getModuleLoadPercent(int node) {
+        long budget = profiledBudgetNanos;
+        if (node < 0 || node >= MAX_PROFILED_NODES || budget == 0) return 0.0;
+        return moduleNanos.get(node) * 100.0 / budget;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("charge DSP=%.1f %% (moy %.1f %%, pic %.1f %%) rendu max=%.1f µs échéances manquées=%d voix=%d (max %d)",
+                getLoadPercent(), getAverageLoadPercent(), getPeakLoadPercent(), getMaxRenderMicros(),
+                getDeadlineMisses(), getActiveVoices(), getMaxActiveVoices());
+    }
+}
@@ -0,0 +1,131 @@
+package com.morgan;
+
+import java.util.Arrays;
+
+/**
+ * Réverbération de type Freeverb (Schroeder-Moorer) : par côté, 8 filtres en peigne
+ * amortis en parallèle puis 4 passe-tout en série, le côté droit décalé de quelques
+ * échantillons pour décorréler la stéréo. L'entrée est sommée en mono.
+ * Longueurs d'origine (44.1 kHz) mises à l'échelle du taux d'échantillonnage ;
+ * chaque ligne est une DelayLine à masque.
+ */
+public class Reverb extends Effect {
+
+    private static final int[] COMB_TUNING = {1116, 1188, 1277, 1356, 1422, 1491, 1557, 1617};
+    private static final int[] ALLPASS_TUNING = {556, 441, 341, 225};
+    private static final int STEREO_SPREAD = 23;
+    private static final double FIXED_GAIN = 0.015;
+    private static final double SCALE_ROOM = 0.28;
+    private static final double OFFSET_ROOM = 0.7;
+    private static final double SCALE_DAMP = 0.4;
+    private static final double SCALE_WET = 3.0;
+    private static final double ALLPASS_FEEDBACK = 0.5;
+
+    // --- Paramètres Publics ---
+    public volatile double roomSize = 0.5;   // 0 à 1 (durée de la queue)
+    public volatile double damping = 0.5;    // 0 à 1 (aigus absorbés)
+    public volatile double width = 1.0;      // 0 = mono, 1 = stéréo pleine
+
+    // --- Thread audio : [côté][filtre] ---
+    private final int sides;
+    private final DelayLine[][] combs;
+    private final int[][] combLengths;
+    private final double[][] combFilters;
+    private final DelayLine[][] allpasses;
+    private final int[][] allpassLengths;
+    private final double[] outputs;
+
+    public Reverb(double sampleRate, int channels) {
+        this(sampleRate, channels, DelayLine.OFF_HEAP_DEFAULT);
+    }
+
+    public Reverb(double sampleRate, int channels, boolean offHeap) {
+        super(sampleRate, channels);
+        sides = Math.min(2, channels);
+        double scale = sampleRate / 44100.0;
+        combs = new DelayLine[sides][COMB_TUNING.length];
+        combLengths = new int[sides][COMB_TUNING.length];
+        combFilters = new double[sides][COMB_TUNING.length];
+        allpasses = new DelayLine[sides][ALLPASS_TUNING.length];
+        allpassLengths = new int[sides][ALLPASS_TUNING.length];
+        for (int s = 0; s < sides; s++) {
+            for (int k = 0; k < COMB_TUNING.length; k++) {
+                combLengths[s][k] = Math.max(1, (int) Math.round((COMB_TUNING[k] + s * STEREO_SPREAD) * scale));
+                combs[s][k] = new DelayLine(combLengths[s][k], offHeap);
+            }
+            for (int k = 0; k < ALLPASS_TUNING.length; k++) {
+                allpassLengths[s][k] = Math.max(1, (int) Math.round((ALLPASS_TUNING[k] + s * STEREO_SPREAD) * scale));
+                allpasses[s][k] = new DelayLine(allpassLengths[s][k], offHeap);
+            }
+        }
+        outputs = new double[sides];
+        mix = 0.25;
+    }
+
+    public void setRoomSize(double size) {
+        roomSize = Math.max(0.0, Math.min(1.0, size));
+    }
+
+    public void setDamping(double amount) {
+        damping = Math.max(0.0, Math.min(1.0, amount));
+    }
+
+    public void setWidth(double amount) {
+        width = Math.max(0.0, Math.min(1.0, amount));
+    }
+
+    @Override
+    public void reset() {
+        for (int s = 0; s < sides; s++) {
+            for (DelayLine comb : combs[s]) comb.clear();
+            for (DelayLine allpass : allpasses[s]) allpass.clear();
+            Arrays.fill(combFilters[s], 0.0);
+        }
+    }
+
+    @Override
+    protected void render(double[] in, int offset, int frames, int stride, double[] wet, int active) {
+        final double feedback = roomSize * SCALE_ROOM + OFFSET_ROOM;
+        final double damp1 = damping * SCALE_DAMP;
+        final double damp2 = 1.0 - damp1;
+        final double wet1 = SCALE_WET * (width * 0.5 + 0.5);
+        final double wet2 = SCALE_WET * ((1.0 - width) * 0.5);
+        final int used = Math.min(sides, active);
+
+        for (int i = 0, o = offset, j = 0; i < frames; i++, o += stride, j += channels) {
+            double input = 0.0;
+            for (int c = 0; c < active; c++) input += in[o + c];
+            input *= FIXED_GAIN;
+
+            for (int s = 0; s < used; s++) {
+                final DelayLine[] sideCombs = combs[s];
+                final int[] lengths = combLengths[s];
+                final double[] filters = combFilters[s];
+                double out = 0.0;
+                // Peignes en parallèle : réinjection filtrée (passe-bas à un pôle)
+                for (int k = 0; k < sideCombs.length; k++) {
+                    double y = sideCombs[k].read(lengths[k]);
+                    filters[k] = y * damp2 + filters[k] * damp1;
+                    sideCombs[k].write(input + filters[k] * feedback);
+                    out += y;
+                }
+                // Passe-tout en série : diffusion
+                final DelayLine[] sideAllpasses = allpasses[s];
+                final int[] allpassLength = allpassLengths[s];
+                for (int k = 0; k < sideAllpasses.length; k++) {
+                    double buffered = sideAllpasses[k].read(allpassLength[k]);
+                    sideAllpasses[k].write(out + buffered * ALLPASS_FEEDBACK);
+                    out = buffered - out;
+                }
+                outputs[s] = out;
+            }
+
+            if (used == 2) {
+                wet[j] = outputs[0] * wet1 + outputs[1] * wet2;
+                wet[j + 1] = outputs[1] * wet1 + outputs[0] * wet2;
+            } else {
+                wet[j] = outputs[0] * (wet1 + wet2);
+            }
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.morgan;
+
+import javax.sound.sampled.AudioFormat;
+
+/**
+ * Format des échantillons envoyés à la sortie audio (little-endian).
+ * convert() transforme un bloc entier de doubles en bytes en une seule passe.
+ */
+public enum SampleFormat {
+    PCM_16(2),
+    PCM_24(3),
+    FLOAT_32(4);
+
+    private final int bytesPerSample;
+
+    SampleFormat(int bytesPerSample) {
+        this.bytesPerSample = bytesPerSample;
+    }
+
+    public int bytesPerSample() {
+        return bytesPerSample;
+    }
+
+    public AudioFormat toAudioFormat(float sampleRate, int channels) {
+        int frameSize = bytesPerSample * channels;
+        if (this == FLOAT_32) {
+            return new AudioFormat(AudioFormat.Encoding.PCM_FLOAT, sampleRate, 32, channels, frameSize, sampleRate, false);
+        }
+        return new AudioFormat(AudioFormat.Encoding.PCM_SIGNED, sampleRate, bytesPerSample * 8, channels, frameSize, sampleRate, false);
+    }
+
+    /**
+     * Convertit src[0 .. count[ en bytes dans dst à partir de dstOffset.
+     * Les échantillons sont clampés à +1/-1 (plusieurs voix peuvent dépasser).
+     * Passe par les BlockKernels (SIMD si disponible).
+     */
+    public void convert(double[] src, int count, byte[] dst, int dstOffset) {
+        BlockKernels.get().convert(this, src, count, dst, dstOffset);
+    }
+
+    /** Version scalaire : convertit src[srcOffset .. srcOffset + count[. */
+    void convertScalar(double[] src, int srcOffset, int count, byte[] dst, int dstOffset) {
+        final int end = srcOffset + count;
+        int j = dstOffset;
+        switch (this) {
+            case PCM_16:
+                for (int i = srcOffset; i < end; i++, j += 2) {
+                    int pcm = (int) (clamp(src[i]) * 32767.0);
+                    dst[j]     = (byte) pcm;
+                    dst[j + 1] = (byte) (pcm >> 8);
+                }
+                break;
+            case PCM_24:
+                for (int i = srcOffset; i < end; i++, j += 3) {
+                    int pcm = (int) (clamp(src[i]) * 8388607.0);
+                    dst[j]     = (byte) pcm;
+                    dst[j + 1] = (byte) (pcm >> 8);
+                    dst[j + 2] = (byte) (pcm >> 16);
+                }
+                break;
+            case FLOAT_32:
+                for (int i = srcOffset; i < end; i++, j += 4) {
+                    int bits = Float.floatToRawIntBits((float) clamp(src[i]));
+                    dst[j]     = (byte) bits;
+                    dst[j + 1] = (byte) (bits >> 8);
+                    dst[j + 2] = (byte) (bits >> 16);
+                    dst[j + 3] = (byte) (bits >> 24);
+                }
+                break;
+        }
+    }
+
+    private static double clamp(double sample) {
+        return (sample < -1.0) ? -1.0 : (sample > 1.0 ? 1.0 : sample);
+    }
+}
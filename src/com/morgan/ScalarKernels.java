@@ -0,0 +1,52 @@
+package com.morgan;
+
+/**
+ * Implémentation scalaire des BlockKernels : simples boucles, toujours disponible.
+ */
+final class ScalarKernels implements BlockKernels {
+
+    static final ScalarKernels INSTANCE = new ScalarKernels();
+
+    private ScalarKernels() {
+    }
+
+    @Override
+    public void multiply(double[] dst, int dstOffset, double[] src, int srcOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] *= src[srcOffset + i];
+        }
+    }
+
+    @Override
+    public void scale(double[] buffer, int offset, int length, double gain) {
+        final int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            buffer[i] *= gain;
+        }
+    }
+
+    @Override
+    public void crossfade(double[] dst, int dstOffset, double[] src, int srcOffset, int length,
+                          double gainA, double gainB) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] = (dst[dstOffset + i] * gainA) + (src[srcOffset + i] * gainB);
+        }
+    }
+
+    @Override
+    public void accumulate(double[] dst, int dstOffset, double[] src, int srcOffset, int length) {
+        for (int i = 0; i < length; i++) {
+            dst[dstOffset + i] += src[srcOffset + i];
+        }
+    }
+
+    @Override
+    public void convert(SampleFormat format, double[] src, int count, byte[] dst, int dstOffset) {
+        format.convertScalar(src, 0, count, dst, dstOffset);
+    }
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+}
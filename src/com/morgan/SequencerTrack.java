@@ -0,0 +1,153 @@
+package com.morgan;
+
+/**
+ * Une piste du StepSequencer : une chaîne de patterns jouée en boucle (chaque pattern
+ * passe la main au suivant après ses 'length' pas), un canal MIDI de destination,
+ * sa gamme et ses modes aléatoires.
+ * Réglages publics (volatile) modifiables depuis n'importe quel thread ;
+ * l'état de lecture appartient au thread audio.
+ */
+public class SequencerTrack {
+
+    // --- Paramètres Publics ---
+    public volatile int channel = 0;          // Canal MIDI des notes de la piste (0-15)
+    public volatile int rootNote = 60;
+    public volatile ScaleType scale = ScaleType.MAJOR;
+    public volatile boolean randomNotes = false;
+    public volatile boolean randomRhythm = false;
+    public volatile boolean muted = false;
+
+    // Chaîne de patterns, remplacée d'un bloc (copie) par setChain()
+    private volatile Pattern[] chain;
+
+    // --- État de lecture (thread audio uniquement) ---
+    // Mêmes ancrages que l'ancien séquenceur : dates recalculées depuis le dernier ancrage, sans dérive
+    long run = -1;                    // Lecture du séquenceur pour laquelle la piste a été calée
+    private int chainIndex = 0;
+    private int step = 0;
+    private double anchorSample = 0.0;
+    private long stepsSinceAnchor = 0;
+    private double anchorStepLength = 0.0;
+    private long nextStepTime = 0;
+
+    public SequencerTrack(Pattern... patterns) {
+        setChain(patterns);
+    }
+
+    /** Remplace la chaîne de patterns (au moins un). La lecture continue au pas suivant. */
+    public void setChain(Pattern... patterns) {
+        if (patterns.length == 0) throw new IllegalArgumentException("Chaîne de patterns vide");
+        for (Pattern pattern : patterns) {
+            if (pattern == null) throw new IllegalArgumentException("Pattern null dans la chaîne");
+        }
+        chain = patterns.clone();
+    }
+
+    public Pattern[] getChain() {
+        return chain.clone();
+    }
+
+    /** Premier pattern de la chaîne. */
+    public Pattern getPattern() {
+        return chain[0];
+    }
+
+    // ============================================================
+    //  LECTURE (thread audio uniquement, sans allocation)
+    // ============================================================
+    /** Cale la piste sur 'time' : début de la chaîne, premier pas à cette date. */
+    void reset(long time, long run) {
+        this.run = run;
+        chainIndex = 0;
+        step = 0;
+        anchorSample = time;
+        stepsSinceAnchor = 0;
+        anchorStepLength = 0.0; // Fixée par le premier pas rendu
+        nextStepTime = time;
+    }
+
+    /** Date du prochain pas à rendre (en échantillons). */
+    long nextStepTime() {
+        return nextStepTime;
+    }
+
+    /**
+     * Rend le pas qui tombe à nextStepTime() : ses note-on dans 'notes', ses note-off
+     * dans 'releases' (deux tampons, chacun reçoit ses dates presque dans l'ordre).
+     */
+    void renderStep(double bpm, double sampleRate, EventScheduler notes, EventScheduler releases,
+                    XorShiftRandom random) {
+        Pattern[] patterns = chain;
+        if (chainIndex >= patterns.length) chainIndex = 0;
+        Pattern pattern = patterns[chainIndex];
+        int length = Math.max(1, Math.min(pattern.capacity(), pattern.length));
+        if (step >= length) step = 0;
+
+        // Changement de tempo ou de subdivision : nouvel ancrage sur ce pas
+        double stepLength = sampleRate * 60.0 / (bpm * Math.max(1, pattern.stepsPerBeat));
+        if (stepLength != anchorStepLength) {
+            anchorSample += stepsSinceAnchor * anchorStepLength;
+            stepsSinceAnchor = 0;
+            anchorStepLength = stepLength;
+        }
+        double stepStart = anchorSample + stepsSinceAnchor * stepLength;
+
+        if (!muted) {
+            playStep(pattern, step, stepStart, stepLength, notes, releases, random);
+        }
+
+        // Avancer le pas (et la chaîne à la fin du pattern)
+        stepsSinceAnchor++;
+        nextStepTime = Math.round(anchorSample + stepsSinceAnchor * anchorStepLength);
+        if (++step >= length) {
+            step = 0;
+            if (++chainIndex >= patterns.length) chainIndex = 0;
+        }
+    }
+
+    private void playStep(Pattern pattern, int step, double stepStart, double stepLength,
+                          EventScheduler notes, EventScheduler releases, XorShiftRandom random) {
+        // 1. Gate : soit random, soit la valeur du pattern ; puis la probabilité du pas
+        boolean gateOn = randomRhythm ? random.nextBoolean() : pattern.gates[step];
+        if (!gateOn) return;
+        double probability = pattern.probabilities[step];
+        if (probability < 1.0 && random.nextDouble() >= probability) return;
+
+        // 2. Note : aléatoire dans la gamme, ou degré du pattern
+        ScaleType currentScale = scale;
+        int root = rootNote;
+        int note = randomNotes
+                ? randomNoteInScale(currentScale, root, random)
+                : noteForDegree(currentScale, root, pattern.degrees[step]);
+
+        // 3. Ratchets : le pas est découpé en 'count' notes de même durée relative
+        int velocity = Math.max(1, Math.min(127, pattern.velocities[step]));
+        int count = Math.max(1, Math.min(Pattern.MAX_RATCHETS, pattern.ratchets[step]));
+        double slot = stepLength / count;
+        double gate = slot * Math.max(0.01, Math.min(1.0, pattern.lengths[step]));
+        int midiChannel = channel;
+        for (int r = 0; r < count; r++) {
+            double start = stepStart + r * slot;
+            long onTime = Math.round(start);
+            long offTime = Math.max(onTime + 1, Math.round(start + gate));
+            notes.schedule(onTime, ControlQueue.NOTE_ON, note, velocity, midiChannel);
+            releases.schedule(offTime, ControlQueue.NOTE_OFF, note, 0, midiChannel);
+        }
+    }
+
+    static int noteForDegree(ScaleType scale, int rootNote, int scaleDegree) {
+        int[] intervals = scale.getIntervals();
+        int numIntervals = intervals.length;
+        // Math.floorMod gère les degrés négatifs (ex: -1 = 7e note, octave -1)
+        int intervalIndex = Math.floorMod(scaleDegree, numIntervals);
+        int octave = Math.floorDiv(scaleDegree, numIntervals);
+        return rootNote + intervals[intervalIndex] + (octave * 12);
+    }
+
+    static int randomNoteInScale(ScaleType scale, int rootNote, XorShiftRandom random) {
+        int[] intervals = scale.getIntervals();
+        int intervalIndex = random.nextInt(intervals.length);
+        int octave = random.nextInt(3) - 1;
+        return rootNote + intervals[intervalIndex] + (octave * 12);
+    }
+}
@@ -0,0 +1,107 @@
+package com.morgan;
+
+/**
+ * Paramètre lissé : un changement de valeur devient une rampe (linéaire ou
+ * exponentielle) d'une durée réglable, au lieu d'un saut qui produit du "zipper noise".
+ * Tant qu'aucune rampe n'est en cours, le paramètre ne coûte rien par échantillon.
+ * Les modules l'avancent à taux de contrôle (skip()) : une valeur tous les
+ * CONTROL_BLOCK échantillons, interpolée entre deux.
+ */
+public class SmoothedValue {
+
+    public enum Ramp { LINEAR, EXPONENTIAL }
+
+    // Durée de rampe par défaut (20 ms : assez court pour rester réactif, assez long contre les clics)
+    public static final double DEFAULT_RAMP_TIME = 0.02;
+    // Taux de contrôle : les modulations lentes sont évaluées une fois tous les N échantillons
+    public static final int CONTROL_BLOCK = 16;
+
+    private final Ramp ramp;
+    private double current;
+    private double target;
+    private double step;          // Incrément (linéaire) ou facteur (exponentiel) par échantillon
+    private boolean multiplicative; // Rampe en cours exponentielle : 'step' est un facteur
+    private int remaining = 0;    // Échantillons restants dans la rampe
+    private int rampSamples;
+
+    public SmoothedValue(double initial, Ramp ramp, double sampleRate) {
+        this.ramp = ramp;
+        this.current = initial;
+        this.target = initial;
+        setRampTime(DEFAULT_RAMP_TIME, sampleRate);
+    }
+
+    public void setRampTime(double seconds, double sampleRate) {
+        this.rampSamples = (int) Math.max(0, Math.round(seconds * sampleRate));
+    }
+
+    /** Démarre une rampe de la valeur actuelle vers 'value'. */
+    public void setTarget(double value) {
+        if (value == target) return;
+        target = value;
+        if (rampSamples == 0) {
+            setImmediate(value);
+            return;
+        }
+        remaining = rampSamples;
+        // Exponentielle seulement entre deux valeurs positives, sinon repli sur une rampe linéaire
+        multiplicative = ramp == Ramp.EXPONENTIAL && current > 0.0 && value > 0.0;
+        if (multiplicative) {
+            step = Math.pow(value / current, 1.0 / rampSamples);
+        } else {
+            step = (value - current) / rampSamples;
+        }
+    }
+
+    /** Saute directement à la valeur (nouvelle note, chargement de preset...). */
+    public void setImmediate(double value) {
+        current = value;
+        target = value;
+        remaining = 0;
+    }
+
+    /** Termine la rampe en cours. */
+    public void jumpToTarget() {
+        setImmediate(target);
+    }
+
+    public boolean isSmoothing() {
+        return remaining > 0;
+    }
+
+    public double getCurrent() {
+        return current;
+    }
+
+    public double getTarget() {
+        return target;
+    }
+
+    /** Avance d'un échantillon. */
+    public double next() {
+        if (remaining > 0) {
+            advance(1);
+        }
+        return current;
+    }
+
+    /** Avance de 'samples' échantillons d'un coup (taux de contrôle) et retourne la nouvelle valeur. */
+    public double skip(int samples) {
+        if (remaining > 0) {
+            advance(Math.min(samples, remaining));
+        }
+        return current;
+    }
+
+    private void advance(int samples) {
+        remaining -= samples;
+        if (remaining <= 0) {
+            remaining = 0;
+            current = target; // Valeur exacte en fin de rampe
+        } else if (multiplicative) {
+            current *= (samples == 1) ? step : Math.pow(step, samples);
+        } else {
+            current += step * samples;
+        }
+    }
+}
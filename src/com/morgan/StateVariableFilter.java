@@ -0,0 +1,126 @@
+package com.morgan;
+
+/**
+ * Filtre à variables d'état "zero-delay feedback" (topologie TPT, intégrateurs trapézoïdaux).
+ * Un seul calcul par échantillon donne les sorties passe-bas, passe-haut, passe-bande
+ * et coupe-bande. Stable pour toute fréquence jusqu'à Nyquist et toute résonance < 1.
+ * Cœur DSP sans entrée propre : utilisé par Filter (mode SVF_*).
+ */
+public class StateVariableFilter {
+
+    public enum Output { LOWPASS, HIGHPASS, BANDPASS, NOTCH }
+
+    // Amortissement minimal (résonance 1.0) : Q = 1/k = 25, sans auto-oscillation divergente
+    private static final double MIN_DAMPING = 0.04;
+
+    // --- Coefficients ---
+    private double k = 2.0;   // Amortissement (2 = pas de résonance)
+    private double a1, a2, a3;
+
+    // --- État (mémoires des deux intégrateurs) ---
+    private double ic1eq = 0.0;
+    private double ic2eq = 0.0;
+
+    // --- Sorties du dernier tick() ---
+    public double low, band, high;
+
+    public StateVariableFilter() {
+        setParameters(0.1, 0.0);
+    }
+
+    /**
+     * normalizedCutoff = fc / fs, resonance de 0.0 à 1.0.
+     * Bon marché (table de tangentes + une division) : peut être appelé à chaque échantillon.
+     */
+    public void setParameters(double normalizedCutoff, double resonance) {
+        double res = (resonance < 0.0) ? 0.0 : (resonance > 1.0 ? 1.0 : resonance);
+        double g = TanTable.prewarp(normalizedCutoff);
+        k = 2.0 - (2.0 - MIN_DAMPING) * res;
+        a1 = 1.0 / (1.0 + g * (g + k));
+        a2 = g * a1;
+        a3 = g * a2;
+    }
+
+    public void reset() {
+        ic1eq = 0.0;
+        ic2eq = 0.0;
+    }
+
+    /** Calcule les quatre sorties pour un échantillon (low, band, high ; notch = low + high). */
+    public void tick(double input) {
+        double v3 = input - ic2eq;
+        double v1 = a1 * ic1eq + a2 * v3;
+        double v2 = ic2eq + a2 * ic1eq + a3 * v3;
+        ic1eq = 2.0 * v1 - ic1eq;
+        ic2eq = 2.0 * v2 - ic2eq;
+        low = v2;
+        band = v1;
+        high = input - k * v1 - v2;
+    }
+
+    public double tick(double input, Output output) {
+        tick(input);
+        switch (output) {
+            case HIGHPASS: return high;
+            case BANDPASS: return band;
+            case NOTCH:    return low + high;
+            default:       return low;
+        }
+    }
+
+    /** Filtre buffer[offset .. offset + length[ sur place ; la sortie est choisie une fois par bloc. */
+    public void processBlock(double[] buffer, int offset, int length, Output output) {
+        final int end = offset + length;
+        final double c1 = a1, c2 = a2, c3 = a3, damping = k;
+        double s1 = ic1eq;
+        double s2 = ic2eq;
+
+        switch (output) {
+            case LOWPASS:
+                for (int i = offset; i < end; i++) {
+                    double v3 = buffer[i] - s2;
+                    double v1 = c1 * s1 + c2 * v3;
+                    double v2 = s2 + c2 * s1 + c3 * v3;
+                    s1 = 2.0 * v1 - s1;
+                    s2 = 2.0 * v2 - s2;
+                    buffer[i] = v2;
+                }
+                break;
+            case BANDPASS:
+                for (int i = offset; i < end; i++) {
+                    double v3 = buffer[i] - s2;
+                    double v1 = c1 * s1 + c2 * v3;
+                    double v2 = s2 + c2 * s1 + c3 * v3;
+                    s1 = 2.0 * v1 - s1;
+                    s2 = 2.0 * v2 - s2;
+                    buffer[i] = v1;
+                }
+                break;
+            case HIGHPASS:
+                for (int i = offset; i < end; i++) {
+                    double x = buffer[i];
+                    double v3 = x - s2;
+                    double v1 = c1 * s1 + c2 * v3;
+                    double v2 = s2 + c2 * s1 + c3 * v3;
+                    s1 = 2.0 * v1 - s1;
+                    s2 = 2.0 * v2 - s2;
+                    buffer[i] = x - damping * v1 - v2;
+                }
+                break;
+            case NOTCH:
+                for (int i = offset; i < end; i++) {
+                    double x = buffer[i];
+                    double v3 = x - s2;
+                    double v1 = c1 * s1 + c2 * v3;
+                    double v2 = s2 + c2 * s1 + c3 * v3;
+                    s1 = 2.0 * v1 - s1;
+                    s2 = 2.0 * v2 - s2;
+                    buffer[i] = x - damping * v1; // low + high
+                }
+                break;
+        }
+
+        ic1eq = s1;
+        ic2eq = s2;
+    }
+}
@@ -1,13 +1,30 @@
 package com.morgan;
 
-import java.util.Random;
-
-public class StepSequencer implements Runnable {
+/**
+ * Séquenceur pas à pas multipiste, cadencé par l'horloge échantillon du moteur.
+ * Plus de Thread.sleep() : le thread audio appelle scheduleBlock() à chaque bloc
+ * et les notes sont programmées à l'échantillon exact de chaque pas.
+ *
+ * Les pistes (SequencerTrack) sont rendues en avance dans deux tampons (note-on, note-off),
+ * par paquets d'environ 'lookahead' échantillons : un bloc qui ne contient aucun pas à rendre
+ * ne coûte qu'une comparaison, quel que soit le nombre de pistes, et les tampons ne font
+ * que déverser leurs événements du bloc dans l'ordonnanceur du moteur.
+ * Les modifications (tempo, patterns) sont donc entendues avec au plus 'lookahead' de retard.
+ *
+ * La piste 0 est la piste principale : celle de la GUI et des presets, réglée par les
+ * champs historiques (bpm, numSteps, rootNote, scaleDegrees, gates...).
+ */
+public class StepSequencer {
+
+    public static final int DEFAULT_LOOKAHEAD = 2048;      // ~46 ms à 44.1 kHz
+    public static final int LOOKAHEAD_CAPACITY = 16384;    // Événements d'avance par tampon
+    public static final double MIN_BPM = 1.0;              // Bornes du tempo effectif (voir tempo())
+    public static final double MAX_BPM = 999.0;
 
     private AudioEngine audioEngine;
-    private Random random = new Random();
+    private final XorShiftRandom random = new XorShiftRandom(); // Appelé depuis le thread audio : sans allocation
 
-    // --- Paramètres Publics ---
+    // --- Paramètres Publics (piste principale, sauf bpm : tempo commun) ---
     public volatile double bpm = 120.0;
     public volatile int numSteps = 16;
     public volatile int rootNote = 60;
@@ -15,9 +32,9 @@ public class StepSequencer implements Runnable {
     public volatile boolean randomNotes = false;
     public volatile boolean randomRhythm = false;
 
-    private int currentStep = 0;
     private volatile boolean isRunning = false;
-    private int lastNotePlayed = -1;
+    private volatile int lookahead = DEFAULT_LOOKAHEAD;
+    private double validTempo = 120.0;   // Dernier tempo valide lu dans bpm (thread audio)
 
     // --- LES PATTERNS (Rendus publics pour la GUI) ---
     // 'scaleDegrees' stocke le DEGRÉ de la gamme (ex: 0, 1, 2, ... 7, etc.)
@@ -25,90 +42,194 @@ public class StepSequencer implements Runnable {
     // 'gates' stocke si la note doit jouer (true) or non (false)
     public boolean[] gates = new boolean[16];
 
+    // Pattern de la piste principale, construit sur scaleDegrees / gates (vélocités, probabilités...)
+    public final Pattern mainPattern = new Pattern(scaleDegrees, gates);
+    public final SequencerTrack mainTrack = new SequencerTrack(mainPattern);
+
+    // Pistes (copie sur écriture : le thread audio lit le tableau volatile sans verrou)
+    private volatile SequencerTrack[] tracks = { mainTrack };
+
+    // --- Horloge échantillon (thread audio uniquement) ---
+    private final double sampleRate;
+    private boolean wasRunning = false;
+    private long run = 0;                    // Numéro de la lecture en cours (une par start())
+    private long nextRenderTime = 0;         // Plus proche pas non rendu, toutes pistes confondues
+    private final EventScheduler pendingNotes = new EventScheduler(LOOKAHEAD_CAPACITY);
+    private final EventScheduler pendingReleases = new EventScheduler(LOOKAHEAD_CAPACITY);
+
     public StepSequencer(AudioEngine engine) {
         this.audioEngine = engine;
+        this.sampleRate = engine.SAMPLE_RATE;
         // Initialiser un pattern par défaut
         initializePatterns();
     }
 
-    // --- Méthodes de contrôle (inchangées) ---
+    // --- Méthodes de contrôle ---
     public void start() { isRunning = true; }
-    public void stop() {
-        isRunning = false;
-        if (lastNotePlayed != -1) {
-            audioEngine.noteOff(lastNotePlayed);
-            lastNotePlayed = -1;
-        }
-    }
+    // Les notes en cours sont coupées par le thread audio au bloc suivant
+    public void stop() { isRunning = false; }
     public boolean isRunning() { return isRunning; }
+    // Graine des modes aléatoires et des probabilités (rendus reproductibles)
+    public void setRandomSeed(long seed) { random.setSeed(seed); }
+
+    /**
+     * Avance de rendu en échantillons : un bloc (AudioEngine.BLOCK_SIZE) pour une réaction
+     * immédiate aux réglages, une mesure pour des centaines de pistes presque gratuites.
+     */
+    public void setLookahead(int samples) {
+        lookahead = Math.max(1, samples);
+    }
 
-    // N'est plus nécessaire, la GUI met à jour les valeurs directement
-    // public void updateScale() {}
+    public int getLookahead() {
+        return lookahead;
+    }
 
-    @Override
-    public void run() {
-        while (true) {
-            if (isRunning) {
-                long sleepTimeMs = (long) (1000.0 / ( (bpm / 60.0) * 4.0 ));
+    // ============================================================
+    //  PISTES (threads de contrôle)
+    // ============================================================
+    /** Ajoute une piste ; en cours de lecture, elle démarre sur le prochain pas de la piste principale. */
+    public synchronized void addTrack(SequencerTrack track) {
+        SequencerTrack[] previous = tracks;
+        SequencerTrack[] updated = new SequencerTrack[previous.length + 1];
+        System.arraycopy(previous, 0, updated, 0, previous.length);
+        updated[previous.length] = track;
+        tracks = updated;
+    }
 
-                // Traiter le pas actuel
-                processStep(currentStep);
+    /** Retire une piste (ses notes déjà rendues se terminent normalement). La piste principale reste. */
+    public synchronized boolean removeTrack(SequencerTrack track) {
+        SequencerTrack[] previous = tracks;
+        for (int i = 1; i < previous.length; i++) {
+            if (previous[i] == track) {
+                SequencerTrack[] updated = new SequencerTrack[previous.length - 1];
+                System.arraycopy(previous, 0, updated, 0, i);
+                System.arraycopy(previous, i + 1, updated, i, previous.length - i - 1);
+                tracks = updated;
+                return true;
+            }
+        }
+        return false;
+    }
 
-                // Avancer le pas
-                currentStep = (currentStep + 1) % numSteps;
+    public SequencerTrack[] getTracks() {
+        return tracks.clone();
+    }
 
-                try {
-                    Thread.sleep(sleepTimeMs);
-                } catch (InterruptedException e) {
-                    break;
-                }
-            } else {
-                try {
-                    Thread.sleep(50);
-                } catch (InterruptedException e) {
-                    break;
-                }
-            }
+    public int getTrackCount() {
+        return tracks.length;
+    }
+
+    /** Événements perdus parce qu'un tampon d'avance était plein (avance trop longue pour le nombre de pistes). */
+    public long getDroppedEvents() {
+        return pendingNotes.getDroppedEvents() + pendingReleases.getDroppedEvents();
+    }
+
+    /** Reprend le pattern et les réglages d'un preset (thread audio, début de bloc ; sans allocation). */
+    void applyPreset(Preset preset) {
+        double tempo = preset.bpm;
+        if (tempo > 0.0) { // Écarte aussi NaN : le tempo courant est gardé
+            bpm = Math.max(MIN_BPM, Math.min(MAX_BPM, tempo));
         }
+        numSteps = Math.max(1, Math.min(scaleDegrees.length, preset.numSteps));
+        rootNote = preset.rootNote;
+        currentScale = preset.scale;
+        randomNotes = preset.randomNotes;
+        randomRhythm = preset.randomRhythm;
+        System.arraycopy(preset.scaleDegrees, 0, scaleDegrees, 0, Preset.STEPS);
+        System.arraycopy(preset.gates, 0, gates, 0, Preset.STEPS);
+        System.arraycopy(preset.velocities, 0, mainPattern.velocities, 0, Preset.STEPS);
+        System.arraycopy(preset.stepLengths, 0, mainPattern.lengths, 0, Preset.STEPS);
+        System.arraycopy(preset.probabilities, 0, mainPattern.probabilities, 0, Preset.STEPS);
+        System.arraycopy(preset.ratchets, 0, mainPattern.ratchets, 0, Preset.STEPS);
     }
 
-    // --- LOGIQUE DE LECTURE DU PATTERN (Modifiée) ---
-    private void processStep(int step) {
-        // 1. Éteindre la note précédente
-        if (lastNotePlayed != -1) {
-            audioEngine.noteOff(lastNotePlayed);
-            lastNotePlayed = -1;
+    // ============================================================
+    //  RENDU (thread audio uniquement)
+    // ============================================================
+    /**
+     * Appelé par le thread audio au début de chaque bloc : rend les pas des pistes
+     * en avance si nécessaire, puis transfère les notes de [blockStart, blockEnd[.
+     */
+    void scheduleBlock(long blockStart, long blockEnd, EventScheduler scheduler) {
+        if (!isRunning) {
+            if (wasRunning) {
+                // Arrêt : les notes tenues sont coupées maintenant, les notes à venir oubliées
+                pendingNotes.clear();
+                pendingReleases.flushTo(blockStart, scheduler);
+                wasRunning = false;
+            }
+            return;
         }
 
-        // 2. Lire le 'Gate' : soit random, soit la valeur du pattern
-        boolean gateOn = randomRhythm ? random.nextBoolean() : gates[step];
+        if (!wasRunning) {
+            // Démarrage : le premier pas de chaque piste tombe sur le début du bloc
+            wasRunning = true;
+            run++;
+            mainTrack.reset(blockStart, run);
+            nextRenderTime = blockStart;
+        }
 
-        if (gateOn) {
-            int noteToPlay;
+        // Rendu par paquets : seulement quand un pas non rendu tombe dans ce bloc
+        if (nextRenderTime < blockEnd) {
+            renderUntil(blockEnd + lookahead);
+        }
 
-            if (randomNotes) {
-                // Le mode Random génère une note MIDI absolue
-                noteToPlay = generateRandomNoteInScale();
+        // Les deux tampons sont fusionnés par date ; à date égale, le note-off passe d'abord
+        while (true) {
+            long release = pendingReleases.nextTime();
+            long note = pendingNotes.nextTime();
+            if (release <= note) {
+                if (release >= blockEnd) break;
+                pendingReleases.transferNext(scheduler);
             } else {
-                // --- LIRE LE PATTERN ---
-                // 3. Lire le degré de la note (ex: 0, 1, 2...)
-                int scaleDegree = scaleDegrees[step];
+                if (note >= blockEnd) break;
+                pendingNotes.transferNext(scheduler);
+            }
+        }
+    }
 
-                // 4. Calculer la note MIDI à partir du degré
-                int[] intervals = currentScale.getIntervals();
-                int numIntervals = intervals.length;
+    /**
+     * Tempo effectif, thread audio : 'bpm' borné à MIN_BPM..MAX_BPM à la lecture ; NaN garde le dernier
+     * tempo valide. Un tempo nul, négatif ou NaN ferait reculer ou stagner la date du pas suivant
+     * (boucle de rendu sans fin).
+     */
+    double tempo() {
+        double value = bpm;
+        if (!Double.isNaN(value)) {
+            validTempo = Math.max(MIN_BPM, Math.min(MAX_BPM, value));
+        }
+        return validTempo;
+    }
 
-                // Math.floorMod gère les degrés négatifs (ex: -1 = 7e note, octave -1)
-                int intervalIndex = Math.floorMod(scaleDegree, numIntervals);
-                int octave = (int) Math.floor((double) scaleDegree / numIntervals);
+    // Rend tous les pas antérieurs à 'horizon', date par date (les tampons restent presque triés)
+    private void renderUntil(long horizon) {
+        // Réglages historiques → piste principale
+        mainTrack.rootNote = rootNote;
+        mainTrack.scale = currentScale;
+        mainTrack.randomNotes = randomNotes;
+        mainTrack.randomRhythm = randomRhythm;
+        mainPattern.length = numSteps;
+
+        final SequencerTrack[] current = tracks;
+        final double tempo = tempo();
+        long time = Long.MAX_VALUE;
+        for (SequencerTrack track : current) {
+            // Piste ajoutée (ou lecture relancée) : calée sur le prochain pas de la piste principale
+            if (track.run != run) track.reset(mainTrack.nextStepTime(), run);
+            time = Math.min(time, track.nextStepTime());
+        }
 
-                noteToPlay = rootNote + intervals[intervalIndex] + (octave * 12);
+        while (time < horizon) {
+            long next = Long.MAX_VALUE;
+            for (SequencerTrack track : current) {
+                if (track.nextStepTime() <= time) {
+                    track.renderStep(tempo, sampleRate, pendingNotes, pendingReleases, random);
+                }
+                next = Math.min(next, track.nextStepTime());
             }
-
-            // 5. Jouer la note
-            audioEngine.noteOn(noteToPlay, 100);
-            lastNotePlayed = noteToPlay;
+            time = next;
         }
+        nextRenderTime = time;
     }
 
     // Renommée (était generateDefaultPattern)
@@ -122,12 +243,4 @@ public class StepSequencer implements Runnable {
             scaleDegrees[i] = i % intervals.length;
         }
     }
-
-    // Génère une note aléatoire (inchangé)
-    private int generateRandomNoteInScale() {
-        int[] intervals = currentScale.getIntervals();
-        int intervalIndex = random.nextInt(intervals.length);
-        int octave = random.nextInt(3) - 1;
-        return rootNote + intervals[intervalIndex] + (octave * 12);
-    }
-}
\ No newline at end of file
+}
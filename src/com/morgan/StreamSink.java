@@ -0,0 +1,77 @@
+package com.morgan;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.file.Path;
+
+/**
+ * Flux PCM brut (entrelacé, petit-boutiste, sans en-tête) vers une connexion TCP,
+ * un tube nommé ou la sortie standard. Le flux est ouvert par le thread audio dans open() ;
+ * une écriture bloque tant que le lecteur ne suit pas (contre-pression = horloge).
+ */
+public class StreamSink implements AudioSink {
+
+    /** Ouverture différée du flux (elle peut bloquer : connexion, tube sans lecteur). */
+    public interface StreamOpener {
+        OutputStream open() throws IOException;
+    }
+
+    private final String name;
+    private final StreamOpener opener;
+    private OutputStream stream;
+    private SampleFormat sampleFormat;
+    private int channels;
+    private byte[] buffer;
+
+    public StreamSink(String name, StreamOpener opener) {
+        this.name = name;
+        this.opener = opener;
+    }
+
+    public static StreamSink socket(String host, int port) {
+        return new StreamSink("socket " + host + ":" + port, () -> {
+            Socket socket = new Socket(host, port);
+            socket.setTcpNoDelay(true); // Une période par paquet, sans attendre
+            return socket.getOutputStream();
+        });
+    }
+
+    public static StreamSink pipe(Path path) {
+        return new StreamSink("tube " + path, () -> new FileOutputStream(path.toFile()));
+    }
+
+    /** Sortie standard du processus : les messages doivent alors passer par System.err. */
+    public static StreamSink standardOutput() {
+        return new StreamSink("sortie standard", () -> new FileOutputStream(FileDescriptor.out));
+    }
+
+    @Override
+    public void open(float sampleRate, OutputConfig config) throws IOException {
+        sampleFormat = config.sampleFormat;
+        channels = config.channels;
+        buffer = new byte[config.periodFrames * channels * sampleFormat.bytesPerSample()];
+        stream = opener.open();
+    }
+
+    @Override
+    public void write(double[] block, int frames) throws IOException {
+        int samples = frames * channels;
+        sampleFormat.convert(block, samples, buffer, 0);
+        stream.write(buffer, 0, samples * sampleFormat.bytesPerSample());
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
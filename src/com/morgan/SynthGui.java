@@ -5,6 +5,10 @@ import javax.swing.event.ChangeListener;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -16,8 +20,16 @@ public class SynthGui extends JFrame {
 
     private AudioEngine audioEngine;
     private StepSequencer sequencer;
+    // File de commandes propre au thread Swing (vidée par le thread audio)
+    private final ControlQueue controlQueue;
     private JButton learnButton;
 
+    // Resynchronisation des contrôles sur le moteur quand un preset prend effet (thread Swing).
+    // Pendant la mise à jour, les listeners ne renvoient rien au moteur.
+    private final List<Runnable> refreshers = new ArrayList<>();
+    private boolean refreshing = false;
+    private long shownPresets;
+
     // --- Classe interne pour représenter une note dans les ComboBox ---
     private static class NoteEntry {
         String name;
@@ -36,6 +48,7 @@ public class SynthGui extends JFrame {
     public SynthGui(AudioEngine engine, StepSequencer seq) {
         this.audioEngine = engine;
         this.sequencer = seq;
+        this.controlQueue = engine.createControlQueue();
 
         setTitle("Synthétiseur Modulaire");
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -46,14 +59,29 @@ public class SynthGui extends JFrame {
 
         // Ordre des panneaux - le nouveau panneau Learn est ajouté en premier
         mainRack.add(createLearnControlPanel());
+        mainRack.add(createPresetPanel());
+        mainRack.add(createMeterPanel());
         mainRack.add(createMixerPanel());   // Inclut Master Volume
         mainRack.add(createEnvelopePanel());
         mainRack.add(createOscillatorPanel("OSC 1", audioEngine.osc1));
         mainRack.add(createOscillatorPanel("OSC 2", audioEngine.osc2));
         mainRack.add(createFilterPanel());  // Utilise GridBagLayout
+        mainRack.add(createModulationPanel());
+        mainRack.add(createEffectsPanel());
         mainRack.add(createSequencerPanel());
         mainRack.add(createStepGridPanel());
 
+        // Preset appliqué par le thread audio (fichier, banque) : les contrôles reprennent ses valeurs
+        shownPresets = audioEngine.getAppliedPresetCount();
+        Timer presetTimer = new Timer(100, e -> {
+            long applied = audioEngine.getAppliedPresetCount();
+            if (applied != shownPresets) {
+                shownPresets = applied;
+                refreshControls();
+            }
+        });
+        presetTimer.start();
+
         JScrollPane scrollPane = new JScrollPane(mainRack);
         scrollPane.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
         add(scrollPane, BorderLayout.CENTER);
@@ -78,6 +106,133 @@ public class SynthGui extends JFrame {
         return panel;
     }
 
+    // --- PANNEAU PRESETS : fichiers .msyp, banques .msyb, export JSON ---
+    // Lecture et décodage sur un thread à part ; le moteur applique le preset au début d'un bloc,
+    // puis les contrôles sont resynchronisés (refreshControls).
+    private JPanel createPresetPanel() {
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        panel.setBorder(BorderFactory.createTitledBorder("Presets"));
+
+        JButton saveButton = new JButton("Sauver...");
+        saveButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            Path file = withExtension(chooser.getSelectedFile().toPath(), PresetFormat.EXTENSION);
+            Preset preset = Preset.capture(audioEngine, stripExtension(file.getFileName().toString()));
+            runInBackground("Sauvegarde du preset", () -> PresetFormat.write(preset, file));
+        });
+
+        JButton exportButton = new JButton("Exporter JSON...");
+        exportButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            Path file = withExtension(chooser.getSelectedFile().toPath(), ".json");
+            Preset preset = Preset.capture(audioEngine, stripExtension(file.getFileName().toString()));
+            runInBackground("Export JSON", () -> PresetFormat.writeJson(preset, audioEngine.parameters, file));
+        });
+
+        JButton loadButton = new JButton("Charger...");
+        loadButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            Path file = chooser.getSelectedFile().toPath();
+            runInBackground("Chargement du preset", () -> audioEngine.loadPreset(PresetFormat.read(file)));
+        });
+
+        // Banque : liste des noms (index seulement), chargement à la sélection
+        JComboBox<String> bankBox = new JComboBox<>();
+        bankBox.setEnabled(false);
+        PresetBank[] bank = new PresetBank[1];
+        JButton bankButton = new JButton("Ouvrir une banque...");
+        bankButton.addActionListener(e -> {
+            JFileChooser chooser = new JFileChooser();
+            if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION) return;
+            try {
+                bank[0] = PresetBank.open(chooser.getSelectedFile().toPath());
+            } catch (IOException ex) {
+                JOptionPane.showMessageDialog(this, ex.getMessage(), "Banque de presets", JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            DefaultComboBoxModel<String> model = new DefaultComboBoxModel<>();
+            for (int i = 0; i < bank[0].size(); i++) {
+                model.addElement(bank[0].getName(i));
+            }
+            bankBox.setModel(model);
+            bankBox.setSelectedIndex(-1);
+            bankBox.setEnabled(true);
+        });
+        bankBox.addActionListener(e -> {
+            int index = bankBox.getSelectedIndex();
+            PresetBank current = bank[0];
+            if (index < 0 || current == null) return;
+            runInBackground("Chargement du preset", () -> audioEngine.loadPreset(current.load(index)));
+        });
+
+        panel.add(saveButton);
+        panel.add(loadButton);
+        panel.add(exportButton);
+        panel.add(bankButton);
+        panel.add(bankBox);
+        return panel;
+    }
+
+    // Recopie dans les contrôles les valeurs du patch (registre, matrice, séquenceur), sans les renvoyer
+    private void refreshControls() {
+        refreshing = true;
+        try {
+            for (Runnable refresher : refreshers) {
+                refresher.run();
+            }
+        } finally {
+            refreshing = false;
+        }
+    }
+
+    // Position d'un slider depuis la valeur du registre (inverse de la conversion slider -> MIDI des listeners)
+    private void refreshSlider(String paramName, JSlider slider, int maxRange) {
+        Parameter parameter = audioEngine.parameters.get(paramName);
+        refreshers.add(() -> slider.setValue((int) Math.round(parameter.toMidi(parameter.get()) * maxRange / 127.0)));
+    }
+
+    // Index d'une liste de choix = valeur entière du paramètre (ordinal, index de table)
+    private void refreshChoice(String paramName, JComboBox<?> box) {
+        Parameter parameter = audioEngine.parameters.get(paramName);
+        refreshers.add(() -> box.setSelectedIndex((int) parameter.get()));
+    }
+
+    private void refreshCheck(String paramName, JCheckBox check) {
+        Parameter parameter = audioEngine.parameters.get(paramName);
+        refreshers.add(() -> check.setSelected(parameter.get() != 0.0));
+    }
+
+    private interface PresetTask {
+        void run() throws IOException;
+    }
+
+    // Entrées/sorties hors du thread Swing ; les erreurs reviennent dans une boîte de dialogue
+    private void runInBackground(String title, PresetTask task) {
+        Thread worker = new Thread(() -> {
+            try {
+                task.run();
+            } catch (IOException | RuntimeException ex) {
+                SwingUtilities.invokeLater(() ->
+                        JOptionPane.showMessageDialog(this, ex.getMessage(), title, JOptionPane.ERROR_MESSAGE));
+            }
+        }, "presets");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    private static Path withExtension(Path file, String extension) {
+        String name = file.getFileName().toString();
+        return name.endsWith(extension) ? file : file.resolveSibling(name + extension);
+    }
+
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return (dot > 0) ? fileName.substring(0, dot) : fileName;
+    }
+
     private class LearnButtonListener implements ActionListener {
         @Override
         public void actionPerformed(ActionEvent e) {
@@ -95,11 +250,31 @@ public class SynthGui extends JFrame {
         }
     }
 
+    // Identifiant d'un paramètre du registre (résolu une fois, à la création du contrôle)
+    private int parameterId(String paramName) {
+        Parameter parameter = audioEngine.parameters.get(paramName);
+        if (parameter == null) throw new IllegalArgumentException("Paramètre inconnu : " + paramName);
+        return parameter.id;
+    }
+
     // --- Créateur de ChangeListener générique pour sliders qui supporte MIDI Learn ---
     private ChangeListener createParameterChangeListener(String paramName, JSlider slider, JLabel label, int maxRange, boolean isCents) {
+        final int parameterId = parameterId(paramName);
+        if (isCents) {
+            Parameter parameter = audioEngine.parameters.get(paramName);
+            refreshers.add(() -> slider.setValue((int) Math.round(parameter.get())));
+        } else {
+            refreshSlider(paramName, slider, maxRange);
+        }
         return e -> {
             int sliderValue = slider.getValue();
 
+            // 0) Resynchronisation sur un preset : seul le label suit
+            if (refreshing) {
+                updateLabel(label, sliderValue, maxRange, isCents);
+                return;
+            }
+
             // 1) MIDI Learn: si on est en mode "ACTIF", on attend que l'utilisateur clique un contrôle GUI
             if (SynthMain.MAPPING_STATE.awaitingParameter != null && SynthMain.MAPPING_STATE.awaitingParameter.equals("ACTIF")) {
                 // On assigne le nom de paramètre à attendre par le receveur MIDI
@@ -122,30 +297,36 @@ public class SynthGui extends JFrame {
                 if (midiValue > 127) midiValue = 127;
             }
 
-            // Envoi au moteur
-            audioEngine.handleMappedControl(paramName, midiValue);
+            // Envoi au moteur (appliqué par le thread audio au prochain bloc)
+            controlQueue.control(parameterId, midiValue);
 
             // 3) Mise à jour du label affiché
-            if (isCents) {
-                label.setText(String.valueOf(sliderValue));
-            } else if (maxRange == 100) {
-                double val = sliderValue / (double) maxRange;
-                label.setText(String.format("%.2f", val));
-            } else {
-                label.setText(String.valueOf(sliderValue));
-            }
+            updateLabel(label, sliderValue, maxRange, isCents);
         };
     }
 
+    private static void updateLabel(JLabel label, int sliderValue, int maxRange, boolean isCents) {
+        if (isCents) {
+            label.setText(String.valueOf(sliderValue));
+        } else if (maxRange == 100) {
+            double val = sliderValue / (double) maxRange;
+            label.setText(String.format("%.2f", val));
+        } else {
+            label.setText(String.valueOf(sliderValue));
+        }
+    }
+
     // Dans SynthGui.java (avant createMixerPanel)
 
-    // Crée un ChangeListener spécifique pour Attack et Release (Temps)
+    // Crée un ChangeListener spécifique pour les temps d'enveloppe (Attack, Hold, Decay, Release)
     private ChangeListener createEnvTimeChangeListener(String paramName, JSlider slider, JLabel label) {
+        final int parameterId = parameterId(paramName);
+        refreshSlider(paramName, slider, 100);
         return e -> {
             int sliderValue = slider.getValue();
 
             // 1. Logique MIDI Learn
-            if (SynthMain.MAPPING_STATE.awaitingParameter != null && SynthMain.MAPPING_STATE.awaitingParameter.equals("ACTIF")) {
+            if (!refreshing && SynthMain.MAPPING_STATE.awaitingParameter != null && SynthMain.MAPPING_STATE.awaitingParameter.equals("ACTIF")) {
                 SynthMain.MAPPING_STATE.awaitingParameter = paramName;
                 learnButton.setText("Prêt! Bougez CC# pour " + paramName);
                 return;
@@ -158,8 +339,8 @@ public class SynthGui extends JFrame {
             // 3. Conversion en valeur MIDI (0-127) pour le moteur
             int midiValue = (int)(((double)sliderValue / 100.0) * 127.0);
 
-            // 4. Mise à jour centralisée via handleMappedControl
-            audioEngine.handleMappedControl(paramName, midiValue);
+            // 4. Mise à jour centralisée via handleMappedControl (par la file de commandes)
+            if (!refreshing) controlQueue.control(parameterId, midiValue);
         };
     }
 
@@ -200,13 +381,136 @@ public class SynthGui extends JFrame {
         volumePanel.add(volumeLabel, BorderLayout.EAST);
         panel.add(volumePanel, gbc);
 
+        // Ligne 3: Panoramique de la sortie principale (-1 à +1 → slider 0..100)
+        gbc.gridx = 0; gbc.gridy = 2; gbc.weightx = 0; gbc.fill = GridBagConstraints.NONE;
+        panel.add(new JLabel("Pan:"), gbc);
+
+        gbc.gridx = 1; gbc.gridy = 2; gbc.weightx = 1.0; gbc.fill = GridBagConstraints.HORIZONTAL;
+        int panInitial = (int) Math.round((audioEngine.mainStrip.getPan() + 1.0) * 50);
+        JSlider panSlider = new JSlider(0, 100, panInitial);
+        JLabel panLabel = new JLabel(String.valueOf(panInitial));
+        panSlider.addChangeListener(createParameterChangeListener("main.pan", panSlider, panLabel, 100, false));
+        JPanel panPanel = new JPanel(new BorderLayout(5,0));
+        panPanel.add(panSlider, BorderLayout.CENTER);
+        panPanel.add(panLabel, BorderLayout.EAST);
+        panel.add(panPanel, gbc);
+
+        // Ligne 4: Écartement stéréo des voix (selon la note)
+        gbc.gridx = 0; gbc.gridy = 3; gbc.weightx = 0; gbc.fill = GridBagConstraints.NONE;
+        panel.add(new JLabel("Stereo Spread:"), gbc);
+
+        gbc.gridx = 1; gbc.gridy = 3; gbc.weightx = 1.0; gbc.fill = GridBagConstraints.HORIZONTAL;
+        int spreadInitial = (int) (audioEngine.voices.getPanSpread() * 100);
+        JSlider spreadSlider = new JSlider(0, 100, spreadInitial);
+        JLabel spreadLabel = new JLabel(String.valueOf(spreadInitial));
+        spreadSlider.addChangeListener(createParameterChangeListener("voices.panSpread", spreadSlider, spreadLabel, 100, false));
+        JPanel spreadPanel = new JPanel(new BorderLayout(5,0));
+        spreadPanel.add(spreadSlider, BorderLayout.CENTER);
+        spreadPanel.add(spreadLabel, BorderLayout.EAST);
+        panel.add(spreadPanel, gbc);
+
         // Panel vide pour prendre l'espace restant
-        gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 2; gbc.weighty = 1.0;
+        gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 2; gbc.weighty = 1.0;
         panel.add(new JPanel(), gbc);
 
         return panel;
     }
 
+    // --- PANNEAU CHARGE DSP (rafraîchi par un timer Swing, lit les compteurs sans toucher au thread audio) ---
+    private JPanel createMeterPanel() {
+        JPanel panel = new JPanel(new GridBagLayout());
+        panel.setBorder(BorderFactory.createTitledBorder("Charge DSP"));
+        RenderMetrics metrics = audioEngine.getRenderMetrics();
+
+        GridBagConstraints gbc = new GridBagConstraints();
+        gbc.insets = new Insets(2, 5, 2, 5);
+
+        // Ligne 1: barre de charge + histogramme
+        gbc.gridx = 0; gbc.gridy = 0; gbc.anchor = GridBagConstraints.WEST;
+        panel.add(new JLabel("Charge:"), gbc);
+
+        gbc.gridx = 1; gbc.weightx = 1.0; gbc.fill = GridBagConstraints.HORIZONTAL;
+        JProgressBar loadBar = new JProgressBar(0, 100);
+        loadBar.setStringPainted(true);
+        panel.add(loadBar, gbc);
+
+        gbc.gridx = 2; gbc.weightx = 0; gbc.fill = GridBagConstraints.NONE;
+        LoadHistogram histogram = new LoadHistogram();
+        panel.add(histogram, gbc);
+
+        // Ligne 2: détails
+        gbc.gridx = 0; gbc.gridy = 1; gbc.gridwidth = 3; gbc.fill = GridBagConstraints.HORIZONTAL;
+        JLabel details = new JLabel(" ");
+        panel.add(details, gbc);
+
+        // Ligne 3: profilage par module + remise à zéro
+        gbc.gridy = 2;
+        JPanel profilingPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 5, 0));
+        JCheckBox profilingCheck = new JCheckBox("Profiler les modules");
+        profilingCheck.addActionListener(e -> metrics.setProfiling(profilingCheck.isSelected()));
+        JButton resetButton = new JButton("Reset pics");
+        resetButton.addActionListener(e -> metrics.reset());
+        JLabel modules = new JLabel(" ");
+        profilingPanel.add(profilingCheck);
+        profilingPanel.add(resetButton);
+        profilingPanel.add(modules);
+        panel.add(profilingPanel, gbc);
+
+        Timer meterTimer = new Timer(200, e -> {
+            double load = metrics.getLoadPercent();
+            loadBar.setValue((int) Math.min(100.0, load));
+            loadBar.setString(String.format("%.1f %%", load));
+            loadBar.setForeground(load < 70.0 ? new Color(60, 160, 60) : (load < 90.0 ? Color.ORANGE : Color.RED));
+            histogram.update(metrics.getLoadHistogram());
+
+            OutputStats output = audioEngine.getOutputStats();
+            details.setText(String.format("moy %.1f %%  pic %.1f %%  rendu max %.0f µs  échéances manquées %d  underruns %d  voix %d (max %d)",
+                    metrics.getAverageLoadPercent(), metrics.getPeakLoadPercent(), metrics.getMaxRenderMicros(),
+                    metrics.getDeadlineMisses(), output.getUnderruns(), metrics.getActiveVoices(), metrics.getMaxActiveVoices()));
+
+            if (metrics.isProfiling()) {
+                StringBuilder text = new StringBuilder();
+                for (Map.Entry<String, Double> entry : EngineMonitor.moduleLoads(audioEngine).entrySet()) {
+                    text.append(String.format("%s %.1f %%  ", entry.getKey(), entry.getValue()));
+                }
+                modules.setText(text.toString());
+            } else {
+                modules.setText(" ");
+            }
+        });
+        meterTimer.start();
+
+        return panel;
+    }
+
+    // Mini histogramme de charge (tranches de 10 %, la dernière = au-delà de 100 %)
+    private static class LoadHistogram extends JComponent {
+        private long[] counts = new long[RenderMetrics.HISTOGRAM_BUCKETS];
+
+        LoadHistogram() {
+            setPreferredSize(new Dimension(RenderMetrics.HISTOGRAM_BUCKETS * 8, 24));
+            setToolTipText("Histogramme de charge par tranche de 10 %");
+        }
+
+        void update(long[] counts) {
+            this.counts = counts;
+            repaint();
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            long max = 1;
+            for (long count : counts) max = Math.max(max, count);
+            int barWidth = getWidth() / counts.length;
+            for (int i = 0; i < counts.length; i++) {
+                // Échelle logarithmique : les rares blocs lents restent visibles
+                int height = (int) (getHeight() * Math.log1p(counts[i]) / Math.log1p(max));
+                g.setColor(i < 7 ? new Color(60, 160, 60) : (i < 9 ? Color.ORANGE : Color.RED));
+                g.fillRect(i * barWidth, getHeight() - height, barWidth - 1, height);
+            }
+        }
+    }
+
     // --- PANNEAU FILTRE (Nouvelle Disposition) ---
     private JPanel createFilterPanel() {
         JPanel panel = new JPanel(new GridBagLayout());
@@ -244,69 +548,272 @@ public class SynthGui extends JFrame {
         resonancePanel.add(resonanceLabel, BorderLayout.EAST);
         panel.add(resonancePanel, gbc);
 
-        gbc.gridx = 0; gbc.gridy = 2; gbc.gridwidth = 2; gbc.weighty = 1.0;
+        // Type de filtre : classique ou ZDF (SVF multimode / ladder 4 pôles)
+        gbc.gridx = 0; gbc.gridy = 2; gbc.weightx = 0; gbc.fill = GridBagConstraints.NONE;
+        panel.add(new JLabel("Mode:"), gbc);
+
+        gbc.gridx = 1; gbc.gridy = 2; gbc.weightx = 1.0; gbc.fill = GridBagConstraints.HORIZONTAL;
+        JComboBox<Filter.Mode> modeBox = new JComboBox<>(Filter.Mode.values());
+        modeBox.setSelectedItem(audioEngine.filter.mode);
+        refreshChoice("filter.mode", modeBox);
+        modeBox.addActionListener(e -> {
+            if (refreshing) return;
+            Filter.Mode mode = (Filter.Mode) modeBox.getSelectedItem();
+            controlQueue.parameter(ParameterIds.FILTER_MODE, mode.ordinal());
+        });
+        panel.add(modeBox, gbc);
+
+        // Suréchantillonnage du filtre (anti-repliement de l'écrêtage), appliqué à toutes les voix
+        gbc.gridx = 0; gbc.gridy = 3; gbc.weightx = 0; gbc.fill = GridBagConstraints.NONE;
+        panel.add(new JLabel("Suréchantillonnage:"), gbc);
+
+        gbc.gridx = 1; gbc.gridy = 3; gbc.weightx = 1.0; gbc.fill = GridBagConstraints.HORIZONTAL;
+        JComboBox<String> oversamplingBox = new JComboBox<>();
+        for (int factor : Oversampler.FACTORS) {
+            oversamplingBox.addItem(factor + "x");
+        }
+        oversamplingBox.setSelectedItem(audioEngine.filterOversampling + "x");
+        refreshChoice("filter.oversampling", oversamplingBox);
+        oversamplingBox.addActionListener(e -> {
+            if (!refreshing) controlQueue.parameter(ParameterIds.FILTER_OVERSAMPLING, oversamplingBox.getSelectedIndex());
+        });
+        panel.add(oversamplingBox, gbc);
+
+        gbc.gridx = 0; gbc.gridy = 4; gbc.gridwidth = 2; gbc.weighty = 1.0;
         panel.add(new JPanel(), gbc);
 
         return panel;
     }
 
-    // --- PANNEAU ENVELOPE (AR) ---
+    // --- PANNEAU ENVELOPE (AHDSR) ---
     // --- PANNEAU ENVELOPE (FIXÉ pour l'Alignement) ---
     private JPanel createEnvelopePanel() {
         // Utilisation du GridLayout simple (2 colonnes) pour un empilement vertical stable
         JPanel panel = new JPanel(new GridLayout(0, 2, 10, 5));
-        panel.setBorder(BorderFactory.createTitledBorder("Envelope (AR)"));
+        panel.setBorder(BorderFactory.createTitledBorder("Envelope (AHDSR)"));
 
-        // Ligne 1: Attack (s)
-        panel.add(new JLabel("Attack (s):")); // Colonne 1
+        EnvelopeGenerator env = audioEngine.vcaEnv;
+        addEnvelopeTimeRow(panel, "Attack (s):", "envelope.attack", env.attackTime);
+        addEnvelopeTimeRow(panel, "Hold (s):", "envelope.hold", env.holdTime);
+        addEnvelopeTimeRow(panel, "Decay (s):", "envelope.decay", env.decayTime);
+        addEnvelopeLevelRow(panel, "Sustain:", "envelope.sustain", env.sustainLevel);
+        addEnvelopeTimeRow(panel, "Release (s):", "envelope.release", env.releaseTime);
+        addEnvelopeLevelRow(panel, "Vélocité:", "envelope.velocity", env.velocitySensitivity);
 
-        int attackInitial = (int) (audioEngine.vcaEnv.attackTime * 50);
-        JSlider attackSlider = new JSlider(0, 100, attackInitial);
-        JLabel attackLabel = new JLabel(String.format("%.2f", audioEngine.vcaEnv.attackTime));
+        // Aucune cellule vide n'est nécessaire car GridLayout(0, 2) est parfaitement rempli.
+        return panel;
+    }
+
+    // Ligne "temps" : slider 0..100 -> 0.0..2.0 s
+    private void addEnvelopeTimeRow(JPanel panel, String title, String paramName, double seconds) {
+        panel.add(new JLabel(title)); // Colonne 1
 
-        // Listener
-        attackSlider.addChangeListener(createEnvTimeChangeListener("envelope.attack", attackSlider, attackLabel));
+        JSlider slider = new JSlider(0, 100, (int) (seconds * 50));
+        JLabel label = new JLabel(String.format("%.2f", seconds));
+        slider.addChangeListener(createEnvTimeChangeListener(paramName, slider, label));
 
         // Empaquetage : Slider + Label de Valeur dans un sous-panneau (Colonne 2)
-        JPanel attackPanel = new JPanel(new BorderLayout(5, 0));
-        attackPanel.add(attackSlider, BorderLayout.CENTER);
-        attackPanel.add(attackLabel, BorderLayout.EAST);
-        panel.add(attackPanel);
+        JPanel rowPanel = new JPanel(new BorderLayout(5, 0));
+        rowPanel.add(slider, BorderLayout.CENTER);
+        rowPanel.add(label, BorderLayout.EAST);
+        panel.add(rowPanel);
+    }
 
-        // Ligne 2: Release (s)
-        panel.add(new JLabel("Release (s):")); // Colonne 1
+    // Ligne "niveau" : slider 0..100 -> 0.0..1.0
+    private void addEnvelopeLevelRow(JPanel panel, String title, String paramName, double level) {
+        panel.add(new JLabel(title));
 
-        int releaseInitial = (int) (audioEngine.vcaEnv.releaseTime * 50);
-        JSlider releaseSlider = new JSlider(0, 100, releaseInitial);
-        JLabel releaseLabel = new JLabel(String.format("%.2f", audioEngine.vcaEnv.releaseTime));
+        JSlider slider = new JSlider(0, 100, (int) (level * 100));
+        JLabel label = new JLabel(String.format("%.2f", level));
+        slider.addChangeListener(createParameterChangeListener(paramName, slider, label, 100, false));
 
-        // Listener
-        releaseSlider.addChangeListener(createEnvTimeChangeListener("envelope.release", releaseSlider, releaseLabel));
+        JPanel rowPanel = new JPanel(new BorderLayout(5, 0));
+        rowPanel.add(slider, BorderLayout.CENTER);
+        rowPanel.add(label, BorderLayout.EAST);
+        panel.add(rowPanel);
+    }
 
-        // Empaquetage : Slider + Label de Valeur dans un sous-panneau (Colonne 2)
-        JPanel releasePanel = new JPanel(new BorderLayout(5, 0));
-        releasePanel.add(releaseSlider, BorderLayout.CENTER);
-        releasePanel.add(releaseLabel, BorderLayout.EAST);
-        panel.add(releasePanel);
+    // --- PANNEAU MODULATION (LFO, enveloppe de modulation, routes de la matrice) ---
+    private static final int GUI_ROUTES = 4;
 
-        // Aucune cellule vide n'est nécessaire car GridLayout(0, 2) est parfaitement rempli.
+    private JPanel createModulationPanel() {
+        JPanel panel = new JPanel(new GridLayout(0, 2, 10, 5));
+        panel.setBorder(BorderFactory.createTitledBorder("Modulation"));
+        ModulationMatrix matrix = audioEngine.modulation;
+
+        addLfoRows(panel, "LFO 1", "lfo1", matrix.lfo1);
+        addLfoRows(panel, "LFO 2", "lfo2", matrix.lfo2);
+
+        EnvelopeGenerator modEnv = matrix.modEnv;
+        addEnvelopeTimeRow(panel, "Mod Env Attack (s):", "modenv.attack", modEnv.attackTime);
+        addEnvelopeTimeRow(panel, "Mod Env Decay (s):", "modenv.decay", modEnv.decayTime);
+        addEnvelopeLevelRow(panel, "Mod Env Sustain:", "modenv.sustain", modEnv.sustainLevel);
+        addEnvelopeTimeRow(panel, "Mod Env Release (s):", "modenv.release", modEnv.releaseTime);
+
+        // Les routes sont éditées directement dans la matrice (thread-safe, recompilée à chaque changement)
+        for (int slot = 0; slot < GUI_ROUTES; slot++) {
+            addRouteRow(panel, matrix, slot);
+        }
+        return panel;
+    }
+
+    // --- PANNEAU EFFETS (rack de sortie : chorus → délai → réverbération) ---
+    private JPanel createEffectsPanel() {
+        JPanel panel = new JPanel(new GridLayout(0, 2, 10, 5));
+        panel.setBorder(BorderFactory.createTitledBorder("Effets"));
+
+        addEffectSwitchRow(panel, "Chorus", "chorus.enabled", audioEngine.chorus);
+        addEnvelopeLevelRow(panel, "Chorus Depth:", "chorus.depth", audioEngine.chorus.depth);
+        addEnvelopeLevelRow(panel, "Chorus Mix:", "chorus.mix", audioEngine.chorus.mix);
+
+        addEffectSwitchRow(panel, "Delay", "delay.enabled", audioEngine.delay);
+        panel.add(new JLabel("Delay (tempo):"));
+        JComboBox<String> divisionBox = new JComboBox<>(Delay.DIVISION_NAMES);
+        divisionBox.setSelectedIndex(audioEngine.delay.division);
+        refreshChoice("delay.division", divisionBox);
+        divisionBox.addActionListener(e -> {
+            if (!refreshing) controlQueue.parameter(ParameterIds.DELAY_DIVISION, divisionBox.getSelectedIndex());
+        });
+        panel.add(divisionBox);
+        addEnvelopeLevelRow(panel, "Delay Feedback:", "delay.feedback", audioEngine.delay.feedback);
+        addEnvelopeLevelRow(panel, "Delay Mix:", "delay.mix", audioEngine.delay.mix);
+
+        addEffectSwitchRow(panel, "Reverb", "reverb.enabled", audioEngine.reverb);
+        addEnvelopeLevelRow(panel, "Reverb Size:", "reverb.size", audioEngine.reverb.roomSize);
+        addEnvelopeLevelRow(panel, "Reverb Damping:", "reverb.damping", audioEngine.reverb.damping);
+        addEnvelopeLevelRow(panel, "Reverb Mix:", "reverb.mix", audioEngine.reverb.mix);
         return panel;
     }
 
+    private void addEffectSwitchRow(JPanel panel, String title, String paramName, Effect effect) {
+        final int enabledId = parameterId(paramName);
+        panel.add(new JLabel(title + ":"));
+        JCheckBox enabledCheck = new JCheckBox("Actif", !effect.isBypassed());
+        refreshCheck(paramName, enabledCheck);
+        enabledCheck.addActionListener(e -> controlQueue.parameter(enabledId, enabledCheck.isSelected() ? 1.0 : 0.0));
+        panel.add(enabledCheck);
+    }
+
+    private void addLfoRows(JPanel panel, String title, String prefix, Lfo lfo) {
+        final int shapeId = parameterId(prefix + ".shape");
+        panel.add(new JLabel(title + " forme:"));
+        JComboBox<Lfo.Shape> shapeBox = new JComboBox<>(Lfo.Shape.values());
+        shapeBox.setSelectedItem(lfo.shape);
+        refreshChoice(prefix + ".shape", shapeBox);
+        shapeBox.addActionListener(e -> {
+            if (refreshing) return;
+            Lfo.Shape shape = (Lfo.Shape) shapeBox.getSelectedItem();
+            controlQueue.parameter(shapeId, shape.ordinal());
+        });
+        panel.add(shapeBox);
+
+        // Vitesse : slider 0..100 -> 0.05..20 Hz (exponentiel, comme handleMappedControl)
+        panel.add(new JLabel(title + " vitesse (Hz):"));
+        int position = (int) Math.round(100.0 * Math.log(lfo.rate / 0.05) / Math.log(400.0));
+        JSlider rateSlider = new JSlider(0, 100, Math.max(0, Math.min(100, position)));
+        JLabel rateLabel = new JLabel(String.format("%.2f", lfo.rate));
+        ChangeListener control = createParameterChangeListener(prefix + ".rate", rateSlider, rateLabel, 100, false);
+        rateSlider.addChangeListener(e -> {
+            control.stateChanged(e);
+            rateLabel.setText(String.format("%.2f", 0.05 * Math.pow(400.0, rateSlider.getValue() / 100.0)));
+        });
+        JPanel ratePanel = new JPanel(new BorderLayout(5, 0));
+        ratePanel.add(rateSlider, BorderLayout.CENTER);
+        ratePanel.add(rateLabel, BorderLayout.EAST);
+        panel.add(ratePanel);
+    }
+
+    // Une route : source -> destination, profondeur -100..100 %
+    private void addRouteRow(JPanel panel, ModulationMatrix matrix, int slot) {
+        JComboBox<String> sourceBox = new JComboBox<>();
+        sourceBox.addItem("—");
+        for (ModulationMatrix.Source source : ModulationMatrix.SOURCES) {
+            sourceBox.addItem(source.name());
+        }
+        JComboBox<String> destinationBox = new JComboBox<>();
+        destinationBox.addItem("—");
+        for (ModulationMatrix.Destination destination : ModulationMatrix.DESTINATIONS) {
+            destinationBox.addItem(destination.name());
+        }
+        JSlider depthSlider = new JSlider(-100, 100, 0);
+        JLabel depthLabel = new JLabel("0.00");
+
+        Runnable update = () -> {
+            depthLabel.setText(String.format("%.2f", depthSlider.getValue() / 100.0));
+            if (refreshing) return;
+            int source = sourceBox.getSelectedIndex() - 1;
+            int destination = destinationBox.getSelectedIndex() - 1;
+            double depth = depthSlider.getValue() / 100.0;
+            if (source < 0 || destination < 0) {
+                matrix.clearRoute(slot);
+            } else {
+                matrix.setRoute(slot, ModulationMatrix.SOURCES[source], ModulationMatrix.DESTINATIONS[destination], depth);
+            }
+        };
+        sourceBox.addActionListener(e -> update.run());
+        destinationBox.addActionListener(e -> update.run());
+        depthSlider.addChangeListener(e -> update.run());
+        refreshers.add(() -> {
+            ModulationMatrix.Source source = matrix.getSource(slot);
+            ModulationMatrix.Destination destination = matrix.getDestination(slot);
+            boolean used = source != null && destination != null;
+            sourceBox.setSelectedIndex(used ? source.ordinal() + 1 : 0);
+            destinationBox.setSelectedIndex(used ? destination.ordinal() + 1 : 0);
+            depthSlider.setValue(used ? (int) Math.round(matrix.getDepth(slot) * 100.0) : 0);
+        });
+
+        JPanel routingPanel = new JPanel(new GridLayout(1, 2, 5, 0));
+        routingPanel.add(sourceBox);
+        routingPanel.add(destinationBox);
+        panel.add(routingPanel);
+
+        JPanel depthPanel = new JPanel(new BorderLayout(5, 0));
+        depthPanel.add(depthSlider, BorderLayout.CENTER);
+        depthPanel.add(depthLabel, BorderLayout.EAST);
+        panel.add(depthPanel);
+    }
+
     // --- PANNEAU OSCILLATEUR ---
     private JPanel createOscillatorPanel(String title, Oscillator osc) {
         JPanel panel = new JPanel(new GridLayout(0, 2, 10, 5));
         panel.setBorder(BorderFactory.createTitledBorder(title));
+        String prefix = title.equals("OSC 1") ? "osc1" : "osc2";
+        final int waveformId = parameterId(prefix + ".waveform");
+        final int wavetableId = parameterId(prefix + ".wavetable");
+        final int interpolationId = parameterId(prefix + ".interpolation");
+        final int octaveId = parameterId(prefix + ".octave");
 
         // Waveform
         panel.add(new JLabel("Forme d'onde:"));
         JComboBox<Oscillator.Waveform> waveBox = new JComboBox<>(Oscillator.Waveform.values());
         waveBox.setSelectedItem(osc.waveform);
+        refreshChoice(prefix + ".waveform", waveBox);
         waveBox.addActionListener(e -> {
-            osc.setWaveform((Oscillator.Waveform) waveBox.getSelectedItem());
+            if (refreshing) return;
+            Oscillator.Waveform waveform = (Oscillator.Waveform) waveBox.getSelectedItem();
+            controlQueue.parameter(waveformId, waveform.ordinal());
         });
         panel.add(waveBox);
 
+        // Table d'ondes à bande limitée (anti-aliasing) + interpolation
+        panel.add(new JLabel("Table d'ondes (anti-aliasing):"));
+        JCheckBox wavetableCheck = new JCheckBox();
+        wavetableCheck.setSelected(osc.wavetable);
+        refreshCheck(prefix + ".wavetable", wavetableCheck);
+        wavetableCheck.addActionListener(e -> controlQueue.parameter(wavetableId, wavetableCheck.isSelected() ? 1.0 : 0.0));
+        panel.add(wavetableCheck);
+
+        panel.add(new JLabel("Interpolation:"));
+        JComboBox<Oscillator.Interpolation> interpolationBox = new JComboBox<>(Oscillator.Interpolation.values());
+        interpolationBox.setSelectedItem(osc.interpolation);
+        refreshChoice(prefix + ".interpolation", interpolationBox);
+        interpolationBox.addActionListener(e -> {
+            if (refreshing) return;
+            Oscillator.Interpolation interpolation = (Oscillator.Interpolation) interpolationBox.getSelectedItem();
+            controlQueue.parameter(interpolationId, interpolation.ordinal());
+        });
+        panel.add(interpolationBox);
+
         // Octave
         panel.add(new JLabel("Octave:"));
         JSlider octaveSlider = new JSlider(-2, 2, osc.octave);
@@ -314,9 +821,10 @@ public class SynthGui extends JFrame {
         octaveSlider.setPaintTicks(true);
         octaveSlider.setPaintLabels(true);
         octaveSlider.setSnapToTicks(true);
+        Parameter octave = audioEngine.parameters.get(octaveId);
+        refreshers.add(() -> octaveSlider.setValue((int) octave.get()));
         octaveSlider.addChangeListener(e -> {
-            osc.octave = octaveSlider.getValue();
-            osc.updateFrequency();
+            if (!refreshing) controlQueue.parameter(octaveId, octaveSlider.getValue());
         });
         panel.add(octaveSlider);
 
@@ -325,7 +833,7 @@ public class SynthGui extends JFrame {
         JSlider pitchSlider = new JSlider(-100, 100, osc.pitchCents);
         JLabel pitchLabel = new JLabel(String.valueOf(osc.pitchCents));
         // maxRange = 200 (pour -100..100). isCents = true
-        pitchSlider.addChangeListener(createParameterChangeListener(title.equals("OSC 1") ? "osc1.pitch" : "osc2.pitch", pitchSlider, pitchLabel, 200, true));
+        pitchSlider.addChangeListener(createParameterChangeListener(prefix + ".pitch", pitchSlider, pitchLabel, 200, true));
         panel.add(pitchSlider);
         panel.add(pitchLabel);
 
@@ -359,9 +867,10 @@ public class SynthGui extends JFrame {
         JSlider bpmSlider = new JSlider(60, 240, (int) sequencer.bpm);
         JLabel bpmLabel = new JLabel(String.valueOf((int) sequencer.bpm));
         bpmSlider.addChangeListener(e -> {
-            sequencer.bpm = bpmSlider.getValue();
+            if (!refreshing) sequencer.bpm = bpmSlider.getValue();
             bpmLabel.setText(String.valueOf(bpmSlider.getValue()));
         });
+        refreshers.add(() -> bpmSlider.setValue((int) Math.round(sequencer.bpm)));
         bpmPanel.add(bpmSlider, BorderLayout.CENTER);
         bpmPanel.add(bpmLabel, BorderLayout.EAST);
         panel.add(bpmPanel, gbc);
@@ -385,10 +894,11 @@ public class SynthGui extends JFrame {
         if (defaultNote != null) rootNoteBox.setSelectedItem(defaultNote);
         rootNoteBox.addActionListener(e -> {
             NoteEntry selected = (NoteEntry) rootNoteBox.getSelectedItem();
-            if (selected != null) {
+            if (selected != null && !refreshing) {
                 sequencer.rootNote = selected.midiValue;
             }
         });
+        refreshers.add(() -> rootNoteBox.setSelectedItem(new NoteEntry("", sequencer.rootNote)));
         panel.add(rootNoteBox, gbc);
 
         // Scale selection
@@ -398,7 +908,10 @@ public class SynthGui extends JFrame {
         gbc.gridx = 1; gbc.gridy = 2; gbc.gridwidth = 2; gbc.weightx = 1.0; gbc.fill = GridBagConstraints.HORIZONTAL;
         JComboBox<ScaleType> scaleBox = new JComboBox<>(ScaleType.values());
         scaleBox.setSelectedItem(sequencer.currentScale);
-        scaleBox.addActionListener(e -> sequencer.currentScale = (ScaleType) scaleBox.getSelectedItem());
+        scaleBox.addActionListener(e -> {
+            if (!refreshing) sequencer.currentScale = (ScaleType) scaleBox.getSelectedItem();
+        });
+        refreshers.add(() -> scaleBox.setSelectedItem(sequencer.currentScale));
         panel.add(scaleBox, gbc);
 
         // Steps
@@ -412,7 +925,10 @@ public class SynthGui extends JFrame {
         stepsSlider.setPaintTicks(true);
         stepsSlider.setPaintLabels(true);
         stepsSlider.setSnapToTicks(true);
-        stepsSlider.addChangeListener(e -> sequencer.numSteps = stepsSlider.getValue());
+        stepsSlider.addChangeListener(e -> {
+            if (!refreshing) sequencer.numSteps = stepsSlider.getValue();
+        });
+        refreshers.add(() -> stepsSlider.setValue(sequencer.numSteps));
         panel.add(stepsSlider, gbc);
 
         // Random checkboxes
@@ -420,12 +936,14 @@ public class SynthGui extends JFrame {
         JCheckBox randomNotes = new JCheckBox("Notes Aléatoires");
         randomNotes.setSelected(sequencer.randomNotes);
         randomNotes.addActionListener(e -> sequencer.randomNotes = randomNotes.isSelected());
+        refreshers.add(() -> randomNotes.setSelected(sequencer.randomNotes));
         panel.add(randomNotes, gbc);
 
         gbc.gridx = 1; gbc.gridy = 4;
         JCheckBox randomRhythm = new JCheckBox("Rythme Aléatoire");
         randomRhythm.setSelected(sequencer.randomRhythm);
         randomRhythm.addActionListener(e -> sequencer.randomRhythm = randomRhythm.isSelected());
+        refreshers.add(() -> randomRhythm.setSelected(sequencer.randomRhythm));
         panel.add(randomRhythm, gbc);
 
         gbc.gridx = 0; gbc.gridy = 5; gbc.gridwidth = 3; gbc.weighty = 1.0;
@@ -436,16 +954,19 @@ public class SynthGui extends JFrame {
 
     // --- Step Grid ---
     private JPanel createStepGridPanel() {
-        JPanel panel = new JPanel(new GridLayout(2, 16, 2, 2));
-        panel.setBorder(BorderFactory.createTitledBorder("Step Grid (Degré / Gate)"));
-        panel.setPreferredSize(new Dimension(750, 80));
+        JPanel panel = new JPanel(new GridLayout(5, 16, 2, 2));
+        panel.setBorder(BorderFactory.createTitledBorder("Step Grid (Degré / Gate / Vélocité / Proba % / Ratchets)"));
+        panel.setPreferredSize(new Dimension(750, 170));
 
         for (int i = 0; i < 16; i++) {
             SpinnerNumberModel spinnerModel = new SpinnerNumberModel(
                     sequencer.scaleDegrees[i], -12, 12, 1 );
             JSpinner noteSpinner = new JSpinner(spinnerModel);
             final int stepIndex = i;
-            noteSpinner.addChangeListener(e -> sequencer.scaleDegrees[stepIndex] = (int) noteSpinner.getValue());
+            noteSpinner.addChangeListener(e -> {
+                if (!refreshing) sequencer.scaleDegrees[stepIndex] = (int) noteSpinner.getValue();
+            });
+            refreshers.add(() -> noteSpinner.setValue(sequencer.scaleDegrees[stepIndex]));
             noteSpinner.setEditor(new JSpinner.NumberEditor(noteSpinner, "#"));
             panel.add(noteSpinner);
         }
@@ -455,9 +976,41 @@ public class SynthGui extends JFrame {
             gateCheck.setSelected(sequencer.gates[i]);
             final int stepIndex = i;
             gateCheck.addActionListener(e -> sequencer.gates[stepIndex] = gateCheck.isSelected());
+            refreshers.add(() -> gateCheck.setSelected(sequencer.gates[stepIndex]));
             gateCheck.setHorizontalAlignment(SwingConstants.CENTER);
             panel.add(gateCheck);
         }
+
+        // Réglages par pas du pattern principal (vélocité, probabilité, répétitions)
+        Pattern pattern = sequencer.mainPattern;
+        for (int i = 0; i < 16; i++) {
+            final int stepIndex = i;
+            JSpinner velocitySpinner = new JSpinner(new SpinnerNumberModel(pattern.velocities[i], 1, 127, 1));
+            velocitySpinner.addChangeListener(e -> {
+                if (!refreshing) pattern.velocities[stepIndex] = (int) velocitySpinner.getValue();
+            });
+            refreshers.add(() -> velocitySpinner.setValue(pattern.velocities[stepIndex]));
+            panel.add(velocitySpinner);
+        }
+        for (int i = 0; i < 16; i++) {
+            final int stepIndex = i;
+            JSpinner probabilitySpinner = new JSpinner(new SpinnerNumberModel(
+                    (int) Math.round(pattern.probabilities[i] * 100.0), 0, 100, 5));
+            probabilitySpinner.addChangeListener(e -> {
+                if (!refreshing) pattern.probabilities[stepIndex] = (int) probabilitySpinner.getValue() / 100.0;
+            });
+            refreshers.add(() -> probabilitySpinner.setValue((int) Math.round(pattern.probabilities[stepIndex] * 100.0)));
+            panel.add(probabilitySpinner);
+        }
+        for (int i = 0; i < 16; i++) {
+            final int stepIndex = i;
+            JSpinner ratchetSpinner = new JSpinner(new SpinnerNumberModel(pattern.ratchets[i], 1, Pattern.MAX_RATCHETS, 1));
+            ratchetSpinner.addChangeListener(e -> {
+                if (!refreshing) pattern.ratchets[stepIndex] = (int) ratchetSpinner.getValue();
+            });
+            refreshers.add(() -> ratchetSpinner.setValue(pattern.ratchets[stepIndex]));
+            panel.add(ratchetSpinner);
+        }
         return panel;
     }
 
@@ -2,41 +2,123 @@ package com.morgan;
 
 import javax.sound.midi.*;
 import javax.swing.SwingUtilities;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 public class SynthMain {
 
-    // --- CLASSE POUR L'ÉTAT DU MAPPING (inchangée) ---
+    // Attente maximale de la fin du rendu à l'arrêt du processus (une écriture peut rester bloquée)
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 5;
+
+    // --- ÉTAT DU MIDI LEARN (les assignations elles-mêmes sont dans AudioEngine.controlMap) ---
     public static class MappingState {
+        // null = inactif, "ACTIF" = en attente d'un contrôle GUI, sinon nom du paramètre à assigner
         public volatile String awaitingParameter = null;
-        public final Map<Integer, String> assignmentMap = new HashMap<>();
-
-        public MappingState() {
-            assignmentMap.put(74, "filter.cutoff");
-            assignmentMap.put(71, "filter.resonance");
-            assignmentMap.put(7, "masterVolume");
-            assignmentMap.put(1, "mixer.blend");
-        }
     }
 
     public static final MappingState MAPPING_STATE = new MappingState();
 
     public static void main(String[] args) throws Exception {
-        // 1. Démarrage du moteur et du séquenceur (inchangé)
+        // Mode serveur (--headless ou -Dsynth.headless=true) : ni Swing, ni énumération des périphériques MIDI
+        boolean headless = Boolean.getBoolean("synth.headless") || Arrays.asList(args).contains("--headless");
+        // Sortie : -Dsynth.sink=javasound|null|file:chemin|socket:hôte:port|pipe:chemin|pipe:-
+        //          -Dsynth.realTime=true|false (cadence sur l'horloge murale, voir AudioSink.fromSpec)
+        String sinkSpec = System.getProperty("synth.sink", headless ? "null" : "javasound");
+        String realTime = System.getProperty("synth.realTime");
+        if (sinkSpec.equals("pipe:-")) {
+            System.setOut(System.err); // La sortie standard transporte l'audio
+        }
+
+        // 1. Démarrage du moteur et du séquenceur
         AudioEngine audioEngine = new AudioEngine();
+        // Rendu parallèle des voix (optionnel) : -Dsynth.renderThreads=N
+        audioEngine.setParallelRendering(Integer.getInteger("synth.renderThreads", 0));
+        // Lissage des paramètres : -Dsynth.smoothingMs=N (0 = désactivé)
+        audioEngine.setSmoothingTime(Integer.getInteger("synth.smoothingMs",
+                (int) Math.round(SmoothedValue.DEFAULT_RAMP_TIME * 1000.0)) / 1000.0);
+        // Suréchantillonnage du filtre des voix : -Dsynth.oversampling=1|2|4|8
+        audioEngine.setFilterOversampling(Integer.getInteger("synth.oversampling", 1));
+        // Sortie audio : -Dsynth.periodFrames=N -Dsynth.periodCount=N -Dsynth.channels=N
+        //               -Dsynth.sampleFormat=PCM_16|PCM_24|FLOAT_32
+        audioEngine.setOutputConfig(new OutputConfig(
+                Integer.getInteger("synth.periodFrames", OutputConfig.DEFAULT_PERIOD_FRAMES),
+                Integer.getInteger("synth.periodCount", OutputConfig.DEFAULT_PERIOD_COUNT),
+                Integer.getInteger("synth.channels", OutputConfig.DEFAULT_CHANNELS),
+                SampleFormat.valueOf(System.getProperty("synth.sampleFormat", SampleFormat.PCM_16.name()))));
+        // Chemin SIMD si la JVM est lancée avec --add-modules jdk.incubator.vector -XX:MaxInlineLevel=24
+        // (-Dsynth.vector=false pour le désactiver)
+        System.out.println("Opérations de bloc : " + BlockKernels.get().name());
+        AudioSink sink = AudioSink.fromSpec(sinkSpec, (realTime != null) ? Boolean.valueOf(realTime) : null);
+        audioEngine.setSink(sink);
+        System.out.println("Sortie audio : " + sink);
+        // Mesures du thread audio exposées en JMX (com.morgan:type=AudioEngine)
+        EngineMonitor.register(audioEngine);
+
+        // Le séquenceur n'a plus de thread : il suit l'horloge échantillon du moteur
+        StepSequencer sequencer = new StepSequencer(audioEngine);
+        audioEngine.setSequencer(sequencer);
+
+        if (headless) {
+            runHeadless(audioEngine, sequencer);
+            return;
+        }
+
         Thread audioThread = new Thread(audioEngine);
         audioThread.setPriority(Thread.MAX_PRIORITY);
         audioThread.start();
 
-        StepSequencer sequencer = new StepSequencer(audioEngine);
-        Thread sequencerThread = new Thread(sequencer);
-        sequencerThread.start();
-
         SwingUtilities.invokeLater(() -> {
             new SynthGui(audioEngine, sequencer);
         });
 
+        connectMidi(audioEngine);
+    }
+
+    /**
+     * Mode serveur : preset (-Dsynth.preset=fichier.msyp), séquenceur lancé (-Dsynth.play=true),
+     * durée (-Dsynth.durationSeconds=N, sinon jusqu'à l'arrêt du processus),
+     * MIDI seulement sur demande (-Dsynth.midi=true). Le thread audio tourne dans le thread principal.
+     */
+    private static void runHeadless(AudioEngine audioEngine, StepSequencer sequencer) throws Exception {
+        String preset = System.getProperty("synth.preset");
+        if (preset != null) {
+            audioEngine.loadPreset(PresetFormat.read(Path.of(preset)));
+        }
+        if (Boolean.getBoolean("synth.play")) {
+            sequencer.start();
+        }
+        String duration = System.getProperty("synth.durationSeconds");
+        if (duration != null) {
+            audioEngine.stopAt((long) (Double.parseDouble(duration) * audioEngine.SAMPLE_RATE));
+        }
+        if (Boolean.getBoolean("synth.midi")) {
+            connectMidi(audioEngine);
+        }
+
+        // Arrêt du processus (Ctrl+C, SIGTERM) : fin du rendu au bloc suivant et sortie fermée proprement
+        // (en-tête WAV complété) avant que la JVM ne s'arrête
+        CountDownLatch rendered = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            audioEngine.stop();
+            try {
+                rendered.await(SHUTDOWN_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, "synth-shutdown"));
+
+        Thread.currentThread().setPriority(Thread.MAX_PRIORITY);
+        try {
+            audioEngine.run();
+        } finally {
+            rendered.countDown();
+        }
+        System.out.println("Fin du rendu : " + audioEngine.getOutputStats());
+    }
+
+    private static void connectMidi(AudioEngine audioEngine) {
         // 2. Détection et connexion du MIDI (LOGIQUE CORRIGÉE)
         MidiDevice genericInputDevice = null; // Utilisé comme fallback
         MidiDevice preferredInputDevice = null; // L'appareil que nous voulons (MPK Mini)
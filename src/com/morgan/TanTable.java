@@ -0,0 +1,42 @@
+package com.morgan;
+
+/**
+ * Pré-déformation des filtres ZDF : g = tan(pi * fc / fs), tabulée une seule fois.
+ * Une lecture + une interpolation linéaire au lieu d'un Math.tan() : la modulation
+ * de cutoff échantillon par échantillon reste bon marché.
+ * Près de Nyquist la tangente diverge : on passe au calcul exact et on borne la
+ * fréquence juste sous fs/2 (g reste fini et positif, le filtre reste stable).
+ */
+public final class TanTable {
+
+    private static final int SIZE = 4096;
+    // Au-delà, la courbure de tan() rend l'interpolation linéaire trop imprécise
+    private static final double TABLE_LIMIT = 0.45;
+    private static final double MAX_NORMALIZED = 0.4999;
+    private static final double SCALE = SIZE / TABLE_LIMIT;
+
+    // TABLE[i] = tan(pi * i * TABLE_LIMIT / SIZE), un point de garde en fin de table
+    private static final double[] TABLE = build();
+
+    private TanTable() {}
+
+    /** tan(pi * normalizedFrequency), normalizedFrequency = fc / fs (borné à ]0, 0.4999]). */
+    public static double prewarp(double normalizedFrequency) {
+        double x = (normalizedFrequency > 0.0) ? normalizedFrequency : 0.0;
+        if (x < TABLE_LIMIT) {
+            double pos = x * SCALE;
+            int index = (int) pos;
+            double a = TABLE[index];
+            return a + (pos - index) * (TABLE[index + 1] - a);
+        }
+        return Math.tan(Math.PI * ((x < MAX_NORMALIZED) ? x : MAX_NORMALIZED));
+    }
+
+    private static double[] build() {
+        double[] table = new double[SIZE + 2];
+        for (int i = 0; i < table.length; i++) {
+            table[i] = Math.tan(Math.PI * i * TABLE_LIMIT / SIZE);
+        }
+        return table;
+    }
+}
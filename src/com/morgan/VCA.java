@@ -1,13 +1,18 @@
 package com.morgan;
 
+import java.util.Arrays;
+
 /**
  * VCA (Voltage-Controlled Amplifier).
  * Multiplie l'entrée audio par l'entrée de contrôle.
  */
 public class VCA implements AudioModule {
 
+    private static final BlockKernels KERNELS = BlockKernels.get();
+
     private AudioModule audioInput;
     private AudioModule controlInput;
+    private double[] controlBuffer; // Buffer de travail pour l'entrée de contrôle
 
     // --- "Patchs" d'entrée ---
     public void setAudioInput(AudioModule input) {
@@ -17,6 +22,21 @@ public class VCA implements AudioModule {
     public void setControlInput(AudioModule input) {
         this.controlInput = input;
     }
+
+    // Entrée 0 = audio, entrée 1 = contrôle
+    @Override
+    public int getInputCount() {
+        return 2;
+    }
+
+    @Override
+    public void setInput(int port, AudioModule input) {
+        switch (port) {
+            case 0: setAudioInput(input); break;
+            case 1: setControlInput(input); break;
+            default: AudioModule.super.setInput(port, input);
+        }
+    }
     // --------------------------
 
     @Override
@@ -31,4 +51,20 @@ public class VCA implements AudioModule {
 
         return audio * control; // Multiplication simple
     }
+
+    // --- Rendu par bloc : audio dans le buffer de sortie, contrôle dans un buffer de travail ---
+    @Override
+    public void processBlock(double[] buffer, int offset, int length) {
+        if (audioInput == null || controlInput == null) {
+            Arrays.fill(buffer, offset, offset + length, 0.0);
+            return;
+        }
+
+        audioInput.processBlock(buffer, offset, length);
+
+        controlBuffer = AudioModule.ensureCapacity(controlBuffer, length);
+        controlInput.processBlock(controlBuffer, 0, length);
+
+        KERNELS.multiply(buffer, offset, controlBuffer, 0, length);
+    }
 }
\ No newline at end of file
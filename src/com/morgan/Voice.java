@@ -0,0 +1,138 @@
+package com.morgan;
+
+/**
+ * Une voix de polyphonie : la chaîne complète osc → mixer → filtre → VCA,
+ * avec sa propre enveloppe. Le filtre (qui écrête) peut tourner suréchantillonné.
+ * Les voix sont préallouées par le VoicePool et recopient les réglages du patch courant
+ * (les modules "modèles" de l'AudioEngine).
+ * Chaque voix a aussi ses sources de modulation (LFO, enveloppe de modulation), évaluées une fois par bloc.
+ */
+public class Voice {
+
+    // --- Modules propres à la voix ---
+    final Oscillator osc1;
+    final Oscillator osc2;
+    final Mixer mixer;
+    final Filter filter;
+    private final Oversampler filterStage;
+    final EnvelopeGenerator env;
+    private final VCA vca;
+    private final VoiceModulation modulation;
+
+    // --- État d'allocation ---
+    int note = -1;          // Note MIDI jouée (-1 = libre)
+    int channel = 0;        // Canal MIDI de la note (voir VoicePool.noteOn)
+    boolean gate = false;   // Touche enfoncée ?
+    long startOrder = 0;    // Ordre de déclenchement (pour voler la plus ancienne)
+
+    // --- Panoramique (sortie multicanal du VoicePool, voir MixBus) ---
+    double pan = 0.0;                                           // -1 à +1, fixé au note-on
+    final double[] panGains = new double[MixBus.MAX_CHANNELS];  // Gains par canal, recalculés si pan change
+    double appliedPan = Double.NaN;
+    int appliedChannels = 0;
+
+    public Voice(double sampleRate) {
+        osc1   = new Oscillator(sampleRate);
+        osc2   = new Oscillator(sampleRate);
+        mixer  = new Mixer(sampleRate);
+        filter = new Filter(sampleRate);
+        env    = new EnvelopeGenerator(sampleRate);
+        vca    = new VCA();
+        filterStage = new Oversampler(sampleRate, 1);
+        modulation = new VoiceModulation(sampleRate, osc1, osc2, mixer, filter);
+
+        // PATCHING (même câblage que l'ancien moteur monophonique, filtre dans l'Oversampler)
+        mixer.setInputA(osc1);
+        mixer.setInputB(osc2);
+        filterStage.setInput(mixer);
+        filter.setInput(filterStage.getFeed());
+        filterStage.wrap(filter);
+        vca.setAudioInput(filterStage);
+        vca.setControlInput(env);
+    }
+
+    /** Graines du bruit des oscillateurs et des LFO de la voix (rendus reproductibles). */
+    public void setRandomSeed(long seed) {
+        osc1.setNoiseSeed(seed);
+        osc2.setNoiseSeed(seed + 1);
+        modulation.setRandomSeed(seed + 2);
+    }
+
+    /** Recopie les réglages du patch courant dans les modules de la voix (sans allocation). */
+    public void applyPatch(Oscillator patchOsc1, Oscillator patchOsc2, Mixer patchMixer,
+                           Filter patchFilter, EnvelopeGenerator patchEnv, ModulationMatrix patchModulation) {
+        osc1.copySettingsFrom(patchOsc1);
+        osc2.copySettingsFrom(patchOsc2);
+        mixer.copySettingsFrom(patchMixer);
+        filter.copySettingsFrom(patchFilter);
+        env.copySettingsFrom(patchEnv);
+        modulation.copySettingsFrom(patchModulation);
+    }
+
+    /** Évalue les routes de modulation pour le prochain bloc de 'length' échantillons. */
+    void modulate(ModulationMatrix.Routing routing, int length, double aftertouch, double modWheel) {
+        modulation.evaluate(routing, length, aftertouch, modWheel);
+    }
+
+    /** Durée des rampes de lissage des paramètres (pitch, blend, cutoff, résonance). */
+    public void setSmoothingTime(double seconds) {
+        osc1.setSmoothingTime(seconds);
+        osc2.setSmoothingTime(seconds);
+        mixer.setSmoothingTime(seconds);
+        filter.setSmoothingTime(seconds);
+    }
+
+    /** Suréchantillonnage du filtre : 1 (désactivé), 2, 4 ou 8. Thread audio uniquement. */
+    public void setFilterOversampling(int factor) {
+        filterStage.setFactor(factor);
+    }
+
+    /** Déclenche la voix sur une nouvelle note (la vélocité règle le niveau crête de l'enveloppe). */
+    public void start(int note, int velocity, long order) {
+        this.note = note;
+        this.gate = true;
+        this.startOrder = order;
+
+        double freq = midiToFrequency(note);
+        osc1.setBaseFrequency(freq);
+        osc2.setBaseFrequency(freq);
+
+        // Une voix restée muette n'a pas fait avancer ses rampes : elle part des réglages courants
+        mixer.jumpToTargets();
+        filter.jumpToTargets();
+
+        // L'attaque repart de la valeur actuelle : pas de clic en cas de vol de voix
+        env.noteOn(velocity);
+        modulation.noteOn(note, velocity);
+    }
+
+    /** Passe la voix en release. */
+    public void release() {
+        gate = false;
+        env.noteOff();
+        modulation.noteOff();
+    }
+
+    /** Une voix dont l'enveloppe est revenue à IDLE ne coûte plus rien. */
+    public boolean isIdle() {
+        return env.isIdle();
+    }
+
+    public double getLevel() {
+        return env.getCurrentValue();
+    }
+
+    // Rendu échantillon par échantillon : les modulations restent celles du dernier bloc
+    public double tick() {
+        return vca.tick();
+    }
+
+    public void processBlock(double[] buffer, int offset, int length) {
+        vca.processBlock(buffer, offset, length);
+        modulation.applyAmplitude(buffer, offset, length);
+    }
+
+    private static double midiToFrequency(int note) {
+        return 440.0 * Math.pow(2.0, (note - 69.0) / 12.0);
+    }
+}
@@ -0,0 +1,158 @@
+package com.morgan;
+
+import com.morgan.ModulationMatrix.Destination;
+import com.morgan.ModulationMatrix.Source;
+
+import java.util.Arrays;
+
+/**
+ * Modulation d'une voix : ses propres LFO et enveloppe de modulation, et l'évaluation
+ * du plan compilé de la matrice une fois par bloc. Les valeurs de destination sont
+ * poussées dans les modules de la voix, qui les interpolent sur le bloc suivant.
+ * Aucune route : rien n'est évalué, la voix ne paie rien.
+ */
+final class VoiceModulation {
+
+    // Index des sources et destinations (ordinaux figés : pas de values() sur le thread audio)
+    private static final int LFO1 = Source.LFO1.ordinal();
+    private static final int LFO2 = Source.LFO2.ordinal();
+    private static final int MOD_ENV = Source.MOD_ENV.ordinal();
+    private static final int VELOCITY = Source.VELOCITY.ordinal();
+    private static final int AFTERTOUCH = Source.AFTERTOUCH.ordinal();
+    private static final int MOD_WHEEL = Source.MOD_WHEEL.ordinal();
+    private static final int KEY = Source.KEY.ordinal();
+
+    private static final int PITCH = Destination.PITCH.ordinal();
+    private static final int OSC1_PITCH = Destination.OSC1_PITCH.ordinal();
+    private static final int OSC2_PITCH = Destination.OSC2_PITCH.ordinal();
+    private static final int MIXER_BLEND = Destination.MIXER_BLEND.ordinal();
+    private static final int FILTER_CUTOFF = Destination.FILTER_CUTOFF.ordinal();
+    private static final int FILTER_RESONANCE = Destination.FILTER_RESONANCE.ordinal();
+    private static final int AMPLITUDE = Destination.AMPLITUDE.ordinal();
+    private static final int LFO1_RATE = Destination.LFO1_RATE.ordinal();
+    private static final int LFO2_RATE = Destination.LFO2_RATE.ordinal();
+
+    private static final double OCTAVE_LOG = Math.log(2.0);
+
+    final Lfo lfo1;
+    final Lfo lfo2;
+    final EnvelopeGenerator modEnv;
+
+    private final Oscillator osc1;
+    private final Oscillator osc2;
+    private final Mixer mixer;
+    private final Filter filter;
+
+    private final double[] sourceValues = new double[ModulationMatrix.SOURCES.length];
+    private final double[] destinationValues = new double[ModulationMatrix.DESTINATIONS.length];
+    private double[] envBuffer;
+
+    private boolean active = false;          // Des modulations ont été poussées dans les modules
+    private double lfo1RateFactor = 1.0;
+    private double lfo2RateFactor = 1.0;
+    private double amplitudeStart = 1.0;     // Gain de la voix au début et à la fin du bloc
+    private double amplitude = 1.0;
+
+    VoiceModulation(double sampleRate, Oscillator osc1, Oscillator osc2, Mixer mixer, Filter filter) {
+        this.lfo1 = new Lfo(sampleRate);
+        this.lfo2 = new Lfo(sampleRate);
+        this.modEnv = new EnvelopeGenerator(sampleRate);
+        this.osc1 = osc1;
+        this.osc2 = osc2;
+        this.mixer = mixer;
+        this.filter = filter;
+    }
+
+    void copySettingsFrom(ModulationMatrix matrix) {
+        lfo1.copySettingsFrom(matrix.lfo1);
+        lfo2.copySettingsFrom(matrix.lfo2);
+        modEnv.copySettingsFrom(matrix.modEnv);
+    }
+
+    /** Graines des LFO de la voix (rendus reproductibles). */
+    void setRandomSeed(long seed) {
+        lfo1.setRandomSeed(seed);
+        lfo2.setRandomSeed(seed + 1);
+    }
+
+    void noteOn(int note, int velocity) {
+        sourceValues[VELOCITY] = velocity / 127.0;
+        sourceValues[KEY] = (note - 60) / 60.0;
+        lfo1.noteOn();
+        lfo2.noteOn();
+        modEnv.noteOn(velocity);
+    }
+
+    void noteOff() {
+        modEnv.noteOff();
+    }
+
+    /**
+     * Avance les sources de 'length' échantillons, évalue les routes et pousse
+     * les valeurs dans les modules de la voix (appelé avant le rendu du bloc).
+     */
+    void evaluate(ModulationMatrix.Routing routing, int length, double aftertouch, double modWheel) {
+        amplitudeStart = amplitude;
+        final double[] dst = destinationValues;
+
+        if (routing.count == 0) {
+            if (active) {
+                // Dernières routes supprimées : retour aux réglages du patch sur un bloc
+                Arrays.fill(dst, 0.0);
+                push(dst);
+                active = false;
+            }
+            return;
+        }
+        active = true;
+
+        // 1. Sources utilisées par au moins une route (vitesse des LFO : modulation du bloc précédent)
+        final double[] src = sourceValues;
+        final int used = routing.sourceMask;
+        if ((used & (1 << LFO1)) != 0) src[LFO1] = lfo1.advance(length, lfo1RateFactor);
+        if ((used & (1 << LFO2)) != 0) src[LFO2] = lfo2.advance(length, lfo2RateFactor);
+        if ((used & (1 << MOD_ENV)) != 0) {
+            envBuffer = AudioModule.ensureCapacity(envBuffer, length);
+            modEnv.processBlock(envBuffer, 0, length);
+            src[MOD_ENV] = envBuffer[length - 1];
+        }
+        src[AFTERTOUCH] = aftertouch;
+        src[MOD_WHEEL] = modWheel;
+
+        // 2. Routes : tableaux plats, une multiplication-addition par route
+        final int count = routing.count;
+        final int[] sources = routing.sources;
+        final int[] destinations = routing.destinations;
+        final double[] depths = routing.depths;
+        Arrays.fill(dst, 0.0);
+        for (int r = 0; r < count; r++) {
+            dst[destinations[r]] += src[sources[r]] * depths[r];
+        }
+
+        push(dst);
+    }
+
+    private void push(double[] dst) {
+        osc1.setPitchModulation(dst[PITCH] + dst[OSC1_PITCH]);
+        osc2.setPitchModulation(dst[PITCH] + dst[OSC2_PITCH]);
+        mixer.setBlendModulation(dst[MIXER_BLEND]);
+        filter.setModulation(dst[FILTER_CUTOFF], dst[FILTER_RESONANCE]);
+        lfo1RateFactor = (dst[LFO1_RATE] == 0.0) ? 1.0 : Math.exp(dst[LFO1_RATE] * OCTAVE_LOG);
+        lfo2RateFactor = (dst[LFO2_RATE] == 0.0) ? 1.0 : Math.exp(dst[LFO2_RATE] * OCTAVE_LOG);
+        double gain = 1.0 + dst[AMPLITUDE];
+        amplitude = (gain < 0.0) ? 0.0 : gain;
+    }
+
+    /** Gain de modulation d'amplitude, en rampe sur le bloc (rien à faire s'il reste à 1). */
+    void applyAmplitude(double[] buffer, int offset, int length) {
+        final double start = amplitudeStart;
+        final double end = amplitude;
+        if (start == 1.0 && end == 1.0) return;
+        final double step = (end - start) / length;
+        double gain = start;
+        for (int i = offset; i < offset + length; i++) {
+            gain += step;
+            buffer[i] *= gain;
+        }
+    }
+}
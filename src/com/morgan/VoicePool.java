@@ -0,0 +1,304 @@
+package com.morgan;
+
+import java.util.Arrays;
+
+/**
+ * Allocateur de voix polyphonique.
+ * Toutes les voix sont créées une fois pour toutes : un note-on n'alloue rien.
+ * Vol de voix : une voix libre d'abord, sinon la plus faible des voix en release,
+ * sinon la plus ancienne des voix tenues.
+ * En sortie multicanal, chaque voix peut être panoramiquée selon sa note (écartement stéréo).
+ */
+public class VoicePool implements MixBus.MultichannelSource {
+
+    public static final int MIN_VOICES = 8;
+    public static final int MAX_VOICES = 64;
+
+    private static final BlockKernels KERNELS = BlockKernels.get();
+
+    private final Voice[] voices;
+    private long noteCounter = 0; // Ordre de déclenchement des notes
+
+    // --- Patch courant (modules "modèles" que la GUI et le MIDI modifient) ---
+    private final Oscillator patchOsc1;
+    private final Oscillator patchOsc2;
+    private final Mixer patchMixer;
+    private final Filter patchFilter;
+    private final EnvelopeGenerator patchEnv;
+    private final ModulationMatrix patchModulation;
+
+    // --- Contrôleurs globaux lus par les sources de modulation (0..1, écrits par le thread audio) ---
+    private volatile double aftertouch = 0.0;
+    private volatile double modWheel = 0.0;
+
+    // Écartement stéréo : 0 = toutes les voix au centre (sortie mono), 1 = de -1 à +1 sur 4 octaves
+    private volatile double panSpread = 0.0;
+
+    private double[] voiceBuffer; // Buffer de travail pour le rendu d'une voix
+
+    // Rendu multi-cœur optionnel (null = mono-thread) : demandé par setParallelism(),
+    // adopté par le thread audio entre deux blocs (l'ancien est alors arrêté par lui)
+    private volatile ParallelVoiceRenderer parallelRenderer;
+    private ParallelVoiceRenderer activeRenderer;   // Thread audio
+
+    public VoicePool(int voiceCount, double sampleRate,
+                     Oscillator patchOsc1, Oscillator patchOsc2, Mixer patchMixer,
+                     Filter patchFilter, EnvelopeGenerator patchEnv, ModulationMatrix patchModulation) {
+        int count = Math.max(MIN_VOICES, Math.min(MAX_VOICES, voiceCount)); // Clamper entre 8 et 64
+        this.patchOsc1 = patchOsc1;
+        this.patchOsc2 = patchOsc2;
+        this.patchMixer = patchMixer;
+        this.patchFilter = patchFilter;
+        this.patchEnv = patchEnv;
+        this.patchModulation = patchModulation;
+
+        voices = new Voice[count];
+        for (int i = 0; i < count; i++) {
+            voices[i] = new Voice(sampleRate);
+            voices[i].applyPatch(patchOsc1, patchOsc2, patchMixer, patchFilter, patchEnv, patchModulation);
+        }
+    }
+
+    public int getVoiceCount() {
+        return voices.length;
+    }
+
+    /** Applique la durée de lissage des paramètres à toutes les voix. */
+    public void setSmoothingTime(double seconds) {
+        for (Voice voice : voices) {
+            voice.setSmoothingTime(seconds);
+        }
+    }
+
+    /** Suréchantillonnage du filtre de chaque voix (1, 2, 4 ou 8). Thread audio uniquement. */
+    public void setFilterOversampling(int factor) {
+        for (Voice voice : voices) {
+            voice.setFilterOversampling(factor);
+        }
+    }
+
+    /** Aftertouch (pression de canal), 0 à 1. Thread audio uniquement. */
+    public void setAftertouch(double value) {
+        this.aftertouch = value;
+    }
+
+    /** Molette de modulation, 0 à 1. Thread audio uniquement. */
+    public void setModWheel(double value) {
+        this.modWheel = value;
+    }
+
+    public double getAftertouch() {
+        return aftertouch;
+    }
+
+    public double getModWheel() {
+        return modWheel;
+    }
+
+    /** Écartement stéréo des voix selon leur note (0 à 1), pris en compte aux note-on suivants. */
+    public void setPanSpread(double spread) {
+        this.panSpread = Math.max(0.0, Math.min(1.0, spread));
+    }
+
+    public double getPanSpread() {
+        return panSpread;
+    }
+
+    /** Graines de toutes les voix, distinctes d'une voix à l'autre (rendus reproductibles). */
+    public void setRandomSeed(long seed) {
+        for (int v = 0; v < voices.length; v++) {
+            voices[v].setRandomSeed(seed + 4L * v);
+        }
+    }
+
+    public int getActiveVoiceCount() {
+        int active = 0;
+        for (Voice voice : voices) {
+            if (!voice.isIdle()) active++;
+        }
+        return active;
+    }
+
+    /**
+     * Active le rendu parallèle avec le nombre de threads de rendu donné
+     * (en plus du thread audio), ou le désactive avec 0.
+     * Limité au nombre de cœurs disponibles moins un (celui du thread audio).
+     * À appeler hors du thread audio. Le renderer remplacé est arrêté par le thread audio
+     * au bloc suivant (l'arrêter pendant un rendu bloquerait la barrière), ou ici s'il n'a jamais servi.
+     */
+    public synchronized void setParallelism(int workerThreads) {
+        int workers = Math.min(workerThreads, Runtime.getRuntime().availableProcessors() - 1);
+        ParallelVoiceRenderer previous = parallelRenderer;
+        parallelRenderer = (workers > 0) ? new ParallelVoiceRenderer(this, voices, workers) : null;
+        if (previous != null) previous.retireIfUnused();
+    }
+
+    // Thread audio, avant un rendu : adopte le renderer demandé et arrête le précédent,
+    // dont aucun worker n'a de bloc en cours à ce moment-là
+    private ParallelVoiceRenderer currentRenderer() {
+        ParallelVoiceRenderer requested = parallelRenderer;
+        if (requested != activeRenderer) {
+            if (activeRenderer != null) activeRenderer.shutdown();
+            activeRenderer = (requested != null && requested.adopt()) ? requested : null;
+        }
+        return activeRenderer;
+    }
+
+    public int getParallelism() {
+        ParallelVoiceRenderer renderer = parallelRenderer;
+        return (renderer != null) ? renderer.getWorkerCount() : 0;
+    }
+
+    // ============================================================
+    //  NOTE ON / NOTE OFF
+    // ============================================================
+    public void noteOn(int note, int velocity) {
+        noteOn(0, note, velocity);
+    }
+
+    /**
+     * Déclenche une note sur un canal MIDI (0-15). Le canal sépare les notes de sources
+     * différentes (pistes du séquenceur, claviers) : un note-off ne relâche que les voix
+     * de son canal, et une même note jouée sur deux canaux occupe deux voix.
+     */
+    public void noteOn(int channel, int note, int velocity) {
+        Voice voice = findVoice(channel, note);
+        voice.applyPatch(patchOsc1, patchOsc2, patchMixer, patchFilter, patchEnv, patchModulation);
+        voice.channel = channel;
+        // Do central au centre, ±2 octaves aux extrêmes
+        voice.pan = Math.max(-1.0, Math.min(1.0, panSpread * (note - 60) / 24.0));
+        voice.start(note, velocity, noteCounter++);
+    }
+
+    public void noteOff(int note) {
+        noteOff(0, note);
+    }
+
+    public void noteOff(int channel, int note) {
+        for (Voice voice : voices) {
+            if (voice.gate && voice.note == note && voice.channel == channel) {
+                voice.release();
+            }
+        }
+    }
+
+    private Voice findVoice(int channel, int note) {
+        // 1. Même note déjà en cours sur ce canal : on la redéclenche (pas de doublon)
+        for (Voice voice : voices) {
+            if (voice.note == note && voice.channel == channel && !voice.isIdle()) return voice;
+        }
+
+        // 2. Une voix libre
+        for (Voice voice : voices) {
+            if (voice.isIdle()) return voice;
+        }
+
+        // 3. La voix la plus faible parmi celles en release
+        Voice quietest = null;
+        for (Voice voice : voices) {
+            if (!voice.gate && (quietest == null || voice.getLevel() < quietest.getLevel())) {
+                quietest = voice;
+            }
+        }
+        if (quietest != null) return quietest;
+
+        // 4. La plus ancienne des voix tenues
+        Voice oldest = voices[0];
+        for (Voice voice : voices) {
+            if (voice.startOrder < oldest.startOrder) oldest = voice;
+        }
+        return oldest;
+    }
+
+    // ============================================================
+    //  RENDU
+    // ============================================================
+    @Override
+    public double tick() {
+        double sum = 0.0;
+        for (Voice voice : voices) {
+            if (!voice.isIdle()) sum += voice.tick();
+        }
+        return sum;
+    }
+
+    @Override
+    public void processBlock(double[] buffer, int offset, int length) {
+        ParallelVoiceRenderer renderer = currentRenderer();
+        if (renderer != null) {
+            renderer.render(buffer, offset, length, getActiveVoiceCount());
+        } else {
+            renderSerial(buffer, offset, length);
+        }
+    }
+
+    /** Rendu mono-thread : les voix sont additionnées dans l'ordre. */
+    void renderSerial(double[] buffer, int offset, int length) {
+        Arrays.fill(buffer, offset, offset + length, 0.0);
+        voiceBuffer = AudioModule.ensureCapacity(voiceBuffer, length);
+        final double[] vb = voiceBuffer;
+
+        for (Voice voice : voices) {
+            // Les voix au repos sont entièrement sautées
+            if (voice.isIdle()) continue;
+
+            renderVoice(voice, vb, length);
+            KERNELS.accumulate(buffer, offset, vb, 0, length);
+        }
+    }
+
+    // ============================================================
+    //  RENDU MULTICANAL (chaque voix à sa place dans l'image stéréo)
+    // ============================================================
+    @Override
+    public boolean rendersChannels(int channels) {
+        return channels > 1 && panSpread != 0.0;
+    }
+
+    @Override
+    public void renderChannels(double[] buffer, int frames, int channels) {
+        Arrays.fill(buffer, 0, frames * channels, 0.0);
+        ParallelVoiceRenderer renderer = currentRenderer();
+        if (renderer != null && renderer.renderVoices(frames, getActiveVoiceCount())) {
+            for (int v = 0; v < voices.length; v++) {
+                if (renderer.isRendered(v)) {
+                    panVoice(voices[v], renderer.getVoiceBuffer(v), buffer, frames, channels);
+                }
+            }
+            return;
+        }
+
+        voiceBuffer = AudioModule.ensureCapacity(voiceBuffer, frames);
+        final double[] vb = voiceBuffer;
+        for (Voice voice : voices) {
+            if (voice.isIdle()) continue;
+            renderVoice(voice, vb, frames);
+            panVoice(voice, vb, buffer, frames, channels);
+        }
+    }
+
+    // Ajoute la voix rendue dans le buffer entrelacé (gains recalculés seulement si le pan a changé)
+    private static void panVoice(Voice voice, double[] src, double[] buffer, int frames, int channels) {
+        if (voice.pan != voice.appliedPan || channels != voice.appliedChannels) {
+            MixBus.panGains(voice.pan, channels, 1.0, voice.panGains);
+            voice.appliedPan = voice.pan;
+            voice.appliedChannels = channels;
+        }
+        final double[] gains = voice.panGains;
+        for (int k = 0; k < channels; k++) {
+            final double g = gains[k];
+            if (g == 0.0) continue;
+            for (int i = 0, o = k; i < frames; i++, o += channels) {
+                buffer[o] += src[i] * g;
+            }
+        }
+    }
+
+    /** Rend une voix dans buffer[0 .. length[ (appelé par le thread audio ou un thread de rendu). */
+    void renderVoice(Voice voice, double[] buffer, int length) {
+        // Les réglages du patch sont suivis à chaque bloc
+        voice.applyPatch(patchOsc1, patchOsc2, patchMixer, patchFilter, patchEnv, patchModulation);
+        voice.modulate(patchModulation.routing(), length, aftertouch, modWheel);
+        voice.processBlock(buffer, 0, length);
+    }
+}
@@ -0,0 +1,119 @@
+package com.morgan;
+
+/**
+ * Tables d'ondes à bande limitée, précalculées une seule fois et partagées
+ * par tous les oscillateurs.
+ * Chaque forme d'onde a plusieurs niveaux (mip-maps) : le niveau k contient
+ * 1024 >> k harmoniques. L'oscillateur choisit le niveau selon sa fréquence
+ * pour qu'aucun harmonique ne se replie dans la bande audible (jusqu'à 20 kHz).
+ */
+public final class WavetableBank {
+
+    public static final int TABLE_SIZE = 2048;               // Échantillons par période
+    public static final int MAX_HARMONICS = TABLE_SIZE / 2;   // 1024 harmoniques au niveau 0
+    public static final int LEVELS = 11;                      // 1024, 512, ... 1 harmonique(s)
+
+    // Limite haute de la bande audible que l'on veut garder sans repliement
+    private static final double AUDIBLE_LIMIT = 20000.0;
+
+    // Chaque table a 1 point de garde avant et 3 après : table[i + 1] = onde(i)
+    // (interpolation linéaire et cubique sans modulo dans la boucle)
+    public static final int GUARD = 1;
+
+    private static final double[][] SQUARE = build(Oscillator.Waveform.SQUARE);
+    private static final double[][] SAWTOOTH = build(Oscillator.Waveform.SAWTOOTH);
+    private static final double[][] TRIANGLE = build(Oscillator.Waveform.TRIANGLE);
+    private static final double[] SINE = buildSine();
+
+    private WavetableBank() {}
+
+    /** Retourne la table adaptée à la forme d'onde et à la fréquence jouée. */
+    public static double[] table(Oscillator.Waveform waveform, double frequency, double sampleRate) {
+        switch (waveform) {
+            case SINE:     return SINE;
+            case SQUARE:   return SQUARE[level(frequency, sampleRate)];
+            case SAWTOOTH: return SAWTOOTH[level(frequency, sampleRate)];
+            case TRIANGLE: return TRIANGLE[level(frequency, sampleRate)];
+            default:       return null;
+        }
+    }
+
+    /**
+     * Niveau de mip-map : le plus riche dont tous les repliements
+     * (sampleRate - n * f) restent au-dessus de 20 kHz.
+     */
+    static int level(double frequency, double sampleRate) {
+        double limit = Math.max(sampleRate * 0.5, sampleRate - AUDIBLE_LIMIT);
+        double maxHarmonics = limit / Math.max(frequency, 1e-3);
+        int k = 0;
+        while (k < LEVELS - 1 && (MAX_HARMONICS >> k) > maxHarmonics) {
+            k++;
+        }
+        return k;
+    }
+
+    // --- Construction par synthèse additive ---
+    // sin(n.x) est obtenu par récurrence de Tchebychev : une multiplication par harmonique.
+    private static double[][] build(Oscillator.Waveform waveform) {
+        double[][] levels = new double[LEVELS][TABLE_SIZE + GUARD + 3];
+
+        for (int j = 0; j < TABLE_SIZE; j++) {
+            double x = 2.0 * Math.PI * j / TABLE_SIZE;
+            double twoCos = 2.0 * Math.cos(x);
+            double sinPrev = 0.0;        // sin(0.x)
+            double sinCurr = Math.sin(x); // sin(1.x)
+            double sum = 0.0;
+            int nextLevel = LEVELS - 1;  // Niveau le plus pauvre (1 harmonique) rempli en premier
+
+            for (int n = 1; n <= MAX_HARMONICS; n++) {
+                sum += coefficient(waveform, n) * sinCurr;
+
+                if (n == (MAX_HARMONICS >> nextLevel)) {
+                    levels[nextLevel][j + GUARD] = sum;
+                    nextLevel--;
+                }
+
+                double sinNext = twoCos * sinCurr - sinPrev;
+                sinPrev = sinCurr;
+                sinCurr = sinNext;
+            }
+        }
+
+        for (double[] table : levels) {
+            fillGuards(table);
+        }
+        return levels;
+    }
+
+    private static double[] buildSine() {
+        double[] table = new double[TABLE_SIZE + GUARD + 3];
+        for (int j = 0; j < TABLE_SIZE; j++) {
+            table[j + GUARD] = Math.sin(2.0 * Math.PI * j / TABLE_SIZE);
+        }
+        fillGuards(table);
+        return table;
+    }
+
+    // Séries de Fourier des formes d'onde "naïves" de l'Oscillator (même phase, même amplitude)
+    private static double coefficient(Oscillator.Waveform waveform, int n) {
+        switch (waveform) {
+            case SAWTOOTH: // (x / PI) - 1
+                return -2.0 / (Math.PI * n);
+            case SQUARE:   // +1 puis -1
+                return (n % 2 == 1) ? 4.0 / (Math.PI * n) : 0.0;
+            case TRIANGLE: // (2 / PI) * asin(sin(x))
+                if (n % 2 == 0) return 0.0;
+                double sign = ((n / 2) % 2 == 0) ? 1.0 : -1.0;
+                return sign * 8.0 / (Math.PI * Math.PI * n * n);
+            default:
+                return 0.0;
+        }
+    }
+
+    private static void fillGuards(double[] table) {
+        table[0] = table[TABLE_SIZE];                         // onde(-1)
+        table[TABLE_SIZE + GUARD]     = table[GUARD];         // onde(SIZE)
+        table[TABLE_SIZE + GUARD + 1] = table[GUARD + 1];     // onde(SIZE + 1)
+        table[TABLE_SIZE + GUARD + 2] = table[GUARD + 2];     // onde(SIZE + 2)
+    }
+}
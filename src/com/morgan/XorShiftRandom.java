@@ -0,0 +1,60 @@
+package com.morgan;
+
+/**
+ * Générateur pseudo-aléatoire xorshift64* : quelques décalages et une multiplication,
+ * aucun objet, aucune synchronisation (contrairement à java.util.Random).
+ * Une instance par module : à n'utiliser que depuis un seul thread (le thread audio).
+ */
+public class XorShiftRandom {
+
+    // Graines distinctes pour chaque instance créée sans graine explicite
+    private static long seedCounter = System.nanoTime();
+
+    private long state;
+
+    public XorShiftRandom() {
+        this(nextSeed());
+    }
+
+    public XorShiftRandom(long seed) {
+        setSeed(seed);
+    }
+
+    private static synchronized long nextSeed() {
+        seedCounter += 0x9E3779B97F4A7C15L;
+        return seedCounter;
+    }
+
+    /** Même graine = même suite (rendus hors temps réel reproductibles). */
+    public void setSeed(long seed) {
+        // Mélange (splitmix64) : l'état ne doit jamais valoir 0
+        long z = seed + 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z ^= z >>> 31;
+        state = (z != 0) ? z : 0x2545F4914F6CDD1DL;
+    }
+
+    public long nextLong() {
+        long x = state;
+        x ^= x >>> 12;
+        x ^= x << 25;
+        x ^= x >>> 27;
+        state = x;
+        return x * 0x2545F4914F6CDD1DL;
+    }
+
+    /** Valeur uniforme dans [0, 1[. */
+    public double nextDouble() {
+        return (nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /** Valeur uniforme dans [0, bound[ (bound > 0). */
+    public int nextInt(int bound) {
+        return (int) (((nextLong() >>> 32) * bound) >>> 32);
+    }
+
+    public boolean nextBoolean() {
+        return nextLong() < 0;
+    }
+}